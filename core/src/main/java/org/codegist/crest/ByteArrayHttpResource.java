@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * HttpResource backed by an in-memory response body, holds no network resource.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class ByteArrayHttpResource implements HttpResource {
+
+    private final byte[] content;
+
+    /**
+     * @param content response body, not copied
+     */
+    public ByteArrayHttpResource(byte[] content) {
+        this.content = content;
+    }
+
+    public InputStream getContent() throws HttpException {
+        return new ByteArrayInputStream(content);
+    }
+
+    public void release() throws HttpException {
+        // nothing to release
+    }
+}
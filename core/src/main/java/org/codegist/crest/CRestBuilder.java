@@ -25,19 +25,31 @@ import org.codegist.common.lang.Strings;
 import org.codegist.common.reflect.CglibProxyFactory;
 import org.codegist.common.reflect.JdkProxyFactory;
 import org.codegist.common.reflect.ProxyFactory;
+import org.codegist.crest.breaker.CircuitBreakerRegistry;
+import org.codegist.crest.cache.CoalescingRestService;
+import org.codegist.crest.cache.LruResponseCache;
+import org.codegist.crest.cache.ResponseCache;
 import org.codegist.crest.config.*;
+import org.codegist.crest.interceptor.CompositeRequestInterceptor;
+import org.codegist.crest.interceptor.RateLimitingInterceptor;
 import org.codegist.crest.interceptor.RequestInterceptor;
+import org.codegist.crest.limiter.ConcurrencyLimitingRestService;
 import org.codegist.crest.oauth.OAuthenticator;
 import org.codegist.crest.oauth.OAuthenticatorV10;
 import org.codegist.crest.oauth.Token;
+import org.codegist.crest.ratelimit.TokenBucketRegistry;
 import org.codegist.crest.security.AuthentificationManager;
 import org.codegist.crest.security.OAuthentificationManager;
 import org.codegist.crest.security.interceptor.AuthentificationInterceptor;
 import org.codegist.crest.serializer.*;
 import org.w3c.dom.Document;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.codegist.crest.CRestProperty.*;
 
@@ -80,6 +92,8 @@ public class CRestBuilder {
     private final static int PROXY_TYPE_JDK = 0;
     private final static int PROXY_TYPE_CGLIB = 1;
 
+    private final static String HTTP2_REST_SERVICE = "org.codegist.crest.http2.Http2RestService";
+
     private final static int DESERIALIZER_XML_JAXB = 1;
     private final static int DESERIALIZER_XML_SIMPLEXML = 2;
     private final static int DESERIALIZER_XML_CUSTOM = 3;
@@ -114,6 +128,7 @@ public class CRestBuilder {
     private RestService restService;
 
     private boolean useHttpClient = false;
+    private Constructor<?> http2RestService;
 
     public CRest build() {
         CRestContext context = buildContext();
@@ -135,10 +150,21 @@ public class CRestBuilder {
         AuthentificationManager authentificationManager = buildAuthentificationManager(restService);
         Maps.putIfNotPresent(customProperties, AuthentificationManager.class.getName(), authentificationManager);
 
+        if (customProperties.containsKey(CREST_RATE_LIMIT) || customProperties.containsKey(CREST_RATE_LIMIT_REGISTRY)) {
+            // one registry for all the interfaces, calls to the same host share their bucket
+            Maps.putIfNotPresent(customProperties, CREST_RATE_LIMIT_REGISTRY, new TokenBucketRegistry(customProperties));
+            Maps.putIfNotPresent(customProperties, CONFIG_INTERFACE_DEFAULT_GLOBAL_INTERCEPTOR, new RateLimitingInterceptor(customProperties));
+        }
+
         InterfaceConfigFactory configFactory = buildInterfaceConfigFactory();
 
         if (authentificationManager != null) {
             RequestInterceptor authentificationInterceptor = new AuthentificationInterceptor(authentificationManager);
+            Object defaultInterceptor = customProperties.get(CONFIG_INTERFACE_DEFAULT_GLOBAL_INTERCEPTOR);
+            if (defaultInterceptor instanceof RequestInterceptor) {
+                // the authentification interceptor overrides the interfaces one, keep the default one running first so that requests get signed last
+                authentificationInterceptor = new CompositeRequestInterceptor((RequestInterceptor) defaultInterceptor, authentificationInterceptor);
+            }
             try {
                 configFactory = new OverridingInterfaceConfigFactory(configFactory, new ConfigBuilders.InterfaceConfigBuilder()
                         .setGlobalInterceptor(authentificationInterceptor)
@@ -173,15 +199,30 @@ public class CRestBuilder {
     }
 
     private RestService buildRestService() {
+        RestService restService = this.restService;
         if (restService == null) {
-            if (useHttpClient) {
-                return HttpClientRestService.newRestService(customProperties);
+            if (http2RestService != null) {
+                try {
+                    restService = (RestService) http2RestService.newInstance(customProperties);
+                } catch (InvocationTargetException e) {
+                    throw new CRestException(e.getCause());
+                } catch (Exception e) {
+                    throw new CRestException(e);
+                }
+            } else if (useHttpClient) {
+                restService = HttpClientRestService.newRestService(customProperties);
             } else {
-                return new DefaultRestService();
+                restService = new DefaultRestService(customProperties);
             }
-        } else {
-            return restService;
         }
+        if (Boolean.TRUE.equals(customProperties.get(CREST_CONCURRENCY_LIMIT))) {
+            restService = new ConcurrencyLimitingRestService(restService, customProperties);
+        }
+        // coalesced requests share a single slot of the concurrency limit
+        if (Boolean.TRUE.equals(customProperties.get(CREST_REQUEST_COALESCING))) {
+            restService = new CoalescingRestService(restService, customProperties);
+        }
+        return restService;
     }
 
     private ProxyFactory buildProxyFactory() {
@@ -305,6 +346,254 @@ public class CRestBuilder {
         return this;
     }
 
+    /**
+     * Resulting CRest instance's RestService will be an instance of {@link org.codegist.crest.HttpClientRestService} backed by a pool of keep-alive connections.
+     *
+     * @param maxConnections maximum number of pooled connections, all end-points included
+     * @param maxConnectionsPerRoute maximum number of pooled connections to a single end-point
+     * @return current builder
+     * @see org.codegist.crest.HttpClientRestService#newRestService(int, int)
+     * @see CRestProperty#CREST_HTTP_MAX_CONNECTIONS
+     * @see CRestProperty#CREST_HTTP_MAX_CONNECTIONS_PER_ROUTE
+     */
+    public CRestBuilder useHttpClientRestService(int maxConnections, int maxConnectionsPerRoute) {
+        setProperty(CREST_HTTP_MAX_CONNECTIONS, maxConnections);
+        setProperty(CREST_HTTP_MAX_CONNECTIONS_PER_ROUTE, maxConnectionsPerRoute);
+        return useHttpClientRestService();
+    }
+
+    /**
+     * Resulting CRest instance's RestService will be an instance of org.codegist.crest.http2.Http2RestService, based on the JDK 11 http client and multiplexing the calls to an end-point over HTTP/2 connections.
+     * <p>Requires the codegist-crest-http2 module in the classpath and a Java 11 or later JVM, fails otherwise. Takes precedence over {@link #useHttpClientRestService()}.
+     *
+     * @return current builder
+     * @throws CRestException if the http2 module is missing or the running JVM doesn't support it
+     */
+    public CRestBuilder useHttp2RestService() throws CRestException {
+        try {
+            // loaded by name as the module is optional and needs a newer JVM than the core
+            this.http2RestService = Class.forName(HTTP2_REST_SERVICE).getConstructor(Map.class);
+        } catch (ClassNotFoundException e) {
+            throw new CRestException("HTTP/2 RestService requires the codegist-crest-http2 module in the classpath", e);
+        } catch (NoSuchMethodException e) {
+            throw new CRestException(e);
+        } catch (LinkageError e) {
+            throw new CRestException("HTTP/2 RestService requires a Java 11 or later JVM", e);
+        }
+        return this;
+    }
+
+    /**
+     * Resulting CRest instance's {@link org.codegist.crest.DefaultRestService} will leave connections in the JDK keep-alive cache rather than disconnecting them, draining up to {@link org.codegist.crest.DefaultRestService#DEFAULT_DRAIN_LIMIT} unread response bytes.
+     * <p>Has no effect when another RestService is used.
+     *
+     * @return current builder
+     * @see CRestProperty#CREST_HTTP_KEEP_ALIVE
+     */
+    public CRestBuilder useKeepAliveConnections() {
+        return setProperty(CREST_HTTP_KEEP_ALIVE, true);
+    }
+
+    /**
+     * Resulting CRest instance's {@link org.codegist.crest.DefaultRestService} will leave connections in the JDK keep-alive cache rather than disconnecting them.
+     * <p>Has no effect when another RestService is used.
+     *
+     * @param drainLimit maximum number of unread response bytes to drain, the connection is disconnected when more are left
+     * @return current builder
+     * @see CRestProperty#CREST_HTTP_KEEP_ALIVE
+     * @see CRestProperty#CREST_HTTP_KEEP_ALIVE_DRAIN_LIMIT
+     */
+    public CRestBuilder useKeepAliveConnections(int drainLimit) {
+        setProperty(CREST_HTTP_KEEP_ALIVE_DRAIN_LIMIT, drainLimit);
+        return useKeepAliveConnections();
+    }
+
+    /**
+     * Resulting CRest instance will cache the GET responses of every methods not explicitly configured otherwise, in a {@link org.codegist.crest.cache.LruResponseCache} of {@link org.codegist.crest.cache.LruResponseCache#DEFAULT_MAX_ENTRIES} entries.
+     * <p>Responses are cached and revalidated according to their Cache-Control, Expires, ETag and Last-Modified headers.
+     *
+     * @return current builder
+     * @see CRestProperty#CONFIG_METHOD_DEFAULT_CACHEABLE
+     * @see org.codegist.crest.annotate.Cacheable
+     */
+    public CRestBuilder useResponseCache() {
+        return setProperty(CONFIG_METHOD_DEFAULT_CACHEABLE, true);
+    }
+
+    /**
+     * Resulting CRest instance will cache the GET responses of every methods not explicitly configured otherwise, in a {@link org.codegist.crest.cache.LruResponseCache} of the given size.
+     *
+     * @param maxEntries maximum number of responses kept in the cache
+     * @return current builder
+     * @see #useResponseCache()
+     */
+    public CRestBuilder useResponseCache(int maxEntries) {
+        return useResponseCache(new LruResponseCache(maxEntries));
+    }
+
+    /**
+     * Resulting CRest instance will cache the GET responses of every methods not explicitly configured otherwise, in the given cache.
+     *
+     * @param responseCache cache to use
+     * @return current builder
+     * @see #useResponseCache()
+     * @see CRestProperty#CREST_RESPONSE_CACHE
+     */
+    public CRestBuilder useResponseCache(ResponseCache responseCache) {
+        setProperty(CREST_RESPONSE_CACHE, responseCache);
+        return useResponseCache();
+    }
+
+    /**
+     * Resulting CRest instance will fire a single network call for identical GET and HEAD requests issued concurrently, every caller sharing its response buffered in memory.
+     *
+     * @return current builder
+     * @see CRestProperty#CREST_REQUEST_COALESCING
+     * @see org.codegist.crest.cache.CoalescingRestService
+     */
+    public CRestBuilder useRequestCoalescing() {
+        return setProperty(CREST_REQUEST_COALESCING, true);
+    }
+
+    /**
+     * Resulting CRest instance will fire a single network call for identical GET and HEAD requests issued concurrently, as long as the response body isn't bigger than the given size.
+     *
+     * @param maxBufferSize maximum size in bytes of a response body shared between callers
+     * @return current builder
+     * @see #useRequestCoalescing()
+     * @see CRestProperty#CREST_REQUEST_COALESCING_MAX_BUFFER_SIZE
+     */
+    public CRestBuilder useRequestCoalescing(int maxBufferSize) {
+        setProperty(CREST_REQUEST_COALESCING_MAX_BUFFER_SIZE, maxBufferSize);
+        return useRequestCoalescing();
+    }
+
+    /**
+     * Resulting CRest instance will bound the requests in flight to each end point host with a limit adapting to the host latency, queueing the requests over the limit.
+     * <p>To monitor the limits, set a {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService} wrapping the rest service with {@link #setRestService(RestService)} instead.
+     *
+     * @return current builder
+     * @see CRestProperty#CREST_CONCURRENCY_LIMIT
+     * @see org.codegist.crest.limiter.ConcurrencyLimitingRestService
+     */
+    public CRestBuilder useConcurrencyLimiting() {
+        return setProperty(CREST_CONCURRENCY_LIMIT, true);
+    }
+
+    /**
+     * Resulting CRest instance will isolate the interfaces from each other with a bulkhead per interface, capping the requests each of them can have in flight. Requests finding their bulkhead full are rejected with a {@link org.codegist.crest.limiter.BulkheadFullException}.
+     * <p>Methods can still declare their own bulkhead, see {@link org.codegist.crest.annotate.Bulkhead}.
+     *
+     * @param maxConcurrentCalls maximum number of requests in flight per interface
+     * @return current builder
+     * @see CRestProperty#CONFIG_INTERFACE_DEFAULT_BULKHEAD
+     */
+    public CRestBuilder useBulkheads(int maxConcurrentCalls) {
+        return setProperty(CONFIG_INTERFACE_DEFAULT_BULKHEAD, maxConcurrentCalls);
+    }
+
+    /**
+     * Resulting CRest instance will isolate the interfaces from each other with a bulkhead per interface, capping the requests each of them can have in flight.
+     *
+     * @param maxConcurrentCalls maximum number of requests in flight per interface
+     * @param maxWait maximum time in milliseconds a request waits for a slot of its bulkhead, 0 to reject it straight away
+     * @return current builder
+     * @see #useBulkheads(int)
+     * @see CRestProperty#CREST_BULKHEAD_MAX_WAIT
+     */
+    public CRestBuilder useBulkheads(int maxConcurrentCalls, long maxWait) {
+        setProperty(CREST_BULKHEAD_MAX_WAIT, maxWait);
+        return useBulkheads(maxConcurrentCalls);
+    }
+
+    /**
+     * Resulting CRest instance will guard the requests with a circuit breaker per end point host, failing them fast with a {@link org.codegist.crest.breaker.CircuitBreakerOpenException} while too many calls to the host fail or are slow.
+     *
+     * @return current builder
+     * @see CRestProperty#CREST_CIRCUIT_BREAKER
+     * @see org.codegist.crest.breaker.CircuitBreaker
+     */
+    public CRestBuilder useCircuitBreakers() {
+        return setProperty(CREST_CIRCUIT_BREAKER, true);
+    }
+
+    /**
+     * Resulting CRest instance will guard the requests with the circuit breakers of the given registry, one per end point host.
+     *
+     * @param registry registry holding the circuit breakers, usable to monitor them
+     * @return current builder
+     * @see #useCircuitBreakers()
+     * @see CRestProperty#CREST_CIRCUIT_BREAKER_REGISTRY
+     */
+    public CRestBuilder useCircuitBreakers(CircuitBreakerRegistry registry) {
+        setProperty(CREST_CIRCUIT_BREAKER_REGISTRY, registry);
+        return useCircuitBreakers();
+    }
+
+    /**
+     * Resulting CRest instance will hedge the GET and HEAD requests of every methods not explicitly configured otherwise, firing an identical request once the first one is slower than the method's observed latency percentile, and keeping the first response received.
+     *
+     * @return current builder
+     * @see CRestProperty#CONFIG_METHOD_DEFAULT_HEDGE_DELAY
+     * @see CRestProperty#CREST_HEDGE_PERCENTILE
+     * @see org.codegist.crest.annotate.Hedged
+     */
+    public CRestBuilder useHedgedRequests() {
+        return useHedgedRequests(0);
+    }
+
+    /**
+     * Resulting CRest instance will hedge the GET and HEAD requests of every methods not explicitly configured otherwise, firing an identical request once the first one didn't respond after the given delay, and keeping the first response received.
+     *
+     * @param delay delay in milliseconds, 0 for the method's observed latency percentile
+     * @return current builder
+     * @see #useHedgedRequests()
+     */
+    public CRestBuilder useHedgedRequests(long delay) {
+        return setProperty(CONFIG_METHOD_DEFAULT_HEDGE_DELAY, delay);
+    }
+
+    /**
+     * Resulting CRest instance will give every methods not explicitly configured otherwise the given time to complete, all retry attempts included.
+     *
+     * @param deadline deadline in milliseconds
+     * @return current builder
+     * @see CRestProperty#CONFIG_METHOD_DEFAULT_DEADLINE
+     * @see org.codegist.crest.annotate.Deadline
+     * @see org.codegist.crest.Deadlines
+     */
+    public CRestBuilder useDeadlines(long deadline) {
+        return setProperty(CONFIG_METHOD_DEFAULT_DEADLINE, deadline);
+    }
+
+    /**
+     * Resulting CRest instance will keep the requests of every interfaces not declaring their own global interceptor under the given rate, per end point host, waiting for the rate limit up to {@link org.codegist.crest.interceptor.RateLimitingInterceptor#DEFAULT_MAX_WAIT}.
+     * <p>The rate limits follow the quota the servers send back, see {@link org.codegist.crest.interceptor.RateLimitingInterceptor}.
+     *
+     * @param permitsPerSecond number of requests per second
+     * @return current builder
+     * @see CRestProperty#CREST_RATE_LIMIT
+     * @see CRestProperty#CREST_RATE_LIMIT_BURST
+     * @see CRestProperty#CREST_RATE_LIMIT_PER_METHOD
+     */
+    public CRestBuilder useRateLimiting(double permitsPerSecond) {
+        return setProperty(CREST_RATE_LIMIT, permitsPerSecond);
+    }
+
+    /**
+     * Resulting CRest instance will keep the requests of every interfaces not declaring their own global interceptor under the given rate, per end point host.
+     *
+     * @param permitsPerSecond number of requests per second
+     * @param maxWait maximum time in milliseconds a request waits for the rate limit before failing with a {@link org.codegist.crest.ratelimit.RateLimitExceededException}, 0 to fail fast
+     * @return current builder
+     * @see #useRateLimiting(double)
+     * @see CRestProperty#CREST_RATE_LIMIT_MAX_WAIT
+     */
+    public CRestBuilder useRateLimiting(double permitsPerSecond, long maxWait) {
+        setProperty(CREST_RATE_LIMIT_MAX_WAIT, maxWait);
+        return useRateLimiting(permitsPerSecond);
+    }
+
     /**
      * Overrides the rest service every services build with the resulting CRest instance will use.
      *
@@ -326,6 +615,36 @@ public class CRestBuilder {
         return setProperty(CREST_CONCURRENCY_LEVEL, maxThread);
     }
 
+    /**
+     * Sets the executor the interfaces built with the resulting CRest instance will use to run the methods declaring a {@link java.util.concurrent.Future} return type.
+     * <p>The executor lifecycle is left to the caller, it won't be shut down when the CRest instance gets disposed.
+     *
+     * @param executor executor to use
+     * @return current builder
+     * @see CRestProperty#CREST_ASYNC_EXECUTOR
+     */
+    public CRestBuilder setAsyncExecutor(ExecutorService executor) {
+        return setProperty(CREST_ASYNC_EXECUTOR, executor);
+    }
+
+    /**
+     * Runs the methods declaring a {@link java.util.concurrent.Future} return type on virtual threads, one per call, rather than on a pooled platform thread.
+     * <p>Requires a JVM supporting virtual threads, fails otherwise. The executor is created and owned by the resulting CRest instance, it gets shut down when the CRest instance is disposed. An executor set with {@link #setAsyncExecutor(java.util.concurrent.ExecutorService)} takes precedence.
+     *
+     * @return current builder
+     * @throws CRestException if the running JVM doesn't support virtual threads
+     * @see CRestProperty#CREST_ASYNC_VIRTUAL_THREADS
+     */
+    public CRestBuilder useVirtualThreads() throws CRestException {
+        try {
+            // checked here to fail on build rather than on the first asynchronous call
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            throw new CRestException("Virtual threads are not supported by the running JVM", e);
+        }
+        return setProperty(CREST_ASYNC_VIRTUAL_THREADS, true);
+    }
+
     /**
      * Sets a custom property every services build with the resulting CRest instance will be passed.
      *
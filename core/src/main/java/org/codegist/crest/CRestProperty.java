@@ -46,6 +46,285 @@ public interface CRestProperty {
      */
     String CREST_CONCURRENCY_LEVEL = "crest.config.concurrency.level";
 
+    /**
+     * Executor running the interface methods that declare a {@link java.util.concurrent.Future} return type.
+     * <p>Expects an instance of {@link java.util.concurrent.ExecutorService}
+     * <p>Default to a cached thread pool owned (and shut down on dispose) by the CRest instance.
+     */
+    String CREST_ASYNC_EXECUTOR = "crest.config.async.executor";
+
+    /**
+     * Whether the default executor running the interface methods that declare a {@link java.util.concurrent.Future} return type starts a virtual thread per call. Like the default cached thread pool, it is owned (and shut down on dispose) by the CRest instance.
+     * <p>Expects a Boolean value, ignored when {@link #CREST_ASYNC_EXECUTOR} is set
+     * <p>Default to false
+     */
+    String CREST_ASYNC_VIRTUAL_THREADS = "crest.config.async.virtual-threads";
+
+    /**
+     * Maximum number of connections {@link org.codegist.crest.HttpClientRestService} keeps in its pool, all routes included.
+     * <p>Expects a Integer value
+     * <p>Default to {@link #CREST_CONCURRENCY_LEVEL}
+     */
+    String CREST_HTTP_MAX_CONNECTIONS = "crest.config.http.connections.max";
+
+    /**
+     * Maximum number of connections {@link org.codegist.crest.HttpClientRestService} keeps in its pool for a single route (scheme, host and port).
+     * <p>Expects a Integer value
+     * <p>Default to {@link #CREST_HTTP_MAX_CONNECTIONS}
+     */
+    String CREST_HTTP_MAX_CONNECTIONS_PER_ROUTE = "crest.config.http.connections.max-per-route";
+
+    /**
+     * Time in milliseconds after which {@link org.codegist.crest.HttpClientRestService} closes a pooled connection left idle, before the server closes it on its side. 0 or less keeps them open.
+     * <p>Expects a Long value
+     * <p>Default to {@link org.codegist.crest.HttpClientRestService#DEFAULT_IDLE_TIMEOUT}
+     */
+    String CREST_HTTP_IDLE_TIMEOUT = "crest.config.http.connections.idle-timeout";
+
+    /**
+     * Indicates whether {@link org.codegist.crest.DefaultRestService} should leave connections in the JDK keep-alive cache once a response has been consumed instead of disconnecting them.
+     * <p>Expects a Boolean value
+     * <p>Default to false
+     */
+    String CREST_HTTP_KEEP_ALIVE = "crest.config.http.keep-alive";
+
+    /**
+     * Maximum number of unread response bytes {@link org.codegist.crest.DefaultRestService} drains to keep a connection alive, the connection is disconnected when more are left.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.DefaultRestService#DEFAULT_DRAIN_LIMIT}
+     */
+    String CREST_HTTP_KEEP_ALIVE_DRAIN_LIMIT = "crest.config.http.keep-alive.drain-limit";
+
+    /**
+     * Store holding the responses of the methods configured as cacheable.
+     * <p>Expects an instance of {@link org.codegist.crest.cache.ResponseCache}
+     * <p>Default to a {@link org.codegist.crest.cache.LruResponseCache} of {@link org.codegist.crest.cache.LruResponseCache#DEFAULT_MAX_ENTRIES} entries.
+     * @see org.codegist.crest.config.MethodConfig#isCacheable()
+     */
+    String CREST_RESPONSE_CACHE = "crest.config.response-cache";
+
+    /**
+     * Maximum size in bytes of a response body the response cache stores, bigger responses are streamed through without being cached.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.cache.CachingRestService#DEFAULT_MAX_ENTRY_SIZE}
+     */
+    String CREST_RESPONSE_CACHE_MAX_ENTRY_SIZE = "crest.config.response-cache.max-entry-size";
+
+    /**
+     * Indicates whether identical GET and HEAD requests fired concurrently should share a single network call.
+     * <p>Expects a Boolean value
+     * <p>Default to false
+     * @see org.codegist.crest.cache.CoalescingRestService
+     */
+    String CREST_REQUEST_COALESCING = "crest.config.request-coalescing";
+
+    /**
+     * Maximum size in bytes of a response body shared between coalesced requests, the callers of bigger responses fire their own call.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.cache.CoalescingRestService#DEFAULT_MAX_BUFFER_SIZE}
+     */
+    String CREST_REQUEST_COALESCING_MAX_BUFFER_SIZE = "crest.config.request-coalescing.max-buffer-size";
+
+    /**
+     * Indicates whether the requests in flight to each end point host should be bounded by a limit adapting to the host latency, see {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService}.
+     * <p>Expects a Boolean value
+     * <p>Default to false
+     */
+    String CREST_CONCURRENCY_LIMIT = "crest.config.concurrency-limit";
+
+    /**
+     * Algorithm adapting the concurrency limits.
+     * <p>Expects one of {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#ALGORITHM_GRADIENT} or {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#ALGORITHM_AIMD}.
+     * <p>Default to {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#DEFAULT_ALGORITHM}
+     */
+    String CREST_CONCURRENCY_LIMIT_ALGORITHM = "crest.config.concurrency-limit.algorithm";
+
+    /**
+     * Concurrency limit of an end point host before any request completed.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#DEFAULT_INITIAL_LIMIT}
+     */
+    String CREST_CONCURRENCY_LIMIT_INITIAL = "crest.config.concurrency-limit.initial";
+
+    /**
+     * Lowest concurrency limit of an end point host.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#DEFAULT_MIN_LIMIT}
+     */
+    String CREST_CONCURRENCY_LIMIT_MIN = "crest.config.concurrency-limit.min";
+
+    /**
+     * Highest concurrency limit of an end point host, should not exceed the connections the rest service pools per route, see {@link #CREST_HTTP_MAX_CONNECTIONS_PER_ROUTE}.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#DEFAULT_MAX_LIMIT}
+     */
+    String CREST_CONCURRENCY_LIMIT_MAX = "crest.config.concurrency-limit.max";
+
+    /**
+     * Maximum number of requests waiting for an end point host under its concurrency limit, 0 to reject the requests over the limit straight away.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#DEFAULT_QUEUE_SIZE}
+     */
+    String CREST_CONCURRENCY_LIMIT_QUEUE_SIZE = "crest.config.concurrency-limit.queue-size";
+
+    /**
+     * Maximum time in milliseconds a request waits for an end point host under its concurrency limit before failing with a {@link org.codegist.crest.limiter.ConcurrencyLimitExceededException}.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.limiter.ConcurrencyLimitingRestService#DEFAULT_MAX_WAIT}
+     */
+    String CREST_CONCURRENCY_LIMIT_MAX_WAIT = "crest.config.concurrency-limit.max-wait";
+
+    /**
+     * Maximum time in milliseconds a request waits for a slot of a full bulkhead configured by size only (properties, xml or {@link #CONFIG_INTERFACE_DEFAULT_BULKHEAD}), 0 to reject it straight away with a {@link org.codegist.crest.limiter.BulkheadFullException}.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.limiter.Bulkhead#DEFAULT_MAX_WAIT}
+     */
+    String CREST_BULKHEAD_MAX_WAIT = "crest.config.bulkhead.max-wait";
+
+    /**
+     * Indicates whether the requests should be guarded by circuit breakers, one per end point host, failing fast with a {@link org.codegist.crest.breaker.CircuitBreakerOpenException} while the host is unhealthy.
+     * <p>Expects a Boolean value
+     * <p>Default to false
+     * @see org.codegist.crest.breaker.CircuitBreaker
+     */
+    String CREST_CIRCUIT_BREAKER = "crest.config.circuit-breaker";
+
+    /**
+     * Registry holding the circuit breakers, implies {@link #CREST_CIRCUIT_BREAKER}. Keep a reference to it to monitor the breakers.
+     * <p>Expects an instance of {@link org.codegist.crest.breaker.CircuitBreakerRegistry}
+     * <p>Default to a registry configured with the CRest properties.
+     */
+    String CREST_CIRCUIT_BREAKER_REGISTRY = "crest.config.circuit-breaker.registry";
+
+    /**
+     * Indicates whether each interface method should get its own circuit breaker instead of sharing the one of its end point host.
+     * <p>Expects a Boolean value
+     * <p>Default to false
+     */
+    String CREST_CIRCUIT_BREAKER_PER_METHOD = "crest.config.circuit-breaker.per-method";
+
+    /**
+     * Number of the last calls a circuit breaker computes its failure and slow call rates on.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_WINDOW_SIZE}
+     */
+    String CREST_CIRCUIT_BREAKER_WINDOW_SIZE = "crest.config.circuit-breaker.window-size";
+
+    /**
+     * Minimum number of calls recorded before a circuit breaker can open.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_MINIMUM_CALLS}
+     */
+    String CREST_CIRCUIT_BREAKER_MINIMUM_CALLS = "crest.config.circuit-breaker.minimum-calls";
+
+    /**
+     * Percentage of failed calls from which a circuit breaker opens.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_FAILURE_RATE}
+     */
+    String CREST_CIRCUIT_BREAKER_FAILURE_RATE = "crest.config.circuit-breaker.failure-rate";
+
+    /**
+     * Percentage of slow calls from which a circuit breaker opens.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_SLOW_CALL_RATE}
+     */
+    String CREST_CIRCUIT_BREAKER_SLOW_CALL_RATE = "crest.config.circuit-breaker.slow-call-rate";
+
+    /**
+     * Duration in milliseconds from which a call is considered slow.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_SLOW_CALL_DURATION}
+     */
+    String CREST_CIRCUIT_BREAKER_SLOW_CALL_DURATION = "crest.config.circuit-breaker.slow-call-duration";
+
+    /**
+     * Duration in milliseconds an open circuit breaker refuses the calls before letting trial calls through.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_OPEN_DURATION}
+     */
+    String CREST_CIRCUIT_BREAKER_OPEN_DURATION = "crest.config.circuit-breaker.open-duration";
+
+    /**
+     * Number of trial calls a half-open circuit breaker lets through to decide whether to close or open again.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.breaker.CircuitBreaker#DEFAULT_HALF_OPEN_CALLS}
+     */
+    String CREST_CIRCUIT_BREAKER_HALF_OPEN_CALLS = "crest.config.circuit-breaker.half-open-calls";
+
+    /**
+     * Strategy balancing the requests of the interfaces configured with several end-points.
+     * <p>Expects an instance of {@link org.codegist.crest.balancer.LoadBalancingStrategy} or one of {@link org.codegist.crest.balancer.LoadBalancer#STRATEGY_ROUND_ROBIN}, {@link org.codegist.crest.balancer.LoadBalancer#STRATEGY_LEAST_OUTSTANDING} or {@link org.codegist.crest.balancer.LoadBalancer#STRATEGY_LATENCY_WEIGHTED}.
+     * <p>Default to {@link org.codegist.crest.balancer.LoadBalancer#DEFAULT_STRATEGY}
+     * @see org.codegist.crest.config.InterfaceConfig#getEndPoints()
+     */
+    String CREST_LOAD_BALANCER_STRATEGY = "crest.config.load-balancer.strategy";
+
+    /**
+     * Number of consecutive failed requests after which an end-point is ejected from the load balancing.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.balancer.LoadBalancer#DEFAULT_MAX_FAILURES}
+     */
+    String CREST_LOAD_BALANCER_MAX_FAILURES = "crest.config.load-balancer.max-failures";
+
+    /**
+     * Duration in milliseconds an ejected end-point is left out of the load balancing.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.balancer.LoadBalancer#DEFAULT_EJECTION_DURATION}
+     */
+    String CREST_LOAD_BALANCER_EJECTION_DURATION = "crest.config.load-balancer.ejection-duration";
+
+    /**
+     * Budget capping the hedged requests fired, each request deposits to it and each hedge withdraws a whole token from it.
+     * <p>Expects an instance of {@link org.codegist.crest.handler.RetryBudget}.
+     * <p>Default to a budget of the CRest instance allowing {@link org.codegist.crest.hedge.HedgingRestService#DEFAULT_BUDGET_RATIO} hedge per request.
+     * @see org.codegist.crest.config.MethodConfig#getHedgeDelay()
+     */
+    String CREST_HEDGE_BUDGET = "crest.config.hedge.budget";
+
+    /**
+     * Latency percentile of a method after which a hedged request is fired, for the methods configured with a hedge delay of 0.
+     * <p>Expects a Integer value
+     * <p>Default to {@link org.codegist.crest.hedge.HedgingRestService#DEFAULT_PERCENTILE}
+     */
+    String CREST_HEDGE_PERCENTILE = "crest.config.hedge.percentile";
+
+    /**
+     * Number of requests per second the {@link org.codegist.crest.interceptor.RateLimitingInterceptor} lets through, per end point host. Setting it makes every interface not declaring its own global interceptor rate limited.
+     * <p>Expects a Double value
+     * <p>Default to {@link org.codegist.crest.ratelimit.TokenBucketRegistry#DEFAULT_RATE} when the interceptor is explicitly declared.
+     * @see org.codegist.crest.ratelimit.TokenBucket
+     */
+    String CREST_RATE_LIMIT = "crest.config.rate-limit";
+
+    /**
+     * Number of requests a rate limited host accepts at once, after being idle.
+     * <p>Expects a Integer value
+     * <p>Default to a second worth of requests.
+     */
+    String CREST_RATE_LIMIT_BURST = "crest.config.rate-limit.burst";
+
+    /**
+     * Maximum time in milliseconds a request waits for the rate limit before failing with a {@link org.codegist.crest.ratelimit.RateLimitExceededException}, 0 to fail fast.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.interceptor.RateLimitingInterceptor#DEFAULT_MAX_WAIT}
+     */
+    String CREST_RATE_LIMIT_MAX_WAIT = "crest.config.rate-limit.max-wait";
+
+    /**
+     * Indicates whether each interface method should get its own rate limit instead of sharing the one of its end point host.
+     * <p>Expects a Boolean value
+     * <p>Default to false
+     */
+    String CREST_RATE_LIMIT_PER_METHOD = "crest.config.rate-limit.per-method";
+
+    /**
+     * Registry holding the token buckets of the rate limited hosts, shared by all the rate limited interfaces. Keep a reference to it to monitor the buckets.
+     * <p>Expects an instance of {@link org.codegist.crest.ratelimit.TokenBucketRegistry}
+     * <p>Default to a registry configured with the CRest properties.
+     */
+    String CREST_RATE_LIMIT_REGISTRY = "crest.config.rate-limit.registry";
+
     /*********************************************************
      *********************************************************
      ****** Serializer properties 
@@ -175,11 +454,60 @@ public interface CRestProperty {
      *********************************************************/
 
     /**
-     * override the default max retry count {@link org.codegist.crest.handler.MaxAttemptRetryHandler#DEFAULT_MAX}.
+     * override the default max retry count {@link org.codegist.crest.handler.MaxAttemptRetryHandler#DEFAULT_MAX} and {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_MAX}.
      * <p>Expects an int.
      */
     String HANDLER_RETRY_MAX_ATTEMPTS = "handler.retry.attempts.max";
 
+    /**
+     * Base delay in milliseconds {@link org.codegist.crest.handler.BackoffRetryHandler} grows exponentially between retries.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_BASE_DELAY}
+     */
+    String HANDLER_RETRY_BACKOFF_BASE = "handler.retry.backoff.base";
+
+    /**
+     * Maximum delay in milliseconds {@link org.codegist.crest.handler.BackoffRetryHandler} waits before a retry.
+     * <p>Expects a long.
+     * <p>Default to {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_MAX_DELAY}
+     */
+    String HANDLER_RETRY_BACKOFF_MAX = "handler.retry.backoff.max";
+
+    /**
+     * Jitter {@link org.codegist.crest.handler.BackoffRetryHandler} applies to the delay between retries.
+     * <p>Expects either {@link org.codegist.crest.handler.BackoffRetryHandler#JITTER_FULL} or {@link org.codegist.crest.handler.BackoffRetryHandler#JITTER_DECORRELATED}.
+     * <p>Default to {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_JITTER}
+     */
+    String HANDLER_RETRY_BACKOFF_JITTER = "handler.retry.backoff.jitter";
+
+    /**
+     * HTTP status codes {@link org.codegist.crest.handler.BackoffRetryHandler} retries on.
+     * <p>Expects a comma separated string.
+     * <p>Default to {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_STATUS_CODES}
+     */
+    String HANDLER_RETRY_STATUS_CODES = "handler.retry.status-codes";
+
+    /**
+     * Exception types {@link org.codegist.crest.handler.BackoffRetryHandler} retries on when no HTTP response has been received.
+     * <p>Expects a comma separated string of class names.
+     * <p>Default to {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_EXCEPTIONS}
+     */
+    String HANDLER_RETRY_EXCEPTIONS = "handler.retry.exceptions";
+
+    /**
+     * HTTP methods {@link org.codegist.crest.handler.BackoffRetryHandler} considers idempotent, thus safe to retry.
+     * <p>Expects a comma separated string.
+     * <p>Default to {@link org.codegist.crest.handler.BackoffRetryHandler#DEFAULT_HTTP_METHODS}
+     */
+    String HANDLER_RETRY_HTTP_METHODS = "handler.retry.http-methods";
+
+    /**
+     * Retry budget shared by the {@link org.codegist.crest.handler.BackoffRetryHandler} instances.
+     * <p>Expects an instance of {@link org.codegist.crest.handler.RetryBudget}.
+     * <p>Default to {@link org.codegist.crest.handler.RetryBudget#getDefault()}
+     */
+    String HANDLER_RETRY_BUDGET = "handler.retry.budget";
+
     /**
      * override the default max retry count {@link org.codegist.crest.handler.MaxAttemptRetryHandler#DEFAULT_MAX}.
      */
@@ -224,6 +552,14 @@ public interface CRestProperty {
      */
     String CONFIG_INTERFACE_DEFAULT_GLOBAL_INTERCEPTOR = "config.interface.default.request-interceptor";
 
+    /**
+     * Gives every interface a bulkhead of the given size, shared by its methods not declaring their own, see {@link org.codegist.crest.config.MethodConfig#getBulkhead()}.
+     * <p>Expects a Integer value, the maximum number of requests in flight per interface.
+     * <p>Default to no bulkhead.
+     * @see org.codegist.crest.limiter.Bulkhead
+     */
+    String CONFIG_INTERFACE_DEFAULT_BULKHEAD = "config.interface.default.bulkhead";
+
 
     /*********************************************************
      *********************************************************
@@ -305,6 +641,24 @@ public interface CRestProperty {
      */
     String CONFIG_METHOD_DEFAULT_DESERIALIZER = "config.method.default.deserializer";
 
+    /**
+     * override the default method response caching flag {@link org.codegist.crest.config.MethodConfig#DEFAULT_CACHEABLE}.
+     * <p>Expects a Boolean value
+     */
+    String CONFIG_METHOD_DEFAULT_CACHEABLE = "config.method.default.cacheable";
+
+    /**
+     * override the default method hedging delay {@link org.codegist.crest.config.MethodConfig#DEFAULT_HEDGE_DELAY}.
+     * <p>Expects milliseconds (long).
+     */
+    String CONFIG_METHOD_DEFAULT_HEDGE_DELAY = "config.method.default.hedge-delay";
+
+    /**
+     * override the default method deadline {@link org.codegist.crest.config.MethodConfig#DEFAULT_DEADLINE}.
+     * <p>Expects milliseconds (long).
+     */
+    String CONFIG_METHOD_DEFAULT_DEADLINE = "config.method.default.deadline";
+
 
     /*********************************************************
      *********************************************************
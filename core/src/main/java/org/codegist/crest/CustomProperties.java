@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest;
+
+import java.util.Map;
+
+/**
+ * Helpers reading the custom properties given to CRest components.
+ * @see org.codegist.crest.CRestProperty
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public final class CustomProperties {
+
+    private CustomProperties() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Reads a numeric property, given either as a Number or as its String representation.
+     *
+     * @param customProperties custom properties
+     * @param name             property name
+     * @param defaultValue     value returned when the property is not set
+     * @return the property value
+     */
+    public static long getLong(Map<String, Object> customProperties, String name, long defaultValue) {
+        Object value = customProperties.get(name);
+        if (value instanceof Number) return ((Number) value).longValue();
+        return value != null ? Long.parseLong(value.toString().trim()) : defaultValue;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest;
+
+/**
+ * Thrown when a method invocation did not complete before its deadline, whatever the number of attempts made.
+ * <p>As any other call failure, it is given to the method's {@link org.codegist.crest.handler.ErrorHandler}.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.Deadlines
+ */
+public class DeadlineExceededException extends CRestException {
+
+    private final long deadline;
+
+    public DeadlineExceededException(long deadline, int attemptCount, Throwable cause) {
+        super("Deadline exceeded after " + attemptCount + " attempt(s)", cause);
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return the absolute deadline exceeded, in milliseconds since epoch
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call end-to-end deadline, spanning all the attempts of a method invocation.
+ * <p>A deadline set in the current thread is applied to all the calls made by this thread until cleared, on top of the deadline configured for the called method, if any. The earliest of both wins.
+ * <p>Typical use is the propagation of an inbound request deadline:
+ * <code><pre>
+ * Deadlines.set(250);
+ * try {
+ *     service.get(id);
+ * } finally {
+ *     Deadlines.clear();
+ * }
+ * </pre></code>
+ * <p>Asynchronous calls (methods returning a {@link java.util.concurrent.Future}) inherit the deadline of the calling thread.
+ *
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.config.MethodConfig#getDeadline()
+ */
+public final class Deadlines {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<Long>();
+
+    private Deadlines() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Sets the deadline of the current thread to expire after the given timeout.
+     *
+     * @param timeout timeout in milliseconds from now
+     */
+    public static void set(long timeout) {
+        setAt(System.currentTimeMillis() + timeout);
+    }
+
+    /**
+     * Sets the deadline of the current thread.
+     *
+     * @param deadline absolute deadline in milliseconds since epoch, null clears the current deadline
+     */
+    public static void setAt(Long deadline) {
+        if (deadline == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadline);
+        }
+    }
+
+    /**
+     * @return the absolute deadline of the current thread in milliseconds since epoch, null if none
+     */
+    public static Long get() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * Clears the deadline of the current thread.
+     */
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * @param deadline absolute deadline, can be null
+     * @param other    absolute deadline, can be null
+     * @return the earliest of the given deadlines, null if both are null
+     */
+    static Long earliest(Long deadline, Long other) {
+        if (deadline == null) return other;
+        if (other == null) return deadline;
+        return Math.min(deadline, other);
+    }
+
+    /**
+     * @param timeout  timeout in milliseconds, null, 0 or negative for no timeout
+     * @param deadline absolute deadline, can be null
+     * @return the given timeout shrunk to the time left before the deadline, at least 1 millisecond as 0 means no timeout
+     */
+    static Long shrink(Long timeout, Long deadline) {
+        if (deadline == null) return timeout;
+        long left = Math.max(1, deadline - System.currentTimeMillis());
+        return timeout == null || timeout <= 0 || timeout > left ? Long.valueOf(left) : timeout;
+    }
+
+    /**
+     * Caps a wait to the time left before the deadline, so that nothing waits for a resource the call won't have the time to use.
+     *
+     * @param maxWait  maximum wait in milliseconds
+     * @param deadline absolute deadline, can be null
+     * @return the given wait shrunk to the time left before the deadline, 0 if the deadline already expired
+     */
+    public static long capWait(long maxWait, Long deadline) {
+        if (deadline == null) return maxWait;
+        return Math.max(0, Math.min(maxWait, deadline - System.currentTimeMillis()));
+    }
+
+    /**
+     * Schedules the given task to run once the given deadline expired. The returned task must be cancelled with {@link #cancel(java.util.concurrent.ScheduledFuture)} once the deadline is not relevant anymore.
+     *
+     * @param deadline absolute deadline in milliseconds since epoch
+     * @param task     task to run
+     * @return the scheduled task
+     */
+    static ScheduledFuture<?> schedule(long deadline, Runnable task) {
+        return SchedulerHolder.SCHEDULER.schedule(task, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels a task scheduled with {@link #schedule(long, Runnable)}, removing it from the scheduler queue straight away rather than when it would have run, not to keep what it references alive.
+     *
+     * @param task scheduled task
+     */
+    static void cancel(ScheduledFuture<?> task) {
+        task.cancel(false);
+        SchedulerHolder.SCHEDULER.remove((Runnable) task);
+    }
+
+    private static final class SchedulerHolder {
+        // single daemon thread, the tasks only abort requests
+        private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "crest-deadline");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -23,18 +23,45 @@ package org.codegist.crest;
 import org.codegist.common.lang.Disposable;
 import org.codegist.common.lang.Disposables;
 import org.codegist.common.lang.Strings;
+import org.codegist.common.reflect.InvocationHandler;
 import org.codegist.common.reflect.ObjectMethodsAwareInvocationHandler;
+import org.codegist.crest.balancer.BalancedEndPoint;
+import org.codegist.crest.balancer.LoadBalancer;
+import org.codegist.crest.breaker.CircuitBreaker;
+import org.codegist.crest.breaker.CircuitBreakerOpenException;
+import org.codegist.crest.breaker.CircuitBreakerRegistry;
+import org.codegist.crest.cache.CachingRestService;
+import org.codegist.crest.cache.CoalescingRestService;
+import org.codegist.crest.cache.ResponseCache;
 import org.codegist.crest.config.ConfigFactoryException;
 import org.codegist.crest.config.InterfaceConfig;
 import org.codegist.crest.config.MethodConfig;
+import org.codegist.crest.config.MethodParamConfig;
 import org.codegist.crest.config.ParamConfig;
+import org.codegist.crest.hedge.HedgingRestService;
+import org.codegist.crest.handler.RetryBudget;
 import org.codegist.crest.handler.RetryHandler;
+import org.codegist.crest.handler.SuccessAwareRetryHandler;
 import org.codegist.crest.interceptor.RequestInterceptor;
+import org.codegist.crest.interceptor.ResponseAwareRequestInterceptor;
+import org.codegist.crest.limiter.BulkheadRestService;
+import org.codegist.crest.limiter.RequestRejectedException;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Default CRest implementation based on {@link org.codegist.crest.CRestContext} interface data model.
@@ -44,17 +71,60 @@ import java.net.URISyntaxException;
  * <p>- {@link org.codegist.crest.injector.Injector} to inject complexe types that can't be reduced to a String via the serializers.
  * <p>- {@link org.codegist.crest.handler.ResponseHandler} to customize response handling when interface method's response type is not one of raw types.
  * <p>- {@link org.codegist.crest.handler.ErrorHandler} to customize how the created interface behaves when any error occurs during the method call process.
+ * <p>- HTTP response caching for the methods configured as cacheable, see {@link org.codegist.crest.cache.CachingRestService}.
+ * <p>- Circuit breakers failing the calls fast while their end point is unhealthy, see {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER}.
+ * <p>- Client-side load balancing of the interfaces configured with several end points, see {@link org.codegist.crest.balancer.LoadBalancer}.
+ * <p>- Hedged requests for the methods configured with a hedge delay, see {@link org.codegist.crest.hedge.HedgingRestService}.
+ * <p>- Bulkheads capping the requests in flight of the interfaces or methods configured with one, see {@link org.codegist.crest.limiter.Bulkhead}.
+ * <p>- End-to-end deadlines spanning all the attempts of a call, configured per method or set per thread, see {@link org.codegist.crest.Deadlines}.
+ * <p>- Responses notified to the interceptors implementing {@link org.codegist.crest.interceptor.ResponseAwareRequestInterceptor}, eg the {@link org.codegist.crest.interceptor.RateLimitingInterceptor}.
+ * <p>- Lazy iteration over the pages of the methods configured with a paginator, the next page being prefetched by the executor set in {@link org.codegist.crest.CRestProperty#CREST_ASYNC_EXECUTOR}, see {@link org.codegist.crest.page.Paginator}.
+ * <p>- Asynchronous calls for any interface method declaring a {@link java.util.concurrent.Future} return type, the whole call process (retries, error and response handling included) is then run by the executor set in {@link org.codegist.crest.CRestProperty#CREST_ASYNC_EXECUTOR}.
+ * <p>- Interface implementations generated at compile time, named after the interface binary name suffixed with {@link #PRECOMPILED_SUFFIX}, used instead of the proxy factory when present. Such implementations are generated by the codegist-crest-processor annotation processor, they must implement the interface and have a public constructor taking the {@link org.codegist.common.reflect.InvocationHandler} every method call is to be handed to.
  * @author Laurent Gilles (laurent.gilles@codegist.org)
  */
 public class DefaultCRest implements CRest, Disposable {
 
+    /**
+     * Suffix appended to an interface binary name to get the name of the implementation generated at compile time for it, if any.
+     */
+    public static final String PRECOMPILED_SUFFIX = "$$CRestProxy";
+
     private final CRestContext context;
+    private final ExecutorService asyncExecutor;
+    private final RestService uncoalescedRestService;
+    private volatile CachingRestService cachingRestService;
+    private volatile RestService uncoalescedCachingRestService;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final RetryBudget hedgeBudget;
+    private final int hedgePercentile;
+    private volatile ExecutorService defaultAsyncExecutor;
+    private volatile ExecutorService hedgeExecutor;
 
     /**
      * @param context The CRest configuration holder
      */
     public DefaultCRest(CRestContext context) {
         this.context = context;   
+        this.asyncExecutor = (ExecutorService) context.getProperties().get(CRestProperty.CREST_ASYNC_EXECUTOR);
+        if (context.getRestService() instanceof CoalescingRestService) {
+            // a hedge must reach the network rather than join the very call it hedges, hedged methods skip the coalescing
+            this.uncoalescedRestService = ((CoalescingRestService) context.getRestService()).getDelegate();
+        } else {
+            this.uncoalescedRestService = context.getRestService();
+        }
+        if (context.getProperties().get(CRestProperty.CREST_RESPONSE_CACHE) != null) {
+            initResponseCache();
+        }
+        CircuitBreakerRegistry circuitBreakers = (CircuitBreakerRegistry) context.getProperties().get(CRestProperty.CREST_CIRCUIT_BREAKER_REGISTRY);
+        if (circuitBreakers == null && Boolean.TRUE.equals(context.getProperties().get(CRestProperty.CREST_CIRCUIT_BREAKER))) {
+            circuitBreakers = new CircuitBreakerRegistry(context.getProperties());
+        }
+        this.circuitBreakers = circuitBreakers;
+        RetryBudget hedgeBudget = (RetryBudget) context.getProperties().get(CRestProperty.CREST_HEDGE_BUDGET);
+        this.hedgeBudget = hedgeBudget != null ? hedgeBudget : new RetryBudget(HedgingRestService.DEFAULT_BUDGET_RATIO, RetryBudget.DEFAULT_RESERVE);
+        Object hedgePercentile = context.getProperties().get(CRestProperty.CREST_HEDGE_PERCENTILE);
+        this.hedgePercentile = hedgePercentile != null ? Integer.parseInt(hedgePercentile.toString().trim()) : HedgingRestService.DEFAULT_PERCENTILE;
     }
 
     /**
@@ -63,22 +133,115 @@ public class DefaultCRest implements CRest, Disposable {
     @SuppressWarnings("unchecked")
     public <T> T build(Class<T> interfaze) throws CRestException {
         try {
-            return (T) context.getProxyFactory().createProxy(interfaze.getClassLoader(), new RestInterfacer(interfaze), new Class[]{interfaze});
+            RestInterfacer handler = new RestInterfacer(interfaze);
+            Constructor<?> precompiled = getPrecompiledConstructor(interfaze);
+            if (precompiled != null) {
+                return (T) precompiled.newInstance(handler);
+            }
+            return (T) context.getProxyFactory().createProxy(interfaze.getClassLoader(), handler, new Class[]{interfaze});
         } catch (Exception e) {
             throw CRestException.handle(e);
         }
     }
 
+    private static Constructor<?> getPrecompiledConstructor(Class<?> interfaze) throws NoSuchMethodException {
+        Class<?> precompiled;
+        try {
+            precompiled = Class.forName(interfaze.getName() + PRECOMPILED_SUFFIX, true, interfaze.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!interfaze.isAssignableFrom(precompiled)) {
+            throw new CRestException(precompiled + " doesn't implement " + interfaze.getName());
+        }
+        return precompiled.getConstructor(InvocationHandler.class);
+    }
+
     class RestInterfacer<T> extends ObjectMethodsAwareInvocationHandler {
 
         private final String pathFormat;
         private final InterfaceContext interfaceContext;
+        private final ConcurrentMap<Method, InvocationPlan> plans;
+        private final boolean breakerPerMethod;
+        private final LoadBalancer loadBalancer;
 
         private RestInterfacer(Class<T> interfaze) throws ConfigFactoryException {
             InterfaceConfig config = context.getConfigFactory().newConfig(interfaze, context);
             this.interfaceContext = new DefaultInterfaceContext(config, context.getProperties());
             boolean addSlashes = !Boolean.FALSE.equals(context.getProperties().get(CRestProperty.CREST_URL_ADD_SLASHES));
             pathFormat = addSlashes ? "%s/%s/%s" : "%s%s%s";
+            String[] endPoints = config.getEndPoints();
+            this.loadBalancer = endPoints.length > 1 ? new LoadBalancer(endPoints, context.getProperties()) : null;
+            this.breakerPerMethod = Boolean.TRUE.equals(context.getProperties().get(CRestProperty.CREST_CIRCUIT_BREAKER_PER_METHOD));
+            // resolve everything a call needs once for all, calls then only cost a single lookup
+            this.plans = new ConcurrentHashMap<Method, InvocationPlan>();
+            for (Method method : interfaze.getMethods()) {
+                MethodConfig mc = config.getMethodConfig(method);
+                if (mc == null) continue;
+                plans.put(method, newPlan(mc));
+            }
+        }
+
+        private InvocationPlan getPlan(Method method) {
+            InvocationPlan plan = plans.get(method);
+            if (plan == null) {
+                plan = newPlan(interfaceContext.getConfig().getMethodConfig(method));
+                InvocationPlan previous = plans.putIfAbsent(method, plan);
+                if (previous != null) {
+                    plan = previous;
+                }
+            }
+            return plan;
+        }
+
+        private InvocationPlan newPlan(MethodConfig mc) {
+            InterfaceConfig config = interfaceContext.getConfig();
+            String[] endPoints = config.getEndPoints();
+            // urls only depend on the configuration, compile them once for all, one per end point
+            UrlTemplate[] urls = new UrlTemplate[endPoints.length];
+            for (int i = 0; i < endPoints.length; i++) {
+                urls[i] = compileUrl(config, mc, endPoints[i]);
+            }
+            CircuitBreaker[] breakers = null;
+            if (circuitBreakers != null) {
+                breakers = new CircuitBreaker[endPoints.length];
+                for (int i = 0; i < endPoints.length; i++) {
+                    String name = getCircuitBreakerName(endPoints[i]);
+                    breakers[i] = circuitBreakers.get(breakerPerMethod ? name + "#" + config.getInterface().getName() + "." + mc.getMethod().getName() : name);
+                }
+            }
+            return new InvocationPlan(mc, urls, breakers, getRestService(mc));
+        }
+
+        private RestService getRestService(MethodConfig mc) {
+            boolean cached = Boolean.TRUE.equals(mc.isCacheable());
+            if (cached) {
+                initResponseCache();
+            }
+            // writes are never cached themselves, but still go through the cache, if any, so that they evict what they changed
+            boolean evicting = !cached && isUnsafe(mc.getHttpMethod());
+            Long hedgeDelay = mc.getHedgeDelay();
+            RestService restService;
+            if (hedgeDelay != null && hedgeDelay >= 0) {
+                // a cache hit responds before any hedge could be fired, hedging only applies to the misses
+                RestService delegate = cached ? uncoalescedCachingRestService : evicting ? new EvictingRestService(false) : uncoalescedRestService;
+                restService = new HedgingRestService(delegate, getHedgeExecutor(), hedgeBudget, hedgeDelay, hedgePercentile);
+            } else {
+                restService = cached ? cachingRestService : evicting ? new EvictingRestService(true) : context.getRestService();
+            }
+            if (mc.getBulkhead() != null) {
+                // outermost so that a hedged call holds a single slot
+                restService = new BulkheadRestService(restService, mc.getBulkhead());
+            }
+            return restService;
+        }
+
+        private boolean isUnsafe(String meth) {
+            return !HttpRequest.HTTP_GET.equals(meth) && !HttpRequest.HTTP_HEAD.equals(meth) && !HttpRequest.HTTP_OPTIONS.equals(meth);
+        }
+
+        private UrlTemplate compileUrl(InterfaceConfig ic, MethodConfig mc, String endPoint) {
+            return UrlTemplate.compile(String.format(pathFormat, endPoint, Strings.defaultIfBlank(ic.getPath(), ""), mc.getPath()));
         }
 
         @Override
@@ -90,43 +253,183 @@ public class DefaultCRest implements CRest, Disposable {
             }
         }
 
-        private Object doInvoke(Method method, Object[] args) throws Throwable {
-            MethodConfig mc = interfaceContext.getConfig().getMethodConfig(method);
-            RequestContext requestContext = new DefaultRequestContext(interfaceContext, method, args);
+        private Object doInvoke(final Method method, final Object[] args) throws Throwable {
+            // resolved once for all here, everything down the call is handed the plan
+            final InvocationPlan plan = getPlan(method);
+            if (plan.paginated) {
+                return paginate(plan, method, args);
+            }
+            if (!Future.class.equals(method.getReturnType())) {
+                return invoke(plan, method, args);
+            }
+            final Long deadline = Deadlines.get();
+            return getAsyncExecutor().submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    // the call inherits the caller's deadline
+                    Deadlines.setAt(deadline);
+                    try {
+                        return invoke(plan, method, args);
+                    } catch (Throwable e) {
+                        throw CRestException.handle(e);
+                    } finally {
+                        Deadlines.clear();
+                    }
+                }
+            });
+        }
+
+        private Object paginate(final InvocationPlan plan, final Method method, final Object[] args) {
+            if (Iterator.class.equals(method.getReturnType())) {
+                return newPageIterator(plan, method, args);
+            }
+            return new Iterable<Object>() {
+                public Iterator<Object> iterator() {
+                    // each iteration starts over from the first page
+                    return newPageIterator(plan, method, args);
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private Iterator<Object> newPageIterator(final InvocationPlan plan, final Method method, Object[] args) {
+            return new PageIterator(plan.config.getPaginator(), args, getAsyncExecutor(), Deadlines.get()) {
+                RequestContext newContext(Object[] args) {
+                    return new DefaultRequestContext(interfaceContext, method, plan.config, args);
+                }
+
+                Object fetch(RequestContext context) throws Throwable {
+                    return invoke(plan, context);
+                }
+            };
+        }
+
+        private Object invoke(InvocationPlan plan, Method method, Object[] args) throws Throwable {
+            return invoke(plan, new DefaultRequestContext(interfaceContext, method, plan.config, args));
+        }
 
+        private Object invoke(InvocationPlan plan, RequestContext requestContext) throws Throwable {
+            MethodConfig mc = plan.config;
             int attemptCount = 0;
-            ResponseContext responseContext;
-            Exception exception;
+            ResponseContext responseContext = null;
+            Exception exception = null;
             RetryHandler retryHandler = mc.getRetryHandler();
-            RestService restService = context.getRestService();
+            Long deadline = Deadlines.earliest(Deadlines.get(), mc.getDeadline() != null && mc.getDeadline() >= 0 ? System.currentTimeMillis() + mc.getDeadline() : null);
+            RestService restService = plan.restService;
+            CircuitBreaker[] circuitBreakers = plan.breakers;
+            BalancedEndPoint endPoint = null;
             do {
+                if (deadline != null && deadline <= System.currentTimeMillis()) {
+                    // no time left for a new attempt
+                    if (responseContext == null) {
+                        responseContext = new DefaultResponseContext(requestContext, null);
+                    }
+                    exception = new DeadlineExceededException(deadline, attemptCount, exception);
+                    break;
+                }
                 exception = null;
+                // pick a new end point for each attempt so that retries go to another replica
+                endPoint = loadBalancer != null ? loadBalancer.choose(endPoint) : null;
+                int endPointIndex = endPoint != null ? endPoint.getIndex() : 0;
                 // build the request, can throw exception but that should not be part of the retry policy
-                HttpRequest request = buildRequest(requestContext);
-                try {
-                    // doInvoke the request
-                    HttpResponse response = restService.exec(request);
-                    // wrap the response in response context
-                    responseContext = new DefaultResponseContext(requestContext, response);
-                } catch (HttpException e) {
-                    responseContext = new DefaultResponseContext(requestContext, e.getResponse());
-                    exception = e;
-                } catch (RuntimeException e) {
+                HttpRequest request = buildRequest(plan, requestContext, endPointIndex, deadline);
+                CircuitBreaker circuitBreaker = circuitBreakers != null ? circuitBreakers[endPointIndex] : null;
+                if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                    // fail fast, no retry while the breaker is open
                     responseContext = new DefaultResponseContext(requestContext, null);
-                    exception = e;
+                    exception = new CircuitBreakerOpenException(circuitBreaker);
+                    break;
+                }
+                long start = circuitBreaker != null || endPoint != null ? System.currentTimeMillis() : 0;
+                if (endPoint != null) {
+                    endPoint.onStart();
+                }
+                boolean executed = false;
+                try {
+                    try {
+                        // doInvoke the request
+                        HttpResponse response = restService.exec(request);
+                        // wrap the response in response context
+                        responseContext = new DefaultResponseContext(requestContext, response);
+                    } catch (HttpException e) {
+                        responseContext = new DefaultResponseContext(requestContext, e.getResponse());
+                        exception = e;
+                    } catch (RuntimeException e) {
+                        responseContext = new DefaultResponseContext(requestContext, null);
+                        exception = e;
+                    }
+                    executed = true;
+                    // same order as after the params injection
+                    notifyResponse(mc.getRequestInterceptor(), responseContext);
+                    notifyResponse(interfaceContext.getConfig().getGlobalInterceptor(), responseContext);
+                } finally {
+                    // always give back the half-open trial permit and the in-flight slot, even if an interceptor or an error aborts the invocation
+                    Exception outcome = executed ? exception : new HttpException("Request aborted", null);
+                    if (outcome instanceof RequestRejectedException) {
+                        // refused locally, the end point hasn't been contacted
+                        if (circuitBreaker != null) circuitBreaker.release();
+                        if (endPoint != null) endPoint.onCancel();
+                    } else {
+                        if (circuitBreaker != null) {
+                            circuitBreaker.record(outcome, System.currentTimeMillis() - start);
+                        }
+                        if (endPoint != null) {
+                            endPoint.onComplete(outcome, System.currentTimeMillis() - start);
+                        }
+                    }
+                }
+                if (exception instanceof RequestRejectedException) {
+                    // retrying would only add to the saturation
+                    break;
+                }
+                if (exception != null && deadline != null && deadline <= System.currentTimeMillis()) {
+                    // the attempt outlived the deadline and has likely been aborted, no retry
+                    exception = new DeadlineExceededException(deadline, attemptCount + 1, exception);
+                    break;
                 }
                 // loop until an exception has been thrown and the retry handle ask for retry
-            }while(exception != null && retryHandler.retry(responseContext, exception, ++attemptCount));
+            }while(exception != null && retry(retryHandler, responseContext, exception, ++attemptCount, deadline));
 
             if (exception != null) {
                 // An exception has been thrown during request execution, invoke the error handler and return
                 return mc.getErrorHandler().handle(responseContext, exception);
             }else{
+                if (retryHandler instanceof SuccessAwareRetryHandler) {
+                    ((SuccessAwareRetryHandler) retryHandler).onSuccess(responseContext);
+                }
                 // all good, handle the response
                 return handle(responseContext);
             }
         }
 
+        private boolean retry(RetryHandler retryHandler, ResponseContext responseContext, Exception exception, int attemptCount, Long deadline) {
+            // the handler sees the invocation deadline, so that it doesn't wait beyond it before the next attempt
+            Long threadDeadline = Deadlines.get();
+            Deadlines.setAt(deadline);
+            try {
+                return retryHandler.retry(responseContext, exception, attemptCount);
+            } finally {
+                Deadlines.setAt(threadDeadline);
+            }
+        }
+
+        private void notifyResponse(RequestInterceptor interceptor, ResponseContext responseContext) {
+            if (interceptor instanceof ResponseAwareRequestInterceptor) {
+                ((ResponseAwareRequestInterceptor) interceptor).afterResponseHandle(responseContext);
+            }
+        }
+
+        private String getCircuitBreakerName(String endPoint) {
+            try {
+                URI uri = new URI(endPoint);
+                if (uri.getHost() != null) {
+                    return uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+                }
+            } catch (URISyntaxException e) {
+                // not a plain url, fallback on the raw end point
+            }
+            return endPoint;
+        }
+
         /**
          * Response handling base implementation, returns raw response if InputStream or Reader is the requested return type.
          * <p>Otherwise delegate response handling to the given response handler.
@@ -137,7 +440,7 @@ public class DefaultCRest implements CRest, Disposable {
             boolean closeResponse = false;
             MethodConfig mc = responseContext.getRequestContext().getMethodConfig();
             HttpResponse response = responseContext.getResponse();
-            Class<?> returnTypeClass = mc.getMethod().getReturnType();
+            Class<?> returnTypeClass = responseContext.getExpectedType();
             try {
                 if (returnTypeClass.equals(InputStream.class)) {
                     // If InputStream return type, then return raw response ()
@@ -161,41 +464,44 @@ public class DefaultCRest implements CRest, Disposable {
 
         /**
          *
+         * @param plan invocation plan of the method called
          * @param requestContext
+         * @param endPointIndex index of the end point to send the request to
+         * @param deadline absolute deadline of the call, null if none
          * @return
          * @throws URISyntaxException
          */
-        private HttpRequest buildRequest(RequestContext requestContext) throws Exception {
+        private HttpRequest buildRequest(InvocationPlan plan, RequestContext requestContext, int endPointIndex, Long deadline) throws Exception {
             InterfaceConfig ic = requestContext.getConfig();
             MethodConfig mc = requestContext.getMethodConfig();
             RequestInterceptor gi = ic.getGlobalInterceptor();
             RequestInterceptor ri = mc.getRequestInterceptor();
 
             // Build base request
-
-            String fullpath = String.format(pathFormat, ic.getEndPoint(), Strings.defaultIfBlank(ic.getPath(), ""), mc.getPath());
-            HttpRequest.Builder builder = new HttpRequest.Builder(fullpath, ic.getEncoding())
+            HttpRequest.Builder builder = new HttpRequest.Builder().pointsTo(plan.urls[endPointIndex], ic.getEncoding())
                     .using(mc.getHttpMethod())
                     .timeoutSocketAfter(mc.getSocketTimeout())
-                    .timeoutConnectionAfter(mc.getConnectionTimeout());
+                    .timeoutConnectionAfter(mc.getConnectionTimeout())
+                    .expireAt(deadline);
 
             // Notify injectors (Global and method) before param injection
             gi.beforeParamsInjectionHandle(builder, requestContext);
             ri.beforeParamsInjectionHandle(builder, requestContext);
 
             // Add default params
-            for(ParamConfig p : mc.getExtraParams()){
+            for(ParamConfig p : plan.extraParams){
                 builder.addParam(
                         p.getName(),
                         p.getDefaultValue(),
                         p.getDestination());
             }
 
-            int count = mc.getParamCount();
-
-            for (int i = 0; i < count; i++) {
+            MethodParamConfig[] paramConfigs = plan.paramConfigs;
+            // a single context moved from one argument to the next
+            DefaultParamContext paramContext = paramConfigs.length > 0 ? new DefaultParamContext(requestContext, 0) : null;
+            for (int i = 0; i < paramConfigs.length; i++) {
                 // invoke configured parameter injectors
-                mc.getParamConfig(i).getInjector().inject(builder, new DefaultParamContext(requestContext, i));
+                paramConfigs[i].getInjector().inject(builder, paramContext.moveTo(i));
             }
 
             // Notify injectors (Global and method after param injection
@@ -207,7 +513,132 @@ public class DefaultCRest implements CRest, Disposable {
     }
 
 
+    ExecutorService getAsyncExecutor() {
+        if (asyncExecutor != null) {
+            return asyncExecutor;
+        }
+        if (defaultAsyncExecutor == null) {
+            synchronized (this) {
+                if (defaultAsyncExecutor == null) {
+                    defaultAsyncExecutor = Boolean.TRUE.equals(context.getProperties().get(CRestProperty.CREST_ASYNC_VIRTUAL_THREADS))
+                            ? newVirtualThreadExecutor()
+                            : Executors.newCachedThreadPool(new AsyncThreadFactory("crest-async-"));
+                }
+            }
+        }
+        return defaultAsyncExecutor;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // looked up reflectively to keep on running on JVMs without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            throw new CRestException("Virtual threads are not supported by the running JVM", e);
+        }
+    }
+
+    ResponseCache getResponseCache() {
+        return cachingRestService != null ? cachingRestService.getCache() : null;
+    }
+
+    /**
+     * Builds the response cache the first time a cacheable method is met, CRest instances without any never pay for it.
+     */
+    private void initResponseCache() {
+        if (cachingRestService == null) {
+            synchronized (this) {
+                if (cachingRestService == null) {
+                    CachingRestService cachingRestService = new CachingRestService(context.getRestService(), context.getProperties());
+                    this.uncoalescedCachingRestService = uncoalescedRestService != context.getRestService()
+                            ? new CachingRestService(uncoalescedRestService, cachingRestService.getCache(), cachingRestService.getMaxEntrySize())
+                            : cachingRestService;
+                    this.cachingRestService = cachingRestService;
+                }
+            }
+        }
+    }
+
+    private ExecutorService getHedgeExecutor() {
+        if (hedgeExecutor == null) {
+            synchronized (this) {
+                if (hedgeExecutor == null) {
+                    // unbounded so that attempts never wait behind each others
+                    hedgeExecutor = Executors.newCachedThreadPool(new AsyncThreadFactory("crest-hedge-"));
+                }
+            }
+        }
+        return hedgeExecutor;
+    }
+
     public void dispose() {
         Disposables.dispose(context.getRestService());
+        if (defaultAsyncExecutor != null) {
+            defaultAsyncExecutor.shutdown();
+        }
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Everything a method call needs, resolved once per method rather than looked up by {@link java.lang.reflect.Method} on each call.
+     */
+    /**
+     * Sends the writes through the response cache once one has been built, even by another interface, so that they evict what they changed. Goes straight to the network otherwise.
+     */
+    private final class EvictingRestService implements RestService {
+
+        private final boolean coalesced;
+
+        private EvictingRestService(boolean coalesced) {
+            this.coalesced = coalesced;
+        }
+
+        public HttpResponse exec(HttpRequest request) throws HttpException {
+            if (cachingRestService == null) {
+                return (coalesced ? context.getRestService() : uncoalescedRestService).exec(request);
+            }
+            return (coalesced ? cachingRestService : uncoalescedCachingRestService).exec(request);
+        }
+    }
+
+    private static final class InvocationPlan {
+        private final MethodConfig config;
+        private final MethodParamConfig[] paramConfigs;
+        private final ParamConfig[] extraParams;
+        private final UrlTemplate[] urls;
+        private final CircuitBreaker[] breakers;
+        private final RestService restService;
+        private final boolean paginated;
+
+        private InvocationPlan(MethodConfig config, UrlTemplate[] urls, CircuitBreaker[] breakers, RestService restService) {
+            this.config = config;
+            this.paginated = DefaultResponseContext.isPaginated(config.getMethod(), config);
+            int count = config.getParamCount() != null ? config.getParamCount() : 0;
+            this.paramConfigs = new MethodParamConfig[count];
+            for (int i = 0; i < count; i++) {
+                paramConfigs[i] = config.getParamConfig(i);
+            }
+            this.extraParams = config.getExtraParams() != null ? config.getExtraParams() : new ParamConfig[0];
+            this.urls = urls;
+            this.breakers = breakers;
+            this.restService = restService;
+        }
+    }
+
+    private static final class AsyncThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final String prefix;
+
+        private AsyncThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -35,7 +35,9 @@ class DefaultInterfaceContext implements InterfaceContext {
     private final Map<String, Object> customProperties;
 
     public DefaultInterfaceContext(InterfaceContext context) {
-        this(context.getConfig(), context.getProperties());
+        this.config = context.getConfig();
+        // already unmodifiable, share it rather than wrapping it again for each context of a call
+        this.customProperties = context instanceof DefaultInterfaceContext ? context.getProperties() : Maps.unmodifiable(context.getProperties());
     }
 
     public DefaultInterfaceContext(InterfaceConfig config, Map<String, Object> customProperties) {
@@ -23,18 +23,30 @@ package org.codegist.crest;
 import org.codegist.crest.config.MethodParamConfig;
 
 /**
- * Default internal immutable implementation of ParamContext
+ * Default internal implementation of ParamContext
+ * <p>A single instance is moved from one argument to the next while injecting the arguments of a call, see {@link #moveTo(int)}.
  * @author Laurent Gilles (laurent.gilles@codegist.org)
  */
 class DefaultParamContext<V> extends DefaultRequestContext implements ParamContext {
 
-    private final int index;
+    private int index;
 
     public DefaultParamContext(RequestContext methodContext, int index) {
         super(methodContext);
         this.index = index;
     }
 
+    /**
+     * Points the context to another argument of the same call
+     *
+     * @param index index of the method call argument
+     * @return current context
+     */
+    DefaultParamContext<V> moveTo(int index) {
+        this.index = index;
+        return this;
+    }
+
     public boolean isForUrl() {
         return HttpRequest.HTTP_GET.equals(getMethodConfig().getHttpMethod())
                 || HttpRequest.DEST_PATH.equals(getParamConfig().getDestination())
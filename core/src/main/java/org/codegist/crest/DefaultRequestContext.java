@@ -28,25 +28,40 @@ import java.lang.reflect.Method;
 
 /**
  * Default internal immutable implementation of RequestContext
+ * <p>The arguments array is owned by the context, not copied: the proxies give a new array to each call.
  * @author Laurent Gilles (laurent.gilles@codegist.org)
  */
 class DefaultRequestContext extends DefaultInterfaceContext implements RequestContext {
 
+    private static final Object[] NO_ARGS = new Object[0];
+
     private final Method method;
+    private final MethodConfig methodConfig;
     private final Object[] args;
 
     public DefaultRequestContext(RequestContext context) {
-        this(context, context.getMethod(), context.getArgs());
+        this(context, context.getMethod(), context.getMethodConfig(), context instanceof DefaultRequestContext ? ((DefaultRequestContext) context).args : context.getArgs());
     }
 
     public DefaultRequestContext(InterfaceContext context, Method method, Object[] args) {
+        this(context, method, context.getConfig().getMethodConfig(method), args);
+    }
+
+    /**
+     * @param context      interface context
+     * @param method       interface method being called
+     * @param methodConfig config of the method being called, resolved once for all the lookups made during the call
+     * @param args         method's call arguments, not copied
+     */
+    public DefaultRequestContext(InterfaceContext context, Method method, MethodConfig methodConfig, Object[] args) {
         super(context);
         this.method = method;
-        this.args = args != null ? args.clone() : new Object[0];
+        this.methodConfig = methodConfig;
+        this.args = args != null ? args : NO_ARGS;
     }
 
     public MethodConfig getMethodConfig() {
-        return getConfig().getMethodConfig(method);
+        return methodConfig;
     }
 
     public MethodParamConfig getParamConfig(int index) {
@@ -79,6 +94,6 @@ class DefaultRequestContext extends DefaultInterfaceContext implements RequestCo
      * @return Method's call arguments.
      */
     public Object[] getArgs() {
-        return args != null ? args.clone() : new Object[0];
+        return args.clone();
     }
 }
@@ -20,9 +20,17 @@
 
 package org.codegist.crest;
 
+import org.codegist.common.reflect.Types;
+import org.codegist.crest.config.MethodConfig;
+import org.codegist.crest.serializer.ContentNegotiatingDeserializer;
 import org.codegist.crest.serializer.Deserializer;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Iterator;
+import java.util.concurrent.Future;
 
 /**
  * Default internal immutable implementation of ResponseContext
@@ -47,11 +55,12 @@ class DefaultResponseContext implements ResponseContext {
     }
 
     public Type getExpectedGenericType() {
-        return context.getMethod().getGenericReturnType();
+        return getExpectedGenericType(context.getMethod(), isPaginated(context.getMethod(), context.getMethodConfig()));
     }
 
     public Class<?> getExpectedType() {
-        return context.getMethod().getReturnType();
+        Method method = context.getMethod();
+        return Future.class.equals(method.getReturnType()) || isPaginated(method, context.getMethodConfig()) ? Types.getClass(getExpectedGenericType()) : method.getReturnType();
     }
 
     public RequestContext getRequestContext() {
@@ -59,6 +68,39 @@ class DefaultResponseContext implements ResponseContext {
     }
 
     public Deserializer getDeserializer() {
-        return context.getMethodConfig().getDeserializer();
+        Deserializer deserializer = context.getMethodConfig().getDeserializer();
+        if (deserializer instanceof ContentNegotiatingDeserializer && response != null) {
+            // the response handlers get the deserializer bound to what the server actually sent
+            deserializer = ((ContentNegotiatingDeserializer) deserializer).select(response.getMimeType());
+        }
+        return deserializer;
+    }
+
+    /**
+     * @param method interface method
+     * @param config method config
+     * @return true if the method returns an Iterator or an Iterable of pages, fetched one after the other by the method paginator
+     */
+    static boolean isPaginated(Method method, MethodConfig config) {
+        Class<?> type = method.getReturnType();
+        return config != null && config.getPaginator() != null && (Iterator.class.equals(type) || Iterable.class.equals(type));
+    }
+
+    /**
+     * Asynchronous methods are expected to return the type the {@link java.util.concurrent.Future} holds, paginated methods the type of the pages.
+     * @param method interface method
+     * @param paginated whether the method is paginated
+     * @return the type the response is expected to be handled to
+     */
+    static Type getExpectedGenericType(Method method, boolean paginated) {
+        Type type = method.getGenericReturnType();
+        if (!Future.class.equals(method.getReturnType()) && !paginated) {
+            return type;
+        }
+        if (!(type instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type typeArgument = ((ParameterizedType) type).getActualTypeArguments()[0];
+        return typeArgument instanceof WildcardType ? ((WildcardType) typeArgument).getUpperBounds()[0] : typeArgument;
     }
 }
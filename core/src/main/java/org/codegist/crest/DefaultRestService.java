@@ -20,7 +20,7 @@
 
 package org.codegist.crest;
 
-import org.codegist.common.io.IOs;
+import org.codegist.common.lang.Objects;
 import org.codegist.common.lang.Randoms;
 import org.codegist.common.log.Logger;
 
@@ -31,6 +31,7 @@ import java.util.Map;
 
 /**
  * Simple RestService implementation based on JDK's {@link java.net.HttpURLConnection}.
+ * <p>By default, connections are disconnected once the response has been consumed. When keep-alive is enabled, any unread response body (error bodies included) is drained and the stream closed instead, leaving the connection in the JDK keep-alive cache for the next request to the same host.
  *
  * @author Laurent Gilles (laurent.gilles@codegist.org)
  * @see java.net.HttpURLConnection
@@ -41,15 +42,47 @@ public class DefaultRestService implements RestService {
     private final static String USER_AGENT = "CodeGist-CRest Agent";
     private static final Logger logger = Logger.getLogger(DefaultRestService.class);
 
+    /**
+     * Default maximum number of unread response bytes drained to keep a connection alive.
+     * @see org.codegist.crest.CRestProperty#CREST_HTTP_KEEP_ALIVE_DRAIN_LIMIT
+     */
+    public static final int DEFAULT_DRAIN_LIMIT = 64 * 1024;
+
+    private final boolean keepAlive;
+    private final int drainLimit;
+
+    public DefaultRestService() {
+        this(false, DEFAULT_DRAIN_LIMIT);
+    }
+
+    public DefaultRestService(Map<String, Object> customProperties) {
+        this(
+                Boolean.TRUE.equals(customProperties.get(CRestProperty.CREST_HTTP_KEEP_ALIVE)),
+                Objects.defaultIfNull((Integer) customProperties.get(CRestProperty.CREST_HTTP_KEEP_ALIVE_DRAIN_LIMIT), DEFAULT_DRAIN_LIMIT)
+        );
+    }
+
+    /**
+     * @param keepAlive  whether to drain and close the response stream rather than disconnecting, letting the JDK reuse the connection
+     * @param drainLimit maximum number of unread response bytes to drain, the connection is disconnected when more are left
+     */
+    public DefaultRestService(boolean keepAlive, int drainLimit) {
+        this.keepAlive = keepAlive;
+        this.drainLimit = drainLimit;
+    }
+
     public HttpResponse exec(HttpRequest request) throws HttpException {
         HttpURLConnection connection = null;
         boolean inError = false;
+        boolean released = false;
         try {
             connection = toHttpURLConnection(request);
             logger.debug("%4s %s", request.getMeth(), connection.getURL());
             logger.trace(request);
             if (connection.getResponseCode() != 200) {
-                throw new HttpException(connection.getResponseMessage(), new HttpResponse(request, connection.getResponseCode(), connection.getHeaderFields()));
+                HttpException exception = new HttpException(connection.getResponseMessage(), new HttpResponse(request, connection.getResponseCode(), connection.getHeaderFields()));
+                released = keepAlive && releaseErrorBody(connection);
+                throw exception;
             }
             HttpResponse response = new HttpResponse(request, connection.getResponseCode(), connection.getHeaderFields(), new HttpResourceImpl(connection));
             logger.trace("HTTP Response %s", response);
@@ -61,21 +94,42 @@ public class DefaultRestService implements RestService {
             inError = true;
             throw new HttpException(e, new HttpResponse(request, -1));
         } finally {
-            if (inError) {
+            if (inError && !released) {
                 if (connection != null) connection.disconnect();
             }
         }
     }
 
+    /**
+     * Drains the body of a non 200 response, if any, so that the connection can go back to the keep-alive cache.
+     * @param connection connection holding an error response
+     * @return true if the connection has been released, false if it still needs to be disconnected
+     */
+    private boolean releaseErrorBody(HttpURLConnection connection) {
+        InputStream body;
+        try {
+            body = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        } catch (IOException e) {
+            return false;
+        }
+        if (body == null) {
+            return false;
+        }
+        new KeepAliveInputStream(connection, body).close();
+        return true;
+    }
+
     static HttpURLConnection toHttpURLConnection(HttpRequest request) throws IOException {
         URL url = request.getUrl(true);
         HttpURLConnection con = newConnection(url, request.getMeth());
 
-        if (request.getConnectionTimeout() != null && request.getConnectionTimeout() >= 0)
-            con.setConnectTimeout(request.getConnectionTimeout().intValue());
+        Long connectionTimeout = Deadlines.shrink(request.getConnectionTimeout(), request.getDeadline());
+        if (connectionTimeout != null && connectionTimeout >= 0)
+            con.setConnectTimeout(connectionTimeout.intValue());
 
-        if (request.getSocketTimeout() != null && request.getSocketTimeout() >= 0)
-            con.setReadTimeout(request.getSocketTimeout().intValue());
+        Long socketTimeout = Deadlines.shrink(request.getSocketTimeout(), request.getDeadline());
+        if (socketTimeout != null && socketTimeout >= 0)
+            con.setReadTimeout(socketTimeout.intValue());
 
         if (request.getHeaderParams() != null) {
             for (Map.Entry<String, String> header : request.getHeaderParams().entrySet()) {
@@ -84,48 +138,23 @@ public class DefaultRestService implements RestService {
         }
 
         if (HttpRequest.HTTP_PUT.equals(request.getMeth()) || HttpRequest.HTTP_POST.equals(request.getMeth())) {
-            if (Params.isForUpload(request.getFormParams())) {
+            if (request.getBody() != null) {
+                con.setRequestProperty("Content-Type", request.getBodyContentType());
+                // length is only known once written, the body is sent chunked rather than buffered to be measured
+                con.setChunkedStreamingMode(0);
+                con.setDoOutput(true);
+                OutputStream os = con.getOutputStream();
+                try {
+                    request.writeBody(os);
+                } finally {
+                    os.close();
+                }
+            } else if (Params.isForUpload(request.getFormParams())) {
                 String boundary = Randoms.randomAlphaNumeric(16) + System.currentTimeMillis();
                 con.setRequestProperty("Content-Type", MULTIPART + boundary);
                 if (request.getFormParams() != null) {
-                    boundary = "--" + boundary;
                     con.setDoOutput(true);
-                    OutputStream os = con.getOutputStream();
-                    DataOutputStream out = new DataOutputStream(os);
-
-                    for (Map.Entry<String, Object> param : request.getFormParams().entrySet()) {
-                        InputStream upload = null;
-                        String name = null;
-                        if (param.getValue() instanceof InputStream) {
-                            upload = (InputStream) param.getValue();
-                            name = param.getKey();
-                        } else if (param.getValue() instanceof File) {
-                            upload = new FileInputStream((File) param.getValue());
-                            name = ((File) param.getValue()).getName();
-                        }
-
-                        if (upload != null) {
-                            out.writeBytes(boundary + "\r\n");
-                            out.writeBytes("Content-Disposition: form-data; name=\"" + param.getKey() + "\"; filename=\"" + name + "\"\r\n");
-                            out.writeBytes("Content-Type: Content-Type: application/octet-stream\r\n\r\n");
-                            BufferedInputStream in = null;
-                            try {
-                                in = (BufferedInputStream) (upload instanceof BufferedInputStream ? upload : new BufferedInputStream(upload));
-                                IOs.copy(in, out);
-                                out.writeBytes("\r\n");
-                            } finally {
-                                IOs.close(in);
-                            }
-                        } else if (param.getValue() != null) {
-                            out.writeBytes(boundary + "\r\n");
-                            out.writeBytes("Content-Disposition: form-data; name=\"" + param.getKey() + "\"\r\n");
-                            out.writeBytes("Content-Type: text/plain; charset=" + request.getEncoding() + "\r\n\r\n");
-                            out.write(param.getValue().toString().getBytes(request.getEncoding()));
-                            out.writeBytes("\r\n");
-                        }
-                    }
-                    out.writeBytes(boundary + "--\r\n");
-                    out.writeBytes("\r\n");
+                    Params.writeMultipart(request.getFormParams(), boundary, request.getEncoding(), con.getOutputStream());
                 }
             } else {
                 byte[] data = new byte[0];
@@ -159,6 +188,7 @@ public class DefaultRestService implements RestService {
     private class HttpResourceImpl implements HttpResource {
 
         private final HttpURLConnection connection;
+        private KeepAliveInputStream content;
 
         public HttpResourceImpl(HttpURLConnection connection) {
             this.connection = connection;
@@ -166,14 +196,64 @@ public class DefaultRestService implements RestService {
 
         public InputStream getContent() throws HttpException{
             try {
-                return connection.getInputStream();
+                if (!keepAlive) {
+                    return connection.getInputStream();
+                }
+                if (content == null) {
+                    content = new KeepAliveInputStream(connection, connection.getInputStream());
+                }
+                return content;
             } catch (IOException e) {
                 throw new HttpException(e);
             }
         }
 
         public void release() throws HttpException{
-            connection.disconnect();
+            if (content != null) {
+                content.close();
+            } else {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Response stream that, on close, reads whatever is left of the body so that the JDK can put the connection back in its keep-alive cache.
+     * <p>Connection is disconnected if more than the drain limit is left to read, or if the stream fails.
+     */
+    private class KeepAliveInputStream extends FilterInputStream {
+
+        private final HttpURLConnection connection;
+        private boolean closed = false;
+
+        private KeepAliveInputStream(HttpURLConnection connection, InputStream in) {
+            super(in);
+            this.connection = connection;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                byte[] buffer = new byte[4096];
+                int drained = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    drained += read;
+                    if (drained > drainLimit) {
+                        logger.debug("More than %d bytes left unread, dropping connection to %s", drainLimit, connection.getURL());
+                        connection.disconnect();
+                        return;
+                    }
+                }
+                in.close();
+            } catch (IOException e) {
+                logger.debug(e, "Failed to drain response from %s, dropping connection", connection.getURL());
+                connection.disconnect();
+            }
         }
     }
 }
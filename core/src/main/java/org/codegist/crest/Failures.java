@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest;
+
+/**
+ * Classifies the outcome of a call from the remote end point health point of view, as recorded by the circuit breakers and the load balancer.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public final class Failures {
+
+    private Failures() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Returns true if the given exception denotes an unhealthy end point: the call failed without any response, or with a server error (5xx), a request timeout (408) or a too many requests (429) response. Other client errors (4xx) are the caller's fault, and any other status (eg 204 or 304, RestServices failing on anything but 200) means the end point answered properly.
+     *
+     * @param exception exception the call failed with, null if it succeeded
+     * @return flag indicating if the call counts as a failure of the end point
+     */
+    public static boolean isEndPointFailure(Exception exception) {
+        if (exception == null) {
+            return false;
+        }
+        HttpResponse response = exception instanceof HttpException ? ((HttpException) exception).getResponse() : null;
+        if (response == null) {
+            return true;
+        }
+        int status = response.getStatusCode();
+        return status <= 0 || status >= 500 || status == 408 || status == 429;
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.mime.MultipartEntity;
 import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.FileBody;
@@ -48,11 +49,19 @@ import org.codegist.common.lang.Disposable;
 import org.codegist.common.lang.Objects;
 import org.codegist.common.log.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.ProxySelector;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RestService implementation based on ASF {@link org.apache.http.client.HttpClient}.
@@ -64,7 +73,17 @@ import java.util.*;
 public class HttpClientRestService implements RestService, Disposable {
 
     private static final Logger logger = Logger.getLogger(HttpClientRestService.class);
+
+    /**
+     * Default time in milliseconds after which a pooled connection left idle is closed.
+     * @see org.codegist.crest.CRestProperty#CREST_HTTP_IDLE_TIMEOUT
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+    private static volatile ScheduledExecutorService evictor;
+
     private final HttpClient http;
+    private final ScheduledFuture<?> eviction;
 
     /**
      * Construct a HttpClientRestService based on {@link org.apache.http.impl.client.DefaultHttpClient#DefaultHttpClient()}.
@@ -74,17 +93,66 @@ public class HttpClientRestService implements RestService, Disposable {
     }
 
     public HttpClientRestService(HttpClient http) {
+        this(http, 0);
+    }
+
+    /**
+     * @param http        client to use
+     * @param idleTimeout time in milliseconds after which the pooled connections left idle, or expired, are closed, 0 or less to keep them open
+     */
+    public HttpClientRestService(HttpClient http, final long idleTimeout) {
         this.http = http;
+        if (idleTimeout > 0) {
+            final ClientConnectionManager connectionManager = http.getConnectionManager();
+            long period = Math.max(idleTimeout / 2, 1000);
+            this.eviction = getEvictor().scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.eviction = null;
+        }
+    }
+
+    private static ScheduledExecutorService getEvictor() {
+        if (evictor == null) {
+            synchronized (HttpClientRestService.class) {
+                if (evictor == null) {
+                    evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "crest-idle-connection-evictor");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return evictor;
     }
 
     public HttpResponse exec(HttpRequest httpRequest) throws HttpException {
-        HttpUriRequest request = toHttpUriRequest(httpRequest);
+        final HttpUriRequest request = toHttpUriRequest(httpRequest);
         org.apache.http.HttpResponse response;
         HttpEntity entity = null;
         boolean inError = false;
+        ScheduledFuture<?> abortion = null;
         try {
             logger.debug("%4s %s", httpRequest.getMeth(), request.getURI());
             logger.trace(request);
+            if (httpRequest.getDeadline() != null) {
+                if (httpRequest.getDeadline() <= System.currentTimeMillis()) {
+                    throw new HttpException("Deadline exceeded", new HttpResponse(httpRequest, -1));
+                }
+                // timeouts only bound each i/o operation, abort whatever the request is doing once the deadline expired
+                abortion = Deadlines.schedule(httpRequest.getDeadline(), new Runnable() {
+                    public void run() {
+                        request.abort();
+                    }
+                });
+            }
             response = http.execute(request);
 
             if (response == null) {
@@ -116,6 +184,9 @@ public class HttpClientRestService implements RestService, Disposable {
             inError = true;
             throw new HttpException(e, new HttpResponse(httpRequest, -1));
         } finally {
+            if (abortion != null) {
+                Deadlines.cancel(abortion);
+            }
             if (inError) {
                 if (entity != null) {
                     try {
@@ -157,7 +228,9 @@ public class HttpClientRestService implements RestService, Disposable {
             if (uriRequest instanceof HttpEntityEnclosingRequestBase) {
                 HttpEntityEnclosingRequestBase enclosingRequestBase = ((HttpEntityEnclosingRequestBase) uriRequest);
                 HttpEntity entity;
-                if (Params.isForUpload(request.getFormParams().values())) {
+                if (request.getBody() != null) {
+                    entity = new BodyEntity(request);
+                } else if (Params.isForUpload(request.getFormParams().values())) {
                     MultipartEntity multipartEntity = new MultipartEntity();
                     for (Map.Entry<String, Object> param : request.getFormParams().entrySet()) {
                         ContentBody body;
@@ -182,6 +255,8 @@ public class HttpClientRestService implements RestService, Disposable {
                 }
 
                 enclosingRequestBase.setEntity(entity);
+                // once written, a non idempotent request isn't resent by the client if the connection turns out to be closed, check it first
+                HttpConnectionParams.setStaleCheckingEnabled(uriRequest.getParams(), true);
             }
 
             if (request.getHeaderParams() != null && !request.getHeaderParams().isEmpty()) {
@@ -190,12 +265,14 @@ public class HttpClientRestService implements RestService, Disposable {
                 }
             }
 
-            if (request.getConnectionTimeout() != null && request.getConnectionTimeout() >= 0) {
-                HttpConnectionParams.setConnectionTimeout(uriRequest.getParams(), request.getConnectionTimeout().intValue());
+            Long connectionTimeout = Deadlines.shrink(request.getConnectionTimeout(), request.getDeadline());
+            if (connectionTimeout != null && connectionTimeout >= 0) {
+                HttpConnectionParams.setConnectionTimeout(uriRequest.getParams(), connectionTimeout.intValue());
             }
 
-            if (request.getSocketTimeout() != null && request.getSocketTimeout() >= 0) {
-                HttpConnectionParams.setSoTimeout(uriRequest.getParams(), request.getSocketTimeout().intValue());
+            Long socketTimeout = Deadlines.shrink(request.getSocketTimeout(), request.getDeadline());
+            if (socketTimeout != null && socketTimeout >= 0) {
+                HttpConnectionParams.setSoTimeout(uriRequest.getParams(), socketTimeout.intValue());
             }
 
             return uriRequest;
@@ -208,21 +285,42 @@ public class HttpClientRestService implements RestService, Disposable {
 
     public static RestService newRestService(Map<String,Object> customProperties) {
         int concurrencyLevel = Objects.defaultIfNull((Integer) customProperties.get(CRestProperty.CREST_CONCURRENCY_LEVEL), 1);
-        return newRestService(concurrencyLevel, concurrencyLevel);
+        int maxConnections = Objects.defaultIfNull((Integer) customProperties.get(CRestProperty.CREST_HTTP_MAX_CONNECTIONS), concurrencyLevel);
+        int maxConnectionsPerRoute = Objects.defaultIfNull((Integer) customProperties.get(CRestProperty.CREST_HTTP_MAX_CONNECTIONS_PER_ROUTE), maxConnections);
+        long idleTimeout = Objects.defaultIfNull((Long) customProperties.get(CRestProperty.CREST_HTTP_IDLE_TIMEOUT), DEFAULT_IDLE_TIMEOUT);
+        return newRestService(maxConnections, maxConnectionsPerRoute, idleTimeout);
     }
+
+    /**
+     * Builds a service backed by a pool of keep-alive connections when more than one connection is allowed, so that concurrent calls to the same end-point reuse a bounded set of sockets.
+     * @param maxConcurrentConnection maximum number of pooled connections, all routes included
+     * @param maxConnectionPerRoute maximum number of pooled connections for a single route, capped to maxConcurrentConnection
+     * @return the rest service
+     */
     public static RestService newRestService(int maxConcurrentConnection, int maxConnectionPerRoute) {
+        return newRestService(maxConcurrentConnection, maxConnectionPerRoute, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Builds a service backed by a pool of keep-alive connections when more than one connection is allowed, so that concurrent calls to the same end-point reuse a bounded set of sockets.
+     * <p>Pooled connections skip the stale check, except for the requests the client won't resend (POST and PUT), the ones left idle for longer than the given timeout are closed in the background instead.
+     * @param maxConcurrentConnection maximum number of pooled connections, all routes included
+     * @param maxConnectionPerRoute maximum number of pooled connections for a single route, capped to maxConcurrentConnection
+     * @param idleTimeout time in milliseconds after which a pooled connection left idle is closed, 0 or less to keep them open
+     * @return the rest service
+     */
+    public static RestService newRestService(int maxConcurrentConnection, int maxConnectionPerRoute, long idleTimeout) {
         DefaultHttpClient httpClient;
         if (maxConcurrentConnection > 1 || maxConnectionPerRoute > 1) {
+            int maxTotal = Math.max(maxConcurrentConnection, 1);
             HttpParams params = new BasicHttpParams();
             HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
-            if (maxConnectionPerRoute > 1) {
-                ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(maxConnectionPerRoute));
-            }
-            if (maxConcurrentConnection > 1) {
-                ConnManagerParams.setMaxTotalConnections(params, maxConcurrentConnection);
-            } else {
-                ConnManagerParams.setMaxTotalConnections(params, 1);
-            }
+            ConnManagerParams.setMaxTotalConnections(params, maxTotal);
+            ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(Math.max(Math.min(maxConnectionPerRoute, maxTotal), 1)));
+            // pooled connections are checked out at a high rate, skip the blocking stale check on each of them,
+            // idle connections are evicted before the server closes them and idempotent requests hitting a closed one are retried by the client
+            HttpConnectionParams.setStaleCheckingEnabled(params, false);
+            HttpConnectionParams.setTcpNoDelay(params, true);
 
             SchemeRegistry schemeRegistry = new SchemeRegistry();
             schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
@@ -234,10 +332,13 @@ public class HttpClientRestService implements RestService, Disposable {
             httpClient = new DefaultHttpClient();
         }
         httpClient.setRoutePlanner(new ProxySelectorRoutePlanner(httpClient.getConnectionManager().getSchemeRegistry(), ProxySelector.getDefault()));
-        return new HttpClientRestService(httpClient);
+        return new HttpClientRestService(httpClient, idleTimeout);
     }
 
     public void dispose() {
+        if (eviction != null) {
+            eviction.cancel(false);
+        }
         http.getConnectionManager().shutdown();
     }
 
@@ -284,4 +385,42 @@ public class HttpClientRestService implements RestService, Disposable {
             }
         }
     }
+
+    /**
+     * Entity writing the request body straight into the connection, sent chunked as its length is only known once written.
+     */
+    private static class BodyEntity extends AbstractHttpEntity {
+
+        private final HttpRequest request;
+
+        private BodyEntity(HttpRequest request) {
+            this.request = request;
+            setContentType(request.getBodyContentType());
+            setChunked(true);
+        }
+
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        public long getContentLength() {
+            return -1;
+        }
+
+        public InputStream getContent() throws IOException {
+            // only used when the entity is read rather than written, eg by a request interceptor
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            request.writeBody(out);
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            request.writeBody(out);
+            out.flush();
+        }
+
+        public boolean isStreaming() {
+            return false;
+        }
+    }
 }
@@ -34,19 +34,19 @@ public class HttpException extends RuntimeException {
     public HttpException(String message, HttpResponse response) {
         super(message);
         this.response = response;
-        this.responseString = response.asString();
+        this.responseString = response != null ? response.asString() : null;
     }
 
     public HttpException(Throwable cause, HttpResponse response) {
         super(cause);
         this.response = response;
-        this.responseString = response.asString();
+        this.responseString = response != null ? response.asString() : null;
     }
 
     public HttpException(String message, HttpResponse response, Throwable cause) {
         super(message, cause);
         this.response = response;
-        this.responseString = response.asString();
+        this.responseString = response != null ? response.asString() : null;
     }
 
     public HttpResponse getResponse() {
@@ -23,9 +23,11 @@ package org.codegist.crest;
 import org.codegist.common.lang.EqualsBuilder;
 import org.codegist.common.lang.HashCodeBuilder;
 import org.codegist.common.lang.ToStringBuilder;
-import org.codegist.common.lang.Validate;
 import org.codegist.common.net.Urls;
+import org.codegist.crest.serializer.BodyWriter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -35,8 +37,6 @@ import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Laurent Gilles (laurent.gilles@codegist.org)
@@ -47,6 +47,7 @@ public class HttpRequest {
     public static final String DEST_PATH = "path";
     public static final String DEST_FORM = "form";
     public static final String DEST_HEADER = "header";
+    public static final String DEST_BODY = "body";
 
     public static final String HTTP_GET = "GET";
     public static final String HTTP_POST = "POST";
@@ -59,20 +60,30 @@ public class HttpRequest {
     private final URI uri;
     private final Long socketTimeout;
     private final Long connectionTimeout;
+    private final Long deadline;
     private final String encoding;
     private final Map<String, String> headerParams;
     private final Map<String, String> queryParams;
     private final Map<String, Object> formParams;
+    private final Object body;
+    private final BodyWriter bodyWriter;
 
-    private HttpRequest(String meth, URI uri, Long socketTimeout, Long connectionTimeout, String encoding, Map<String, String> headerParams, Map<String, String> queryParams, Map<String, Object> formParams) {
+    private HttpRequest(String meth, URI uri, Long socketTimeout, Long connectionTimeout, Long deadline, String encoding, Map<String, String> headerParams, Map<String, String> queryParams, Map<String, Object> formParams, Object body, BodyWriter bodyWriter) {
         this.meth = meth;
         this.uri = uri;
         this.socketTimeout = socketTimeout;
         this.connectionTimeout = connectionTimeout;
+        this.deadline = deadline;
         this.encoding = encoding;
-        this.headerParams = Collections.unmodifiableMap(headerParams);
-        this.queryParams = Collections.unmodifiableMap(queryParams);
-        this.formParams = Collections.unmodifiableMap(formParams);
+        this.headerParams = unmodifiable(headerParams);
+        this.queryParams = unmodifiable(queryParams);
+        this.formParams = unmodifiable(formParams);
+        this.body = body;
+        this.bodyWriter = bodyWriter;
+    }
+
+    private static <T> Map<String, T> unmodifiable(Map<String, T> params) {
+        return params != null ? Collections.unmodifiableMap(params) : Collections.<String, T>emptyMap();
     }
 
     public String getMeth() {
@@ -100,6 +111,16 @@ public class HttpRequest {
         return connectionTimeout;
     }
 
+    /**
+     * Absolute time after which the request must be aborted. The socket and connection timeouts are shrunk to the time left when the request is fired.
+     * <p>Not part of the request identity, two requests only differing by their deadline are equal.
+     *
+     * @return the deadline in milliseconds since epoch, null if none
+     */
+    public Long getDeadline() {
+        return deadline;
+    }
+
     public String getEncoding() {
         return encoding;
     }
@@ -124,6 +145,35 @@ public class HttpRequest {
         return formParams;
     }
 
+    /**
+     * @return the value sent as the whole request entity, null if none
+     * @see HttpRequest#writeBody(java.io.OutputStream)
+     */
+    public Object getBody() {
+        return body;
+    }
+
+    public BodyWriter getBodyWriter() {
+        return bodyWriter;
+    }
+
+    /**
+     * @return content type of the request body, including the request charset
+     */
+    public String getBodyContentType() {
+        return bodyWriter.getMimeType() + "; charset=" + encoding;
+    }
+
+    /**
+     * Writes the body straight into the given stream, no copy of the entity is ever made. Can be called again to resend the request.
+     *
+     * @param out request entity stream, left open
+     * @throws IOException if the body can't be written
+     */
+    public void writeBody(OutputStream out) throws IOException {
+        bodyWriter.write(body, getEncodingAsCharset(), out);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -131,6 +181,7 @@ public class HttpRequest {
         HttpRequest that = (HttpRequest) o;
         return new EqualsBuilder()
                 .append(formParams, that.formParams)
+                .append(body, that.body)
                 .append(connectionTimeout, that.connectionTimeout)
                 .append(encoding, that.encoding)
                 .append(headerParams, that.headerParams)
@@ -151,6 +202,7 @@ public class HttpRequest {
                 .append(headerParams)
                 .append(queryParams)
                 .append(formParams)
+                .append(body)
                 .hashCode();
     }
 
@@ -160,10 +212,12 @@ public class HttpRequest {
                 .append("uri", uri)
                 .append("socketTimeout", socketTimeout)
                 .append("connectionTimeout", connectionTimeout)
+                .append("deadline", deadline)
                 .append("encoding", encoding)
                 .append("headerParams", headerParams)
                 .append("queryParams", queryParams)
                 .append("formParams", formParams)
+                .append("body", body)
                 .toString();
     }
 
@@ -177,18 +231,21 @@ public class HttpRequest {
      * <p>Will create an GET utf-8 HttpRequest object.
      */
     public static class Builder {
-        private static final Pattern SINGLE_PLACEHOLDER_PATTERN = Pattern.compile("[\\{]([^/]+)[\\})]");
         static final String ENCODING = "utf-8";
         static final String METH = HttpRequest.HTTP_GET;
         private String meth = METH;
-        private String baseUri;
+        private UrlTemplate baseUri;
         private Long socketTimeout = null;
         private Long connectionTimeout = null;
+        private Long deadline = null;
         private String encoding = ENCODING;
-        private final LinkedHashMap<String, String> headerParams = new LinkedHashMap<String, String>();
-        private final LinkedHashMap<String, String> queryParams = new LinkedHashMap<String, String>();
-        private final LinkedHashMap<String, String> pathParams = new LinkedHashMap<String, String>();
-        private final LinkedHashMap<String, Object> formParams = new LinkedHashMap<String, Object>();
+        // created on first use, most requests only use one or two kinds of params
+        private LinkedHashMap<String, String> headerParams;
+        private LinkedHashMap<String, String> queryParams;
+        private LinkedHashMap<String, String> pathParams;
+        private LinkedHashMap<String, Object> formParams;
+        private Object body;
+        private BodyWriter bodyWriter;
 
         /**
          * Creates a GET request pointing to the given url
@@ -213,32 +270,37 @@ public class HttpRequest {
             pointsTo(uriString, encoding);
         }
 
+        /**
+         * Creates a GET request builder, {@link Builder#pointsTo(UrlTemplate, String)} must be called before building the request.
+         */
+        Builder() {
+        }
+
         public HttpRequest build() throws URISyntaxException {
+            if (body != null && formParams != null && !formParams.isEmpty()) {
+                throw new IllegalStateException("A request can't have both a body and form params ! (formParams=" + formParams + ")");
+            }
+            if (body != null && !HTTP_POST.equals(meth) && !HTTP_PUT.equals(meth)) {
+                // otherwise silently dropped or sent with another method depending on the rest service
+                throw new IllegalStateException("Only POST and PUT requests can have a body ! (meth=" + meth + ")");
+            }
             return new HttpRequest(
                     meth,
                     new URI(buildBaseUriString()),
                     socketTimeout,
                     connectionTimeout,
+                    deadline,
                     encoding,
                     headerParams,
                     queryParams,
-                    formParams
+                    formParams,
+                    body,
+                    bodyWriter
             );
         }
 
         private String buildBaseUriString() {
-            StringBuffer baseUri = new StringBuffer();
-            Matcher m = SINGLE_PLACEHOLDER_PATTERN.matcher(this.baseUri);
-            while (m.find()) {
-                String placeHolder = m.group(1);
-                if (!pathParams.containsKey(placeHolder)) {
-                    throw new IllegalStateException("Not all path parameters have been provided for base uri '" + this.baseUri + "'! Missing param: " + placeHolder);
-                }
-                String value = pathParams.get(placeHolder);
-                m.appendReplacement(baseUri, value);
-            }
-            m.appendTail(baseUri);
-            return baseUri.toString();
+            return baseUri.expand(pathParams != null ? pathParams : Collections.<String, String>emptyMap());
         }
 
         /**
@@ -266,8 +328,20 @@ public class HttpRequest {
          * @throws URISyntaxException If the uriString is not a valid URL
          */
         public Builder pointsTo(String uriString, String encoding) throws URISyntaxException {
-            Validate.isTrue(!Urls.hasQueryString(uriString), "Given uri contains a query string:" + uriString);
-            this.baseUri = Urls.normalizeSlashes(uriString);
+            this.baseUri = UrlTemplate.compile(uriString);
+            this.encoding = encoding;
+            return this;
+        }
+
+        /**
+         * Sets the precompiled url the request will point to.
+         *
+         * @param baseUri  Url the request will point to
+         * @param encoding Request encoding
+         * @return current builder
+         */
+        Builder pointsTo(UrlTemplate baseUri, String encoding) {
+            this.baseUri = baseUri;
             this.encoding = encoding;
             return this;
         }
@@ -281,7 +355,7 @@ public class HttpRequest {
          */
         public String getUrlString(boolean includeQueryString) throws UnsupportedEncodingException {
             String uri = buildBaseUriString();
-            if (!includeQueryString || queryParams.isEmpty()) return uri;
+            if (!includeQueryString || queryParams == null || queryParams.isEmpty()) return uri;
             return uri + "?" + Urls.buildQueryString(queryParams, encoding);
         }
 
@@ -324,6 +398,16 @@ public class HttpRequest {
             return this;
         }
 
+        /**
+         * @param deadline absolute time in milliseconds since epoch after which the resulting request is aborted, null for none.
+         * @return current builder
+         * @see HttpRequest#getDeadline()
+         */
+        public Builder expireAt(Long deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
         /**
          * @param meth Http method to use to the resulting request.
          * @return current builder
@@ -341,7 +425,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addHeaderParam(String name, Object value) {
-            headerParams.put(name, value != null ? value.toString() : null);
+            headerParams().put(name, value != null ? value.toString() : null);
             return this;
         }
 
@@ -352,7 +436,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder setHeaderParams(Map<String, String> headers) {
-            this.headerParams.clear();
+            headerParams().clear();
             return addHeaderParams(headers);
         }
 
@@ -363,7 +447,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addHeaderParams(Map<String, String> headers) {
-            this.headerParams.putAll(headers);
+            headerParams().putAll(headers);
             return this;
         }
 
@@ -376,7 +460,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addPathParam(String name, String value) {
-            this.pathParams.put(name, value);
+            pathParams().put(name, value);
             return this;
         }
 
@@ -388,7 +472,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder setPathParams(Map<String, String> params) {
-            this.pathParams.clear();
+            pathParams().clear();
             return addPathParams(params);
         }
 
@@ -400,7 +484,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addPathParams(Map<String, String> params) {
-            this.pathParams.putAll(params);
+            pathParams().putAll(params);
             return this;
         }
 
@@ -412,7 +496,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addQueryParam(String name, String value) {
-            queryParams.put(name, value);
+            queryParams().put(name, value);
             return this;
         }
 
@@ -423,7 +507,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder setQueryParams(Map<String, String> params) {
-            this.queryParams.clear();
+            queryParams().clear();
             return addQueryParams(params);
         }
 
@@ -434,7 +518,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addQueryParams(Map<String, String> params) {
-            this.queryParams.putAll(params);
+            queryParams().putAll(params);
             return this;
         }
 
@@ -446,7 +530,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addFormParam(String name, Object value) {
-            formParams.put(name, value);
+            formParams().put(name, value);
             return this;
         }
 
@@ -457,7 +541,7 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder setFormParams(Map<String, Object> params) {
-            this.formParams.clear();
+            formParams().clear();
             return addFormParams(params);
         }
 
@@ -468,7 +552,21 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addFormParams(Map<String, Object> params) {
-            this.formParams.putAll(params);
+            formParams().putAll(params);
+            return this;
+        }
+
+        /**
+         * Sets the resulting request's body, the given value is written as the whole request entity when the request is fired.
+         * <p>Can't be combined with form parameters.
+         *
+         * @param body   value to send, null for none
+         * @param writer writer to write the value with
+         * @return current builder
+         */
+        public Builder setBody(Object body, BodyWriter writer) {
+            this.body = body;
+            this.bodyWriter = writer;
             return this;
         }
 
@@ -481,20 +579,49 @@ public class HttpRequest {
          * @return current builder
          */
         public Builder addParam(String name, Object value, String dest) {
-            dest = dest.toLowerCase();
-            if (DEST_QUERY.equals(dest)) {
+            if (DEST_QUERY.equalsIgnoreCase(dest)) {
                 return addQueryParam(name, value.toString());
-            } else if (DEST_PATH.equals(dest)) {
+            } else if (DEST_PATH.equalsIgnoreCase(dest)) {
                 return addPathParam(name, value.toString());
-            } else if (DEST_FORM.equals(dest)) {
+            } else if (DEST_FORM.equalsIgnoreCase(dest)) {
                 return addFormParam(name, value);
-            } else if (DEST_HEADER.equals(dest)) {
+            } else if (DEST_HEADER.equalsIgnoreCase(dest)) {
                 return addHeaderParam(name, value.toString());
+            } else if (DEST_BODY.equalsIgnoreCase(dest)) {
+                throw new IllegalStateException("Body parameters need a writer, see org.codegist.crest.injector.BodyInjector ! (name=" + name + ")");
             } else {
                 throw new IllegalStateException("Unsupported destination ! (dest=" + dest + ")");
             }
         }
 
+        private LinkedHashMap<String, String> headerParams() {
+            if (headerParams == null) {
+                headerParams = new LinkedHashMap<String, String>();
+            }
+            return headerParams;
+        }
+
+        private LinkedHashMap<String, String> queryParams() {
+            if (queryParams == null) {
+                queryParams = new LinkedHashMap<String, String>();
+            }
+            return queryParams;
+        }
+
+        private LinkedHashMap<String, String> pathParams() {
+            if (pathParams == null) {
+                pathParams = new LinkedHashMap<String, String>();
+            }
+            return pathParams;
+        }
+
+        private LinkedHashMap<String, Object> formParams() {
+            if (formParams == null) {
+                formParams = new LinkedHashMap<String, Object>();
+            }
+            return formParams;
+        }
+
         public String getMeth() {
             return meth;
         }
@@ -504,19 +631,23 @@ public class HttpRequest {
         }
 
         public Map<String, String> getHeaderParams() {
-            return headerParams;
+            return headerParams();
         }
 
         public Map<String, Object> getFormParams() {
-            return formParams;
+            return formParams();
         }
 
         public Map<String, String> getQueryParams() {
-            return queryParams;
+            return queryParams();
         }
 
         public Map<String, String> getPathParams() {
-            return pathParams;
+            return pathParams();
+        }
+
+        public Object getBody() {
+            return body;
         }
 
         public Long getSocketTimeout() {
@@ -527,6 +658,10 @@ public class HttpRequest {
             return connectionTimeout;
         }
 
+        public Long getDeadline() {
+            return deadline;
+        }
+
         public String getEncoding() {
             return encoding;
         }
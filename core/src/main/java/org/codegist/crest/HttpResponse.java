@@ -98,6 +98,47 @@ public class HttpResponse {
         }
     }
 
+    private HttpResponse(HttpResponse response, InputStream inputStream) {
+        this.request = response.request;
+        this.statusCode = response.statusCode;
+        this.headers = response.headers;
+        this.contentEncoding = response.contentEncoding;
+        this.mimeType = response.mimeType;
+        this.charset = response.charset;
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Returns a response reading this response body and running the given callback once closed, allowing a RestService decorator to hold a resource until the caller is done with the body.
+     * <p>The callback is run exactly once, straight away if the response has no body.
+     *
+     * @param callback callback to run once the response is closed
+     * @return the response to hand over instead of this one
+     * @throws IllegalStateException if {@link org.codegist.crest.HttpResponse#asString()} has already been called
+     */
+    public HttpResponse onClose(final Runnable callback) throws IllegalStateException {
+        if (inputStream == null) {
+            callback.run();
+            return this;
+        }
+        if (responseString != null) {
+            throw new IllegalStateException("Stream as already been consumed");
+        }
+        return new HttpResponse(this, new HttpResourceInputStream(new HttpResource() {
+            public InputStream getContent() {
+                return inputStream;
+            }
+
+            public void release() {
+                try {
+                    IOs.close(inputStream);
+                } finally {
+                    callback.run();
+                }
+            }
+        }));
+    }
+
     private static String getFirstHeaderFor(Map<String, List<String>> headers, String name) {
         List<String> contentType = headers.get(name);
         if (contentType == null || contentType.isEmpty()) return "";
@@ -174,6 +215,13 @@ public class HttpResponse {
         return header != null ? Collections.unmodifiableList(header) : Collections.<String>emptyList();
     }
 
+    /**
+     * @return all the response headers
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
     /**
      * @return Http status code
      */
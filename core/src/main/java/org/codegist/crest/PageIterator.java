@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest;
+
+import org.codegist.crest.page.Paginator;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lazy iterator over the pages of a paginated method, starting from the page fetched with the given arguments.
+ * <p>As soon as a page is available, the following one is fetched in the background by the given executor so that the network latency overlaps with the page processing. At most one page is fetched ahead.
+ * <p>Closing the iterator cancels the page being prefetched, if any. It can be done from any thread, a consumer blocked waiting for that page then sees the iteration end.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.page.Paginator
+ */
+abstract class PageIterator implements Iterator<Object>, Closeable {
+
+    private final Paginator<Object> paginator;
+    private final ExecutorService executor;
+    private final Long deadline;
+    private final AtomicReference<Future<Page>> pending = new AtomicReference<Future<Page>>();
+    private volatile boolean closed = false;
+    private Page next;
+
+    /**
+     * @param paginator method paginator
+     * @param args arguments of the first page
+     * @param executor executor fetching the pages
+     * @param deadline deadline the pages are fetched with, can be null
+     */
+    PageIterator(Paginator<Object> paginator, Object[] args, ExecutorService executor, Long deadline) {
+        this.paginator = paginator;
+        this.executor = executor;
+        this.deadline = deadline;
+        this.pending.set(fetchAsync(args != null ? args.clone() : new Object[0]));
+    }
+
+    /**
+     * @param args arguments of the page
+     * @return a new request context for the page
+     */
+    abstract RequestContext newContext(Object[] args);
+
+    /**
+     * @param context request context of the page
+     * @return the page, null to stop iterating
+     * @throws Throwable any error
+     */
+    abstract Object fetch(RequestContext context) throws Throwable;
+
+    public boolean hasNext() {
+        // no lock is held while waiting for the page so that close() can cancel it
+        Future<Page> current = pending.get();
+        if (next == null && current != null) {
+            Page page;
+            try {
+                page = await(current);
+            } catch (CancellationException e) {
+                return false;
+            }
+            if (!pending.compareAndSet(current, null)) {
+                // closed meanwhile
+                return false;
+            }
+            if (page.value != null) {
+                next = page;
+                // prefetch the following page while this one gets consumed
+                Object[] args = page.context.getArgs().clone();
+                if (paginator.next(page.context, page.value, args)) {
+                    pending.set(fetchAsync(args));
+                    if (closed) {
+                        // close() may have missed it
+                        cancel();
+                    }
+                }
+            }
+        }
+        return !closed && next != null;
+    }
+
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object value = next.value;
+        next = null;
+        return value;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+        closed = true;
+        cancel();
+    }
+
+    private void cancel() {
+        Future<Page> current = pending.getAndSet(null);
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+    private Future<Page> fetchAsync(final Object[] args) {
+        return executor.submit(new Callable<Page>() {
+            public Page call() throws Exception {
+                // the pages inherit the deadline of the call that created the iterator
+                Deadlines.setAt(deadline);
+                try {
+                    RequestContext context = newContext(args);
+                    return new Page(context, fetch(context));
+                } catch (Throwable e) {
+                    throw CRestException.handle(e);
+                } finally {
+                    Deadlines.clear();
+                }
+            }
+        });
+    }
+
+    private static Page await(Future<Page> page) {
+        try {
+            return page.get();
+        } catch (ExecutionException e) {
+            throw CRestException.handle(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw CRestException.handle(e);
+        }
+    }
+
+    private static final class Page {
+        private final RequestContext context;
+        private final Object value;
+
+        private Page(RequestContext context, Object value) {
+            this.context = context;
+            this.value = value;
+        }
+    }
+}
@@ -20,10 +20,16 @@
 
 package org.codegist.crest;
 
+import org.codegist.common.io.IOs;
 import org.codegist.common.net.Urls;
 
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -88,4 +94,53 @@ public final class Params {
         }
         return Urls.buildQueryString(sparams, encoding);
     }
+
+    /**
+     * Writes the given parameter map as a multipart/form-data HTTP body content, files and input streams being sent as uploads
+     *
+     * @param params   Parameter map
+     * @param boundary Boundary declared in the body Content-Type header
+     * @param encoding Encoding
+     * @param os       Stream to write the body content to, left open
+     * @throws IOException Body content couldn't be written
+     */
+    public static void writeMultipart(Map<String, Object> params, String boundary, String encoding, OutputStream os) throws IOException {
+        boundary = "--" + boundary;
+        DataOutputStream out = new DataOutputStream(os);
+
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            InputStream upload = null;
+            String name = null;
+            if (param.getValue() instanceof InputStream) {
+                upload = (InputStream) param.getValue();
+                name = param.getKey();
+            } else if (param.getValue() instanceof File) {
+                upload = new FileInputStream((File) param.getValue());
+                name = ((File) param.getValue()).getName();
+            }
+
+            if (upload != null) {
+                out.writeBytes(boundary + "\r\n");
+                out.writeBytes("Content-Disposition: form-data; name=\"" + param.getKey() + "\"; filename=\"" + name + "\"\r\n");
+                out.writeBytes("Content-Type: Content-Type: application/octet-stream\r\n\r\n");
+                BufferedInputStream in = null;
+                try {
+                    in = (BufferedInputStream) (upload instanceof BufferedInputStream ? upload : new BufferedInputStream(upload));
+                    IOs.copy(in, out);
+                    out.writeBytes("\r\n");
+                } finally {
+                    IOs.close(in);
+                }
+            } else if (param.getValue() != null) {
+                out.writeBytes(boundary + "\r\n");
+                out.writeBytes("Content-Disposition: form-data; name=\"" + param.getKey() + "\"\r\n");
+                out.writeBytes("Content-Type: text/plain; charset=" + encoding + "\r\n\r\n");
+                out.write(param.getValue().toString().getBytes(encoding));
+                out.writeBytes("\r\n");
+            }
+        }
+        out.writeBytes(boundary + "--\r\n");
+        out.writeBytes("\r\n");
+        out.flush();
+    }
 }
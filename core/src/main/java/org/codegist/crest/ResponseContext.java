@@ -33,6 +33,10 @@ import java.lang.reflect.Type;
  */
 public interface ResponseContext {
 
+    /**
+     * @return the method deserializer, already resolved to the one bound to the response mime type when the method accepts several mime types
+     * @see org.codegist.crest.serializer.ContentNegotiatingDeserializer#select(String)
+     */
     Deserializer getDeserializer();
 
     RequestContext getRequestContext();
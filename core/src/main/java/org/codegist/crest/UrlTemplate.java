@@ -0,0 +1,101 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest;
+
+import org.codegist.common.lang.Validate;
+import org.codegist.common.net.Urls;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Url compiled once into its literal parts and path placeholders so that it can be merged with path parameters in a single pass.
+ * <p>Placeholders follow the {@link org.codegist.crest.HttpRequest.Builder#pointsTo(String, String)} syntax, eg http://localhost:8080/my-path/{my-param-name}/{p2}.json
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+final class UrlTemplate {
+
+    private static final Pattern SINGLE_PLACEHOLDER_PATTERN = Pattern.compile("[\\{]([^/]+)[\\})]");
+
+    private final String template;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int length;
+
+    private UrlTemplate(String template, String[] literals, String[] placeholders) {
+        this.template = template;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.length = length;
+    }
+
+    /**
+     * @param uriString url to compile - No query string allowed
+     * @return the compiled url
+     * @throws IllegalArgumentException if the given url contains a query string
+     */
+    static UrlTemplate compile(String uriString) {
+        Validate.isTrue(!Urls.hasQueryString(uriString), "Given uri contains a query string:" + uriString);
+        String template = Urls.normalizeSlashes(uriString);
+        List<String> literals = new ArrayList<String>();
+        List<String> placeholders = new ArrayList<String>();
+        Matcher m = SINGLE_PLACEHOLDER_PATTERN.matcher(template);
+        int start = 0;
+        while (m.find()) {
+            literals.add(template.substring(start, m.start()));
+            placeholders.add(m.group(1));
+            start = m.end();
+        }
+        literals.add(template.substring(start));
+        return new UrlTemplate(template, literals.toArray(new String[literals.size()]), placeholders.toArray(new String[placeholders.size()]));
+    }
+
+    /**
+     * @param pathParams placeholder values
+     * @return the url with all its placeholders replaced by their values
+     * @throws IllegalStateException if a placeholder has no value
+     */
+    String expand(Map<String, String> pathParams) {
+        if (placeholders.length == 0) {
+            return template;
+        }
+        StringBuilder url = new StringBuilder(length + 16 * placeholders.length);
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = pathParams.get(placeholders[i]);
+            if (value == null && !pathParams.containsKey(placeholders[i])) {
+                throw new IllegalStateException("Not all path parameters have been provided for base uri '" + template + "'! Missing param: " + placeholders[i]);
+            }
+            url.append(literals[i]).append(value);
+        }
+        return url.append(literals[placeholders.length]).toString();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
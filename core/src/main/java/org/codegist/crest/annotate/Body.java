@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.annotate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Optional method argument level annotation, indicates to write the argument as the whole request entity body using the given writer, eg :
+ * <code>
+ * <pre>
+ * &#64;EndPoint("http://my-server")
+ * interface FooInterface {
+ *    &#64;POST
+ *    void create(&#64;Body(JacksonBodyWriter.class) MyModel model);
+ * }
+ * </pre>
+ * </code>
+ * <p>The entity is streamed into the connection, the request can't have any form parameter.
+ * @see org.codegist.crest.injector.BodyInjector
+ * @see org.codegist.crest.HttpRequest#DEST_BODY
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.PARAMETER})
+public @interface Body {
+    Class<? extends org.codegist.crest.serializer.BodyWriter> value();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.annotate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Optional method level annotation, caps the requests in flight of the method with a dedicated bulkhead, isolating it from the other methods sharing the same rest service.
+ * <p>value is the maximum number of requests in flight, maxWait the maximum time in milliseconds a request waits for a slot, 0 rejecting it straight away.
+ * <p>Can be set at interface level, the bulkhead is then shared by all the interface methods not declaring their own.
+ * @see org.codegist.crest.config.MethodConfig#getBulkhead()
+ * @see org.codegist.crest.limiter.Bulkhead
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Bulkhead {
+    int value();
+
+    long maxWait() default 0;
+}
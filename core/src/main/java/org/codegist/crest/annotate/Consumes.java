@@ -26,6 +26,10 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
+ * <p>Optional method level annotation, sets the Accept header and the deserializer bound to the accepted mime type.
+ * <p>Can list several mime types the Accept header way, eg "application/x-jackson-smile, application/json;q=0.5", the response is then deserialized according to its Content-Type.
+ * <p>Can be set at interface level to default all interface method values if not specified at method level.
+ * @see org.codegist.crest.serializer.DeserializerFactory#buildForAcceptHeader(String)
  * @author laurent.gilles@codegist.org
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -36,4 +40,6 @@ public @interface Consumes {
 
     String JSON = "application/json";
     String XML = "application/xml";
+    String SMILE = "application/x-jackson-smile";
+    String PROTOBUF = "application/x-protobuf";
 }
@@ -27,6 +27,7 @@ import java.lang.annotation.Target;
 
 /**
  * <p>Mandatory interface level annotation, sets the service end point.
+ * <p>Several end points can be given, eg replicas of the same service, requests are then load balanced between them, see {@link org.codegist.crest.CRestProperty#CREST_LOAD_BALANCER_STRATEGY}.
  * <p>Can contain placeholder that will be replace by any value found in the given placeholder config, see {@link org.codegist.crest.CRestBuilder#setConfigPlaceholder(String, String)}
  * @see org.codegist.crest.CRestBuilder#setConfigPlaceholder(String, String)
  * @see org.codegist.crest.config.InterfaceConfig#getEndPoint()
@@ -35,5 +36,5 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.TYPE})
 public @interface EndPoint {
-    String value();
+    String[] value();
 }
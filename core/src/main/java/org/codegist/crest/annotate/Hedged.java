@@ -0,0 +1,41 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.annotate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Optional method level annotation, sets the delay in milliseconds after which an identical request is fired if the first one didn't respond yet. If not specified, defaults to the method config default value.
+ * <p>Only GET and HEAD requests are hedged. Defaults to 0, waiting for the method's observed latency percentile, a negative value disables hedging.
+ * <p>Can be set at interface level to default all interface method values if not specified at method level.
+ * @see org.codegist.crest.config.MethodConfig#DEFAULT_HEDGE_DELAY
+ * @see org.codegist.crest.config.MethodConfig#getHedgeDelay()
+ * @see org.codegist.crest.hedge.HedgingRestService
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Hedged {
+    long value() default 0;
+}
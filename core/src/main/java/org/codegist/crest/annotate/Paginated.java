@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.annotate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Optional method level annotation, sets the method paginator. The method must declare a {@link java.util.Iterator} or {@link java.lang.Iterable} return type of the page type, the pages are then lazily fetched one after the other, the next one being prefetched while the current one is consumed.
+ * <p>Can be set at interface level to default all interface method values if not specified at method level, it only applies to the methods returning an Iterator or an Iterable.
+ * @see org.codegist.crest.config.MethodConfig#getPaginator()
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE,ElementType.METHOD})
+public @interface Paginated {
+    Class<? extends org.codegist.crest.page.Paginator> value();
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.balancer;
+
+import org.codegist.common.log.Logger;
+import org.codegist.crest.Failures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-point of a {@link org.codegist.crest.balancer.LoadBalancer}, tracking the requests it serves.
+ * <p>An end-point failing too many requests in a row (network error, 5xx, 408 or 429) is ejected from the balancing for a while.
+ * <p>This class is thread-safe.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class BalancedEndPoint {
+
+    /**
+     * Weight of the last sample in the latency moving average.
+     */
+    private static final double LATENCY_DECAY = 0.3;
+    private static final Logger LOG = Logger.getLogger(BalancedEndPoint.class);
+
+    private final String url;
+    private final int index;
+    private final int maxFailures;
+    private final long ejectionDuration;
+
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong latency = new AtomicLong(Double.doubleToLongBits(0));
+    private volatile long ejectedUntil;
+
+    BalancedEndPoint(String url, int index, int maxFailures, long ejectionDuration) {
+        this.url = url;
+        this.index = index;
+        this.maxFailures = maxFailures;
+        this.ejectionDuration = ejectionDuration;
+    }
+
+    /**
+     * Notifies a request is about to be sent to this end-point, must be followed by a call to {@link #onComplete(Exception, long)}, or to {@link #onCancel()} if it wasn't sent after all.
+     */
+    public void onStart() {
+        outstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * Notifies a request announced by {@link #onStart()} hasn't been sent, without affecting the end-point latency and health.
+     */
+    public void onCancel() {
+        outstandingRequests.decrementAndGet();
+    }
+
+    /**
+     * Notifies a request sent to this end-point completed.
+     * @param exception exception the request failed with, null if it succeeded
+     * @param duration request duration in milliseconds
+     */
+    public void onComplete(Exception exception, long duration) {
+        outstandingRequests.decrementAndGet();
+        updateLatency(duration);
+        if (!Failures.isEndPointFailure(exception)) {
+            consecutiveFailures.set(0);
+        } else if (consecutiveFailures.incrementAndGet() >= maxFailures) {
+            consecutiveFailures.set(0);
+            ejectedUntil = System.currentTimeMillis() + ejectionDuration;
+            LOG.warn("End-point %s ejected for %dms after %d consecutive failures", url, ejectionDuration, maxFailures);
+        }
+    }
+
+    private void updateLatency(long duration) {
+        long current;
+        double updated;
+        do {
+            current = latency.get();
+            double average = Double.longBitsToDouble(current);
+            updated = average == 0 ? duration : average + LATENCY_DECAY * (duration - average);
+        } while (!latency.compareAndSet(current, Double.doubleToLongBits(updated)));
+    }
+
+    /**
+     * @return end-point url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return end-point position in the configured end-points
+     * @see org.codegist.crest.config.InterfaceConfig#getEndPoints()
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return number of requests currently in flight
+     */
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
+    /**
+     * @return exponentially weighted moving average of the request durations in milliseconds, 0 until a first request completed
+     */
+    public double getLatency() {
+        return Double.longBitsToDouble(latency.get());
+    }
+
+    /**
+     * @return true if the end-point is currently ejected from the balancing
+     */
+    public boolean isEjected() {
+        return isEjected(System.currentTimeMillis());
+    }
+
+    boolean isEjected(long now) {
+        return now < ejectedUntil;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.balancer;
+
+/**
+ * Sends the requests to the end-point with the lowest expected latency, its latency moving average weighted by the requests it already has in flight.
+ * <p>End-points not measured yet score best, so that each gets a first request.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class LatencyWeightedStrategy extends ScoreBasedStrategy {
+
+    @Override
+    protected double score(BalancedEndPoint endPoint) {
+        return endPoint.getLatency() * (endPoint.getOutstandingRequests() + 1);
+    }
+}
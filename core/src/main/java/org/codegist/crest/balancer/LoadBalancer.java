@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.balancer;
+
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.CustomProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads the requests between several end-points according to a {@link org.codegist.crest.balancer.LoadBalancingStrategy}.
+ * <p>End-points ejected after consecutive failures are skipped, unless all are ejected. A retried request is sent to a different end-point whenever another one is available.
+ * <p>Configured with the following properties, see {@link org.codegist.crest.CRestProperty} for their respective details:
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_LOAD_BALANCER_STRATEGY}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_LOAD_BALANCER_MAX_FAILURES}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_LOAD_BALANCER_EJECTION_DURATION}
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class LoadBalancer {
+
+    public static final String STRATEGY_ROUND_ROBIN = "round-robin";
+    public static final String STRATEGY_LEAST_OUTSTANDING = "least-outstanding";
+    public static final String STRATEGY_LATENCY_WEIGHTED = "latency-weighted";
+    public static final String DEFAULT_STRATEGY = STRATEGY_ROUND_ROBIN;
+    public static final int DEFAULT_MAX_FAILURES = 5;
+    public static final long DEFAULT_EJECTION_DURATION = 30000;
+
+    private final BalancedEndPoint[] endPoints;
+    private final LoadBalancingStrategy strategy;
+
+    public LoadBalancer(String[] urls) {
+        this(urls, Collections.<String, Object>emptyMap());
+    }
+
+    public LoadBalancer(String[] urls, Map<String, Object> customProperties) {
+        this(urls,
+                getStrategy(customProperties.get(CRestProperty.CREST_LOAD_BALANCER_STRATEGY)),
+                (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_LOAD_BALANCER_MAX_FAILURES, DEFAULT_MAX_FAILURES),
+                CustomProperties.getLong(customProperties, CRestProperty.CREST_LOAD_BALANCER_EJECTION_DURATION, DEFAULT_EJECTION_DURATION));
+    }
+
+    /**
+     * @param urls end-points urls
+     * @param strategy balancing strategy
+     * @param maxFailures consecutive failures after which an end-point is ejected
+     * @param ejectionDuration duration in milliseconds an end-point stays ejected
+     */
+    public LoadBalancer(String[] urls, LoadBalancingStrategy strategy, int maxFailures, long ejectionDuration) {
+        if (urls == null || urls.length == 0) throw new IllegalArgumentException("At least one end-point is required");
+        this.strategy = strategy;
+        this.endPoints = new BalancedEndPoint[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            endPoints[i] = new BalancedEndPoint(urls[i], i, Math.max(1, maxFailures), ejectionDuration);
+        }
+    }
+
+    /**
+     * @param previous end-point the previous attempt of the request was sent to, null for a first attempt
+     * @return the end-point to send the request to
+     */
+    public BalancedEndPoint choose(BalancedEndPoint previous) {
+        if (endPoints.length == 1) {
+            return endPoints[0];
+        }
+        long now = System.currentTimeMillis();
+        List<BalancedEndPoint> candidates = new ArrayList<BalancedEndPoint>(endPoints.length);
+        for (BalancedEndPoint endPoint : endPoints) {
+            if (endPoint != previous && !endPoint.isEjected(now)) {
+                candidates.add(endPoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            if (previous != null && !previous.isEjected(now)) {
+                return previous;
+            }
+            // everything is ejected, better try one than failing straight away
+            candidates.addAll(Arrays.asList(endPoints));
+        }
+        return strategy.select(candidates);
+    }
+
+    /**
+     * @return the balanced end-points
+     */
+    public List<BalancedEndPoint> getEndPoints() {
+        return Collections.unmodifiableList(Arrays.asList(endPoints));
+    }
+
+    private static LoadBalancingStrategy getStrategy(Object value) {
+        if (value instanceof LoadBalancingStrategy) {
+            return (LoadBalancingStrategy) value;
+        }
+        String name = value != null ? value.toString().trim() : DEFAULT_STRATEGY;
+        if (STRATEGY_ROUND_ROBIN.equals(name)) {
+            return new RoundRobinStrategy();
+        } else if (STRATEGY_LEAST_OUTSTANDING.equals(name)) {
+            return new LeastOutstandingStrategy();
+        } else if (STRATEGY_LATENCY_WEIGHTED.equals(name)) {
+            return new LatencyWeightedStrategy();
+        }
+        throw new IllegalArgumentException("Unknown load balancing strategy " + name + ", expected " + STRATEGY_ROUND_ROBIN + ", " + STRATEGY_LEAST_OUTSTANDING + " or " + STRATEGY_LATENCY_WEIGHTED);
+    }
+}
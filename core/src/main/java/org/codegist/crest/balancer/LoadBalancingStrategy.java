@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.balancer;
+
+import java.util.List;
+
+/**
+ * Picks the end-point a request is sent to amongst the available ones.
+ * <p>Implementations must be thread-safe, a single instance can be shared by several load balancers.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public interface LoadBalancingStrategy {
+
+    /**
+     * @param candidates available end-points, never empty
+     * @return the end-point to send the request to
+     */
+    BalancedEndPoint select(List<BalancedEndPoint> candidates);
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.balancer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the requests to the end-point with the lowest score, ties are broken in turn.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public abstract class ScoreBasedStrategy implements LoadBalancingStrategy {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public BalancedEndPoint select(List<BalancedEndPoint> candidates) {
+        int size = candidates.size();
+        int offset = (counter.getAndIncrement() & Integer.MAX_VALUE) % size;
+        BalancedEndPoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            BalancedEndPoint candidate = candidates.get((offset + i) % size);
+            double score = score(candidate);
+            if (best == null || score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param endPoint end-point to score
+     * @return end-point score, the lower the better
+     */
+    protected abstract double score(BalancedEndPoint endPoint);
+}
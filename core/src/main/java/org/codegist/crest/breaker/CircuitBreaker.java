@@ -0,0 +1,272 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.breaker;
+
+import org.codegist.common.log.Logger;
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.CustomProperties;
+import org.codegist.crest.Failures;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker recording the outcome of the last calls in a sliding window and refusing calls while too many of them failed or were too slow.
+ * <p>- closed : calls are let through and recorded, the breaker opens once the window holds the minimum number of calls and either the failure rate or the slow call rate reaches its threshold.
+ * <p>- open : calls are refused until the open duration elapses, the breaker then gets half-open.
+ * <p>- half-open : a fixed number of trial calls are let through, the breaker closes if their failure and slow call rates stay under the thresholds, opens again otherwise.
+ * <p>Calls failing with an HTTP client error (4xx, but 408 and 429) are recorded as successful, the remote end point being healthy.
+ * <p>This class is thread-safe and lock-free, checking whether a call is permitted is a single volatile read while closed.
+ * <p>Configured with the following properties, see {@link org.codegist.crest.CRestProperty} for their respective details:
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_WINDOW_SIZE}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_MINIMUM_CALLS}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_FAILURE_RATE}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_SLOW_CALL_RATE}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_SLOW_CALL_DURATION}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_OPEN_DURATION}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_HALF_OPEN_CALLS}
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final int DEFAULT_FAILURE_RATE = 50;
+    public static final int DEFAULT_SLOW_CALL_RATE = 100;
+    public static final long DEFAULT_SLOW_CALL_DURATION = 10000;
+    public static final long DEFAULT_OPEN_DURATION = 30000;
+    public static final int DEFAULT_HALF_OPEN_CALLS = 5;
+
+    private static final Logger LOG = Logger.getLogger(CircuitBreaker.class);
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRate;
+    private final int slowCallRate;
+    private final long slowCallDuration;
+    private final long openDuration;
+    private final int halfOpenCalls;
+
+    private final AtomicReference<State> state = new AtomicReference<State>(State.CLOSED);
+    private volatile long openedAt;
+
+    private final AtomicIntegerArray window;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialCalls = new AtomicInteger();
+    private final AtomicInteger trialFailures = new AtomicInteger();
+    private final AtomicInteger trialSlowCalls = new AtomicInteger();
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public CircuitBreaker(String name) {
+        this(name, Collections.<String, Object>emptyMap());
+    }
+
+    public CircuitBreaker(String name, Map<String, Object> customProperties) {
+        this.name = name;
+        int windowSize = (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_WINDOW_SIZE, DEFAULT_WINDOW_SIZE);
+        if (windowSize <= 0) throw new IllegalArgumentException("window size must be positive (size=" + windowSize + ")");
+        this.window = new AtomicIntegerArray(windowSize);
+        this.minimumCalls = Math.max(1, Math.min(windowSize, (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_MINIMUM_CALLS, DEFAULT_MINIMUM_CALLS)));
+        this.failureRate = (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_FAILURE_RATE, DEFAULT_FAILURE_RATE);
+        this.slowCallRate = (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_SLOW_CALL_RATE, DEFAULT_SLOW_CALL_RATE);
+        this.slowCallDuration = CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_SLOW_CALL_DURATION, DEFAULT_SLOW_CALL_DURATION);
+        this.openDuration = CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_OPEN_DURATION, DEFAULT_OPEN_DURATION);
+        this.halfOpenCalls = Math.max(1, (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CIRCUIT_BREAKER_HALF_OPEN_CALLS, DEFAULT_HALF_OPEN_CALLS));
+    }
+
+    /**
+     * Checks whether a call can be fired, every permitted call must then be recorded with {@link #record(Exception, long)}, or given back with {@link #release()} if it didn't reach the end point.
+     * @return true if the call is permitted
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            State current = state.get();
+            if (current == State.CLOSED) {
+                return true;
+            } else if (current == State.HALF_OPEN) {
+                return acquireTrial();
+            } else if (System.currentTimeMillis() - openedAt < openDuration) {
+                rejectedCalls.incrementAndGet();
+                return false;
+            } else if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                LOG.info("Circuit breaker %s half-open", name);
+                trialCalls.set(0);
+                trialFailures.set(0);
+                trialSlowCalls.set(0);
+                trialPermits.set(halfOpenCalls);
+                return acquireTrial();
+            }
+            // lost the race against another state transition, check again
+        }
+    }
+
+    private boolean acquireTrial() {
+        if (trialPermits.decrementAndGet() >= 0) {
+            return true;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     * @param exception exception the call failed with, null if it succeeded
+     * @param duration call duration in milliseconds
+     */
+    public void record(Exception exception, long duration) {
+        boolean failed = Failures.isEndPointFailure(exception);
+        boolean slow = duration >= slowCallDuration;
+        if (state.get() == State.HALF_OPEN) {
+            recordTrial(failed, slow);
+        } else {
+            recordInWindow(failed, slow);
+        }
+    }
+
+    /**
+     * Gives back the permit of a call that didn't reach the end point, without recording any outcome.
+     */
+    public void release() {
+        if (state.get() == State.HALF_OPEN) {
+            trialPermits.incrementAndGet();
+        }
+    }
+
+    private void recordTrial(boolean failed, boolean slow) {
+        if (failed) trialFailures.incrementAndGet();
+        if (slow) trialSlowCalls.incrementAndGet();
+        if (trialCalls.incrementAndGet() != halfOpenCalls) {
+            return;
+        }
+        // last trial call, decide on the next state
+        if (isOverThreshold(trialFailures.get(), trialSlowCalls.get(), halfOpenCalls)) {
+            open(State.HALF_OPEN);
+        } else {
+            close();
+        }
+    }
+
+    private void recordInWindow(boolean failed, boolean slow) {
+        int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+        int previous = window.getAndSet((int) (cursor.getAndIncrement() % window.length()), outcome);
+        int count = (previous & RECORDED) != 0 ? calls.get() : calls.incrementAndGet();
+        int failureCount = failures.addAndGet(flag(outcome, FAILED) - flag(previous, FAILED));
+        int slowCount = slowCalls.addAndGet(flag(outcome, SLOW) - flag(previous, SLOW));
+        if (count >= minimumCalls && state.get() == State.CLOSED && isOverThreshold(failureCount, slowCount, count)) {
+            open(State.CLOSED);
+        }
+    }
+
+    private boolean isOverThreshold(int failureCount, int slowCount, int count) {
+        return failureCount * 100 >= failureRate * count || slowCount * 100 >= slowCallRate * count;
+    }
+
+    private void open(State from) {
+        // set before the transition so that no caller sees the open state with a stale date
+        openedAt = System.currentTimeMillis();
+        if (state.compareAndSet(from, State.OPEN)) {
+            LOG.warn("Circuit breaker %s open, failure rate=%s%%, slow call rate=%s%%", name, getFailureRate(), getSlowCallRate());
+        }
+    }
+
+    private void close() {
+        for (int i = 0; i < window.length(); i++) {
+            window.set(i, 0);
+        }
+        cursor.set(0);
+        calls.set(0);
+        failures.set(0);
+        slowCalls.set(0);
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            LOG.info("Circuit breaker %s closed", name);
+        }
+    }
+
+    private static int flag(int outcome, int flag) {
+        return (outcome & flag) != 0 ? 1 : 0;
+    }
+
+    /**
+     * @return circuit breaker name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return current state
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return percentage of failed calls in the window, -1 while it holds less than the minimum number of calls
+     */
+    public float getFailureRate() {
+        int count = calls.get();
+        return count < minimumCalls ? -1 : failures.get() * 100f / count;
+    }
+
+    /**
+     * @return percentage of slow calls in the window, -1 while it holds less than the minimum number of calls
+     */
+    public float getSlowCallRate() {
+        int count = calls.get();
+        return count < minimumCalls ? -1 : slowCalls.get() * 100f / count;
+    }
+
+    /**
+     * @return number of calls currently recorded in the window
+     */
+    public int getBufferedCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return number of calls refused since the breaker has been created
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker[" + name + "," + getState() + "]";
+    }
+}
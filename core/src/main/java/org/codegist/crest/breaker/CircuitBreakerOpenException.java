@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.breaker;
+
+import org.codegist.crest.CRestException;
+
+/**
+ * Thrown instead of firing a request while the circuit breaker guarding it is open.
+ * <p>As any other call failure, it is given to the method's {@link org.codegist.crest.handler.ErrorHandler}.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CircuitBreakerOpenException extends CRestException {
+
+    private final transient CircuitBreaker circuitBreaker;
+
+    public CircuitBreakerOpenException(CircuitBreaker circuitBreaker) {
+        super("Circuit breaker " + circuitBreaker.getName() + " is " + circuitBreaker.getState() + ", request not fired");
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @return the circuit breaker that refused the call
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.breaker;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the circuit breakers of a CRest instance by name, creating them on first access with the registry's settings.
+ * <p>Meant to be kept by the caller to monitor the breakers, see {@link #getCircuitBreakers()}.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.CRestProperty#CREST_CIRCUIT_BREAKER_REGISTRY
+ */
+public class CircuitBreakerRegistry {
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+    private final Map<String, Object> customProperties;
+
+    public CircuitBreakerRegistry() {
+        this(Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * @param customProperties settings of the circuit breakers the registry creates, see {@link org.codegist.crest.breaker.CircuitBreaker#CircuitBreaker(String, java.util.Map)}
+     */
+    public CircuitBreakerRegistry(Map<String, Object> customProperties) {
+        this.customProperties = customProperties;
+    }
+
+    /**
+     * @param name circuit breaker name
+     * @return the circuit breaker of the given name, created if not existing yet
+     */
+    public CircuitBreaker get(String name) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(name);
+        if (circuitBreaker == null) {
+            CircuitBreaker created = new CircuitBreaker(name, customProperties);
+            circuitBreaker = circuitBreakers.putIfAbsent(name, created);
+            if (circuitBreaker == null) {
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @return a live, read-only, view of the circuit breakers created so far, by name
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.cache;
+
+import org.codegist.common.lang.ToStringBuilder;
+import org.codegist.crest.ByteArrayHttpResource;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable response stored in a {@link org.codegist.crest.cache.ResponseCache}.
+ * <p>The body is kept decoded, headers don't hold any Content-Encoding nor Content-Length.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CachedResponse {
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final long freshUntil;
+    private final Map<String, String> varyHeaders;
+
+    /**
+     * @param statusCode  response status code
+     * @param headers     response headers
+     * @param body        decoded response body
+     * @param freshUntil  date (in ms) until which the response can be served without being revalidated
+     * @param varyHeaders values of the request headers listed in the response Vary header, at the time the response has been received
+     */
+    public CachedResponse(int statusCode, Map<String, List<String>> headers, byte[] body, long freshUntil, Map<String, String> varyHeaders) {
+        this.statusCode = statusCode;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+        this.freshUntil = freshUntil;
+        this.varyHeaders = Collections.unmodifiableMap(varyHeaders);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public long getFreshUntil() {
+        return freshUntil;
+    }
+
+    public Map<String, String> getVaryHeaders() {
+        return varyHeaders;
+    }
+
+    public String getETag() {
+        return getFirstHeader(headers, "ETag");
+    }
+
+    public String getLastModified() {
+        return getFirstHeader(headers, "Last-Modified");
+    }
+
+    /**
+     * @param now current date in ms
+     * @return true if the response can be served without being revalidated
+     */
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    /**
+     * @return true if the response holds a validator (ETag or Last-Modified) to revalidate it with
+     */
+    public boolean isRevalidable() {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    /**
+     * @param requestHeaders headers of the request to serve
+     * @return true if the given request headers match the ones the response varies on
+     */
+    public boolean matches(Map<String, String> requestHeaders) {
+        for (Map.Entry<String, String> vary : varyHeaders.entrySet()) {
+            String value = getHeader(requestHeaders, vary.getKey());
+            if (value == null ? vary.getValue() != null : !value.equals(vary.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param request request to serve
+     * @return a new response reading the cached body
+     */
+    public HttpResponse toHttpResponse(HttpRequest request) {
+        return new HttpResponse(request, statusCode, headers, new ByteArrayHttpResource(body));
+    }
+
+    /**
+     * @param headers    headers updated by a 304 Not Modified response
+     * @param freshUntil new freshness end date
+     * @return a copy of the current response with the given headers and freshness
+     */
+    CachedResponse refresh(Map<String, List<String>> headers, long freshUntil) {
+        return new CachedResponse(statusCode, headers, body, freshUntil, varyHeaders);
+    }
+
+    static String getFirstHeader(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    static String getHeader(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("statusCode", statusCode)
+                .append("headers", headers)
+                .append("freshUntil", freshUntil)
+                .append("varyHeaders", varyHeaders)
+                .toString();
+    }
+}
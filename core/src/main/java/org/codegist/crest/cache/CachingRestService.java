@@ -0,0 +1,352 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.cache;
+
+import org.codegist.common.lang.Disposable;
+import org.codegist.common.lang.Disposables;
+import org.codegist.common.log.Logger;
+import org.codegist.crest.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URISyntaxException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * RestService decorator caching GET responses following their HTTP caching headers.
+ * <p>Responses are stored in a {@link org.codegist.crest.cache.ResponseCache}, keyed on the request method and url, and are checked against the request headers listed in their Vary header.
+ * <p>- Responses are considered fresh for the time given by the Cache-Control max-age directive, or by the Expires header. Fresh responses are served without hitting the network.
+ * <p>- Stale responses carrying a validator (ETag or Last-Modified) are revalidated with a conditional request (If-None-Match or If-Modified-Since), a 304 Not Modified response is served from the cache.
+ * <p>- Responses with a Cache-Control no-store directive, with a Vary: * header, or bigger than the configured maximum entry size are never stored.
+ * <p>- Any successful POST, PUT or DELETE request evicts the cached GET response of the same url.
+ * @see org.codegist.crest.config.MethodConfig#isCacheable()
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CachingRestService implements RestService, Disposable {
+
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 512 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(CachingRestService.class);
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+    private static final Set<String> UNSTORED_HEADERS = new HashSet<String>(Arrays.asList("content-encoding", "content-length", "transfer-encoding", "connection"));
+
+    private final RestService delegate;
+    private final ResponseCache cache;
+    private final int maxEntrySize;
+
+    public CachingRestService(RestService delegate) {
+        this(delegate, new LruResponseCache(), DEFAULT_MAX_ENTRY_SIZE);
+    }
+
+    /**
+     * @param delegate         rest service firing the requests the cache can't serve
+     * @param customProperties custom properties, holding {@link org.codegist.crest.CRestProperty#CREST_RESPONSE_CACHE} and {@link org.codegist.crest.CRestProperty#CREST_RESPONSE_CACHE_MAX_ENTRY_SIZE}
+     */
+    public CachingRestService(RestService delegate, Map<String, Object> customProperties) {
+        this(delegate, getResponseCache(customProperties), getMaxEntrySize(customProperties));
+    }
+
+    /**
+     * @param delegate     rest service firing the requests the cache can't serve
+     * @param cache        response store
+     * @param maxEntrySize maximum size in bytes of a stored response body
+     */
+    public CachingRestService(RestService delegate, ResponseCache cache, int maxEntrySize) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    private static ResponseCache getResponseCache(Map<String, Object> customProperties) {
+        ResponseCache cache = customProperties != null ? (ResponseCache) customProperties.get(CRestProperty.CREST_RESPONSE_CACHE) : null;
+        return cache != null ? cache : new LruResponseCache();
+    }
+
+    private static int getMaxEntrySize(Map<String, Object> customProperties) {
+        Integer maxEntrySize = customProperties != null ? (Integer) customProperties.get(CRestProperty.CREST_RESPONSE_CACHE_MAX_ENTRY_SIZE) : null;
+        return maxEntrySize != null ? maxEntrySize : DEFAULT_MAX_ENTRY_SIZE;
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public HttpResponse exec(HttpRequest request) throws HttpException {
+        String key = getKey(request);
+        String meth = request.getMeth();
+        if (!HttpRequest.HTTP_GET.equals(meth)) {
+            HttpResponse response = delegate.exec(request);
+            if (!HttpRequest.HTTP_HEAD.equals(meth) && !HttpRequest.HTTP_OPTIONS.equals(meth)) {
+                // the request may have changed the resource, don't serve the stale representation anymore
+                cache.remove(key);
+            }
+            return response;
+        }
+
+        long now = System.currentTimeMillis();
+        CachedResponse cached = cache.get(key);
+        if (cached != null && !cached.matches(request.getHeaderParams())) {
+            cached = null;
+        }
+        if (cached != null && cached.isFresh(now)) {
+            LOGGER.debug("Serving %s from cache", key);
+            return cached.toHttpResponse(request);
+        }
+        if (cached == null || !cached.isRevalidable()) {
+            return store(key, request, delegate.exec(request), now);
+        }
+
+        HttpResponse response;
+        try {
+            LOGGER.debug("Revalidating %s", key);
+            response = delegate.exec(newConditionalRequest(request, cached));
+        } catch (HttpException e) {
+            if (e.getResponse() == null || e.getResponse().getStatusCode() != 304) {
+                throw e;
+            }
+            return refresh(key, request, cached, e.getResponse().getHeaders(), now);
+        }
+        return store(key, request, response, now);
+    }
+
+    private HttpResponse refresh(String key, HttpRequest request, CachedResponse cached, Map<String, List<String>> notModifiedHeaders, long now) {
+        Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>(cached.getHeaders());
+        for (Map.Entry<String, List<String>> header : getStoredHeaders(notModifiedHeaders).entrySet()) {
+            removeHeader(headers, header.getKey());
+            headers.put(header.getKey(), header.getValue());
+        }
+        long freshUntil = getFreshUntil(headers, now);
+        if (freshUntil < 0) {
+            cache.remove(key);
+            return cached.toHttpResponse(request);
+        }
+        CachedResponse refreshed = cached.refresh(headers, freshUntil);
+        cache.put(key, refreshed);
+        return refreshed.toHttpResponse(request);
+    }
+
+    private HttpResponse store(String key, HttpRequest request, HttpResponse response, long now) {
+        Map<String, List<String>> headers = response.getHeaders();
+        long freshUntil = getFreshUntil(headers, now);
+        String contentLength = CachedResponse.getFirstHeader(headers, "Content-Length");
+        if (freshUntil < 0 || (contentLength != null && parseLong(contentLength, 0) > maxEntrySize)) {
+            cache.remove(key);
+            return response;
+        }
+
+        Map<String, List<String>> storedHeaders = getStoredHeaders(headers);
+        InputStream in = response.asStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            if (in != null) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                    if (body.size() > maxEntrySize) {
+                        // too big to be cached, give back what has been read followed by the rest of the stream
+                        cache.remove(key);
+                        return new HttpResponse(request, response.getStatusCode(), storedHeaders, new PartiallyReadHttpResource(body.toByteArray(), response));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            response.close();
+            throw new HttpException(e);
+        }
+        response.close();
+
+        CachedResponse cached = new CachedResponse(response.getStatusCode(), storedHeaders, body.toByteArray(), freshUntil, getVaryHeaders(headers, request));
+        cache.put(key, cached);
+        return cached.toHttpResponse(request);
+    }
+
+    private static HttpRequest newConditionalRequest(HttpRequest request, CachedResponse cached) {
+        try {
+            HttpRequest.Builder builder = new HttpRequest.Builder(request.getUri().toString(), request.getEncoding())
+                    .using(request.getMeth())
+                    .timeoutSocketAfter(request.getSocketTimeout())
+                    .timeoutConnectionAfter(request.getConnectionTimeout())
+                    .expireAt(request.getDeadline())
+                    .setHeaderParams(request.getHeaderParams())
+                    .setQueryParams(request.getQueryParams())
+                    .setFormParams(request.getFormParams());
+            if (cached.getETag() != null) {
+                builder.addHeaderParam("If-None-Match", cached.getETag());
+            }
+            if (cached.getLastModified() != null) {
+                builder.addHeaderParam("If-Modified-Since", cached.getLastModified());
+            }
+            return builder.build();
+        } catch (URISyntaxException e) {
+            throw new HttpException(e);
+        }
+    }
+
+    /**
+     * Computes the date until which a response can be served from the cache without being revalidated.
+     * @param headers response headers
+     * @param now     date the response has been received
+     * @return the freshness end date, now if the response must be revalidated before each use, -1 if it can't be stored at all
+     */
+    static long getFreshUntil(Map<String, List<String>> headers, long now) {
+        Set<String> vary = getHeaderTokens(headers, "Vary");
+        if (vary.contains("*")) return -1;
+
+        Set<String> cacheControl = getHeaderTokens(headers, "Cache-Control");
+        if (cacheControl.contains("no-store")) return -1;
+
+        boolean revalidable = CachedResponse.getFirstHeader(headers, "ETag") != null || CachedResponse.getFirstHeader(headers, "Last-Modified") != null;
+        long freshUntil = now;
+        if (!cacheControl.contains("no-cache")) {
+            String maxAge = getDirective(cacheControl, "max-age");
+            String expires = CachedResponse.getFirstHeader(headers, "Expires");
+            if (maxAge != null) {
+                long age = parseLong(CachedResponse.getFirstHeader(headers, "Age"), 0);
+                freshUntil = now + (parseLong(maxAge, 0) - age) * 1000;
+            } else if (expires != null) {
+                Date expiresDate = parseDate(expires);
+                Date date = parseDate(CachedResponse.getFirstHeader(headers, "Date"));
+                if (expiresDate != null) {
+                    // relative to the server clock, as ours might not be in sync
+                    freshUntil = now + expiresDate.getTime() - (date != null ? date.getTime() : now);
+                }
+            }
+        }
+        if (freshUntil <= now) {
+            return revalidable ? now : -1;
+        }
+        return freshUntil;
+    }
+
+    private static Map<String, String> getVaryHeaders(Map<String, List<String>> headers, HttpRequest request) {
+        Map<String, String> varyHeaders = new HashMap<String, String>();
+        for (String name : getHeaderTokens(headers, "Vary")) {
+            varyHeaders.put(name, CachedResponse.getHeader(request.getHeaderParams(), name));
+        }
+        return varyHeaders;
+    }
+
+    static Map<String, List<String>> getStoredHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> stored = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            // HttpURLConnection maps the status line to a null key
+            if (header.getKey() == null || UNSTORED_HEADERS.contains(header.getKey().toLowerCase(Locale.ENGLISH))) continue;
+            stored.put(header.getKey(), header.getValue());
+        }
+        return stored;
+    }
+
+    private static void removeHeader(Map<String, List<String>> headers, String name) {
+        for (Iterator<String> names = headers.keySet().iterator(); names.hasNext();) {
+            if (name.equalsIgnoreCase(names.next())) {
+                names.remove();
+            }
+        }
+    }
+
+    private static Set<String> getHeaderTokens(Map<String, List<String>> headers, String name) {
+        Set<String> tokens = new LinkedHashSet<String>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (!name.equalsIgnoreCase(header.getKey()) || header.getValue() == null) continue;
+            for (String value : header.getValue()) {
+                if (value == null) continue;
+                for (String token : value.split(",")) {
+                    token = token.trim();
+                    if (token.length() > 0) {
+                        tokens.add(token.toLowerCase(Locale.ENGLISH));
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static String getDirective(Set<String> directives, String name) {
+        String prefix = name + "=";
+        for (String directive : directives) {
+            if (directive.startsWith(prefix)) {
+                return directive.substring(prefix.length()).replace("\"", "").trim();
+            }
+        }
+        return null;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Date parseDate(String value) {
+        if (value == null) return null;
+        DateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value.trim());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    static String getKey(HttpRequest request) {
+        try {
+            return HttpRequest.HTTP_GET + " " + request.getUrlString(true);
+        } catch (IOException e) {
+            throw new HttpException(e);
+        }
+    }
+
+    public void dispose() {
+        Disposables.dispose(delegate);
+    }
+
+    static final class PartiallyReadHttpResource implements HttpResource {
+        private final byte[] read;
+        private final HttpResponse response;
+
+        PartiallyReadHttpResource(byte[] read, HttpResponse response) {
+            this.read = read;
+            this.response = response;
+        }
+
+        public InputStream getContent() throws HttpException {
+            return new SequenceInputStream(new ByteArrayInputStream(read), response.asStream());
+        }
+
+        public void release() throws HttpException {
+            response.close();
+        }
+    }
+}
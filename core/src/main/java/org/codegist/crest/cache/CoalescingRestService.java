@@ -0,0 +1,244 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.cache;
+
+import org.codegist.common.lang.Disposable;
+import org.codegist.common.lang.Disposables;
+import org.codegist.common.log.Logger;
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.RestService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RestService decorator issuing a single network call for identical GET and HEAD requests fired concurrently.
+ * <p>The first caller fires the request while the callers of any equal request (see {@link org.codegist.crest.HttpRequest#equals(Object)}) wait for its outcome, for no longer than their own deadline or timeouts allow.
+ * <p>When no other caller joined by the time the response arrives, it is handed back untouched and can be streamed. Otherwise the response body is buffered in memory and every caller gets its own response reading it, or the same exception. Bodies bigger than the configured maximum buffer size aren't shared, the first caller streams its response and the others fire their own call.
+ * <p>Other HTTP methods are passed through, as are requests fired once the pending call has completed. Methods with a hedge delay aren't coalesced, as their hedge would otherwise join the very call it hedges.
+ * @see org.codegist.crest.CRestProperty#CREST_REQUEST_COALESCING
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CoalescingRestService implements RestService, Disposable {
+
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 512 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(CoalescingRestService.class);
+
+    private final RestService delegate;
+    private final int maxBufferSize;
+    private final ConcurrentMap<HttpRequest, Call> calls = new ConcurrentHashMap<HttpRequest, Call>();
+
+    /**
+     * @param delegate rest service firing the requests
+     */
+    public CoalescingRestService(RestService delegate) {
+        this(delegate, DEFAULT_MAX_BUFFER_SIZE);
+    }
+
+    /**
+     * @param delegate         rest service firing the requests
+     * @param customProperties custom properties, holding {@link org.codegist.crest.CRestProperty#CREST_REQUEST_COALESCING_MAX_BUFFER_SIZE}
+     */
+    public CoalescingRestService(RestService delegate, Map<String, Object> customProperties) {
+        this(delegate, getMaxBufferSize(customProperties));
+    }
+
+    /**
+     * @param delegate      rest service firing the requests
+     * @param maxBufferSize maximum size in bytes of a response body shared between callers
+     */
+    public CoalescingRestService(RestService delegate, int maxBufferSize) {
+        this.delegate = delegate;
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    private static int getMaxBufferSize(Map<String, Object> customProperties) {
+        Integer maxBufferSize = customProperties != null ? (Integer) customProperties.get(CRestProperty.CREST_REQUEST_COALESCING_MAX_BUFFER_SIZE) : null;
+        return maxBufferSize != null ? maxBufferSize : DEFAULT_MAX_BUFFER_SIZE;
+    }
+
+    /**
+     * @return rest service firing the requests
+     */
+    public RestService getDelegate() {
+        return delegate;
+    }
+
+    public HttpResponse exec(HttpRequest request) throws HttpException {
+        if (!HttpRequest.HTTP_GET.equals(request.getMeth()) && !HttpRequest.HTTP_HEAD.equals(request.getMeth())) {
+            return delegate.exec(request);
+        }
+        Call call = new Call();
+        Call pending = calls.putIfAbsent(request, call);
+        if (pending != null) {
+            if (pending.join()) {
+                LOGGER.debug("Joining pending call for %s", request);
+                HttpResponse response = pending.await(request);
+                if (response != null) {
+                    return response;
+                }
+                LOGGER.debug("Pending call response for %s too big to be shared, firing a call of its own", request);
+            }
+            // the pending call completed in the meantime or couldn't be shared
+            return delegate.exec(request);
+        }
+
+        HttpResponse response;
+        try {
+            response = delegate.exec(request);
+        } catch (RuntimeException e) {
+            calls.remove(request, call);
+            call.fail(e);
+            throw e;
+        } catch (Error e) {
+            calls.remove(request, call);
+            call.fail(new HttpException(e));
+            throw e;
+        }
+        calls.remove(request, call);
+        if (call.seal() == 0) {
+            // nobody to share the response with, leave it streamable
+            return response;
+        }
+        try {
+            return share(call, request, response);
+        } catch (RuntimeException e) {
+            call.fail(e);
+            throw e;
+        }
+    }
+
+    private HttpResponse share(Call call, HttpRequest request, HttpResponse response) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            InputStream in = response.asStream();
+            if (in != null) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                    if (body.size() > maxBufferSize) {
+                        // too big to be held in memory, give back what has been read followed by the rest of the stream
+                        call.fallback();
+                        return new HttpResponse(request, response.getStatusCode(), CachingRestService.getStoredHeaders(response.getHeaders()), new CachingRestService.PartiallyReadHttpResource(body.toByteArray(), response));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            response.close();
+            throw new HttpException(e);
+        }
+        response.close();
+        CachedResponse buffered = new CachedResponse(response.getStatusCode(), CachingRestService.getStoredHeaders(response.getHeaders()), body.toByteArray(), 0, Collections.<String, String>emptyMap());
+        call.complete(buffered);
+        return buffered.toHttpResponse(request);
+    }
+
+    /**
+     * @param request request waiting for a pending call
+     * @return the time in milliseconds the request would have given its own call, or -1 if unbounded
+     */
+    private static long getMaxWait(HttpRequest request) {
+        long maxWait = -1;
+        Long socketTimeout = request.getSocketTimeout();
+        if (socketTimeout != null && socketTimeout > 0) {
+            Long connectionTimeout = request.getConnectionTimeout();
+            maxWait = socketTimeout + (connectionTimeout != null && connectionTimeout > 0 ? connectionTimeout : 0);
+        }
+        Long deadline = request.getDeadline();
+        if (deadline != null) {
+            long remaining = Math.max(deadline - System.currentTimeMillis(), 0);
+            maxWait = maxWait < 0 ? remaining : Math.min(maxWait, remaining);
+        }
+        return maxWait;
+    }
+
+    public void dispose() {
+        Disposables.dispose(delegate);
+    }
+
+    private static final class Call {
+        private final CountDownLatch done = new CountDownLatch(1);
+        // number of callers waiting for this call, -1 once it doesn't accept any more
+        private final AtomicInteger joined = new AtomicInteger();
+        private volatile CachedResponse response;
+        private volatile RuntimeException exception;
+
+        boolean join() {
+            for (;;) {
+                int count = joined.get();
+                if (count < 0) return false;
+                if (joined.compareAndSet(count, count + 1)) return true;
+            }
+        }
+
+        int seal() {
+            return joined.getAndSet(-1);
+        }
+
+        void complete(CachedResponse response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        void fail(RuntimeException exception) {
+            this.exception = exception;
+            done.countDown();
+        }
+
+        void fallback() {
+            done.countDown();
+        }
+
+        /**
+         * @return the shared response, or null if it can't be shared
+         */
+        HttpResponse await(HttpRequest request) {
+            try {
+                long maxWait = getMaxWait(request);
+                if (maxWait < 0) {
+                    done.await();
+                } else if (!done.await(maxWait, TimeUnit.MILLISECONDS)) {
+                    throw new HttpException(new SocketTimeoutException("Timed out after " + maxWait + "ms waiting for the pending call of " + request));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HttpException(e);
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            return response != null ? response.toHttpResponse(request) : null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory {@link org.codegist.crest.cache.ResponseCache}, the least recently used response is evicted once the maximum number of entries is reached.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class LruResponseCache implements ResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final Map<String, CachedResponse> entries;
+
+    public LruResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries maximum number of responses kept in the cache
+     */
+    public LruResponseCache(final int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive (maxEntries=" + maxEntries + ")");
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, CachedResponse response) {
+        entries.put(key, response);
+    }
+
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
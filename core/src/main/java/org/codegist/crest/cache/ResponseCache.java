@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.cache;
+
+/**
+ * Store of the responses cached by {@link org.codegist.crest.cache.CachingRestService}.
+ * <p>Implementors must be thread-safe and are free to evict any entry at any time.
+ * @see org.codegist.crest.cache.LruResponseCache
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public interface ResponseCache {
+
+    /**
+     * @param key cache key, made of the request method and url
+     * @return the response stored for the given key, null if none
+     */
+    CachedResponse get(String key);
+
+    /**
+     * Stores the given response, replacing any response previously stored for the same key.
+     *
+     * @param key      cache key, made of the request method and url
+     * @param response response to store
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * Evicts the response stored for the given key, if any.
+     *
+     * @param key cache key, made of the request method and url
+     */
+    void remove(String key);
+
+    /**
+     * Evicts all the stored responses.
+     */
+    void clear();
+
+}
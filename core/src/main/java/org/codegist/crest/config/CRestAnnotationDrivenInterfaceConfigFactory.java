@@ -27,12 +27,33 @@ import org.codegist.crest.annotate.*;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * <p>Annotation based config factory of any possible interfaces given to the factory.
  * <p>The factory will lookup any annotation in package {@link org.codegist.crest.annotate} on to the given interface.
  * <p/>
  * <p>- Each config fallback from param to method to interface until one config is found, otherwise defaults to any respective default value ({@link org.codegist.crest.config.InterfaceConfig}, {@link MethodConfig}, {@link PropertiesDrivenInterfaceConfigFactory}).
+ * <p/>
+ * <p>The annotation scanning is skipped for the interfaces coming with a configuration factory generated at compile time, named after the interface binary name suffixed with {@link #PRECOMPILED_SUFFIX}. Such factories are generated by the codegist-crest-processor annotation processor for the interfaces annotated with {@link org.codegist.crest.annotate.EndPoint}. A factory must implement {@link org.codegist.crest.config.InterfaceConfigFactory}, have a no-arg constructor, and build the config out of the literal annotation values:
+ * <code><pre>
+ * public class MyRestInterface$$CRestConfig implements InterfaceConfigFactory {
+ *     public InterfaceConfig newConfig(Class&lt;?&gt; interfaze, CRestContext context) throws ConfigFactoryException {
+ *         try {
+ *             return new ConfigBuilders.InterfaceConfigBuilder(interfaze, context.getProperties())
+ *                     .setEndPoint("http://my.server.com")
+ *                     .startMethodConfig(interfaze.getMethod("get", String.class))
+ *                         .setPath("/get/{0}")
+ *                     .endMethodConfig()
+ *                     .build();
+ *         } catch (Exception e) {
+ *             throw new ConfigFactoryException(e);
+ *         }
+ *     }
+ * }
+ * </pre></code>
+ * <p>The lookup is done once per interface. Templates are always built out of the annotations.
  *
  * @author Laurent Gilles (laurent.gilles@codegist.org)
  * @see org.codegist.crest.config.InterfaceConfig
@@ -40,7 +61,13 @@ import java.util.*;
  */
 public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceConfigFactory {
 
+    /**
+     * Suffix appended to an interface binary name to get the name of the configuration factory generated at compile time for it, if any.
+     */
+    public static final String PRECOMPILED_SUFFIX = "$$CRestConfig";
+
     private final boolean buildTemplates;
+    private final ConcurrentMap<Class<?>, InterfaceConfigFactory> precompiledFactories = new ConcurrentHashMap<Class<?>, InterfaceConfigFactory>();
 
     public CRestAnnotationDrivenInterfaceConfigFactory(boolean buildTemplates) {
         this.buildTemplates = buildTemplates;
@@ -51,6 +78,10 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
     }
 
     public InterfaceConfig newConfig(Class<?> interfaze, CRestContext context) throws ConfigFactoryException {
+        InterfaceConfigFactory precompiled = buildTemplates ? null : getPrecompiledFactory(interfaze);
+        if (precompiled != null) {
+            return precompiled.newConfig(interfaze, context);
+        }
         try {
             /* Interface specifics */
             EndPoint endPoint = interfaze.getAnnotation(EndPoint.class);
@@ -65,6 +96,11 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
             ResponseHandler responseHandler = interfaze.getAnnotation(ResponseHandler.class);
             ErrorHandler errorHandler = interfaze.getAnnotation(ErrorHandler.class);
             RetryHandler retryHandler = interfaze.getAnnotation(RetryHandler.class);
+            Paginated paginated = interfaze.getAnnotation(Paginated.class);
+            Cacheable cacheable = interfaze.getAnnotation(Cacheable.class);
+            Hedged hedged = interfaze.getAnnotation(Hedged.class);
+            Deadline deadline = interfaze.getAnnotation(Deadline.class);
+            Bulkhead bulkhead = interfaze.getAnnotation(Bulkhead.class);
             Consumes consumes = interfaze.getAnnotation(Consumes.class);
             HttpMethod httpMethod = getHttpMethod(interfaze.getAnnotations(), interfaze.getAnnotation(HttpMethod.class));
             Set<ParamConfig> extraParams = getExtraParamConfigs(interfaze.getAnnotations());
@@ -74,7 +110,7 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
             Injector injector = interfaze.getAnnotation(Injector.class);
 
             ConfigBuilders.InterfaceConfigBuilder config = new ConfigBuilders.InterfaceConfigBuilder(interfaze, context.getProperties());
-            if (endPoint != null) config.setEndPoint(endPoint.value());
+            if (endPoint != null) config.setEndPoints(endPoint.value());
             if (path != null) config.setPath(path.value());
             if (encoding != null) config.setEncoding(encoding.value());
             if (globalInterceptor != null) config.setGlobalInterceptor(globalInterceptor.value());
@@ -89,6 +125,11 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
             if (responseHandler != null) config.setMethodsResponseHandler(responseHandler.value());
             if (errorHandler != null) config.setMethodsErrorHandler(errorHandler.value());
             if (retryHandler != null) config.setMethodsRetryHandler(retryHandler.value());
+            if (paginated != null) config.setMethodsPaginator(paginated.value());
+            if (cacheable != null) config.setMethodsCacheable(cacheable.value());
+            if (hedged != null) config.setMethodsHedgeDelay(hedged.value());
+            if (deadline != null) config.setMethodsDeadline(deadline.value());
+            if (bulkhead != null) config.setMethodsBulkhead(bulkhead.value(), bulkhead.maxWait());
             if (consumes != null) config.setMethodsConsumes(consumes.value());
             if (httpMethod != null) config.setMethodsHttpMethod(httpMethod.value());
 
@@ -106,6 +147,11 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
                 responseHandler = meth.getAnnotation(ResponseHandler.class);
                 errorHandler = meth.getAnnotation(ErrorHandler.class);
                 retryHandler = meth.getAnnotation(RetryHandler.class);
+                paginated = meth.getAnnotation(Paginated.class);
+                cacheable = meth.getAnnotation(Cacheable.class);
+                hedged = meth.getAnnotation(Hedged.class);
+                deadline = meth.getAnnotation(Deadline.class);
+                bulkhead = meth.getAnnotation(Bulkhead.class);
                 consumes = meth.getAnnotation(Consumes.class);
                 httpMethod = getHttpMethod(meth.getAnnotations(), meth.getAnnotation(HttpMethod.class));
 
@@ -130,6 +176,11 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
                 if (responseHandler != null) methodConfigBuilder.setResponseHandler(responseHandler.value());
                 if (errorHandler != null) methodConfigBuilder.setErrorHandler(errorHandler.value());
                 if (retryHandler != null) methodConfigBuilder.setRetryHandler(retryHandler.value());
+                if (paginated != null) methodConfigBuilder.setPaginator(paginated.value());
+                if (cacheable != null) methodConfigBuilder.setCacheable(cacheable.value());
+                if (hedged != null) methodConfigBuilder.setHedgeDelay(hedged.value());
+                if (deadline != null) methodConfigBuilder.setDeadline(deadline.value());
+                if (bulkhead != null) methodConfigBuilder.setBulkhead(bulkhead.value(), bulkhead.maxWait());
                 if (consumes != null) methodConfigBuilder.setConsumes(consumes.value());
                 if (httpMethod != null) methodConfigBuilder.setHttpMethod(httpMethod.value());
 
@@ -156,6 +207,9 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
                     methodParamConfigBuilder.setDestination(pconfig.getDestination());
                     methodParamConfigBuilder.setDefaultValue(pconfig.getDefaultValue());
 
+                    Body body = (Body) paramAnnotations.get(Body.class);
+                    if (body != null) methodParamConfigBuilder.forBody(body.value());
+
                     methodParamConfigBuilder.endParamConfig();
                 }
 
@@ -170,6 +224,36 @@ public class CRestAnnotationDrivenInterfaceConfigFactory implements InterfaceCon
         }
     }
 
+    private InterfaceConfigFactory getPrecompiledFactory(Class<?> interfaze) throws ConfigFactoryException {
+        InterfaceConfigFactory factory = precompiledFactories.get(interfaze);
+        if (factory == null) {
+            factory = lookupPrecompiledFactory(interfaze);
+            InterfaceConfigFactory previous = precompiledFactories.putIfAbsent(interfaze, factory);
+            if (previous != null) {
+                factory = previous;
+            }
+        }
+        // this factory stands for no precompiled factory, null can't be cached
+        return factory != this ? factory : null;
+    }
+
+    private InterfaceConfigFactory lookupPrecompiledFactory(Class<?> interfaze) throws ConfigFactoryException {
+        Class<?> precompiled;
+        try {
+            precompiled = Class.forName(interfaze.getName() + PRECOMPILED_SUFFIX, true, interfaze.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return this;
+        }
+        if (!InterfaceConfigFactory.class.isAssignableFrom(precompiled)) {
+            throw new ConfigFactoryException(precompiled + " doesn't implement " + InterfaceConfigFactory.class.getName());
+        }
+        try {
+            return (InterfaceConfigFactory) precompiled.newInstance();
+        } catch (Exception e) {
+            throw new ConfigFactoryException(e);
+        }
+    }
+
 
     private static ParamConfig getFirstExtraParamConfig(Annotation[] annotations) {
         Set<ParamConfig> config = getExtraParamConfigs(annotations);
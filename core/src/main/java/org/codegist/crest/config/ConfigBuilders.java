@@ -30,8 +30,12 @@ import org.codegist.crest.HttpRequest;
 import org.codegist.crest.handler.ErrorHandler;
 import org.codegist.crest.handler.ResponseHandler;
 import org.codegist.crest.handler.RetryHandler;
+import org.codegist.crest.injector.BodyInjector;
 import org.codegist.crest.injector.Injector;
 import org.codegist.crest.interceptor.RequestInterceptor;
+import org.codegist.crest.limiter.Bulkhead;
+import org.codegist.crest.page.Paginator;
+import org.codegist.crest.serializer.BodyWriter;
 import org.codegist.crest.serializer.Deserializer;
 import org.codegist.crest.serializer.DeserializerFactory;
 import org.codegist.crest.serializer.Serializer;
@@ -80,10 +84,11 @@ public abstract class ConfigBuilders {
     public static class InterfaceConfigBuilder extends ConfigBuilders {
         private final Class interfaze;
         private final Map<Method, MethodConfigBuilder> builderCache;
-        private String endPoint;
+        private String[] endPoints;
         private String path;
         private String encoding;
         private RequestInterceptor globalInterceptor;
+        private Bulkhead defaultBulkhead;
 
         /**
          * <p>This will create an unbound builder, eg to attached to any interface, thus it cannot contains any method configuration.
@@ -174,23 +179,28 @@ public abstract class ConfigBuilders {
             // make local copies so that we don't mess with builder state to be able to call build multiple times on it
             String path = this.path;
             String encoding = this.encoding;
-            String endPoint = this.endPoint;
+            String[] endPoints = this.endPoints != null ? this.endPoints.clone() : null;
             RequestInterceptor globalInterceptor = this.globalInterceptor;
 
             if (!isTemplate) {
                 path = defaultIfUndefined(path, CRestProperty.CONFIG_INTERFACE_DEFAULT_PATH, InterfaceConfig.DEFAULT_PATH);
                 encoding = defaultIfUndefined(encoding, CRestProperty.CONFIG_INTERFACE_DEFAULT_ENCODING, InterfaceConfig.DEFAULT_ENCODING);
-                endPoint = defaultIfUndefined(endPoint, CRestProperty.CONFIG_INTERFACE_DEFAULT_ENDPOINT, InterfaceConfig.DEFAULT_ENDPOINT);
+                if (endPoints == null || endPoints.length == 0) endPoints = new String[1];
+                for (int i = 0; i < endPoints.length; i++) {
+                    endPoints[i] = defaultIfUndefined(endPoints[i], CRestProperty.CONFIG_INTERFACE_DEFAULT_ENDPOINT, InterfaceConfig.DEFAULT_ENDPOINT);
+                }
                 globalInterceptor = defaultIfUndefined(globalInterceptor, CRestProperty.CONFIG_INTERFACE_DEFAULT_GLOBAL_INTERCEPTOR, newInstance(InterfaceConfig.DEFAULT_GLOBAL_INTERCEPTOR));
 
                 if(validateConfig) {
-                    if (isBlank(endPoint)) throw new IllegalArgumentException("end-point not specified!");
+                    for (String endPoint : endPoints) {
+                        if (isBlank(endPoint)) throw new IllegalArgumentException("end-point not specified!");
+                    }
                     if(Urls.hasQueryString(path))  throw new IllegalArgumentException("Path can't contain a query string! (path=" + path +")");
                 }
             }
             return new DefaultInterfaceConfig(
                     interfaze,
-                    endPoint,
+                    endPoints,
                     path,
                     encoding,
                     globalInterceptor,
@@ -205,7 +215,25 @@ public abstract class ConfigBuilders {
 
         public InterfaceConfigBuilder setEndPoint(String endPoint) {
             if (ignore(endPoint)) return this;
-            this.endPoint = replacePlaceholders(endPoint);
+            this.endPoints = new String[]{replacePlaceholders(endPoint)};
+            return this;
+        }
+
+        /**
+         * Sets several end-points, requests are then load balanced between them.
+         * @param endPoints end-points, usually replicas of the same service
+         * @return current builder
+         * @see org.codegist.crest.CRestProperty#CREST_LOAD_BALANCER_STRATEGY
+         */
+        public InterfaceConfigBuilder setEndPoints(String... endPoints) {
+            if (ignore(endPoints) || (endPoints != null && endPoints.length == 1 && ignore(endPoints[0]))) return this;
+            this.endPoints = null;
+            if (endPoints != null) {
+                this.endPoints = new String[endPoints.length];
+                for (int i = 0; i < endPoints.length; i++) {
+                    this.endPoints[i] = replacePlaceholders(endPoints[i] != null ? endPoints[i].trim() : null);
+                }
+            }
             return this;
         }
 
@@ -253,6 +281,94 @@ public abstract class ConfigBuilders {
             return this;
         }
 
+        public InterfaceConfigBuilder setMethodsCacheable(Boolean cacheable) {
+            if (ignore(cacheable)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setCacheable(cacheable);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsCacheable(String cacheable) {
+            if (ignore(cacheable)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setCacheable(cacheable);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsHedgeDelay(Long hedgeDelay) {
+            if (ignore(hedgeDelay)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setHedgeDelay(hedgeDelay);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsHedgeDelay(String hedgeDelay) {
+            if (ignore(hedgeDelay)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setHedgeDelay(hedgeDelay);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsDeadline(Long deadline) {
+            if (ignore(deadline)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setDeadline(deadline);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsDeadline(String deadline) {
+            if (ignore(deadline)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setDeadline(deadline);
+            }
+            return this;
+        }
+
+        /**
+         * Sets a bulkhead shared by all the interface methods.
+         * @param bulkhead bulkhead
+         * @return current builder
+         */
+        public InterfaceConfigBuilder setMethodsBulkhead(Bulkhead bulkhead) {
+            if (ignore(bulkhead)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setBulkhead(bulkhead);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsBulkhead(int maxConcurrentCalls, long maxWait) {
+            return setMethodsBulkhead(new Bulkhead(getBulkheadName(), maxConcurrentCalls, maxWait));
+        }
+
+        public InterfaceConfigBuilder setMethodsBulkhead(String maxConcurrentCalls) {
+            if (ignore(maxConcurrentCalls)) return this;
+            return setMethodsBulkhead(newBulkhead(getBulkheadName(), maxConcurrentCalls));
+        }
+
+        /**
+         * @return the bulkhead shared by the methods not declaring any, if the interfaces are configured to get one by default
+         * @see org.codegist.crest.CRestProperty#CONFIG_INTERFACE_DEFAULT_BULKHEAD
+         */
+        private Bulkhead getDefaultBulkhead() {
+            if (defaultBulkhead == null) {
+                Object maxConcurrentCalls = getProperty(CRestProperty.CONFIG_INTERFACE_DEFAULT_BULKHEAD);
+                if (maxConcurrentCalls != null) {
+                    defaultBulkhead = newBulkhead(getBulkheadName(), maxConcurrentCalls.toString());
+                }
+            }
+            return defaultBulkhead;
+        }
+
+        private String getBulkheadName() {
+            return interfaze != null ? interfaze.getName() : "*";
+        }
+
         public InterfaceConfigBuilder setMethodsConnectionTimeout(Long connectionTimeout) {
             if (ignore(connectionTimeout)) return this;
             for (MethodConfigBuilder b : builderCache.values()) {
@@ -384,6 +500,30 @@ public abstract class ConfigBuilders {
             return this;
         }
 
+        public InterfaceConfigBuilder setMethodsPaginator(Paginator paginator) {
+            if (ignore(paginator)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setPaginator(paginator);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsPaginator(String paginator) throws IllegalAccessException, InstantiationException, ClassNotFoundException {
+            if (ignore(paginator)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setPaginator(paginator);
+            }
+            return this;
+        }
+
+        public InterfaceConfigBuilder setMethodsPaginator(Class<? extends Paginator> paginator) throws IllegalAccessException, InstantiationException {
+            if (ignore(paginator)) return this;
+            for (MethodConfigBuilder b : builderCache.values()) {
+                b.setPaginator(paginator);
+            }
+            return this;
+        }
+
 
         public InterfaceConfigBuilder setMethodsConsumes(String mimeType) {
             if (ignore(mimeType)) return this;
@@ -504,6 +644,11 @@ public abstract class ConfigBuilders {
         private ErrorHandler errorHandler;
         private RetryHandler retryHandler;
         private Deserializer deserializer;
+        private Boolean cacheable;
+        private Long hedgeDelay;
+        private Long deadline;
+        private Bulkhead bulkhead;
+        private Paginator paginator;
 
         public MethodConfigBuilder(Method method) {
             this(method, null);
@@ -597,6 +742,11 @@ public abstract class ConfigBuilders {
             ErrorHandler errorHandler = this.errorHandler;
             RetryHandler retryHandler = this.retryHandler;
             Deserializer deserializer = this.deserializer;
+            Boolean cacheable = this.cacheable;
+            Long hedgeDelay = this.hedgeDelay;
+            Long deadline = this.deadline;
+            Bulkhead bulkhead = this.bulkhead;
+            Paginator paginator = this.paginator;
 
             if (!isTemplate) {
                 path = defaultIfUndefined(path, CRestProperty.CONFIG_METHOD_DEFAULT_PATH, MethodConfig.DEFAULT_PATH);
@@ -613,6 +763,12 @@ public abstract class ConfigBuilders {
                 errorHandler = defaultIfUndefined(errorHandler, CRestProperty.CONFIG_METHOD_DEFAULT_ERROR_HANDLER, newInstance(MethodConfig.DEFAULT_ERROR_HANDLER));
                 retryHandler = defaultIfUndefined(retryHandler, CRestProperty.CONFIG_METHOD_DEFAULT_RETRY_HANDLER, newInstance(MethodConfig.DEFAULT_RETRY_HANDLER));
                 deserializer = defaultIfUndefined(deserializer, CRestProperty.CONFIG_METHOD_DEFAULT_DESERIALIZER, newInstance(MethodConfig.DEFAULT_DESERIALIZER));
+                cacheable = defaultIfUndefined(cacheable, CRestProperty.CONFIG_METHOD_DEFAULT_CACHEABLE, MethodConfig.DEFAULT_CACHEABLE);
+                hedgeDelay = defaultIfUndefined(hedgeDelay, CRestProperty.CONFIG_METHOD_DEFAULT_HEDGE_DELAY, MethodConfig.DEFAULT_HEDGE_DELAY);
+                deadline = defaultIfUndefined(deadline, CRestProperty.CONFIG_METHOD_DEFAULT_DEADLINE, MethodConfig.DEFAULT_DEADLINE);
+                if (bulkhead == null && parent != null) {
+                    bulkhead = parent.getDefaultBulkhead();
+                }
 
                 if(validateConfig) {
                     if(Urls.hasQueryString(path))  throw new IllegalArgumentException("Path can't contain a query string! (path=" + path +")");
@@ -629,6 +785,11 @@ public abstract class ConfigBuilders {
                     errorHandler,
                     retryHandler,
                     deserializer,
+                    cacheable,
+                    hedgeDelay,
+                    deadline,
+                    bulkhead,
+                    paginator,
                     pConfigMethod,
                     extraParams.values().toArray(new ParamConfig[extraParams.size()])
             );
@@ -697,6 +858,63 @@ public abstract class ConfigBuilders {
             return setSocketTimeout(Long.parseLong(replacePlaceholders(socketTimeout)));
         }
 
+        public MethodConfigBuilder setCacheable(Boolean cacheable) {
+            if (ignore(cacheable)) return this;
+            this.cacheable = cacheable;
+            return this;
+        }
+
+        public MethodConfigBuilder setCacheable(String cacheable) {
+            if (ignore(cacheable)) return this;
+            return setCacheable(Boolean.valueOf(replacePlaceholders(cacheable)));
+        }
+
+        public MethodConfigBuilder setHedgeDelay(Long hedgeDelay) {
+            if (ignore(hedgeDelay)) return this;
+            this.hedgeDelay = hedgeDelay;
+            return this;
+        }
+
+        public MethodConfigBuilder setHedgeDelay(String hedgeDelay) {
+            if (ignore(hedgeDelay)) return this;
+            return setHedgeDelay(Long.parseLong(replacePlaceholders(hedgeDelay)));
+        }
+
+        public MethodConfigBuilder setDeadline(Long deadline) {
+            if (ignore(deadline)) return this;
+            this.deadline = deadline;
+            return this;
+        }
+
+        public MethodConfigBuilder setDeadline(String deadline) {
+            if (ignore(deadline)) return this;
+            return setDeadline(Long.parseLong(replacePlaceholders(deadline)));
+        }
+
+        /**
+         * Sets a bulkhead dedicated to the method, unless shared with other methods on purpose.
+         * @param bulkhead bulkhead
+         * @return current builder
+         */
+        public MethodConfigBuilder setBulkhead(Bulkhead bulkhead) {
+            if (ignore(bulkhead)) return this;
+            this.bulkhead = bulkhead;
+            return this;
+        }
+
+        public MethodConfigBuilder setBulkhead(int maxConcurrentCalls, long maxWait) {
+            return setBulkhead(new Bulkhead(getBulkheadName(), maxConcurrentCalls, maxWait));
+        }
+
+        public MethodConfigBuilder setBulkhead(String maxConcurrentCalls) {
+            if (ignore(maxConcurrentCalls)) return this;
+            return setBulkhead(newBulkhead(getBulkheadName(), maxConcurrentCalls));
+        }
+
+        private String getBulkheadName() {
+            return method.getDeclaringClass().getName() + "." + method.getName();
+        }
+
         public MethodConfigBuilder setConnectionTimeout(Long connectionTimeout) {
             if (ignore(connectionTimeout)) return this;
             this.connectionTimeout = connectionTimeout;
@@ -774,11 +992,33 @@ public abstract class ConfigBuilders {
             return setRetryHandler(newInstance(retryHandlerClass));
         }
 
+        public MethodConfigBuilder setPaginator(Paginator paginator) {
+            if (ignore(paginator)) return this;
+            this.paginator = paginator;
+            return this;
+        }
+
+        public MethodConfigBuilder setPaginator(String paginatorClassName) throws IllegalAccessException, InstantiationException, ClassNotFoundException {
+            if (ignore(paginatorClassName)) return this;
+            return setPaginator((Class<? extends Paginator>) Class.forName(replacePlaceholders(paginatorClassName)));
+        }
+
+        public MethodConfigBuilder setPaginator(Class<? extends Paginator> paginatorClass) throws IllegalAccessException, InstantiationException {
+            if (ignore(paginatorClass)) return this;
+            return setPaginator(newInstance(paginatorClass));
+        }
+
+        /**
+         * Sets the Accept header and the matching deserializer.
+         * @param mimeType accepted mime type, or Accept header value listing several ones with their quality factors, the response is then deserialized according to its Content-Type
+         * @return current builder
+         * @see org.codegist.crest.serializer.DeserializerFactory#buildForAcceptHeader(String)
+         */
         public MethodConfigBuilder setConsumes(String mimeType) {
             if (ignore(mimeType)) return this;
             if(deserializerFactory == null) throw new IllegalStateException("Can't lookup a deserializer by mime-type. Please provide a DeserializerFactory");
             return addExtraHeaderParam("Accept", mimeType)
-                  .setDeserializer(deserializerFactory.buildForMimeType(mimeType));
+                  .setDeserializer(deserializerFactory.buildForAcceptHeader(mimeType));
         }
         public MethodConfigBuilder setDeserializer(Deserializer deserializer) {
             if (ignore(deserializer)) return this;
@@ -929,7 +1169,8 @@ public abstract class ConfigBuilders {
                 dest = defaultIfUndefined(dest, CRestProperty.CONFIG_PARAM_DEFAULT_DESTINATION, MethodParamConfig.DEFAULT_DESTINATION);
 
                 if(validateConfig) {
-                    if(Strings.isBlank(name))
+                    // the body is the whole entity, it doesn't need any name
+                    if(Strings.isBlank(name) && !HttpRequest.DEST_BODY.equalsIgnoreCase(dest))
                         throw new IllegalArgumentException("Parameter must have a name");
                 }
             }
@@ -1130,6 +1371,25 @@ public abstract class ConfigBuilders {
         public MethodParamConfigBuilder forHeader(){
             return setDestination(HttpRequest.DEST_HEADER);
         }
+
+        /**
+         * Sends the argument as the whole request entity, streamed by the given writer. Overrides any injector set for this argument.
+         * @param writer writer to write the argument with
+         * @return current builder
+         * @see org.codegist.crest.injector.BodyInjector
+         */
+        public MethodParamConfigBuilder forBody(BodyWriter writer){
+            if (ignore(writer)) return this;
+            return setDestination(HttpRequest.DEST_BODY).setInjector(new BodyInjector(writer));
+        }
+        public MethodParamConfigBuilder forBody(String writerClassName) throws ClassNotFoundException {
+            if (ignore(writerClassName)) return this;
+            return forBody((Class<? extends BodyWriter>) Class.forName(replacePlaceholders(writerClassName)));
+        }
+        public MethodParamConfigBuilder forBody(Class<? extends BodyWriter> writer){
+            if (ignore(writer)) return this;
+            return forBody(newInstance(writer));
+        }
         @Override
         public MethodParamConfigBuilder setDestination(String dest) {
             return (MethodParamConfigBuilder) super.setDestination(dest);
@@ -1203,6 +1463,16 @@ public abstract class ConfigBuilders {
             throw new CRestException(e.getCause());
         }
     }
+    /**
+     * @param name bulkhead name
+     * @param maxConcurrentCalls maximum number of requests in flight, the max wait comes from {@link org.codegist.crest.CRestProperty#CREST_BULKHEAD_MAX_WAIT}
+     * @return a new bulkhead
+     */
+    Bulkhead newBulkhead(String name, String maxConcurrentCalls) {
+        Object maxWait = customProperties.get(CRestProperty.CREST_BULKHEAD_MAX_WAIT);
+        return new Bulkhead(name, Integer.parseInt(replacePlaceholders(maxConcurrentCalls).trim()), maxWait != null ? Long.parseLong(maxWait.toString().trim()) : Bulkhead.DEFAULT_MAX_WAIT);
+    }
+
     boolean ignore(Object value) {
         if (!ignoreNullOrEmptyValues) return false;
         return (value == null || (value instanceof String && Strings.isBlank((String)value)));
@@ -56,7 +56,7 @@ public final class Configs {
         }
         return new DefaultInterfaceConfig(
                 Objects.defaultIfNull(overrides.getInterface(), base.getInterface()),
-                Objects.defaultIfNull(overrides.getEndPoint(), base.getEndPoint()),
+                Objects.defaultIfNull(overrides.getEndPoints(), base.getEndPoints()),
                 Objects.defaultIfNull(overrides.getPath(), base.getPath()),
                 Objects.defaultIfNull(overrides.getEncoding(), base.getEncoding()),
                 Objects.defaultIfNull(overrides.getGlobalInterceptor(), base.getGlobalInterceptor()),
@@ -119,6 +119,11 @@ public final class Configs {
                 Objects.defaultIfNull(overrides.getErrorHandler(), base.getErrorHandler()),
                 Objects.defaultIfNull(overrides.getRetryHandler(), base.getRetryHandler()),
                 Objects.defaultIfNull(overrides.getDeserializer(), base.getDeserializer()),
+                Objects.defaultIfNull(overrides.isCacheable(), base.isCacheable()),
+                Objects.defaultIfNull(overrides.getHedgeDelay(), base.getHedgeDelay()),
+                Objects.defaultIfNull(overrides.getDeadline(), base.getDeadline()),
+                Objects.defaultIfNull(overrides.getBulkhead(), base.getBulkhead()),
+                Objects.defaultIfNull(overrides.getPaginator(), base.getPaginator()),
                 pl,
                 extras
         );
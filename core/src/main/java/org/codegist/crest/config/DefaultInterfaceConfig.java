@@ -25,6 +25,7 @@ import org.codegist.common.lang.ToStringBuilder;
 import org.codegist.crest.interceptor.RequestInterceptor;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -34,7 +35,7 @@ import java.util.Map;
 class DefaultInterfaceConfig implements InterfaceConfig {
 
     private final Class<?> interfaze;
-    private final String endPoint;
+    private final String[] endPoints;
     private final String path;
     private final String encoding;
     private final RequestInterceptor globalInterceptor;
@@ -42,8 +43,12 @@ class DefaultInterfaceConfig implements InterfaceConfig {
     private final Map<Method, MethodConfig> cache;
 
     DefaultInterfaceConfig(Class<?> interfaze, String endPoint, String path, String encoding, RequestInterceptor globalInterceptor, Map<Method, MethodConfig> cache) {
+        this(interfaze, endPoint != null ? new String[]{endPoint} : null, path, encoding, globalInterceptor, cache);
+    }
+
+    DefaultInterfaceConfig(Class<?> interfaze, String[] endPoints, String path, String encoding, RequestInterceptor globalInterceptor, Map<Method, MethodConfig> cache) {
         this.interfaze = interfaze;
-        this.endPoint = endPoint;
+        this.endPoints = endPoints != null ? endPoints.clone() : null;
         this.path = path;
         this.encoding = encoding;
         this.globalInterceptor = globalInterceptor;
@@ -55,7 +60,11 @@ class DefaultInterfaceConfig implements InterfaceConfig {
     }
 
     public String getEndPoint() {
-        return endPoint;
+        return endPoints != null && endPoints.length > 0 ? endPoints[0] : null;
+    }
+
+    public String[] getEndPoints() {
+        return endPoints != null ? endPoints.clone() : null;
     }
 
     public String getPath() {
@@ -81,7 +90,7 @@ class DefaultInterfaceConfig implements InterfaceConfig {
     public String toString() {
         return new ToStringBuilder(this)
                 .append("interface", interfaze)
-                .append("server", endPoint)
+                .append("server", endPoints != null ? Arrays.asList(endPoints) : null)
                 .append("path", path)
                 .append("encoding", encoding)
                 .append("globalInterceptor", globalInterceptor)
@@ -25,6 +25,8 @@ import org.codegist.crest.handler.ErrorHandler;
 import org.codegist.crest.handler.ResponseHandler;
 import org.codegist.crest.handler.RetryHandler;
 import org.codegist.crest.interceptor.RequestInterceptor;
+import org.codegist.crest.limiter.Bulkhead;
+import org.codegist.crest.page.Paginator;
 import org.codegist.crest.serializer.Deserializer;
 
 import java.lang.reflect.Method;
@@ -45,11 +47,16 @@ class DefaultMethodConfig implements MethodConfig {
     private final ErrorHandler errorHandler;
     private final RetryHandler retryHandler;
     private final Deserializer deserializer;
+    private final Boolean cacheable;
+    private final Long hedgeDelay;
+    private final Long deadline;
+    private final Bulkhead bulkhead;
+    private final Paginator paginator;
 
     private final ParamConfig[] extraParams;
     private final MethodParamConfig[] methodParamConfigs;
 
-    DefaultMethodConfig(Method method, String path, String httpMethod, Long socketTimeout, Long connectionTimeout, RequestInterceptor requestInterceptor, ResponseHandler responseHandler, ErrorHandler errorHandler, RetryHandler retryHandler, Deserializer deserializer, MethodParamConfig[] methodParamConfigs, ParamConfig[] extraParams) {
+    DefaultMethodConfig(Method method, String path, String httpMethod, Long socketTimeout, Long connectionTimeout, RequestInterceptor requestInterceptor, ResponseHandler responseHandler, ErrorHandler errorHandler, RetryHandler retryHandler, Deserializer deserializer, Boolean cacheable, Long hedgeDelay, Long deadline, Bulkhead bulkhead, Paginator paginator, MethodParamConfig[] methodParamConfigs, ParamConfig[] extraParams) {
         this.method = method;
         this.path = path;
         this.httpMethod = httpMethod;
@@ -60,6 +67,11 @@ class DefaultMethodConfig implements MethodConfig {
         this.errorHandler = errorHandler;
         this.retryHandler = retryHandler;
         this.deserializer = deserializer;
+        this.cacheable = cacheable;
+        this.hedgeDelay = hedgeDelay;
+        this.deadline = deadline;
+        this.bulkhead = bulkhead;
+        this.paginator = paginator;
         this.methodParamConfigs = methodParamConfigs != null ? methodParamConfigs.clone() : null;
         this.extraParams = extraParams != null ? extraParams.clone() : null;
     }
@@ -103,6 +115,26 @@ class DefaultMethodConfig implements MethodConfig {
         return deserializer;
     }
 
+    public Boolean isCacheable() {
+        return cacheable;
+    }
+
+    public Long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public Long getDeadline() {
+        return deadline;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public Paginator getPaginator() {
+        return paginator;
+    }
+
     public MethodParamConfig getParamConfig(int index) {
         return methodParamConfigs != null && index < methodParamConfigs.length ? methodParamConfigs[index] : null;
     }
@@ -126,6 +158,11 @@ class DefaultMethodConfig implements MethodConfig {
                 .append("responseHandler", responseHandler)
                 .append("errorHandler", errorHandler)
                 .append("retryHandler", retryHandler)
+                .append("cacheable", cacheable)
+                .append("hedgeDelay", hedgeDelay)
+                .append("deadline", deadline)
+                .append("bulkhead", bulkhead)
+                .append("paginator", paginator)
                 .append("methodParamConfigs", methodParamConfigs)
                 .toString();
     }
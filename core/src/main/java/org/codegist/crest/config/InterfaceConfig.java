@@ -80,11 +80,20 @@ public interface InterfaceConfig {
 
     /**
      * Server path (eg: http://www.my-end-point.com:8080)
+     * <p>When several end points are configured, returns the first one.
      *
      * @return server's path
+     * @see InterfaceConfig#getEndPoints()
      */
     String getEndPoint();
 
+    /**
+     * Server paths the requests are load balanced between, usually replicas of the same service.
+     *
+     * @return server's paths, holds at least one value
+     */
+    String[] getEndPoints();
+
     /**
      * Service base path (eg: /base/service/path). Full service path is then {@link InterfaceConfig#getEndPoint()} concatenated to this value.
      *
@@ -24,6 +24,8 @@ import org.codegist.crest.HttpRequest;
 import org.codegist.crest.handler.*;
 import org.codegist.crest.interceptor.NoOpRequestInterceptor;
 import org.codegist.crest.interceptor.RequestInterceptor;
+import org.codegist.crest.limiter.Bulkhead;
+import org.codegist.crest.page.Paginator;
 import org.codegist.crest.serializer.Deserializer;
 
 import java.lang.reflect.Method;
@@ -112,6 +114,27 @@ public interface MethodConfig {
      */
     Class<? extends Deserializer> DEFAULT_DESERIALIZER = null;
 
+    /**
+     * Default response caching flag applied when non specified.
+     *
+     * @see org.codegist.crest.config.MethodConfig#isCacheable()
+     */
+    boolean DEFAULT_CACHEABLE = false;
+
+    /**
+     * Default hedging delay applied when non specified, hedging disabled.
+     *
+     * @see org.codegist.crest.config.MethodConfig#getHedgeDelay()
+     */
+    long DEFAULT_HEDGE_DELAY = -1;
+
+    /**
+     * Default deadline applied when non specified, no deadline.
+     *
+     * @see org.codegist.crest.config.MethodConfig#getDeadline()
+     */
+    long DEFAULT_DEADLINE = -1;
+
     /*##############################################################################*/
 
     /**
@@ -133,6 +156,49 @@ public interface MethodConfig {
 
     Deserializer getDeserializer();
 
+    /**
+     * Indicates whether the method's responses can be served from and stored in the response cache.
+     * <p>Only GET responses are cached, and only when the server's Cache-Control/Expires headers or validators (ETag/Last-Modified) allow it.
+     *
+     * @return true if the method's responses go through the response cache
+     * @see org.codegist.crest.cache.ResponseCache
+     */
+    Boolean isCacheable();
+
+    /**
+     * Delay in milliseconds after which an identical request is fired if the first one didn't respond yet, the first response received wins.
+     * <p>Only GET and HEAD requests are hedged. A negative value disables hedging, 0 waits for the method's observed latency percentile.
+     *
+     * @return the hedging delay
+     * @see org.codegist.crest.hedge.HedgingRestService
+     */
+    Long getHedgeDelay();
+
+    /**
+     * Total time in milliseconds a method invocation is given to complete, all retry attempts included.
+     * <p>Each attempt's socket and connection timeouts are shrunk to the remaining time, and the in-flight request is aborted once the deadline expired. A negative value means no deadline.
+     *
+     * @return the deadline
+     * @see org.codegist.crest.Deadlines
+     */
+    Long getDeadline();
+
+    /**
+     * Bulkhead capping the requests in flight of this method, either dedicated to the method or shared with the other methods of its interface.
+     *
+     * @return the bulkhead, null if the method isn't isolated
+     * @see org.codegist.crest.limiter.Bulkhead
+     */
+    Bulkhead getBulkhead();
+
+    /**
+     * Paginator fetching the pages one after the other for the methods returning an {@link java.util.Iterator} or an {@link java.lang.Iterable} of pages.
+     *
+     * @return the paginator, null if the method isn't paginated
+     * @see org.codegist.crest.page.Paginator
+     */
+    Paginator getPaginator();
+
     /**
      * URL fragment specific to this methods.
      * <p> Doesn't contains the server part.
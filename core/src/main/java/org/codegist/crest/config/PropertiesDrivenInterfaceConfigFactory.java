@@ -70,6 +70,10 @@ import static org.codegist.common.lang.Strings.defaultIfBlank;
  * service.test.response-handler=my.rest.interface.MyResponseHandler1
  * service.test.error-handler=my.rest.interface.MyErrorHandler1
  * service.test.retry-handler=my.rest.interface.MyRetryHandler1
+ * service.test.cacheable=false
+ * service.test.hedge-delay=-1
+ * service.test.deadline=5000
+ * service.test.bulkhead=20
  * service.test.http-method=DELETE
  * #default params
  * service.test.serializer=my.rest.interface.MySerializer1
@@ -88,6 +92,11 @@ import static org.codegist.common.lang.Strings.defaultIfBlank;
  * service.test.method.m1.response-handler=my.rest.interface.MyResponseHandler1
  * service.test.method.m1.error-handler=my.rest.interface.MyErrorHandler2
  * service.test.method.m1.retry-handler=my.rest.interface.MyRetryHandler2
+ * service.test.method.m1.paginator=my.rest.interface.MyPaginator
+ * service.test.method.m1.cacheable=true
+ * service.test.method.m1.hedge-delay=50
+ * service.test.method.m1.deadline=1000
+ * service.test.method.m1.bulkhead=5
  * #default params
  * service.test.method.m1.serializer=my.rest.interface.MySerializer3
  * service.test.method.m1.injector=my.rest.interface.MyRequestParameterInjector2
@@ -120,6 +129,7 @@ import static org.codegist.common.lang.Strings.defaultIfBlank;
  * service.end-point=My server url
  * </pre></code>
  * <p>The interface specific end-point if specified override the global one.
+ * <p>Both accept a comma separated list of end-points, requests are then load balanced between them.
  *
  * @see org.codegist.crest.config.InterfaceConfig
  * @author Laurent Gilles (laurent.gilles@codegist.org)
@@ -146,7 +156,7 @@ public class PropertiesDrivenInterfaceConfigFactory implements InterfaceConfigFa
             String endPoint = defaultIfBlank(getServiceProp(serviceAlias, "end-point"), globalServer);
 
             ConfigBuilders.InterfaceConfigBuilder ricb = new ConfigBuilders.InterfaceConfigBuilder(interfaze, context.getProperties()).setIgnoreNullOrEmptyValues(true);
-            ricb    .setEndPoint(endPoint)
+            ricb    .setEndPoints(endPoint != null ? endPoint.split(",") : null)
                     .setPath(getServiceProp(serviceAlias, "path"))
                     .setEncoding(getServiceProp(serviceAlias, "encoding"))
                     .setGlobalInterceptor(getServiceProp(serviceAlias, "global-interceptor"))
@@ -156,6 +166,11 @@ public class PropertiesDrivenInterfaceConfigFactory implements InterfaceConfigFa
                     .setMethodsErrorHandler(getServiceProp(serviceAlias, "error-handler"))
                     .setMethodsRequestInterceptor(getServiceProp(serviceAlias, "request-interceptor"))
                     .setMethodsRetryHandler(getServiceProp(serviceAlias, "retry-handler"))
+                    .setMethodsPaginator(getServiceProp(serviceAlias, "paginator"))
+                    .setMethodsCacheable(getServiceProp(serviceAlias, "cacheable"))
+                    .setMethodsHedgeDelay(getServiceProp(serviceAlias, "hedge-delay"))
+                    .setMethodsDeadline(getServiceProp(serviceAlias, "deadline"))
+                    .setMethodsBulkhead(getServiceProp(serviceAlias, "bulkhead"))
                     .setMethodsConsumes(getServiceProp(serviceAlias, "consumes"))
                     .setMethodsHttpMethod(getServiceProp(serviceAlias, "http-method"))
                     .setParamsSerializer(getServiceProp(serviceAlias, "serializer"))
@@ -204,6 +219,11 @@ public class PropertiesDrivenInterfaceConfigFactory implements InterfaceConfigFa
                                 .setResponseHandler(getMethodProp(serviceAlias, methAlias, "response-handler"))
                                 .setErrorHandler(getMethodProp(serviceAlias, methAlias, "error-handler"))
                                 .setRetryHandler(getMethodProp(serviceAlias, methAlias, "retry-handler"))
+                                .setPaginator(getMethodProp(serviceAlias, methAlias, "paginator"))
+                                .setCacheable(getMethodProp(serviceAlias, methAlias, "cacheable"))
+                                .setHedgeDelay(getMethodProp(serviceAlias, methAlias, "hedge-delay"))
+                                .setDeadline(getMethodProp(serviceAlias, methAlias, "deadline"))
+                                .setBulkhead(getMethodProp(serviceAlias, methAlias, "bulkhead"))
                                 .setConsumes(getMethodProp(serviceAlias, methAlias, "consumes"))
                                 .setParamsSerializer(getMethodProp(serviceAlias, methAlias, "serializer"))
                                 .setParamsInjector(getMethodProp(serviceAlias, methAlias, "injector"));
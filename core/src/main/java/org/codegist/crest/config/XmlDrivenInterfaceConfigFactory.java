@@ -58,7 +58,7 @@ import static org.codegist.common.lang.Strings.isBlank;
         &lt;path&gt;/my-path/hello&lt;/path&gt;
         &lt;global-interceptor&gt;my.rest.interface.MyRequestInterceptor1&lt;/global-interceptor&gt;
         &lt;methods&gt;
-            &lt;default socket-timeout="1" connection-timeout="2" method="DELETE"&gt;
+            &lt;default socket-timeout="1" connection-timeout="2" method="DELETE" cacheable="false" hedge-delay="-1" deadline="5000" bulkhead="20"&gt;
                 &lt;request-interceptor&gt;my.rest.interface.MyRequestInterceptor1&lt;/request-interceptor&gt;
                 &lt;response-handler&gt;my.rest.interface.MyResponseHandler1&lt;/response-handler&gt;
                 &lt;error-handler&gt;my.rest.interface.MyErrorHandler1&lt;/error-handler&gt;
@@ -81,13 +81,14 @@ import static org.codegist.common.lang.Strings.isBlank;
                     &lt;path name="path-param2"&gt;path-value2&lt;/path&gt;
                 &lt;/params&gt;
             &lt;/default&gt;
-            &lt;method match="m1\(\)" socket-timeout="3" connection-timeout="4" method="PUT"&gt;
+            &lt;method match="m1\(\)" socket-timeout="3" connection-timeout="4" method="PUT" cacheable="true" hedge-delay="50" deadline="1000" bulkhead="5"&gt;
                 &lt;path&gt;/m1&lt;/path&gt;
                 &lt;consumes&gt;application/xml&lt;/consumes&gt;
                 &lt;request-interceptor&gt;my.rest.interface.MyRequestInterceptor3&lt;/request-interceptor&gt;
                 &lt;response-handler&gt;my.rest.interface.MyResponseHandler1&lt;/response-handler&gt;
                 &lt;error-handler&gt;my.rest.interface.MyErrorHandler2&lt;/error-handler&gt;
                 &lt;retry-handler&gt;my.rest.interface.MyRetryHandler2&lt;/retry-handler&gt;
+                &lt;paginator&gt;my.rest.interface.MyPaginator&lt;/paginator&gt;
                 &lt;params&gt;
                     &lt;serializer&gt;my.rest.interface.MySerializer3&lt;/serializer&gt;
                     &lt;injector&gt;my.rest.interface.MyRequestParameterInjector2&lt;/injector&gt;
@@ -122,6 +123,7 @@ import static org.codegist.common.lang.Strings.isBlank;
  * &lt;crest-config end-point="hello"&gt;
  * </pre></code>
  * <p>The interface specific end-point if specified override the global one.
+ * <p>Both accept a comma separated list of end-points, requests are then load balanced between them.
  *
  * @see org.codegist.crest.config.InterfaceConfig
  * @author Laurent Gilles (laurent.gilles@codegist.org)
@@ -151,18 +153,23 @@ public class XmlDrivenInterfaceConfigFactory implements InterfaceConfigFactory {
 
             Node interfaceConfig = getNode(config, "/crest-config/service[@class=\"%s\"]", interfaze.getName());
             ConfigBuilders.InterfaceConfigBuilder icb = new ConfigBuilders.InterfaceConfigBuilder(interfaze, context.getProperties()).setIgnoreNullOrEmptyValues(true)
-                    .setEndPoint(endPoint)
+                    .setEndPoints(endPoint.split(","))
                     .setPath(getString(interfaceConfig, "path"))
                     .setGlobalInterceptor(getString(interfaceConfig, "global-interceptor"))
                     .setEncoding(getString(interfaceConfig, "@encoding"))
 
                     .setMethodsConnectionTimeout(getString(interfaceConfig, "methods/default/@connection-timeout"))
                     .setMethodsSocketTimeout(getString(interfaceConfig, "methods/default/@socket-timeout"))
+                    .setMethodsCacheable(getString(interfaceConfig, "methods/default/@cacheable"))
+                    .setMethodsHedgeDelay(getString(interfaceConfig, "methods/default/@hedge-delay"))
+                    .setMethodsDeadline(getString(interfaceConfig, "methods/default/@deadline"))
+                    .setMethodsBulkhead(getString(interfaceConfig, "methods/default/@bulkhead"))
                     .setMethodsHttpMethod(getString(interfaceConfig, "methods/default/@method"))
                     .setMethodsResponseHandler(getString(interfaceConfig, "methods/default/response-handler"))
                     .setMethodsErrorHandler(getString(interfaceConfig, "methods/default/error-handler"))
                     .setMethodsRequestInterceptor(getString(interfaceConfig, "methods/default/request-interceptor"))
                     .setMethodsRetryHandler(getString(interfaceConfig, "methods/default/retry-handler"))
+                    .setMethodsPaginator(getString(interfaceConfig, "methods/default/paginator"))
                     .setMethodsConsumes(getString(interfaceConfig, "methods/default/consumes"))
 
                     .setParamsSerializer(getString(interfaceConfig, "methods/default/params/serializer"))
@@ -207,10 +214,15 @@ public class XmlDrivenInterfaceConfigFactory implements InterfaceConfigFactory {
                                 .setHttpMethod(getString(methodNode, "@method"))
                                 .setSocketTimeout(getString(methodNode, "@socket-timeout"))
                                 .setConnectionTimeout(getString(methodNode, "@connection-timeout"))
+                                .setCacheable(getString(methodNode, "@cacheable"))
+                                .setHedgeDelay(getString(methodNode, "@hedge-delay"))
+                                .setDeadline(getString(methodNode, "@deadline"))
+                                .setBulkhead(getString(methodNode, "@bulkhead"))
                                 .setRequestInterceptor(getString(methodNode, "request-interceptor"))
                                 .setResponseHandler(getString(methodNode, "response-handler"))
                                 .setErrorHandler(getString(methodNode, "error-handler"))
                                 .setRetryHandler(getString(methodNode, "retry-handler"))
+                                .setPaginator(getString(methodNode, "paginator"))
                                 .setConsumes(getString(methodNode, "consumes"))
                                 .setParamsSerializer(getString(methodNode, "params/serializer"))
                                 .setParamsInjector(getString(methodNode, "params/injector"));
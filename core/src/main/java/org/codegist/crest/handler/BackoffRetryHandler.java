@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.handler;
+
+import org.codegist.common.log.Logger;
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.CustomProperties;
+import org.codegist.crest.Deadlines;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.ResponseContext;
+
+import java.util.*;
+
+/**
+ * Retry handler waiting an exponentially growing, randomized, delay before each retry.
+ * <p>Only retries the methods using an idempotent HTTP method, and only when the call failed with one of the configured HTTP status codes or exception types (looked up in the whole cause chain).
+ * <p>The delay before the n-th retry is randomized according to the configured jitter :
+ * <p>- full : random between 0 and min(max, base * 2^(n-1))
+ * <p>- decorrelated : random between base and min(max, 3 * previous delay)
+ * <p>A Retry-After header sent back with the failed response extends the delay, up to the max.
+ * <p>No retry is attempted if the delay would outlive the invocation deadline, see {@link org.codegist.crest.Deadlines}.
+ * <p>Retries are also capped by a {@link org.codegist.crest.handler.RetryBudget}, shared by default by all the handlers of the process.
+ * <p>Configured with the following properties, see {@link org.codegist.crest.CRestProperty} for their respective details:
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_MAX_ATTEMPTS}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_BACKOFF_BASE}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_BACKOFF_MAX}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_BACKOFF_JITTER}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_STATUS_CODES}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_EXCEPTIONS}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_HTTP_METHODS}
+ * <p>- {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_BUDGET}
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class BackoffRetryHandler implements SuccessAwareRetryHandler {
+
+    public static final int DEFAULT_MAX = 3;
+    public static final long DEFAULT_BASE_DELAY = 100;
+    public static final long DEFAULT_MAX_DELAY = 10000;
+    public static final String JITTER_FULL = "full";
+    public static final String JITTER_DECORRELATED = "decorrelated";
+    public static final String DEFAULT_JITTER = JITTER_FULL;
+    public static final String DEFAULT_STATUS_CODES = "408,429,500,502,503,504";
+    public static final String DEFAULT_EXCEPTIONS = "java.io.IOException";
+    public static final String DEFAULT_HTTP_METHODS = "GET,HEAD,PUT,DELETE,OPTIONS";
+
+    private static final Logger LOG = Logger.getLogger(BackoffRetryHandler.class);
+    private static final Random RANDOM = new Random();
+
+    private final int max;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final boolean decorrelated;
+    private final Set<Integer> statusCodes;
+    private final List<Class<?>> exceptions;
+    private final Set<String> httpMethods;
+    private final RetryBudget budget;
+    private final ThreadLocal<Long> previousDelay = new ThreadLocal<Long>();
+
+    public BackoffRetryHandler() {
+        this(Collections.<String, Object>emptyMap());
+    }
+
+    public BackoffRetryHandler(Map<String, Object> customProperties) {
+        this.max = (int) CustomProperties.getLong(customProperties, CRestProperty.HANDLER_RETRY_MAX_ATTEMPTS, DEFAULT_MAX);
+        this.baseDelay = CustomProperties.getLong(customProperties, CRestProperty.HANDLER_RETRY_BACKOFF_BASE, DEFAULT_BASE_DELAY);
+        this.maxDelay = CustomProperties.getLong(customProperties, CRestProperty.HANDLER_RETRY_BACKOFF_MAX, DEFAULT_MAX_DELAY);
+        String jitter = getString(customProperties, CRestProperty.HANDLER_RETRY_BACKOFF_JITTER, DEFAULT_JITTER);
+        if (!JITTER_FULL.equals(jitter) && !JITTER_DECORRELATED.equals(jitter)) {
+            throw new IllegalArgumentException("Unknown jitter " + jitter + ", expected " + JITTER_FULL + " or " + JITTER_DECORRELATED);
+        }
+        this.decorrelated = JITTER_DECORRELATED.equals(jitter);
+        this.statusCodes = new HashSet<Integer>();
+        for (String code : split(getString(customProperties, CRestProperty.HANDLER_RETRY_STATUS_CODES, DEFAULT_STATUS_CODES))) {
+            statusCodes.add(Integer.valueOf(code));
+        }
+        this.exceptions = new ArrayList<Class<?>>();
+        for (String exception : split(getString(customProperties, CRestProperty.HANDLER_RETRY_EXCEPTIONS, DEFAULT_EXCEPTIONS))) {
+            try {
+                exceptions.add(Class.forName(exception));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown exception type " + exception, e);
+            }
+        }
+        this.httpMethods = new HashSet<String>();
+        for (String method : split(getString(customProperties, CRestProperty.HANDLER_RETRY_HTTP_METHODS, DEFAULT_HTTP_METHODS))) {
+            httpMethods.add(method.toUpperCase(Locale.ENGLISH));
+        }
+        RetryBudget budget = (RetryBudget) customProperties.get(CRestProperty.HANDLER_RETRY_BUDGET);
+        this.budget = budget != null ? budget : RetryBudget.getDefault();
+    }
+
+    public boolean retry(ResponseContext response, Exception exception, int retryNumber) {
+        if (retryNumber >= max || !isRetriable(response, exception)) {
+            LOG.debug("Not retrying attempt=%d,max=%d,reason=%s", retryNumber, max, exception != null ? exception.getMessage() : "unknown");
+            return false;
+        }
+        long delay = getDelay(exception, retryNumber);
+        Long deadline = Deadlines.get();
+        if (deadline != null && System.currentTimeMillis() + delay >= deadline) {
+            LOG.debug("Not retrying attempt=%d, the %dms delay outlives the deadline", retryNumber, delay);
+            return false;
+        }
+        if (!budget.tryWithdraw()) {
+            LOG.debug("Not retrying attempt=%d, retry budget exhausted", retryNumber);
+            return false;
+        }
+        LOG.debug("Retrying attempt=%d,max=%d,delay=%d,reason=%s", retryNumber, max, delay, exception != null ? exception.getMessage() : "unknown");
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void onSuccess(ResponseContext response) {
+        budget.deposit();
+    }
+
+    private boolean isRetriable(ResponseContext response, Exception exception) {
+        if (response != null && !httpMethods.contains(response.getRequestContext().getMethodConfig().getHttpMethod().toUpperCase(Locale.ENGLISH))) {
+            return false;
+        }
+        HttpResponse httpResponse = exception instanceof HttpException ? ((HttpException) exception).getResponse() : null;
+        if (httpResponse != null && httpResponse.getStatusCode() > 0) {
+            return statusCodes.contains(httpResponse.getStatusCode());
+        }
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            for (Class<?> retriable : exceptions) {
+                if (retriable.isInstance(cause)) return true;
+            }
+        }
+        return false;
+    }
+
+    long getDelay(Exception exception, int retryNumber) {
+        long delay;
+        if (decorrelated) {
+            Long previous = retryNumber <= 1 ? null : previousDelay.get();
+            long upper = Math.min(maxDelay, 3 * (previous != null ? previous : baseDelay));
+            delay = baseDelay + (long) (RANDOM.nextDouble() * Math.max(0, upper - baseDelay));
+            previousDelay.set(delay);
+        } else {
+            double upper = Math.min(maxDelay, baseDelay * Math.pow(2, retryNumber - 1));
+            delay = (long) (RANDOM.nextDouble() * upper);
+        }
+        long retryAfter = getRetryAfter(exception);
+        return Math.min(maxDelay, Math.max(delay, retryAfter));
+    }
+
+    private static long getRetryAfter(Exception exception) {
+        if (!(exception instanceof HttpException) || ((HttpException) exception).getResponse() == null) return 0;
+        List<String> retryAfter = ((HttpException) exception).getResponse().getHeader("Retry-After");
+        if (retryAfter.isEmpty()) return 0;
+        try {
+            return Long.parseLong(retryAfter.get(0).trim()) * 1000;
+        } catch (NumberFormatException e) {
+            // http date form, ignored
+            return 0;
+        }
+    }
+
+    private static String getString(Map<String, Object> customProperties, String name, String defaultValue) {
+        Object value = customProperties.get(name);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static List<String> split(String value) {
+        List<String> tokens = new ArrayList<String>();
+        for (String token : value.split(",")) {
+            if (token.trim().length() > 0) {
+                tokens.add(token.trim());
+            }
+        }
+        return tokens;
+    }
+}
@@ -20,14 +20,26 @@
 
 package org.codegist.crest.handler;
 
+import org.codegist.crest.HttpResponse;
 import org.codegist.crest.ResponseContext;
+import org.codegist.crest.serializer.ContentNegotiatingDeserializer;
 import org.codegist.crest.serializer.Deserializer;
+import org.codegist.crest.serializer.InputStreamDeserializer;
+import org.codegist.crest.serializer.StreamingDeserializer;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Iterator;
 
 /**
  * Default response handler that either marshall the response or return server raw response following the rules below :
  * <p>- A method with a java.lang.String return type is considerer as expecting the raw server response only when no marshaller have been set in the custom properties. When conditions are met, the result will be the string representing the raw response.
  * <p>- Marshalling occurs only when a marshaller have been set in the custom properties (key="org.codegist.common.marshal.Marshaller")
- * <p>- Response is just ignored for voids methods.
+ * <p>- Response is just closed for voids methods, including asynchronous ones returning java.util.concurrent.Future&lt;Void&gt;.
+ * <p>- A {@link org.codegist.crest.serializer.ContentNegotiatingDeserializer} is first resolved to the deserializer bound to the response mime type.
+ * <p>- The raw response bytes are given to the deserializers implementing {@link org.codegist.crest.serializer.InputStreamDeserializer} along with the response charset, other deserializers get the decoded response reader.
+ * <p>- A method with a java.util.Iterator or java.lang.Iterable return type is lazily deserialized one element at a time when the deserializer is a {@link org.codegist.crest.serializer.StreamingDeserializer}. The response is only released once the iterator is exhausted or closed (the iterator implements java.io.Closeable). The returned Iterable can only be iterated once.
  *
  * @see org.codegist.crest.InterfaceContext#getProperties()
  * @author Laurent Gilles (laurent.gilles@codegist.org)
@@ -35,10 +47,27 @@ import org.codegist.crest.serializer.Deserializer;
 public class DefaultResponseHandler implements ResponseHandler {
 
     public final Object handle(ResponseContext context) {
-        if (context.getExpectedType().toString().equals("void")) return null;
+        // Void is what Future<Void> methods expect
+        if (context.getExpectedType().toString().equals("void") || Void.class.equals(context.getExpectedType())) {
+            // nothing to read, give the connection back
+            if (context.getResponse() != null) context.getResponse().close();
+            return null;
+        }
 
         Deserializer deserializer = context.getDeserializer();
+        if (deserializer instanceof ContentNegotiatingDeserializer) {
+            deserializer = ((ContentNegotiatingDeserializer) deserializer).select(context.getResponse().getMimeType());
+        }
         if (deserializer != null) {
+            Class<?> type = context.getExpectedType();
+            if (deserializer instanceof StreamingDeserializer && (Iterator.class.equals(type) || Iterable.class.equals(type))) {
+                Iterator<?> elements = ((StreamingDeserializer) deserializer).deserializeElements(context.getResponse().asReader(), getElementType(context.getExpectedGenericType()));
+                return Iterator.class.equals(type) ? elements : new SingleUseIterable(elements);
+            }
+            if (deserializer instanceof InputStreamDeserializer) {
+                HttpResponse response = context.getResponse();
+                return ((InputStreamDeserializer) deserializer).deserialize(response.asStream(), response.getCharset(), context.getExpectedGenericType());
+            }
             return deserializer.deserialize(context.getResponse().asReader(), context.getExpectedGenericType());
         }else{
             // if no marshaller has been set in the configuration, check that return type is String and return the response as string.
@@ -49,4 +78,29 @@ public class DefaultResponseHandler implements ResponseHandler {
             }
         }
     }
+
+    private static Type getElementType(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        return elementType instanceof WildcardType ? ((WildcardType) elementType).getUpperBounds()[0] : elementType;
+    }
+
+    private static final class SingleUseIterable implements Iterable<Object> {
+        private Iterator<?> elements;
+
+        private SingleUseIterable(Iterator<?> elements) {
+            this.elements = elements;
+        }
+
+        public synchronized Iterator<Object> iterator() {
+            if (elements == null) {
+                throw new IllegalStateException("Response stream has already been iterated");
+            }
+            Iterator<Object> iterator = (Iterator<Object>) elements;
+            elements = null;
+            return iterator;
+        }
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.handler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the retries as a ratio of the successful calls, so that retries can't amplify an outage.
+ * <p>Each successful call deposits ratio token, each retry withdraws a whole one and is refused if the balance doesn't allow it. The balance starts full and is capped at the reserve, allowing short bursts of retries.
+ * <p>This class is thread-safe, a single instance is meant to be shared by all the retry handlers of a process (see {@link #getDefault()}) or of a CRest instance (see {@link org.codegist.crest.CRestProperty#HANDLER_RETRY_BUDGET}).
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class RetryBudget {
+
+    /**
+     * Default ratio of retries allowed per successful call.
+     */
+    public static final float DEFAULT_RATIO = 0.1f;
+
+    /**
+     * Default maximum number of retries allowed in a burst.
+     */
+    public static final int DEFAULT_RESERVE = 10;
+
+    private static final RetryBudget DEFAULT = new RetryBudget(DEFAULT_RATIO, DEFAULT_RESERVE);
+    private static final long TOKEN = 1000;
+
+    private final AtomicLong balance;
+    private final long deposit;
+    private final long max;
+
+    public RetryBudget() {
+        this(DEFAULT_RATIO, DEFAULT_RESERVE);
+    }
+
+    /**
+     * @param ratio   ratio of retries allowed per successful call
+     * @param reserve maximum number of retries allowed in a burst
+     */
+    public RetryBudget(float ratio, int reserve) {
+        if (ratio < 0) throw new IllegalArgumentException("ratio can't be negative (ratio=" + ratio + ")");
+        if (reserve < 0) throw new IllegalArgumentException("reserve can't be negative (reserve=" + reserve + ")");
+        this.deposit = (long) (ratio * TOKEN);
+        this.max = reserve * TOKEN;
+        this.balance = new AtomicLong(max);
+    }
+
+    /**
+     * @return the process-wide budget
+     */
+    public static RetryBudget getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Credits the budget for a successful call.
+     */
+    public void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= max) return;
+        } while (!balance.compareAndSet(current, Math.min(max, current + deposit)));
+    }
+
+    /**
+     * Debits the budget for a retry if it allows it.
+     * @return true if the retry is allowed
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) return false;
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * @return the number of retries currently allowed
+     */
+    public float getBalance() {
+        return (float) balance.get() / TOKEN;
+    }
+}
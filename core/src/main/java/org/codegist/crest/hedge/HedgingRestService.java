@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.hedge;
+
+import org.codegist.common.log.Logger;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.RestService;
+import org.codegist.crest.handler.RetryBudget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RestService decorator cutting the tail latency of the idempotent reads: if a GET or HEAD request didn't respond after the hedge delay, an identical request is fired and the first response received is returned, the other one being released as soon as it arrives.
+ * <p>The hedge delay is either fixed or, when set to 0, the configured percentile of the latencies recently observed by this service. Until enough latencies are observed, {@link #DEFAULT_INITIAL_DELAY} is used.
+ * <p>Hedges are capped by a {@link org.codegist.crest.handler.RetryBudget}: each request deposits to it, each hedge withdraws a whole token, so that hedging can't double the load on an already slow server.
+ * <p>The attempts are run by the given executor, the calling thread only waits for them. Other requests are passed through to the delegate.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.config.MethodConfig#getHedgeDelay()
+ */
+public class HedgingRestService implements RestService {
+
+    public static final int DEFAULT_PERCENTILE = 95;
+    public static final float DEFAULT_BUDGET_RATIO = 0.1f;
+    public static final long DEFAULT_INITIAL_DELAY = 100;
+
+    private static final Logger LOG = Logger.getLogger(HedgingRestService.class);
+    private static final int SAMPLES = 128;
+    private static final int MIN_SAMPLES = 16;
+
+    private final RestService delegate;
+    private final ExecutorService executor;
+    private final RetryBudget budget;
+    private final long delay;
+    private final int percentile;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+    private final AtomicLong sampleCount = new AtomicLong();
+    private volatile long percentileDelay = DEFAULT_INITIAL_DELAY;
+
+    /**
+     * @param delegate   rest service firing the requests
+     * @param executor   executor running the attempts, must be able to run two of them per pending request
+     * @param budget     budget capping the hedges
+     * @param delay      delay in milliseconds after which the request is hedged, 0 for the observed latency percentile
+     * @param percentile latency percentile used when delay is 0
+     */
+    public HedgingRestService(RestService delegate, ExecutorService executor, RetryBudget budget, long delay, int percentile) {
+        if (delay < 0) throw new IllegalArgumentException("delay can't be negative (delay=" + delay + ")");
+        if (percentile <= 0 || percentile > 100) throw new IllegalArgumentException("percentile must be in ]0,100] (percentile=" + percentile + ")");
+        this.delegate = delegate;
+        this.executor = executor;
+        this.budget = budget;
+        this.delay = delay;
+        this.percentile = percentile;
+    }
+
+    public HttpResponse exec(HttpRequest request) throws HttpException {
+        budget.deposit();
+        if (!"GET".equals(request.getMeth()) && !"HEAD".equals(request.getMeth())) {
+            return delegate.exec(request);
+        }
+        AtomicBoolean claimed = new AtomicBoolean();
+        CompletionService<HttpResponse> attempts = new ExecutorCompletionService<HttpResponse>(executor);
+        List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>(2);
+        try {
+            futures.add(attempts.submit(new Attempt(request, claimed)));
+            long hedgeDelay = getHedgeDelay();
+            Future<HttpResponse> done = attempts.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (done == null && budget.tryWithdraw()) {
+                LOG.debug("Hedging request %s after %dms", request.getUri(), hedgeDelay);
+                futures.add(attempts.submit(new Attempt(request, claimed)));
+            }
+            Throwable failure = null;
+            for (int pending = futures.size(); pending > 0; pending--) {
+                if (done == null) {
+                    done = attempts.take();
+                }
+                try {
+                    HttpResponse response = done.get();
+                    if (response != null) {
+                        return response;
+                    }
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                }
+                done = null;
+            }
+            throw failure;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException(e, new HttpResponse(request, -1));
+        } catch (Throwable e) {
+            throw new HttpException(e, new HttpResponse(request, -1));
+        } finally {
+            // not interrupting: a running loser completes and releases its response itself, leaving the connection reusable
+            for (Future<HttpResponse> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    long getHedgeDelay() {
+        return delay > 0 ? delay : percentileDelay;
+    }
+
+    private void record(long latency) {
+        long count = sampleCount.incrementAndGet();
+        latencies.set((int) ((count - 1) % SAMPLES), latency);
+        if (count >= MIN_SAMPLES && count % MIN_SAMPLES == 0) {
+            int size = (int) Math.min(count, SAMPLES);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            percentileDelay = Math.max(1, sorted[Math.min(size - 1, (size * percentile + 99) / 100 - 1)]);
+        }
+    }
+
+    private final class Attempt implements Callable<HttpResponse> {
+        private final HttpRequest request;
+        private final AtomicBoolean claimed;
+
+        private Attempt(HttpRequest request, AtomicBoolean claimed) {
+            this.request = request;
+            this.claimed = claimed;
+        }
+
+        public HttpResponse call() throws Exception {
+            long start = System.currentTimeMillis();
+            HttpResponse response = delegate.exec(request);
+            record(System.currentTimeMillis() - start);
+            if (claimed.compareAndSet(false, true)) {
+                return response;
+            }
+            // the other attempt already won, free the connection straight away
+            response.close();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.injector;
+
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.ParamContext;
+import org.codegist.crest.serializer.BodyWriter;
+
+/**
+ * Injects the parameter as the request entity body, written by the given body writer when the request is fired.
+ * <p>Null values are ignored.
+ * @see org.codegist.crest.HttpRequest.Builder#setBody(Object, org.codegist.crest.serializer.BodyWriter)
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class BodyInjector implements Injector {
+
+    private final BodyWriter writer;
+
+    public BodyInjector(BodyWriter writer) {
+        this.writer = writer;
+    }
+
+    public void inject(HttpRequest.Builder builder, ParamContext context) {
+        Object value = context.getRawValue();
+        if (value != null) {
+            builder.setBody(value, writer);
+        }
+    }
+
+    public BodyWriter getWriter() {
+        return writer;
+    }
+}
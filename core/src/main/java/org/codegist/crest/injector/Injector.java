@@ -35,7 +35,7 @@ public interface Injector<T> {
      * Injects the current param into the request.
      *
      * @param builder Current http request being build.
-     * @param context The current param context holding the value of the current method argument and all other context objects.
+     * @param context The current param context holding the value of the current method argument and all other context objects. Only valid during the call, it may be reused for the next argument.
      */
     void inject(HttpRequest.Builder builder, ParamContext<T> context);
 
@@ -22,12 +22,14 @@ package org.codegist.crest.interceptor;
 
 import org.codegist.crest.HttpRequest;
 import org.codegist.crest.RequestContext;
+import org.codegist.crest.ResponseContext;
 
 /**
  * Simple composite request interceptor that delegate notifications to a predefined list of interceptors.
+ * <p>Responses are notified to the interceptors implementing {@link org.codegist.crest.interceptor.ResponseAwareRequestInterceptor}.
  * @author Laurent Gilles (laurent.gilles@codegist.org)
  */
-public class CompositeRequestInterceptor implements RequestInterceptor {
+public class CompositeRequestInterceptor implements ResponseAwareRequestInterceptor {
     private final RequestInterceptor[] interceptors;
 
     public CompositeRequestInterceptor(RequestInterceptor... interceptors) {
@@ -47,6 +49,14 @@ public class CompositeRequestInterceptor implements RequestInterceptor {
         }
     }
 
+    public void afterResponseHandle(ResponseContext context) {
+        for (RequestInterceptor interceptor : interceptors) {
+            if (interceptor instanceof ResponseAwareRequestInterceptor) {
+                ((ResponseAwareRequestInterceptor) interceptor).afterResponseHandle(context);
+            }
+        }
+    }
+
     public RequestInterceptor[] getInterceptors() {
         return interceptors.clone();
     }
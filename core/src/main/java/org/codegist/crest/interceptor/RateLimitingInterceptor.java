@@ -0,0 +1,186 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.interceptor;
+
+import org.codegist.common.log.Logger;
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.CustomProperties;
+import org.codegist.crest.Deadlines;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.RequestContext;
+import org.codegist.crest.ResponseContext;
+import org.codegist.crest.ratelimit.RateLimitExceededException;
+import org.codegist.crest.ratelimit.TokenBucket;
+import org.codegist.crest.ratelimit.TokenBucketRegistry;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Request interceptor keeping the requests under a rate limit, with a token bucket per end point host, or per interface method.
+ * <p>Each request takes a permit from its bucket before being fired, waiting for it up to {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_MAX_WAIT} or its deadline, or fails with a {@link org.codegist.crest.ratelimit.RateLimitExceededException} if none is available in time. A max wait of 0 fails fast.
+ * <p>The buckets follow the quota the server sends back:
+ * <p>- X-RateLimit-Remaining : lowers the permits available right away to the calls the server still accepts, pausing until X-RateLimit-Reset (epoch or delay in seconds) once none is left.
+ * <p>- Retry-After (delay in seconds or HTTP date) : pauses the bucket for the given delay.
+ * <p>If used as a global interceptor of several interfaces, it is better to share the buckets with {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_REGISTRY}, so that all the calls to a host take from the same bucket.
+ * @see org.codegist.crest.CRestBuilder#useRateLimiting(double)
+ * @see org.codegist.crest.ratelimit.TokenBucket
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class RateLimitingInterceptor extends RequestInterceptorAdapter implements ResponseAwareRequestInterceptor {
+
+    public static final long DEFAULT_MAX_WAIT = 60000;
+
+    private static final Logger LOG = Logger.getLogger(RateLimitingInterceptor.class);
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+    // X-RateLimit-Reset values above are epoch seconds, delays otherwise
+    private static final long EPOCH_THRESHOLD = 1000000000L;
+
+    private final TokenBucketRegistry tokenBuckets;
+    private final long maxWait;
+    private final boolean perMethod;
+
+    public RateLimitingInterceptor() {
+        this(Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * @param customProperties settings of the interceptor, see {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_REGISTRY}, {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_MAX_WAIT} and {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_PER_METHOD}
+     */
+    public RateLimitingInterceptor(Map<String, Object> customProperties) {
+        this(getTokenBuckets(customProperties), CustomProperties.getLong(customProperties, CRestProperty.CREST_RATE_LIMIT_MAX_WAIT, DEFAULT_MAX_WAIT), Boolean.TRUE.equals(customProperties.get(CRestProperty.CREST_RATE_LIMIT_PER_METHOD)));
+    }
+
+    /**
+     * @param tokenBuckets registry holding the token buckets
+     * @param maxWait      maximum time in milliseconds to wait for a permit, 0 to fail fast
+     * @param perMethod    whether each interface method gets its own token bucket instead of sharing the one of its end point host
+     */
+    public RateLimitingInterceptor(TokenBucketRegistry tokenBuckets, long maxWait, boolean perMethod) {
+        this.tokenBuckets = tokenBuckets;
+        this.maxWait = maxWait;
+        this.perMethod = perMethod;
+    }
+
+    @Override
+    public void afterParamsInjectionHandle(HttpRequest.Builder builder, RequestContext context) throws Exception {
+        TokenBucket tokenBucket = getTokenBucket(builder.getBaseUri(), context);
+        // no point waiting for a permit the request won't have the time to use
+        if (!tokenBucket.acquire(Deadlines.capWait(maxWait, builder.getDeadline()))) {
+            throw new RateLimitExceededException(tokenBucket);
+        }
+    }
+
+    public void afterResponseHandle(ResponseContext context) {
+        HttpResponse response = context.getResponse();
+        if (response == null || response.getRequest() == null) return;
+        TokenBucket tokenBucket = getTokenBucket(response.getRequest().getUri().toString(), context.getRequestContext());
+
+        long retryAfter = getRetryAfter(getHeader(response, "Retry-After"));
+        if (retryAfter > 0) {
+            LOG.debug("%s asked to retry after %dms", tokenBucket.getName(), retryAfter);
+            tokenBucket.pauseFor(retryAfter);
+        }
+        String remaining = getHeader(response, "X-RateLimit-Remaining");
+        if (remaining != null) {
+            try {
+                int left = Integer.parseInt(remaining.trim());
+                tokenBucket.limitRemaining(left);
+                if (left <= 0) {
+                    tokenBucket.pauseFor(getReset(getHeader(response, "X-RateLimit-Reset")));
+                }
+            } catch (NumberFormatException e) {
+                LOG.debug("Ignoring invalid X-RateLimit-Remaining header %s", remaining);
+            }
+        } else if (response.getStatusCode() == 429 && retryAfter <= 0) {
+            // too many requests without any hint, wait for the next permit
+            tokenBucket.limitRemaining(0);
+        }
+    }
+
+    private TokenBucket getTokenBucket(String url, RequestContext context) {
+        String name = getHost(url);
+        if (perMethod) {
+            name += "#" + context.getConfig().getInterface().getName() + "." + context.getMethod().getName();
+        }
+        return tokenBuckets.get(name);
+    }
+
+    static String getHost(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        String authority = url.substring(start, end);
+        return authority.substring(authority.lastIndexOf('@') + 1);
+    }
+
+    private static String getHeader(HttpResponse response, String name) {
+        List<String> values = response.getHeader(name);
+        if (!values.isEmpty()) return values.get(0);
+        // header names are case insensitive, only look further if not found as is
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    private static long getRetryAfter(String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            DateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            try {
+                return format.parse(value.trim()).getTime() - System.currentTimeMillis();
+            } catch (ParseException e1) {
+                return 0;
+            }
+        }
+    }
+
+    private static long getReset(String value) {
+        if (value == null) return 0;
+        try {
+            long reset = Long.parseLong(value.trim());
+            return reset > EPOCH_THRESHOLD ? reset * 1000 - System.currentTimeMillis() : reset * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static TokenBucketRegistry getTokenBuckets(Map<String, Object> customProperties) {
+        TokenBucketRegistry tokenBuckets = (TokenBucketRegistry) customProperties.get(CRestProperty.CREST_RATE_LIMIT_REGISTRY);
+        return tokenBuckets != null ? tokenBuckets : new TokenBucketRegistry(customProperties);
+    }
+}
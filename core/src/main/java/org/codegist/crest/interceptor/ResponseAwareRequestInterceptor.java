@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.interceptor;
+
+import org.codegist.crest.ResponseContext;
+
+/**
+ * Request interceptor also notified of the response of each request fired, or of its failure, before any retry, error or response handling.
+ * <p>Allows an interceptor to adapt the next requests to what the server answered, eg a rate limiter following the quota sent back in the response headers.
+ * @see org.codegist.crest.interceptor.RateLimitingInterceptor
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public interface ResponseAwareRequestInterceptor extends RequestInterceptor {
+
+    /**
+     * Called once a request has been fired, whether it succeeded or not. Must not consume the response.
+     *
+     * @param context The response context, its response is null if the request failed before getting one
+     */
+    void afterResponseHandle(ResponseContext context);
+
+}
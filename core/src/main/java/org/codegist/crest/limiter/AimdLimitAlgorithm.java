@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Additive increase, multiplicative decrease: the limit grows by one for each request completed while the limit was in use, and is cut down by the backoff ratio for each dropped request.
+ * <p>Only reacts to the dropped requests, thus lets the latency grow up to the end point timeouts before backing off, see {@link org.codegist.crest.limiter.GradientLimitAlgorithm} to react on latency.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class AimdLimitAlgorithm implements LimitAlgorithm {
+
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    // double bits of the limit
+    private final AtomicLong limit;
+
+    /**
+     * @param initialLimit initial limit
+     * @param minLimit     lowest limit
+     * @param maxLimit     highest limit
+     * @param backoffRatio ratio the limit is multiplied by for each dropped request, in ]0,1[
+     */
+    public AimdLimitAlgorithm(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) throw new IllegalArgumentException("backoff ratio must be in ]0,1[ (ratio=" + backoffRatio + ")");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int update(long rtt, int inFlight, boolean dropped) {
+        while (true) {
+            long current = limit.get();
+            double value = Double.longBitsToDouble(current);
+            double updated = value;
+            if (dropped) {
+                updated = Math.max(minLimit, value * backoffRatio);
+            } else if (inFlight * 2 >= value) {
+                // only grow when the limit is actually used, an idle client would otherwise end up with an unbounded limit
+                updated = Math.min(maxLimit, value + 1);
+            }
+            if (updated == value || limit.compareAndSet(current, Double.doubleToLongBits(updated))) {
+                return (int) updated;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import org.codegist.crest.Deadlines;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the requests in flight of a group of interface methods, isolating them from the others sharing the same rest service: a slow interface can't hold more connections than its bulkhead allows, a request holding its slot until its response is closed.
+ * <p>A bulkhead set at interface level is shared by all its methods, a bulkhead set at method level is dedicated to the method.
+ * <p>Requests over the cap wait for a slot up to the bulkhead max wait or their deadline, 0 rejecting them straight away with a {@link org.codegist.crest.limiter.BulkheadFullException}. Every saturation, ie a request finding the bulkhead full, is counted.
+ * @see org.codegist.crest.config.MethodConfig#getBulkhead()
+ * @see org.codegist.crest.annotate.Bulkhead
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class Bulkhead {
+
+    public static final long DEFAULT_MAX_WAIT = 0;
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final long maxWait;
+    private final Semaphore permits;
+    private final AtomicLong saturations = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrentCalls) {
+        this(name, maxConcurrentCalls, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * @param name               bulkhead name
+     * @param maxConcurrentCalls maximum number of requests in flight
+     * @param maxWait            maximum time in milliseconds a request waits for a slot, 0 to reject it straight away
+     */
+    public Bulkhead(String name, int maxConcurrentCalls, long maxWait) {
+        if (maxConcurrentCalls <= 0) throw new IllegalArgumentException("max concurrent calls must be positive (max=" + maxConcurrentCalls + ")");
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Takes a slot, every slot taken must be given back with {@link #release()}.
+     * @return true if the request can be fired, false if the bulkhead stayed full
+     * @throws InterruptedException if interrupted while waiting for a slot
+     */
+    public boolean acquire() throws InterruptedException {
+        return acquire(null);
+    }
+
+    /**
+     * Takes a slot, waiting for it no longer than the given deadline. Every slot taken must be given back with {@link #release()}.
+     * @param deadline absolute deadline of the request in milliseconds since epoch, null if none
+     * @return true if the request can be fired, false if the bulkhead stayed full
+     * @throws InterruptedException if interrupted while waiting for a slot
+     */
+    public boolean acquire(Long deadline) throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        saturations.incrementAndGet();
+        long wait = Deadlines.capWait(maxWait, deadline);
+        if (wait > 0 && permits.tryAcquire(wait, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @return the current number of requests in flight
+     */
+    public int getInFlight() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    /**
+     * @return number of requests that found the bulkhead full so far, rejected or not
+     */
+    public long getSaturations() {
+        return saturations.get();
+    }
+
+    /**
+     * @return number of requests rejected so far
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead[" + name + "," + getInFlight() + "/" + maxConcurrentCalls + "]";
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.RestService;
+
+/**
+ * RestService decorator running the requests within a {@link org.codegist.crest.limiter.Bulkhead}, the underlying rest service, and its connection pool, staying shared.
+ * <p>The slot is held until the response is closed, so that a request streaming its response body keeps counting against the bulkhead.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class BulkheadRestService implements RestService {
+
+    private final RestService delegate;
+    private final Bulkhead bulkhead;
+
+    public BulkheadRestService(RestService delegate, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    public HttpResponse exec(HttpRequest request) throws HttpException {
+        try {
+            if (!bulkhead.acquire(request.getDeadline())) {
+                throw new BulkheadFullException(bulkhead);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException(e, new HttpResponse(request, -1));
+        }
+        HttpResponse response;
+        try {
+            response = delegate.exec(request);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        } catch (Error e) {
+            bulkhead.release();
+            throw e;
+        }
+        return response.onClose(new Runnable() {
+            public void run() {
+                bulkhead.release();
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+/**
+ * Thrown instead of firing a request when the concurrency limit of its end point is reached and the request couldn't be queued.
+ * @see org.codegist.crest.limiter.RequestRejectedException
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class ConcurrencyLimitExceededException extends RequestRejectedException {
+
+    private final transient ConcurrencyLimiter concurrencyLimiter;
+
+    public ConcurrencyLimitExceededException(ConcurrencyLimiter concurrencyLimiter) {
+        super("Concurrency limit of " + concurrencyLimiter.getName() + " reached (" + concurrencyLimiter.getLimit() + " requests in flight), request not fired");
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * @return the concurrency limiter that refused the call
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+}
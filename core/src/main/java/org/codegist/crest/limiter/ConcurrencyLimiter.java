@@ -0,0 +1,189 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import org.codegist.crest.Deadlines;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the requests in flight to an end point to a limit adjusted by a {@link org.codegist.crest.limiter.LimitAlgorithm} as requests complete.
+ * <p>Requests over the limit wait in a bounded queue for a slot to free up, up to a maximum delay or their deadline, and are rejected if the queue is full or the delay elapses.
+ * <p>This class is thread-safe, acquiring and releasing a slot under the limit is lock-free, only the queued requests wait on a condition, signalled when a slot is released while requests are queued.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final LimitAlgorithm algorithm;
+    private final int maxQueueSize;
+    private final long maxWait;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition slotReleased = lock.newCondition();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private volatile int limit;
+
+    /**
+     * @param name         limiter name
+     * @param algorithm    algorithm adjusting the limit, dedicated to this limiter
+     * @param maxQueueSize maximum number of requests waiting for a slot, 0 to reject the requests over the limit straight away
+     * @param maxWait      maximum time in milliseconds a request waits for a slot
+     */
+    public ConcurrencyLimiter(String name, LimitAlgorithm algorithm, int maxQueueSize, long maxWait) {
+        this.name = name;
+        this.algorithm = algorithm;
+        this.maxQueueSize = maxQueueSize;
+        this.maxWait = maxWait;
+        this.limit = Math.max(1, algorithm.getLimit());
+    }
+
+    /**
+     * Takes a slot, waiting for one in the queue if the limit is reached. Every slot taken must be given back with {@link #release(long, boolean)}.
+     * @return true if the request can be fired, false if it has been rejected
+     * @throws InterruptedException if interrupted while queued
+     */
+    public boolean acquire() throws InterruptedException {
+        return acquire(null);
+    }
+
+    /**
+     * Takes a slot, waiting for one in the queue no longer than the given deadline if the limit is reached. Every slot taken must be given back with {@link #release(long, boolean)}.
+     * @param deadline absolute deadline of the request in milliseconds since epoch, null if none
+     * @return true if the request can be fired, false if it has been rejected
+     * @throws InterruptedException if interrupted while queued
+     */
+    public boolean acquire(Long deadline) throws InterruptedException {
+        if (tryAcquire()) {
+            return true;
+        }
+        long wait = Deadlines.capWait(maxWait, deadline);
+        if (!enqueue(wait)) {
+            rejectedCalls.incrementAndGet();
+            return false;
+        }
+        try {
+            long left = TimeUnit.MILLISECONDS.toNanos(wait);
+            lock.lockInterruptibly();
+            try {
+                while (!tryAcquire()) {
+                    if (left <= 0) {
+                        rejectedCalls.incrementAndGet();
+                        return false;
+                    }
+                    left = slotReleased.awaitNanos(left);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives back a slot and updates the limit with the request outcome.
+     * @param rtt     request round-trip time in nanoseconds
+     * @param dropped whether the request was dropped by the end point
+     */
+    public void release(long rtt, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        limit = Math.max(1, algorithm.update(rtt, current, dropped));
+        if (queueDepth.get() > 0) {
+            lock.lock();
+            try {
+                // the limit may have grown by more than one slot
+                slotReleased.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean enqueue(long wait) {
+        while (true) {
+            int current = queueDepth.get();
+            if (current >= maxQueueSize || wait <= 0) {
+                return false;
+            }
+            if (queueDepth.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the current number of requests allowed in flight
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the current number of requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the current number of requests waiting for a slot
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return number of requests rejected so far
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter[" + name + "," + getInFlight() + "/" + limit + "," + getQueueDepth() + " queued]";
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import org.codegist.common.lang.Disposable;
+import org.codegist.common.lang.Disposables;
+import org.codegist.common.log.Logger;
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.CustomProperties;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.RestService;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * RestService decorator bounding the requests in flight to each end point host with a {@link org.codegist.crest.limiter.ConcurrencyLimiter}, whose limit adapts to the round-trip times and drops observed.
+ * <p>A request is considered dropped if it failed without response, or with a 429, 503 or 504 status.
+ * <p>A request holds its slot until its response is closed, the connection being busy while the body is transferred, but its round-trip time is taken when the response headers arrive, so that a caller slowly consuming a streamed body doesn't shrink the limit.
+ * <p>Requests rejected by the limiter fail with a {@link org.codegist.crest.limiter.ConcurrencyLimitExceededException}.
+ * <p>Configured with the following properties, see {@link org.codegist.crest.CRestProperty} for their respective details:
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CONCURRENCY_LIMIT_ALGORITHM}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CONCURRENCY_LIMIT_INITIAL}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CONCURRENCY_LIMIT_MIN}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CONCURRENCY_LIMIT_MAX}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CONCURRENCY_LIMIT_QUEUE_SIZE}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_CONCURRENCY_LIMIT_MAX_WAIT}
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class ConcurrencyLimitingRestService implements RestService, Disposable {
+
+    public static final String ALGORITHM_AIMD = "aimd";
+    public static final String ALGORITHM_GRADIENT = "gradient";
+    public static final String DEFAULT_ALGORITHM = ALGORITHM_GRADIENT;
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+    public static final long DEFAULT_MAX_WAIT = 1000;
+
+    private static final Logger LOG = Logger.getLogger(ConcurrencyLimitingRestService.class);
+
+    private final RestService delegate;
+    private final ConcurrentMap<String, ConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<String, ConcurrencyLimiter>();
+    private final String algorithm;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long maxWait;
+
+    public ConcurrencyLimitingRestService(RestService delegate) {
+        this(delegate, Collections.<String, Object>emptyMap());
+    }
+
+    public ConcurrencyLimitingRestService(RestService delegate, Map<String, Object> customProperties) {
+        this.delegate = delegate;
+        Object algorithm = customProperties.get(CRestProperty.CREST_CONCURRENCY_LIMIT_ALGORITHM);
+        this.algorithm = algorithm != null ? algorithm.toString().trim() : DEFAULT_ALGORITHM;
+        if (!ALGORITHM_AIMD.equals(this.algorithm) && !ALGORITHM_GRADIENT.equals(this.algorithm)) {
+            throw new IllegalArgumentException("Unknown concurrency limit algorithm " + this.algorithm);
+        }
+        this.minLimit = Math.max(1, (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CONCURRENCY_LIMIT_MIN, DEFAULT_MIN_LIMIT));
+        this.maxLimit = Math.max(minLimit, (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CONCURRENCY_LIMIT_MAX, DEFAULT_MAX_LIMIT));
+        this.initialLimit = Math.max(minLimit, Math.min(maxLimit, (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CONCURRENCY_LIMIT_INITIAL, DEFAULT_INITIAL_LIMIT)));
+        this.queueSize = (int) CustomProperties.getLong(customProperties, CRestProperty.CREST_CONCURRENCY_LIMIT_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.maxWait = CustomProperties.getLong(customProperties, CRestProperty.CREST_CONCURRENCY_LIMIT_MAX_WAIT, DEFAULT_MAX_WAIT);
+    }
+
+    public HttpResponse exec(HttpRequest request) throws HttpException {
+        ConcurrencyLimiter limiter = getConcurrencyLimiter(getName(request.getUri()));
+        try {
+            if (!limiter.acquire(request.getDeadline())) {
+                LOG.debug("Rejecting request %s, %s", request.getUri(), limiter);
+                throw new ConcurrencyLimitExceededException(limiter);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException(e, new HttpResponse(request, -1));
+        }
+        long start = System.nanoTime();
+        HttpResponse response;
+        try {
+            response = delegate.exec(request);
+        } catch (HttpException e) {
+            limiter.release(System.nanoTime() - start, isDropped(e.getResponse()));
+            throw e;
+        } catch (RuntimeException e) {
+            limiter.release(System.nanoTime() - start, true);
+            throw e;
+        } catch (Error e) {
+            limiter.release(System.nanoTime() - start, true);
+            throw e;
+        }
+        return response.onClose(new Release(limiter, System.nanoTime() - start));
+    }
+
+    private static boolean isDropped(HttpResponse response) {
+        if (response == null) return true;
+        int status = response.getStatusCode();
+        return status <= 0 || status == 429 || status == 503 || status == 504;
+    }
+
+    private ConcurrencyLimiter getConcurrencyLimiter(String name) {
+        ConcurrencyLimiter limiter = concurrencyLimiters.get(name);
+        if (limiter == null) {
+            LimitAlgorithm limitAlgorithm = ALGORITHM_AIMD.equals(algorithm)
+                    ? new AimdLimitAlgorithm(initialLimit, minLimit, maxLimit, AimdLimitAlgorithm.DEFAULT_BACKOFF_RATIO)
+                    : new GradientLimitAlgorithm(initialLimit, minLimit, maxLimit, GradientLimitAlgorithm.DEFAULT_TOLERANCE);
+            ConcurrencyLimiter created = new ConcurrencyLimiter(name, limitAlgorithm, queueSize, maxWait);
+            limiter = concurrencyLimiters.putIfAbsent(name, created);
+            if (limiter == null) {
+                limiter = created;
+            }
+        }
+        return limiter;
+    }
+
+    private static String getName(URI uri) {
+        if (uri.getHost() == null) return String.valueOf(uri.getAuthority());
+        return uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+    }
+
+    /**
+     * @return a live, read-only, view of the concurrency limiters created so far, by end point host, exposing their current limit, requests in flight and queue depth
+     */
+    public Map<String, ConcurrencyLimiter> getConcurrencyLimiters() {
+        return Collections.unmodifiableMap(concurrencyLimiters);
+    }
+
+    public void dispose() {
+        Disposables.dispose(delegate);
+    }
+
+    private static final class Release implements Runnable {
+        private final ConcurrencyLimiter limiter;
+        private final long rtt;
+
+        private Release(ConcurrencyLimiter limiter, long rtt) {
+            this.limiter = limiter;
+            this.rtt = rtt;
+        }
+
+        public void run() {
+            limiter.release(rtt, false);
+        }
+    }
+}
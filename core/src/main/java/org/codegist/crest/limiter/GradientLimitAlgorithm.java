@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latency gradient: compares the short term round-trip time with the long term one, taken as the end point latency when it is not queueing the requests.
+ * <p>The limit shrinks proportionally to the latency increase (by half at most per update) and otherwise grows by the square root of the limit, allowing a few requests to queue so that an improvement can be detected. Dropped requests halve the gradient.
+ * <p>The long term round-trip time is an exponential moving average much slower than the short term one, so that it slowly follows a lasting latency change of the end point.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class GradientLimitAlgorithm implements LimitAlgorithm {
+
+    public static final double DEFAULT_TOLERANCE = 1.5;
+
+    private static final double SHORT_SMOOTHING = 0.1;
+    private static final double LONG_SMOOTHING = 0.005;
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicReference<State> state;
+
+    /**
+     * @param initialLimit initial limit
+     * @param minLimit     lowest limit
+     * @param maxLimit     highest limit
+     * @param tolerance    latency increase ratio tolerated before shrinking the limit, at least 1
+     */
+    public GradientLimitAlgorithm(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (tolerance < 1) throw new IllegalArgumentException("tolerance must be at least 1 (tolerance=" + tolerance + ")");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.state = new AtomicReference<State>(new State(initialLimit, 0, 0));
+    }
+
+    public int getLimit() {
+        return (int) state.get().limit;
+    }
+
+    public int update(long rtt, int inFlight, boolean dropped) {
+        while (true) {
+            State current = state.get();
+            State updated = current.update(rtt, inFlight, dropped);
+            if (state.compareAndSet(current, updated)) {
+                return (int) updated.limit;
+            }
+        }
+    }
+
+    private final class State {
+        private final double limit;
+        private final double shortRtt;
+        private final double longRtt;
+
+        private State(double limit, double shortRtt, double longRtt) {
+            this.limit = limit;
+            this.shortRtt = shortRtt;
+            this.longRtt = longRtt;
+        }
+
+        private State update(long rtt, int inFlight, boolean dropped) {
+            double shortRtt = this.longRtt == 0 ? rtt : this.shortRtt + (rtt - this.shortRtt) * SHORT_SMOOTHING;
+            double longRtt = this.longRtt == 0 ? rtt : this.longRtt + (rtt - this.longRtt) * LONG_SMOOTHING;
+            if (!dropped && inFlight * 2 < limit) {
+                // the limit isn't what bounds the load, nothing to learn from this request
+                return new State(limit, shortRtt, longRtt);
+            }
+            double gradient = Math.max(0.5, Math.min(1, tolerance * longRtt / shortRtt));
+            if (dropped) {
+                gradient /= 2;
+            }
+            double target = limit * gradient + Math.sqrt(limit);
+            return new State(Math.max(minLimit, Math.min(maxLimit, limit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING)), shortRtt, longRtt);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+/**
+ * Algorithm adjusting the number of concurrent requests allowed to an end point from the outcome of the completed ones.
+ * <p>Implementations are called concurrently on every request completion and should not block, one instance being dedicated to a single {@link org.codegist.crest.limiter.ConcurrencyLimiter}.
+ * @see org.codegist.crest.limiter.AimdLimitAlgorithm
+ * @see org.codegist.crest.limiter.GradientLimitAlgorithm
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * @return the initial limit
+     */
+    int getLimit();
+
+    /**
+     * Called once a request has completed.
+     * @param rtt      request round-trip time in nanoseconds
+     * @param inFlight number of requests in flight when this one completed, itself included
+     * @param dropped  whether the request was dropped by the end point (timeout, connection failure, overload status)
+     * @return the new limit
+     */
+    int update(long rtt, int inFlight, boolean dropped);
+
+}
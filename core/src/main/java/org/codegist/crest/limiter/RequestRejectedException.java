@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.limiter;
+
+import org.codegist.crest.CRestException;
+
+/**
+ * Thrown instead of firing a request refused by a local limit, the end point not being contacted at all.
+ * <p>A rejection says nothing about the end point health: it isn't recorded by the circuit breakers nor by the load balancer, and isn't retried, which would only add to the saturation. It is given to the method's {@link org.codegist.crest.handler.ErrorHandler}.
+ * @see org.codegist.crest.limiter.BulkheadFullException
+ * @see org.codegist.crest.limiter.ConcurrencyLimitExceededException
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public abstract class RequestRejectedException extends CRestException {
+
+    protected RequestRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.page;
+
+import org.codegist.crest.RequestContext;
+import org.codegist.crest.config.MethodConfig;
+import org.codegist.crest.config.MethodParamConfig;
+
+/**
+ * Paginator for the cursor based APIs, where each page gives the cursor to pass in to get the next one.
+ * <p>The cursor is passed in the method argument whose parameter has the given name.
+ * @param <P> page type
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public abstract class CursorPaginator<P> implements Paginator<P> {
+
+    private final String param;
+
+    /**
+     * @param param name of the parameter carrying the cursor
+     */
+    protected CursorPaginator(String param) {
+        this.param = param;
+    }
+
+    /**
+     * @param page the last page fetched
+     * @return the cursor to get the page following the given one with, null if the given page is the last one
+     */
+    protected abstract Object getNextCursor(P page);
+
+    public boolean next(RequestContext context, P page, Object[] args) {
+        Object cursor = getNextCursor(page);
+        if (cursor == null) {
+            return false;
+        }
+        args[indexOf(context.getMethodConfig())] = cursor;
+        return true;
+    }
+
+    private int indexOf(MethodConfig config) {
+        for (int i = 0, count = config.getParamCount(); i < count; i++) {
+            MethodParamConfig paramConfig = config.getParamConfig(i);
+            if (param.equals(paramConfig.getName())) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Method " + config.getMethod() + " has no parameter named " + param);
+    }
+}
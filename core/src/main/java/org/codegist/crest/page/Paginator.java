@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.page;
+
+import org.codegist.crest.RequestContext;
+
+/**
+ * Tells how to fetch the page following a given one, for the interface methods declaring a paginated {@link java.util.Iterator} or {@link java.lang.Iterable} return type.
+ * <p>Each page is fetched with the same method, only the arguments change from one page to the other.
+ * <p>Implementors can declare a constructor with a single java.util.Map argument to get access to the user custom properties.
+ * @param <P> page type, as declared by the return type type argument
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.config.MethodConfig#getPaginator()
+ * @see org.codegist.crest.page.CursorPaginator
+ */
+public interface Paginator<P> {
+
+    /**
+     * Prepares the arguments of the call fetching the page following the given one.
+     * @param context context the given page has been fetched with
+     * @param page the last page fetched
+     * @param args copy of the arguments the given page has been fetched with, to update in place
+     * @return false if the given page is the last one
+     */
+    boolean next(RequestContext context, P page, Object[] args);
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.ratelimit;
+
+import org.codegist.crest.CRestException;
+
+/**
+ * Thrown instead of firing a request when no permit of the token bucket guarding it is available in time.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_MAX_WAIT
+ */
+public class RateLimitExceededException extends CRestException {
+
+    private final transient TokenBucket tokenBucket;
+
+    public RateLimitExceededException(TokenBucket tokenBucket) {
+        super("Rate limit of " + tokenBucket.getName() + " exceeded (" + tokenBucket.getRate() + " calls per second), request not fired");
+        this.tokenBucket = tokenBucket;
+    }
+
+    /**
+     * @return the token bucket that refused the call
+     */
+    public TokenBucket getTokenBucket() {
+        return tokenBucket;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket refilled at a fixed rate and holding up to a fixed number of permits, used to space out the requests sent to a rate limited API.
+ * <p>The bucket state is a single timestamp, the time at which it would be full again, so that acquiring a permit is one compare-and-set: this class is thread-safe and lock-free, only a caller that has to wait for its permit sleeps.
+ * <p>The remote API's own view of the quota can be fed back with {@link #limitRemaining(int)} and {@link #pauseFor(long)}, tightening the bucket when the API counts more calls than this client did.
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class TokenBucket {
+
+    private final String name;
+    private final double rate;
+    private final int burst;
+    private final long interval;
+    private final long tolerance;
+
+    // theoretical arrival time of the next permit, the bucket allows a call while it is less than tolerance ahead of now
+    private final AtomicLong nextPermitAt;
+    private final AtomicLong throttledCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    /**
+     * @param name  bucket name
+     * @param rate  number of permits refilled per second
+     * @param burst maximum number of permits the bucket holds, ie the number of calls that can be fired at once
+     */
+    public TokenBucket(String name, double rate, int burst) {
+        if (rate <= 0) throw new IllegalArgumentException("rate must be positive (rate=" + rate + ")");
+        if (burst <= 0) throw new IllegalArgumentException("burst must be positive (burst=" + burst + ")");
+        this.name = name;
+        this.rate = rate;
+        this.burst = burst;
+        this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.tolerance = (burst - 1) * interval;
+        this.nextPermitAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a permit if one is available right away.
+     * @return true if the call can be fired
+     */
+    public boolean tryAcquire() {
+        try {
+            return acquire(0);
+        } catch (InterruptedException e) {
+            // never sleeps
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Takes a permit, waiting for it up to the given delay. The permit is not taken if it wouldn't be available within the delay.
+     * @param maxWait maximum time to wait for the permit in milliseconds, 0 to fail fast
+     * @return true if the call can be fired, false if no permit is available within the delay
+     * @throws InterruptedException if interrupted while waiting for the permit, the permit is then lost
+     */
+    public boolean acquire(long maxWait) throws InterruptedException {
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        while (true) {
+            long now = System.nanoTime();
+            long current = nextPermitAt.get();
+            long from = Math.max(current, now);
+            long wait = from - now - tolerance;
+            if (wait > maxWaitNanos) {
+                rejectedCalls.incrementAndGet();
+                return false;
+            }
+            if (nextPermitAt.compareAndSet(current, from + interval)) {
+                if (wait > 0) {
+                    throttledCalls.incrementAndGet();
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Lowers the permits available right away to the given number, if higher. Used when the remote API tells how many calls are left in its quota.
+     * @param remaining number of calls the remote API still accepts
+     */
+    public void limitRemaining(int remaining) {
+        if (remaining >= burst) return;
+        raiseNextPermitAt(System.nanoTime() + tolerance - (Math.max(0, remaining) - 1) * interval);
+    }
+
+    /**
+     * Holds back every call for the given delay. Used when the remote API tells when to come back.
+     * @param delay delay in milliseconds
+     */
+    public void pauseFor(long delay) {
+        if (delay <= 0) return;
+        raiseNextPermitAt(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) + tolerance);
+    }
+
+    private void raiseNextPermitAt(long target) {
+        while (true) {
+            long current = nextPermitAt.get();
+            if (current >= target || nextPermitAt.compareAndSet(current, target)) {
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of permits refilled per second
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return maximum number of permits the bucket holds
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return number of permits available right away
+     */
+    public int getAvailablePermits() {
+        long now = System.nanoTime();
+        long room = tolerance - (Math.max(nextPermitAt.get(), now) - now);
+        return room < 0 ? 0 : (int) (room / interval + 1);
+    }
+
+    /**
+     * @return number of calls that had to wait for their permit
+     */
+    public long getThrottledCalls() {
+        return throttledCalls.get();
+    }
+
+    /**
+     * @return number of calls refused for not getting a permit in time
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucket[" + name + "," + rate + "/s," + burst + "]";
+    }
+}
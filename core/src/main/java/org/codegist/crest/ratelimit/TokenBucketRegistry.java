@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.ratelimit;
+
+import org.codegist.crest.CRestProperty;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the token buckets of a CRest instance by name, creating them on first access with the registry's settings.
+ * <p>Meant to be shared by all the rate limited interfaces calling the same API, and kept by the caller to monitor the buckets, see {@link #getTokenBuckets()}.
+ * <p>Configured with the following properties, see {@link org.codegist.crest.CRestProperty} for their respective details:
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT}
+ * <p>- {@link org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_BURST}
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.CRestProperty#CREST_RATE_LIMIT_REGISTRY
+ */
+public class TokenBucketRegistry {
+
+    public static final double DEFAULT_RATE = 10;
+
+    private final ConcurrentMap<String, TokenBucket> tokenBuckets = new ConcurrentHashMap<String, TokenBucket>();
+    private final double rate;
+    private final int burst;
+
+    public TokenBucketRegistry() {
+        this(Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * @param customProperties settings of the token buckets the registry creates
+     */
+    public TokenBucketRegistry(Map<String, Object> customProperties) {
+        Object rate = customProperties.get(CRestProperty.CREST_RATE_LIMIT);
+        this.rate = rate instanceof Number ? ((Number) rate).doubleValue() : (rate != null ? Double.parseDouble(rate.toString().trim()) : DEFAULT_RATE);
+        Object burst = customProperties.get(CRestProperty.CREST_RATE_LIMIT_BURST);
+        // defaults to a second worth of permits
+        this.burst = burst != null ? Integer.parseInt(burst.toString().trim()) : (int) Math.max(1, Math.ceil(this.rate));
+    }
+
+    /**
+     * @param name token bucket name
+     * @return the token bucket of the given name, created if not existing yet
+     */
+    public TokenBucket get(String name) {
+        TokenBucket tokenBucket = tokenBuckets.get(name);
+        if (tokenBucket == null) {
+            TokenBucket created = new TokenBucket(name, rate, burst);
+            tokenBucket = tokenBuckets.putIfAbsent(name, created);
+            if (tokenBucket == null) {
+                tokenBucket = created;
+            }
+        }
+        return tokenBucket;
+    }
+
+    /**
+     * @return a live, read-only, view of the token buckets created so far, by name
+     */
+    public Map<String, TokenBucket> getTokenBuckets() {
+        return Collections.unmodifiableMap(tokenBuckets);
+    }
+}
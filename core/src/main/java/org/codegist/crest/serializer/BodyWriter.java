@@ -0,0 +1,52 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Body writers are used to write a method argument as the whole request entity, straight into the connection output stream.
+ * <p> If implementor declares a constructor with a Map argument, it will be called with the user custom properties.
+ *
+ * @param <T> Optional parameter value type
+ * @see org.codegist.crest.injector.BodyInjector
+ * @see org.codegist.crest.InterfaceContext#getProperties()
+ * @author laurent.gilles@codegist.org
+ */
+public interface BodyWriter<T> {
+
+    /**
+     * @return mime type of the written entity, without any charset, eg application/json
+     */
+    String getMimeType();
+
+    /**
+     * Writes the given value to the request entity. Can be called more than once for the same value if the request is retried.
+     *
+     * @param value   argument value
+     * @param charset request charset
+     * @param out     request entity stream, must be left open
+     * @throws IOException if the value can't be written
+     */
+    void write(T value, Charset charset, OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds a deserializer per accepted mime type, the one to use is picked from the response Content-Type.
+ * <p>Responses of any other mime type, or without any, go to the most preferred deserializer.
+ * <p>The response handlers get the deserializer already resolved from {@link org.codegist.crest.ResponseContext#getDeserializer()}, code holding this deserializer directly must call {@link #select(String)} with the response mime type before deserializing.
+ * @see org.codegist.crest.serializer.DeserializerFactory#buildForAcceptHeader(String)
+ * @author laurent.gilles@codegist.org
+ */
+public class ContentNegotiatingDeserializer implements Deserializer {
+
+    private final Map<String, Deserializer> deserializers;
+    private final Deserializer preferred;
+
+    /**
+     * @param deserializers deserializers mapped by lower case mime type, ordered by preference
+     */
+    public ContentNegotiatingDeserializer(LinkedHashMap<String, Deserializer> deserializers) {
+        if (deserializers.isEmpty()) throw new IllegalArgumentException("At least one deserializer must be given");
+        this.deserializers = new LinkedHashMap<String, Deserializer>(deserializers);
+        this.preferred = deserializers.values().iterator().next();
+    }
+
+    /**
+     * @param mimeType response mime type
+     * @return the deserializer bound to the given mime type, the preferred one if none
+     */
+    public Deserializer select(String mimeType) {
+        Deserializer deserializer = mimeType != null ? deserializers.get(mimeType.toLowerCase()) : null;
+        return deserializer != null ? deserializer : preferred;
+    }
+
+    /**
+     * Deserializes with the most preferred deserializer, the response mime type being unknown here. Fails when that one only reads bytes (eg Smile or Protocol Buffers), see {@link #select(String)}.
+     */
+    public <T> T deserialize(Reader reader, Type type) throws DeserializerException {
+        return preferred.<T>deserialize(reader, type);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of date formats, DateFormat not being thread-safe.
+ * <p>Formats are cloned from a prototype on demand and only a bounded number of them is kept once released, so that callers running on short-lived threads (eg virtual threads) still reuse them, unlike with per-thread instances.
+ * @author laurent.gilles@codegist.org
+ */
+final class DateFormatPool {
+
+    static final int DEFAULT_MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final DateFormat prototype;
+    private final int maxIdle;
+    private final Queue<DateFormat> idle = new ConcurrentLinkedQueue<DateFormat>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * @param prototype format cloned for each new instance, never used itself
+     * @param maxIdle   maximum number of formats kept once released
+     */
+    DateFormatPool(DateFormat prototype, int maxIdle) {
+        this.prototype = prototype;
+        this.maxIdle = maxIdle;
+    }
+
+    String format(Date date) {
+        DateFormat format = acquire();
+        try {
+            return format.format(date);
+        } finally {
+            release(format);
+        }
+    }
+
+    Date parse(String value) throws ParseException {
+        DateFormat format = acquire();
+        try {
+            return format.parse(value);
+        } finally {
+            release(format);
+        }
+    }
+
+    private DateFormat acquire() {
+        DateFormat format = idle.poll();
+        if (format != null) {
+            idleCount.decrementAndGet();
+            return format;
+        }
+        return (DateFormat) prototype.clone();
+    }
+
+    private void release(DateFormat format) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(format);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
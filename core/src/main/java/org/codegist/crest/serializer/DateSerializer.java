@@ -36,7 +36,7 @@ public class DateSerializer implements Serializer<Date> {
 
     public static final String DEFAULT_DATEFORMAT = "yyyy-MM-dd'T'HH:mm:ssZ";
 
-    private final DateFormat formatter;
+    private final DateFormatPool formatter;
     private final FormatType formatType;
 
     public DateSerializer() {
@@ -45,16 +45,19 @@ public class DateSerializer implements Serializer<Date> {
     public DateSerializer(Map<String,Object> customProperties) {
         this(Strings.defaultIfBlank((String) customProperties.get(CRestProperty.SERIALIZER_DATE_FORMAT), DateSerializer.DEFAULT_DATEFORMAT));
     }
-    public DateSerializer(String dateFormat) {
-        DateFormat formatter;
+    public DateSerializer(final String dateFormat) {
+        DateFormatPool formatter;
         FormatType formatType;
         try {
             formatType = FormatType.valueOf(dateFormat);
             formatter = null;
         } catch (IllegalArgumentException e) {
             formatType = null;
-            formatter = new SimpleDateFormat(dateFormat);
-            formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+            // fails fast on invalid pattern
+            DateFormat prototype = new SimpleDateFormat(dateFormat);
+            prototype.setTimeZone(TimeZone.getTimeZone("UTC"));
+            // DateFormat is not thread-safe, pool a few instances rather than locking on a shared one
+            formatter = new DateFormatPool(prototype, DateFormatPool.DEFAULT_MAX_IDLE);
         }
         this.formatter = formatter;
         this.formatType = formatType;
@@ -62,9 +65,7 @@ public class DateSerializer implements Serializer<Date> {
 
     public String serialize(Date value) {
         if(formatter != null) {
-             synchronized (formatter) {
-                 return formatter.format(value);
-             }
+            return formatter.format(value);
         }else{
             return String.valueOf(formatType.format(value));
         }
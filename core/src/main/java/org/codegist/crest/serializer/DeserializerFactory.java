@@ -23,8 +23,14 @@ package org.codegist.crest.serializer;
 import org.codegist.crest.CRestException;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author laurent.gilles@codegist.org
@@ -32,20 +38,53 @@ import java.util.Map;
 public class DeserializerFactory {
 
     private final Map<String, Object> mimeTypeRegistry;
-    private final Map<String, Deserializer> deserializersCache = new HashMap<String, Deserializer>();
+    private final ConcurrentMap<String, Deserializer> deserializersCache = new ConcurrentHashMap<String, Deserializer>();
 
     private DeserializerFactory(Map<String, Object> mimeTypeRegistry) {
         this.mimeTypeRegistry = mimeTypeRegistry;
     }
 
-    public synchronized Deserializer buildForMimeType(String mimeType) {
+    public Deserializer buildForMimeType(String mimeType) {
         Deserializer deserializer = deserializersCache.get(mimeType);
         if (deserializer == null) {
-            deserializersCache.put(mimeType, deserializer = build(mimeType));
+            Deserializer built = build(mimeType);
+            deserializer = deserializersCache.putIfAbsent(mimeType, built);
+            if (deserializer == null) {
+                deserializer = built;
+            }
         }
         return deserializer;
     }
 
+    /**
+     * Builds the deserializer for the given Accept header value, eg "application/x-jackson-smile, application/json;q=0.5".
+     * <p>When more than one mime type is accepted, the response is deserialized according to its Content-Type, falling back to the most preferred mime type.
+     * <p>Mime types are preferred by quality factor, then by order of appearance. A quality factor of 0 excludes the mime type.
+     * <p>Wildcard ranges (eg "*&#47;*" or "text/*") only widen what the server may send, they are skipped when picking the deserializers unless a deserializer is bound to them. At least one range must end up with a deserializer.
+     *
+     * @param accept Accept header value
+     * @return the deserializer bound to the single mime type accepted, a {@link org.codegist.crest.serializer.ContentNegotiatingDeserializer} otherwise
+     */
+    public Deserializer buildForAcceptHeader(String accept) {
+        List<AcceptedType> acceptedTypes = new ArrayList<AcceptedType>();
+        for (String range : accept.split(",")) {
+            AcceptedType acceptedType = AcceptedType.parse(range, acceptedTypes.size());
+            if (acceptedType.quality > 0 && (!acceptedType.isWildcard() || mimeTypeRegistry.containsKey(acceptedType.mimeType))) {
+                acceptedTypes.add(acceptedType);
+            }
+        }
+        if (acceptedTypes.isEmpty()) throw new CRestException("No mime type accepted: " + accept);
+        Collections.sort(acceptedTypes);
+        if (acceptedTypes.size() == 1) {
+            return buildForMimeType(acceptedTypes.get(0).mimeType);
+        }
+        LinkedHashMap<String, Deserializer> deserializers = new LinkedHashMap<String, Deserializer>();
+        for (AcceptedType acceptedType : acceptedTypes) {
+            deserializers.put(acceptedType.mimeType.toLowerCase(), buildForMimeType(acceptedType.mimeType));
+        }
+        return new ContentNegotiatingDeserializer(deserializers);
+    }
+
     private Deserializer build(String mimeType) {
         Object deserializer = mimeTypeRegistry.get(mimeType);
         if (deserializer == null) throw new CRestException("No deserializer bound to mime type: " + mimeType);
@@ -81,6 +120,43 @@ public class DeserializerFactory {
 
     }
 
+    private static final class AcceptedType implements Comparable<AcceptedType> {
+        final String mimeType;
+        final float quality;
+        final int index;
+
+        private AcceptedType(String mimeType, float quality, int index) {
+            this.mimeType = mimeType;
+            this.quality = quality;
+            this.index = index;
+        }
+
+        static AcceptedType parse(String range, int index) {
+            String[] parts = range.split(";");
+            float quality = 1f;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        throw new CRestException("Invalid quality factor in accepted mime type: " + range);
+                    }
+                }
+            }
+            return new AcceptedType(parts[0].trim(), quality, index);
+        }
+
+        boolean isWildcard() {
+            return mimeType.endsWith("/*") || "*".equals(mimeType);
+        }
+
+        public int compareTo(AcceptedType o) {
+            int byQuality = Float.compare(o.quality, quality);
+            return byQuality != 0 ? byQuality : index - o.index;
+        }
+    }
+
     private static class DeserializerDescriptor {
         final Class<? extends Deserializer> deserializerClass;
         final Map<String, Object> config;
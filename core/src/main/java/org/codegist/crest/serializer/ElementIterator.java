@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.serializer;
+
+import org.codegist.common.io.IOs;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Base lazy element iterator for {@link org.codegist.crest.serializer.StreamingDeserializer} implementations.
+ * <p>Closes the underlying source once the last element has been read, when a read fails or when explicitly closed.
+ * @author laurent.gilles@codegist.org
+ */
+abstract class ElementIterator<T> implements Iterator<T>, Closeable {
+
+    private final Closeable source;
+    private boolean closed = false;
+    private boolean positioned = false;
+
+    ElementIterator(Closeable source) {
+        this.source = source;
+    }
+
+    /**
+     * Moves the underlying source to the next element.
+     * @return false if no more element is available
+     * @throws Exception any read error
+     */
+    abstract boolean advance() throws Exception;
+
+    /**
+     * Reads the element the underlying source is currently positioned at.
+     * @return the element
+     * @throws Exception any read error
+     */
+    abstract T read() throws Exception;
+
+    public boolean hasNext() {
+        if (closed) return false;
+        if (!positioned) {
+            try {
+                positioned = advance();
+            } catch (Exception e) {
+                throw fail(e);
+            }
+            if (!positioned) {
+                close();
+            }
+        }
+        return positioned;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        positioned = false;
+        try {
+            return read();
+        } catch (Exception e) {
+            throw fail(e);
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            IOs.close(source);
+        }
+    }
+
+    private DeserializerException fail(Exception e) {
+        close();
+        return e instanceof DeserializerException ? (DeserializerException) e : new DeserializerException(e);
+    }
+}
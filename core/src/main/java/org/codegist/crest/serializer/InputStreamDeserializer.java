@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.serializer;
+
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
+/**
+ * Deserializer able to parse the raw response bytes, saving the char decoding pass a {@link java.io.Reader} costs when the underlying parser reads bytes natively.
+ * <p>The given charset is the response one, implementors must decode the bytes with it, or with the charset declared by the payload itself when that's what the format mandates. Binary formats just ignore it.
+ * @author laurent.gilles@codegist.org
+ */
+public interface InputStreamDeserializer extends Deserializer {
+
+    <T> T deserialize(InputStream stream, Charset charset, Type type) throws DeserializerException;
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import org.codegist.common.lang.Validate;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Writes the argument as a JSON request entity.
+ * @author laurent.gilles@codegist.org
+ */
+public class JacksonBodyWriter implements BodyWriter<Object> {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ObjectMapper jackson;
+
+    public JacksonBodyWriter() {
+        this(new ObjectMapper());
+    }
+
+    public JacksonBodyWriter(ObjectMapper jackson) {
+        Validate.notNull(jackson, "ObjectMapper must not be null");
+        this.jackson = jackson;
+    }
+
+    public JacksonBodyWriter(Map<String, Object> config) {
+        Validate.notNull(config, "Config must not be null");
+        if (config.containsKey(JacksonDeserializer.USER_OBJECT_MAPPER_PROP)) {
+            this.jackson = (ObjectMapper) config.get(JacksonDeserializer.USER_OBJECT_MAPPER_PROP);
+        } else {
+            this.jackson = new ObjectMapper();
+        }
+    }
+
+    public String getMimeType() {
+        return "application/json";
+    }
+
+    /**
+     * Generates the bytes straight away for utf-8, encodes the generated characters with the given charset otherwise.
+     */
+    public void write(Object value, Charset charset, OutputStream out) throws IOException {
+        JsonGenerator generator;
+        if (UTF8.equals(charset)) {
+            generator = jackson.getJsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
+        } else {
+            generator = jackson.getJsonFactory().createJsonGenerator(new OutputStreamWriter(out, charset));
+        }
+        // the generator is only flushed, closing it would close the request stream
+        jackson.writeValue(generator, value);
+        generator.flush();
+    }
+}
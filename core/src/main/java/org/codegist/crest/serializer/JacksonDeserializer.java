@@ -20,25 +20,38 @@
 
 package org.codegist.crest.serializer;
 
+import org.codegist.common.io.IOs;
 import org.codegist.common.lang.Validate;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.DeserializationConfig;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.type.TypeFactory;
+import org.codehaus.jackson.type.JavaType;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author laurent.gilles@codegist.org
  */
-public class JacksonDeserializer implements Deserializer {
+public class JacksonDeserializer implements StreamingDeserializer, InputStreamDeserializer {
 
     public static final String USER_OBJECT_MAPPER_PROP = JacksonDeserializer.class.getName() + "#user-object-mapper";
     public static final String DESERIALIZATION_CONFIG_MAP_PROP = JacksonDeserializer.class.getName() + "#deserialization-config-map";
 
+    private static final int MAX_CACHED_TYPES = 512;
+
     private final ObjectMapper jackson;
+    private final ConcurrentMap<Type, JavaType> javaTypes = new ConcurrentHashMap<Type, JavaType>();
 
     public JacksonDeserializer() {
         this(new ObjectMapper().configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false));
@@ -70,9 +83,74 @@ public class JacksonDeserializer implements Deserializer {
 
     public <T> T deserialize(Reader reader, Type type) {
         try {
-            return jackson.<T>readValue(reader, TypeFactory.type(type));
+            return jackson.<T>readValue(reader, getJavaType(type));
+        } catch (IOException e) {
+            throw new DeserializerException(e);
+        }
+    }
+
+    /**
+     * Parses the bytes straight away for the unicode charsets Jackson detects by itself, decodes them with the given charset otherwise.
+     */
+    public <T> T deserialize(InputStream stream, Charset charset, Type type) throws DeserializerException {
+        if (!charset.name().startsWith("UTF-")) {
+            return this.<T>deserialize(new InputStreamReader(stream, charset), type);
+        }
+        return this.<T>deserialize(stream, type);
+    }
+
+    /**
+     * Lets the mapper's factory parse the bytes, whatever the format they are in.
+     */
+    <T> T deserialize(InputStream stream, Type type) throws DeserializerException {
+        try {
+            return jackson.<T>readValue(jackson.getJsonFactory().createJsonParser(stream), getJavaType(type));
+        } catch (IOException e) {
+            throw new DeserializerException(e);
+        }
+    }
+
+    /**
+     * Streams the elements of a top-level JSON array, each element is bound only when requested.
+     */
+    public <T> Iterator<T> deserializeElements(Reader reader, Type elementType) throws DeserializerException {
+        final JavaType type = getJavaType(elementType);
+        final JsonParser parser;
+        try {
+            parser = jackson.getJsonFactory().createJsonParser(reader);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new DeserializerException("Expected a JSON array but got " + parser.getCurrentToken());
+            }
         } catch (IOException e) {
+            IOs.close(reader);
             throw new DeserializerException(e);
+        } catch (DeserializerException e) {
+            IOs.close(reader);
+            throw e;
+        }
+        return new ElementIterator<T>(reader) {
+            boolean advance() throws IOException {
+                JsonToken token = parser.nextToken();
+                return token != null && token != JsonToken.END_ARRAY;
+            }
+
+            T read() throws IOException {
+                return jackson.<T>readValue(parser, type);
+            }
+        };
+    }
+
+    /**
+     * The types are resolved once for all, the methods return types being a fixed set. The cache is bounded as user-made generic types might not implement equals/hashCode.
+     */
+    private JavaType getJavaType(Type type) {
+        JavaType javaType = javaTypes.get(type);
+        if (javaType == null) {
+            javaType = TypeFactory.type(type);
+            if (javaTypes.size() < MAX_CACHED_TYPES) {
+                javaTypes.putIfAbsent(type, javaType);
+            }
         }
+        return javaType;
     }
 }
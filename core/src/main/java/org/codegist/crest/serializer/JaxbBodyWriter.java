@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import org.codegist.common.collect.Maps;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Writes the argument as a XML request entity.
+ * <p>Marshallers are cheap to create compared to the context and not thread-safe, a new one is created for each request.
+ * @author laurent.gilles@codegist.org
+ */
+public class JaxbBodyWriter implements BodyWriter<Object> {
+
+    private final JAXBContext jaxb;
+
+    public JaxbBodyWriter(String modelPackage) throws JAXBException {
+        this(JAXBContext.newInstance(modelPackage));
+    }
+
+    public JaxbBodyWriter(Class<?>... classesToBeBound) throws JAXBException {
+        this(JAXBContext.newInstance(classesToBeBound));
+    }
+
+    public JaxbBodyWriter(JAXBContext jaxb) {
+        this.jaxb = jaxb;
+    }
+
+    /**
+     * Uses the same properties as the {@link org.codegist.crest.serializer.JaxbDeserializer} to get the JAXB context.
+     *
+     * @param config user custom properties
+     * @throws JAXBException if the context can't be created
+     */
+    public JaxbBodyWriter(Map<String, Object> config) throws JAXBException {
+        config = Maps.defaultsIfNull(config);
+        if (config.containsKey(JaxbDeserializer.MODEL_CLASSES_BOUND_PROP)) {
+            this.jaxb = JAXBContext.newInstance((Class<?>[]) config.get(JaxbDeserializer.MODEL_CLASSES_BOUND_PROP));
+        } else if (config.containsKey(JaxbDeserializer.MODEL_CONTEXT_PATH_PROP)) {
+            this.jaxb = JAXBContext.newInstance((String) config.get(JaxbDeserializer.MODEL_CONTEXT_PATH_PROP));
+        } else if (config.containsKey(JaxbDeserializer.USER_JAXB_CONTEXT_PROP)) {
+            this.jaxb = (JAXBContext) config.get(JaxbDeserializer.USER_JAXB_CONTEXT_PROP);
+        } else {
+            this.jaxb = JAXBContext.newInstance();
+        }
+    }
+
+    public String getMimeType() {
+        return "application/xml";
+    }
+
+    public void write(Object value, Charset charset, OutputStream out) throws IOException {
+        try {
+            Marshaller marshaller = jaxb.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, charset.name());
+            marshaller.marshal(value, out);
+        } catch (JAXBException e) {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        }
+    }
+}
@@ -21,24 +21,30 @@
 package org.codegist.crest.serializer;
 
 import org.codegist.common.collect.Maps;
+import org.codegist.common.io.IOs;
 import org.codegist.common.lang.Objects;
 import org.codegist.common.log.Logger;
+import org.codegist.common.reflect.Types;
 import org.codegist.crest.CRestProperty;
+import org.xml.sax.InputSource;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author laurent.gilles@codegist.org
  */
-public class JaxbDeserializer implements Deserializer {
+public class JaxbDeserializer implements StreamingDeserializer, InputStreamDeserializer {
     private static final Logger LOG = Logger.getLogger(JaxbDeserializer.class);
     public static final String JAXB_UNMARSHALLER_POOL_RETRIEVAL_MAX_WAIT_PROP = JaxbDeserializer.class.getName() + "#jaxb-unmarshaller-pool.retrieval-max-wait";
     public static final String MODEL_CONTEXT_PATH_PROP = JaxbDeserializer.class.getName() + "#model-context-path";
@@ -46,14 +52,57 @@ public class JaxbDeserializer implements Deserializer {
     public static final String USER_JAXB_CONTEXT_PROP = JaxbDeserializer.class.getName() + "#jaxb-context";
 
     public static final Long DEFAULT_MAX_WAIT = 30000l;
-    public static final Integer DEFAULT_POOL_SIZE = 1;
+    public static final Integer DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
 
-    private final JaxbUnmarshaller unmarshaller;
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private final JaxbUnmarshallerPool unmarshaller;
 
     public <T> T deserialize(Reader reader, Type type) throws DeserializerException {
         return unmarshaller.<T>unmarshal(reader);
     }
 
+    /**
+     * Lets the XML parser decode the bytes itself with the given charset.
+     */
+    public <T> T deserialize(InputStream stream, Charset charset, Type type) throws DeserializerException {
+        InputSource source = new InputSource(stream);
+        source.setEncoding(charset.name());
+        return unmarshaller.<T>unmarshal(source);
+    }
+
+    /**
+     * Streams the child elements of the document root element using StAX, each child is unmarshalled only when requested.
+     */
+    public <T> Iterator<T> deserializeElements(Reader reader, Type elementType) throws DeserializerException {
+        final Class<T> type = (Class<T>) Types.getClass(elementType);
+        final XMLStreamReader xml;
+        try {
+            xml = XML_INPUT_FACTORY.createXMLStreamReader(reader);
+            xml.nextTag();
+        } catch (XMLStreamException e) {
+            IOs.close(reader);
+            throw new DeserializerException(e);
+        }
+        return new ElementIterator<T>(reader) {
+            private boolean started = false;
+
+            boolean advance() throws XMLStreamException {
+                // unmarshalling leaves the reader right after the element end, which can already be the next element
+                int event = started ? xml.getEventType() : xml.next();
+                started = true;
+                while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT && event != XMLStreamConstants.END_DOCUMENT) {
+                    event = xml.next();
+                }
+                return event == XMLStreamConstants.START_ELEMENT;
+            }
+
+            T read() {
+                return unmarshaller.unmarshal(xml, type);
+            }
+        };
+    }
+
     public JaxbDeserializer(String modelPackage) throws DeserializerException {
         this(createJAXB(modelPackage));
     }
@@ -67,7 +116,7 @@ public class JaxbDeserializer implements Deserializer {
     }
 
     public JaxbDeserializer(JAXBContext jaxbContext, int poolSize, long maxWait) {
-        this.unmarshaller = JaxbUnmarshaller.newInstance(jaxbContext, poolSize, maxWait);
+        this.unmarshaller = new JaxbUnmarshallerPool(jaxbContext, poolSize, maxWait);
     }
 
     public JaxbDeserializer(Map<String, Object> config) {
@@ -87,103 +136,45 @@ public class JaxbDeserializer implements Deserializer {
         int poolSize = Objects.defaultIfNull((Integer) config.get(CRestProperty.CREST_CONCURRENCY_LEVEL), DEFAULT_POOL_SIZE);
         long maxWait = Objects.defaultIfNull((Long) config.get(JAXB_UNMARSHALLER_POOL_RETRIEVAL_MAX_WAIT_PROP), DEFAULT_MAX_WAIT);
 
-        this.unmarshaller = JaxbUnmarshaller.newInstance(jaxb, poolSize, maxWait);
+        this.unmarshaller = new JaxbUnmarshallerPool(jaxb, poolSize, maxWait);
     }
 
-    private static JAXBContext createJAXB(String contextPath) {
-        try {
-            return JAXBContext.newInstance(contextPath);
-        } catch (JAXBException e) {
-            throw new DeserializerException(e);
-        }
+    /**
+     * @return number of unmarshallers currently pooled
+     */
+    public int getPoolSize() {
+        return unmarshaller.getSize();
     }
 
-    private static JAXBContext createJAXB(Class<?>... classToBeBound) {
-        try {
-            return JAXBContext.newInstance(classToBeBound);
-        } catch (JAXBException e) {
-            throw new DeserializerException(e);
-        }
+    /**
+     * @return number of times a deserialization had to wait for an unmarshaller to be released
+     */
+    public long getPoolMissCount() {
+        return unmarshaller.getMissCount();
     }
 
-
-}
-
-
-abstract class JaxbUnmarshaller {
-    abstract <T> T unmarshal(Reader reader);
-
-    static JaxbUnmarshaller newInstance(JAXBContext jaxb, int poolSize, long maxWait) {
-        if (poolSize == 1) {
-            return new DefaultJaxbUnmarshaller(jaxb);
-        } else {
-            return new PooledJaxbUnmarshaller(jaxb, poolSize, maxWait);
-        }
+    /**
+     * @return total time in milliseconds the deserializations waited for an unmarshaller
+     */
+    public long getPoolWaitTime() {
+        return unmarshaller.getWaitTime();
     }
 
-}
-
-class DefaultJaxbUnmarshaller extends JaxbUnmarshaller {
-
-    private final Unmarshaller unmarshaller;
-
-    public DefaultJaxbUnmarshaller(JAXBContext jaxbContext) {
+    private static JAXBContext createJAXB(String contextPath) {
         try {
-            this.unmarshaller = jaxbContext.createUnmarshaller();
+            return JAXBContext.newInstance(contextPath);
         } catch (JAXBException e) {
             throw new DeserializerException(e);
         }
     }
 
-    public <T> T unmarshal(Reader reader) {
-        try {
-            return (T) unmarshaller.unmarshal(reader);
-        } catch (JAXBException e) {
-            throw new DeserializerException(e);
-        }
-    }
-}
-
-class PooledJaxbUnmarshaller extends JaxbUnmarshaller {
-    private final BlockingQueue<Unmarshaller> unmarshallerPool;
-    private final long maxWait;
-
-    public PooledJaxbUnmarshaller(JAXBContext jaxbContext, int poolSize, long maxWait) {
-        this.maxWait = maxWait;
-        this.unmarshallerPool = new ArrayBlockingQueue<Unmarshaller>(poolSize);
-        for (int i = 0; i < poolSize; i++) {
-            try {
-                this.unmarshallerPool.add(jaxbContext.createUnmarshaller());
-            } catch (JAXBException e) {
-                throw new DeserializerException(e);
-            }
-        }
-    }
-
-    public <T> T unmarshal(Reader reader) {
-        Unmarshaller unmarshaller = get();
+    private static JAXBContext createJAXB(Class<?>... classToBeBound) {
         try {
-            return (T) unmarshaller.unmarshal(reader);
+            return JAXBContext.newInstance(classToBeBound);
         } catch (JAXBException e) {
             throw new DeserializerException(e);
-        } finally {
-            put(unmarshaller);
         }
     }
 
-    private void put(Unmarshaller unmarshaller) {
-        unmarshallerPool.offer(unmarshaller);
-    }
 
-    private Unmarshaller get() {
-        Unmarshaller unmarshaller = null;
-        try {
-            unmarshaller = unmarshallerPool.poll(maxWait, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            throw new DeserializerException(e);
-        }
-        if (unmarshaller == null)
-            throw new DeserializerException("No unmarshaller could have been retrieved in the allowed time window");
-        return unmarshaller;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.serializer;
+
+import org.xml.sax.InputSource;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.JAXBIntrospector;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of JAXB unmarshallers, an unmarshaller not being thread-safe.
+ * <p>Unmarshallers are created on demand up to the given max size. A thread first tries to get back the unmarshaller it last used, then any idle one, so that in the steady state each thread reuses its own instance without any contention. Only when the pool is exhausted the thread waits, up to the given max wait, for an unmarshaller to be released.
+ * <p>Unmarshallers idle for longer than the idle timeout are dropped, one is always kept.
+ * @author laurent.gilles@codegist.org
+ */
+class JaxbUnmarshallerPool {
+
+    static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    private final JAXBContext jaxb;
+    private final int maxSize;
+    private final long maxWait;
+    private final long idleTimeout;
+    private final List<Entry> entries = new CopyOnWriteArrayList<Entry>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ThreadLocal<Entry> lastUsed = new ThreadLocal<Entry>();
+    private final Lock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong();
+    private volatile long lastTrim = System.currentTimeMillis();
+
+    JaxbUnmarshallerPool(JAXBContext jaxb, int maxSize, long maxWait) {
+        this(jaxb, maxSize, maxWait, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    JaxbUnmarshallerPool(JAXBContext jaxb, int maxSize, long maxWait, long idleTimeout) {
+        this.jaxb = jaxb;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWait = maxWait;
+        this.idleTimeout = idleTimeout;
+        // fail fast on a broken context
+        release(claimShared());
+    }
+
+    <T> T unmarshal(Reader reader) {
+        Entry entry = borrow();
+        try {
+            return (T) entry.unmarshaller.unmarshal(reader);
+        } catch (JAXBException e) {
+            throw new DeserializerException(e);
+        } finally {
+            release(entry);
+        }
+    }
+
+    <T> T unmarshal(InputSource source) {
+        Entry entry = borrow();
+        try {
+            return (T) entry.unmarshaller.unmarshal(source);
+        } catch (JAXBException e) {
+            throw new DeserializerException(e);
+        } finally {
+            release(entry);
+        }
+    }
+
+    <T> T unmarshal(XMLStreamReader reader, Class<T> type) {
+        Entry entry = borrow();
+        try {
+            if (Object.class.equals(type)) {
+                return (T) JAXBIntrospector.getValue(entry.unmarshaller.unmarshal(reader));
+            } else {
+                return entry.unmarshaller.unmarshal(reader, type).getValue();
+            }
+        } catch (JAXBException e) {
+            throw new DeserializerException(e);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * @return number of unmarshallers currently pooled
+     */
+    int getSize() {
+        return size.get();
+    }
+
+    /**
+     * @return number of times a thread had to wait for an unmarshaller to be released
+     */
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return total time in milliseconds the threads waited for an unmarshaller
+     */
+    long getWaitTime() {
+        return waitTime.get();
+    }
+
+    private Entry borrow() {
+        Entry entry = lastUsed.get();
+        if (entry == null || !entry.claim()) {
+            entry = claimShared();
+            if (entry == null) {
+                entry = await();
+            }
+            lastUsed.set(entry);
+        }
+        return entry;
+    }
+
+    private Entry claimShared() {
+        for (Entry entry : entries) {
+            if (entry.claim()) {
+                return entry;
+            }
+        }
+        for (int current = size.get(); current < maxSize; current = size.get()) {
+            if (size.compareAndSet(current, current + 1)) {
+                Entry entry;
+                try {
+                    entry = new Entry(jaxb.createUnmarshaller());
+                } catch (JAXBException e) {
+                    size.decrementAndGet();
+                    throw new DeserializerException(e);
+                }
+                entries.add(entry);
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private Entry await() {
+        missCount.incrementAndGet();
+        long start = System.currentTimeMillis();
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            for (; ;) {
+                Entry entry = claimShared();
+                if (entry != null) {
+                    return entry;
+                }
+                long left = start + maxWait - System.currentTimeMillis();
+                if (left <= 0) {
+                    throw new DeserializerException("No unmarshaller could have been retrieved in the allowed time window");
+                }
+                released.await(left, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeserializerException(e);
+        } finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+            waitTime.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    private void release(Entry entry) {
+        long now = System.currentTimeMillis();
+        entry.release(now);
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (now - lastTrim >= idleTimeout) {
+            lastTrim = now;
+            trim(now);
+        }
+    }
+
+    private void trim(long now) {
+        for (Entry entry : entries) {
+            if (size.get() <= 1) {
+                return;
+            }
+            // a trimmed entry stays claimed forever, the threads having it as last used will just pick another one
+            if (now - entry.lastRelease >= idleTimeout && entry.claim()) {
+                entries.remove(entry);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Unmarshaller unmarshaller;
+        private final AtomicBoolean free = new AtomicBoolean(false);
+        private volatile long lastRelease;
+
+        private Entry(Unmarshaller unmarshaller) {
+            this.unmarshaller = unmarshaller;
+        }
+
+        private boolean claim() {
+            return free.compareAndSet(true, false);
+        }
+
+        private void release(long now) {
+            lastRelease = now;
+            free.set(true);
+        }
+    }
+}
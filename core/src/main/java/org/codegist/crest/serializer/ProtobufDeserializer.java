@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import org.codegist.common.reflect.Types;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deserializes Protocol Buffers messages. The expected type must be a protoc generated message class, parsed with its static parseFrom(InputStream) method.
+ * <p>Being binary, the payload can only be parsed from the raw response bytes.
+ * @author laurent.gilles@codegist.org
+ */
+public class ProtobufDeserializer implements InputStreamDeserializer {
+
+    public static final String MIME_TYPE = "application/x-protobuf";
+
+    private final ConcurrentMap<Class<?>, Method> parsers = new ConcurrentHashMap<Class<?>, Method>();
+
+    public <T> T deserialize(InputStream stream, Charset charset, Type type) throws DeserializerException {
+        try {
+            return (T) getParser(Types.getClass(type)).invoke(null, stream);
+        } catch (InvocationTargetException e) {
+            throw new DeserializerException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new DeserializerException(e);
+        }
+    }
+
+    public <T> T deserialize(Reader reader, Type type) throws DeserializerException {
+        throw new DeserializerException("Protocol Buffers is a binary format, it can only be parsed from the response bytes");
+    }
+
+    private Method getParser(Class<?> messageClass) {
+        Method parser = parsers.get(messageClass);
+        if (parser == null) {
+            try {
+                parser = messageClass.getMethod("parseFrom", InputStream.class);
+            } catch (NoSuchMethodException e) {
+                throw new DeserializerException(messageClass + " is not a Protocol Buffers message class", e);
+            }
+            parsers.putIfAbsent(messageClass, parser);
+        }
+        return parser;
+    }
+}
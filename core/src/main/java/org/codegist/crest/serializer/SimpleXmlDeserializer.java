@@ -27,9 +27,11 @@ import org.simpleframework.xml.core.Persister;
 import org.simpleframework.xml.transform.Matcher;
 import org.simpleframework.xml.transform.Transform;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
-import java.text.DateFormat;
+import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
@@ -38,7 +40,7 @@ import java.util.Map;
 /**
  * @author laurent.gilles@codegist.org
  */
-public class SimpleXmlDeserializer implements Deserializer {
+public class SimpleXmlDeserializer implements InputStreamDeserializer {
     
     public static final String STRICT_PROP = SimpleXmlDeserializer.class.getName() + "#strict";
     public static final String USER_SERIALIZER_PROP = SimpleXmlDeserializer.class.getName() + "#user-serializer";
@@ -94,6 +96,20 @@ public class SimpleXmlDeserializer implements Deserializer {
         }
     }
 
+    /**
+     * Parses the bytes straight away for UTF-8 responses, the XML default encoding, decodes them with the given charset otherwise.
+     */
+    public <T> T deserialize(InputStream stream, Charset charset, Type type) throws DeserializerException {
+        if (!"UTF-8".equals(charset.name())) {
+            return this.<T>deserialize(new InputStreamReader(stream, charset), type);
+        }
+        try {
+            return serializer.read((Class<T>) Types.getClass(type), stream, strict);
+        } catch (Exception e) {
+            throw new DeserializerException(e);
+        }
+    }
+
     public static class MatcherRegistry implements Matcher {
         private final Map<Class, Transform> transformerMap;
 
@@ -142,17 +158,17 @@ public class SimpleXmlDeserializer implements Deserializer {
     }
 
     public static class DateMatcher implements Transform<Date> {
-        private final DateFormat DF;
+        private final DateFormatPool DF;
 
-        private DateMatcher(String format) {
-            this.DF = new SimpleDateFormat(format);
+        private DateMatcher(final String format) {
+            this.DF = new DateFormatPool(new SimpleDateFormat(format), DateFormatPool.DEFAULT_MAX_IDLE);
         }
 
-        public synchronized Date read(String value) throws Exception {
+        public Date read(String value) throws Exception {
             return DF.parse(value);
         }
 
-        public synchronized String write(Date value) throws Exception {
+        public String write(Date value) throws Exception {
             return DF.format(value);
         }
     }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest.serializer;
+
+import org.codegist.common.lang.Validate;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
+/**
+ * Deserializes Jackson's binary JSON format, Smile (requires jackson-smile available in the classpath).
+ * <p>Being binary, the payload can only be parsed from the raw response bytes.
+ * @author laurent.gilles@codegist.org
+ */
+public class SmileDeserializer implements InputStreamDeserializer {
+
+    public static final String MIME_TYPE = "application/x-jackson-smile";
+
+    private final JacksonDeserializer jackson;
+
+    public SmileDeserializer() {
+        this(new ObjectMapper(new SmileFactory()).configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    }
+
+    /**
+     * @param smile mapper built over a {@link org.codehaus.jackson.smile.SmileFactory}
+     */
+    public SmileDeserializer(ObjectMapper smile) {
+        Validate.isTrue(smile.getJsonFactory() instanceof SmileFactory, "ObjectMapper must be built over a SmileFactory");
+        this.jackson = new JacksonDeserializer(smile);
+    }
+
+    public <T> T deserialize(InputStream stream, Charset charset, Type type) throws DeserializerException {
+        return jackson.<T>deserialize(stream, type);
+    }
+
+    public <T> T deserialize(Reader reader, Type type) throws DeserializerException {
+        throw new DeserializerException("Smile is a binary format, it can only be parsed from the response bytes");
+    }
+}
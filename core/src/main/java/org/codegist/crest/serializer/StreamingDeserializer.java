@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.serializer;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+
+/**
+ * Deserializer able to lazily read the elements of a top-level collection one at a time, without buffering the whole response.
+ * <p>The returned iterator also implements {@link java.io.Closeable}, it closes the given reader once exhausted, on any read failure or when closed by the caller.
+ * @author laurent.gilles@codegist.org
+ */
+public interface StreamingDeserializer extends Deserializer {
+
+    <T> Iterator<T> deserializeElements(Reader reader, Type elementType) throws DeserializerException;
+
+}
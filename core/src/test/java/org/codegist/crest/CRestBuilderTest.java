@@ -25,10 +25,12 @@ import org.apache.http.conn.params.ConnManagerParams;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.conn.SingleClientConnManager;
 import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.HttpConnectionParams;
 import org.codegist.common.reflect.CglibProxyFactory;
 import org.codegist.common.reflect.JdkProxyFactory;
 import org.codegist.common.reflect.ProxyFactory;
 import org.codegist.crest.annotate.EndPoint;
+import org.codegist.crest.cache.CoalescingRestService;
 import org.codegist.crest.config.*;
 import org.codegist.crest.oauth.OAuthenticator;
 import org.codegist.crest.oauth.Token;
@@ -502,6 +504,31 @@ public class CRestBuilderTest {
 
     }
 
+    @Test
+    public void testApacheHttpClient3() {
+        CRestContext context = builder
+                .useHttpClientRestService(10, 4)
+                .buildContext();
+        HttpClientRestService service = (HttpClientRestService) context.getRestService();
+        assertTrue(service.getHttpClient().getConnectionManager() instanceof ThreadSafeClientConnManager);
+        assertEquals(10, ConnManagerParams.getMaxTotalConnections(service.getHttpClient().getParams()));
+        assertEquals(4, ConnManagerParams.getMaxConnectionsPerRoute(service.getHttpClient().getParams()).getMaxForRoute(new HttpRoute(new HttpHost("127.0.0.1"))));
+        assertFalse(HttpConnectionParams.isStaleCheckingEnabled(service.getHttpClient().getParams()));
+    }
+
+    @Test(expected = CRestException.class)
+    public void testHttp2RestServiceRequiresModule() {
+        builder.useHttp2RestService();
+    }
+
+    @Test
+    public void testRequestCoalescing() {
+        CRestContext context = builder
+                .useRequestCoalescing()
+                .buildContext();
+        assertTrue(context.getRestService() instanceof CoalescingRestService);
+    }
+
     public void assertHttpClient(final CRestContext context, final int concurrencyLvl) {
         assertContext(
                 new ContextAdapter() {
@@ -29,12 +29,24 @@ import org.codegist.common.reflect.JdkProxyFactory;
 import org.codegist.common.reflect.ProxyFactory;
 import org.codegist.crest.annotate.EndPoint;
 import org.codegist.crest.annotate.HeaderParam;
+import org.codegist.crest.annotate.Paginated;
 import org.codegist.crest.annotate.Path;
 import org.codegist.crest.annotate.QueryParam;
+import org.codegist.crest.breaker.CircuitBreaker;
+import org.codegist.crest.breaker.CircuitBreakerOpenException;
+import org.codegist.crest.breaker.CircuitBreakerRegistry;
+import org.codegist.crest.cache.CoalescingRestService;
 import org.codegist.crest.config.*;
+import org.codegist.crest.handler.BackoffRetryHandler;
 import org.codegist.crest.handler.MaxAttemptRetryHandler;
+import org.codegist.crest.handler.RetryBudget;
 import org.codegist.crest.handler.RetryHandler;
 import org.codegist.crest.injector.Injector;
+import org.codegist.crest.interceptor.RequestInterceptorAdapter;
+import org.codegist.crest.limiter.Bulkhead;
+import org.codegist.crest.limiter.BulkheadFullException;
+import org.codegist.crest.interceptor.ResponseAwareRequestInterceptor;
+import org.codegist.crest.page.CursorPaginator;
 import org.codegist.crest.serializer.Deserializer;
 import org.codegist.crest.serializer.DeserializerFactory;
 import org.codegist.crest.serializer.Serializer;
@@ -45,6 +57,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -55,9 +68,20 @@ import java.net.URISyntaxException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 import static org.codegist.crest.TestUtils.getMethod;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
@@ -311,6 +335,634 @@ public class DefaultCRestTest {
         Model testModel();
     }
 
+    @Test
+    public void testFutureReturnType() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                return new HttpResponse((HttpRequest) invocationOnMock.getArguments()[0], 200, null, (new HttpResource() {
+                    final InputStream stream = new ByteArrayInputStream(MODEL_RESPONSE_JSON.getBytes());
+                    public InputStream getContent() throws HttpException {
+                        return stream;
+                    }
+
+                    public void release() throws HttpException {
+                        try {
+                            stream.close();
+                        } catch (IOException e) {
+                            throw new HttpException(e);
+                        }
+                    }
+                }));
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                    mockRestService,
+                    mockProxyFactory,
+                    new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(AsyncInterface.class).setEndPoint("http://test.com").setMethodsDeserializer(mockDeserializer).build()),
+                    Collections.<String, Object>singletonMap(CRestProperty.CREST_ASYNC_EXECUTOR, executor)
+            ));
+            AsyncInterface async = crest.build(AsyncInterface.class);
+            assertEquals(MODEL_RESPONSE_JSON, IOs.toString(async.testInputStream().get()));
+            assertEquals(MODEL_RESPONSE, async.testModel().get());
+            verify(mockDeserializer, atLeastOnce()).deserialize(any(Reader.class), eq(Model.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFutureReturnTypeFailure() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenThrow(new HttpException("error!", new HttpResponse(null, 500)));
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(AsyncInterface.class).setEndPoint("http://test.com").build()),
+                null
+        ));
+        try {
+            crest.build(AsyncInterface.class).testString().get();
+            fail("Should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CRestException);
+        } finally {
+            crest.dispose();
+        }
+    }
+
+    @Test
+    public void testCacheableMethods() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                Map<String, List<String>> headers = Collections.singletonMap("Cache-Control", Arrays.asList("max-age=60"));
+                return new HttpResponse((HttpRequest) invocationOnMock.getArguments()[0], 200, headers, new ByteArrayHttpResource("hello".getBytes()));
+            }
+        });
+        Method uncached = CacheableInterface.class.getMethod("uncached");
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .setMethodsCacheable(true)
+                        .startMethodConfig(uncached).setCacheable(false).endMethodConfig()
+                        .build()),
+                Collections.<String, Object>emptyMap()
+        ));
+        CacheableInterface cacheable = crest.build(CacheableInterface.class);
+        assertEquals("hello", cacheable.cached());
+        assertEquals("hello", cacheable.cached());
+        verify(mockRestService, times(1)).exec(any(HttpRequest.class));
+        assertEquals("hello", cacheable.uncached());
+        assertEquals("hello", cacheable.uncached());
+        verify(mockRestService, times(3)).exec(any(HttpRequest.class));
+    }
+
+    @Test
+    public void testWritesEvictCachedResponses() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                Map<String, List<String>> headers = Collections.singletonMap("Cache-Control", Arrays.asList("max-age=60"));
+                return new HttpResponse((HttpRequest) invocationOnMock.getArguments()[0], 200, headers, new ByteArrayHttpResource("hello".getBytes()));
+            }
+        });
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .startMethodConfig(CacheableInterface.class.getMethod("cached")).setCacheable(true).endMethodConfig()
+                        .startMethodConfig(CacheableInterface.class.getMethod("update")).setHttpMethod(HttpRequest.HTTP_POST).endMethodConfig()
+                        .build()),
+                Collections.<String, Object>emptyMap()
+        ));
+        CacheableInterface cacheable = crest.build(CacheableInterface.class);
+        assertEquals("hello", cacheable.cached());
+        assertEquals("hello", cacheable.cached());
+        verify(mockRestService, times(1)).exec(any(HttpRequest.class));
+        cacheable.update();
+        verify(mockRestService, times(2)).exec(any(HttpRequest.class));
+        // the POST on the same url evicted the cached GET response
+        assertEquals("hello", cacheable.cached());
+        verify(mockRestService, times(3)).exec(any(HttpRequest.class));
+    }
+
+    @Test
+    public void testResponseCacheOnlyBuiltForCacheableMethods() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                Map<String, List<String>> headers = Collections.singletonMap("Cache-Control", Arrays.asList("max-age=60"));
+                return new HttpResponse((HttpRequest) invocationOnMock.getArguments()[0], 200, headers, new ByteArrayHttpResource("hello".getBytes()));
+            }
+        });
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .startMethodConfig(CacheableInterface.class.getMethod("update")).setHttpMethod(HttpRequest.HTTP_POST).endMethodConfig()
+                        .build()),
+                Collections.<String, Object>emptyMap()
+        ));
+        CacheableInterface cacheable = crest.build(CacheableInterface.class);
+        assertEquals("hello", cacheable.cached());
+        cacheable.update();
+        assertEquals("hello", cacheable.cached());
+        verify(mockRestService, times(3)).exec(any(HttpRequest.class));
+        // nothing is cacheable, the writes have nothing to evict
+        assertNull(crest.getResponseCache());
+
+        crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .startMethodConfig(CacheableInterface.class.getMethod("cached")).setCacheable(true).endMethodConfig()
+                        .build()),
+                Collections.<String, Object>emptyMap()
+        ));
+        crest.build(CacheableInterface.class);
+        assertNotNull(crest.getResponseCache());
+    }
+
+    @Test
+    public void testCircuitBreakerFailsFast() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenThrow(new HttpException("error!", new HttpResponse(null, 503)));
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_MINIMUM_CALLS, 2);
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(props);
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class).setEndPoint("http://test.com:8080/api").build()),
+                Collections.<String, Object>singletonMap(CRestProperty.CREST_CIRCUIT_BREAKER_REGISTRY, registry)
+        ));
+        CacheableInterface service = crest.build(CacheableInterface.class);
+        for (int i = 0; i < 2; i++) {
+            try {
+                service.cached();
+                fail("Should have failed");
+            } catch (CRestException e) {
+                assertTrue(e.getCause() instanceof HttpException);
+            }
+        }
+        try {
+            service.uncached();
+            fail("Should have failed");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals("test.com:8080", e.getCircuitBreaker().getName());
+        }
+        verify(mockRestService, times(2)).exec(any(HttpRequest.class));
+        assertEquals(CircuitBreaker.State.OPEN, registry.get("test.com:8080").getState());
+        assertEquals(1, registry.getCircuitBreakers().size());
+    }
+
+    @Test
+    public void testCircuitBreakerRecordsCallsAbortedByAnInterceptor() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class)))
+                .thenThrow(new HttpException("error!", new HttpResponse(null, 503)))
+                .thenReturn(new HttpResponse(null, 200, null, new ByteArrayHttpResource("hello".getBytes())));
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_MINIMUM_CALLS, 1);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_OPEN_DURATION, 1);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_HALF_OPEN_CALLS, 1);
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(props);
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com:8080/api")
+                        .setMethodsRequestInterceptor(new ThrowingInterceptor())
+                        .build()),
+                Collections.<String, Object>singletonMap(CRestProperty.CREST_CIRCUIT_BREAKER_REGISTRY, registry)
+        ));
+        CacheableInterface service = crest.build(CacheableInterface.class);
+        try {
+            service.cached();
+            fail("Should have failed");
+        } catch (RuntimeException e) {
+            // interceptor failure
+        }
+        CircuitBreaker breaker = registry.get("test.com:8080");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(10);
+        try {
+            service.cached();
+            fail("Should have failed");
+        } catch (RuntimeException e) {
+            // interceptor failure
+        }
+        // the successful trial call has been recorded despite the interceptor failure, no half-open permit leaked
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        verify(mockRestService, times(2)).exec(any(HttpRequest.class));
+    }
+
+    @Test
+    public void testRejectedRequestsAreNotRecordedNorRetried() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_MINIMUM_CALLS, 1);
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(props);
+        Bulkhead bulkhead = new Bulkhead("test", 1);
+        assertTrue(bulkhead.acquire());
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com:8080/api")
+                        .setMethodsBulkhead(bulkhead)
+                        .setMethodsRetryHandler(new MaxAttemptRetryHandler(3))
+                        .build()),
+                Collections.<String, Object>singletonMap(CRestProperty.CREST_CIRCUIT_BREAKER_REGISTRY, registry)
+        ));
+        try {
+            crest.build(CacheableInterface.class).cached();
+            fail("Should have failed");
+        } catch (CRestException e) {
+            assertTrue(e instanceof BulkheadFullException || e.getCause() instanceof BulkheadFullException);
+        }
+        // no retry
+        assertEquals(1, bulkhead.getRejectedCalls());
+        // the local saturation says nothing about the end point
+        CircuitBreaker breaker = registry.get("test.com:8080");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getBufferedCalls());
+        verifyZeroInteractions(mockRestService);
+    }
+
+    @Test
+    public void testHedgeIsNotCoalescedWithTheCallItHedges() throws Exception {
+        final CountDownLatch bothFired = new CountDownLatch(2);
+        final AtomicInteger calls = new AtomicInteger();
+        RestService restService = new RestService() {
+            public HttpResponse exec(HttpRequest request) throws HttpException {
+                calls.incrementAndGet();
+                bothFired.countDown();
+                try {
+                    // the first attempt is slow until the hedge reaches the network
+                    bothFired.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new HttpException(e);
+                }
+                return new HttpResponse(request, 200, null, new ByteArrayHttpResource("hello".getBytes()));
+            }
+        };
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                new CoalescingRestService(restService),
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .setMethodsHedgeDelay(10l)
+                        .build()),
+                Collections.<String, Object>emptyMap()
+        ));
+        try {
+            assertEquals("hello", crest.build(CacheableInterface.class).cached());
+            assertEquals(0, bothFired.getCount());
+            assertEquals(2, calls.get());
+        } finally {
+            crest.dispose();
+        }
+    }
+
+    @Test
+    public void testRetriesGoToAnotherEndPoint() throws Exception {
+        final List<String> hosts = new ArrayList<String>();
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                hosts.add(request.getUri().getHost());
+                if (hosts.size() == 1) {
+                    throw new HttpException(new IOException("down"), new HttpResponse(request, -1));
+                }
+                return new HttpResponse(request, 200, null, new ByteArrayHttpResource("hello".getBytes()));
+            }
+        });
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoints("http://a.com", "http://b.com")
+                        .setMethodsRetryHandler(new MaxAttemptRetryHandler(2))
+                        .build()),
+                null
+        ));
+        assertEquals("hello", crest.build(CacheableInterface.class).cached());
+        assertEquals(2, hosts.size());
+        assertTrue(!hosts.get(0).equals(hosts.get(1)));
+    }
+
+    @Test
+    public void testDeadlineStopsRetries() throws Exception {
+        final List<Long> deadlines = new ArrayList<Long>();
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                deadlines.add(request.getDeadline());
+                Thread.sleep(20);
+                throw new HttpException(new IOException("down"), new HttpResponse(request, -1));
+            }
+        });
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .setMethodsRetryHandler(new MaxAttemptRetryHandler(1000))
+                        .setMethodsDeadline(100l)
+                        .build()),
+                null
+        ));
+        long start = System.currentTimeMillis();
+        try {
+            crest.build(CacheableInterface.class).cached();
+            fail("Should have failed");
+        } catch (DeadlineExceededException e) {
+            assertTrue(e.getCause() instanceof HttpException);
+        }
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(deadlines.size() > 1 && deadlines.size() < 10);
+        // all attempts share the same deadline
+        assertEquals(1, new HashSet<Long>(deadlines).size());
+        assertNotNull(deadlines.get(0));
+    }
+
+    @Test
+    public void testDeadlineStopsBackoffRetries() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                Map<String, List<String>> headers = Collections.singletonMap("Retry-After", Arrays.asList("5"));
+                throw new HttpException("unavailable", new HttpResponse(request, 503, headers));
+            }
+        });
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(CRestProperty.HANDLER_RETRY_BUDGET, new RetryBudget(0, 100));
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class)
+                        .setEndPoint("http://test.com")
+                        .setMethodsRetryHandler(new BackoffRetryHandler(props))
+                        .setMethodsDeadline(300l)
+                        .build()),
+                null
+        ));
+        long start = System.currentTimeMillis();
+        try {
+            crest.build(CacheableInterface.class).cached();
+            fail("Should have failed");
+        } catch (RuntimeException e) {
+            // the 5s Retry-After outlives the deadline
+        }
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        verify(mockRestService, times(1)).exec(any(HttpRequest.class));
+        // the thread deadline is left untouched
+        assertNull(Deadlines.get());
+    }
+
+    @Test
+    public void testThreadDeadline() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class).setEndPoint("http://test.com").build()),
+                null
+        ));
+        Deadlines.setAt(System.currentTimeMillis() - 1);
+        try {
+            crest.build(CacheableInterface.class).cached();
+            fail("Should have failed");
+        } catch (DeadlineExceededException e) {
+            assertEquals(null, e.getCause());
+        } finally {
+            Deadlines.clear();
+        }
+        verifyZeroInteractions(mockRestService);
+    }
+
+    @Test
+    public void testMethodConfigResolvedOnce() throws Exception {
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                return new HttpResponse(request, 200, null, new ByteArrayHttpResource("hello".getBytes()));
+            }
+        });
+        InterfaceConfig config = spy(new ConfigBuilders.InterfaceConfigBuilder(CacheableInterface.class).setEndPoint("http://test.com").build());
+        DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                mockRestService,
+                mockProxyFactory,
+                new PreconfiguredInterfaceConfigFactory(config),
+                null
+        ));
+        CacheableInterface service = crest.build(CacheableInterface.class);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("hello", service.cached());
+        }
+        // resolved when building the proxy, not on each call
+        verify(config, times(1)).getMethodConfig(CacheableInterface.class.getMethod("cached"));
+    }
+
+    @Test
+    public void testPagination() throws Exception {
+        final List<String> pages = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch prefetched = new CountDownLatch(2);
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                String page = request.getQueryParams().get("page");
+                pages.add(page);
+                prefetched.countDown();
+                return new HttpResponse(request, 200, null, new ByteArrayHttpResource(page.getBytes()));
+            }
+        });
+        PagedInterface service = new CRestBuilder().setRestService(mockRestService).build().build(PagedInterface.class);
+
+        Iterator<String> iterator = service.pages("1");
+        assertEquals("1", iterator.next());
+        // the second page is fetched while the first one gets consumed
+        assertTrue(prefetched.await(5, TimeUnit.SECONDS));
+        assertEquals("2", iterator.next());
+        assertEquals("3", iterator.next());
+        assertTrue(!iterator.hasNext());
+        assertEquals(Arrays.asList("1", "2", "3"), pages);
+
+        pages.clear();
+        List<String> all = new ArrayList<String>();
+        Iterable<String> iterable = service.allPages("2");
+        for (String page : iterable) all.add(page);
+        for (String page : iterable) all.add(page);
+        assertEquals(Arrays.asList("2", "3", "2", "3"), all);
+        assertEquals(4, pages.size());
+    }
+
+    @Test
+    public void testPaginationCloseDuringSlowFetch() throws Exception {
+        final CountDownLatch fetching = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                String page = request.getQueryParams().get("page");
+                if ("2".equals(page)) {
+                    fetching.countDown();
+                    try {
+                        Thread.sleep(30000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                }
+                return new HttpResponse(request, 200, null, new ByteArrayHttpResource(page.getBytes()));
+            }
+        });
+        PagedInterface service = new CRestBuilder().setRestService(mockRestService).build().build(PagedInterface.class);
+
+        final Iterator<String> iterator = service.pages("1");
+        assertEquals("1", iterator.next());
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        try {
+            // blocks waiting for the second page
+            Future<Boolean> hasNext = consumer.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    return iterator.hasNext();
+                }
+            });
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+
+            long start = System.currentTimeMillis();
+            ((Closeable) iterator).close();
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            assertFalse(hasNext.get(5, TimeUnit.SECONDS));
+            assertFalse(iterator.hasNext());
+        } finally {
+            consumer.shutdownNow();
+        }
+    }
+
+    @EndPoint("http://test.com")
+    @Paginated(NextPagePaginator.class)
+    public static interface PagedInterface {
+        Iterator<String> pages(@QueryParam("page") String page);
+
+        Iterable<String> allPages(@QueryParam("page") String page);
+    }
+
+    public static class NextPagePaginator extends CursorPaginator<String> {
+        public NextPagePaginator() {
+            super("page");
+        }
+
+        protected Object getNextCursor(String page) {
+            return "3".equals(page) ? null : String.valueOf(Integer.parseInt(page) + 1);
+        }
+    }
+
+    public static class ThrowingInterceptor extends RequestInterceptorAdapter implements ResponseAwareRequestInterceptor {
+        public void afterResponseHandle(ResponseContext context) {
+            throw new IllegalStateException("interceptor failure");
+        }
+    }
+
+    public static interface CacheableInterface {
+        String cached();
+
+        String uncached();
+
+        String update();
+    }
+
+    public static interface AsyncInterface {
+        Future<String> testString();
+
+        Future<InputStream> testInputStream();
+
+        Future<Model> testModel();
+
+        Future<Void> testVoid();
+    }
+
+    @Test
+    public void testVirtualThreadExecutorIsOwnedByCRest() throws Exception {
+        Method isVirtual;
+        try {
+            isVirtual = Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            try {
+                new CRestBuilder().useVirtualThreads();
+                fail("should have failed");
+            } catch (CRestException expected) {
+            }
+            return;
+        }
+        final Method check = isVirtual;
+        CRest crest = new CRestBuilder().useVirtualThreads().build();
+        ExecutorService executor = ((DefaultCRest) crest).getAsyncExecutor();
+        assertTrue((Boolean) executor.submit(new Callable<Object>() {
+            public Object call() throws Exception {
+                return check.invoke(Thread.currentThread());
+            }
+        }).get());
+        ((DefaultCRest) crest).dispose();
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    public void testFutureVoidReturnType() throws Exception {
+        final AtomicInteger closed = new AtomicInteger();
+        RestService mockRestService = mock(RestService.class);
+        when(mockRestService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                return new HttpResponse((HttpRequest) invocationOnMock.getArguments()[0], 200, null, new HttpResource() {
+                    public InputStream getContent() throws HttpException {
+                        return new ByteArrayInputStream(new byte[0]);
+                    }
+
+                    public void release() throws HttpException {
+                        closed.incrementAndGet();
+                    }
+                });
+            }
+        });
+        for (Deserializer deserializer : new Deserializer[]{null, mockDeserializer}) {
+            ConfigBuilders.InterfaceConfigBuilder config = new ConfigBuilders.InterfaceConfigBuilder(AsyncInterface.class).setEndPoint("http://test.com");
+            if (deserializer != null) config.setMethodsDeserializer(deserializer);
+            DefaultCRest crest = new DefaultCRest(new DefaultCRestContext(
+                    mockRestService,
+                    mockProxyFactory,
+                    new PreconfiguredInterfaceConfigFactory(config.build()),
+                    null
+            ));
+            try {
+                assertNull(crest.build(AsyncInterface.class).testVoid().get(5, TimeUnit.SECONDS));
+            } finally {
+                crest.dispose();
+            }
+        }
+        // the response is given back without being read
+        assertEquals(2, closed.get());
+        verify(mockDeserializer, never()).deserialize(any(Reader.class), eq(Void.class));
+    }
+
     @Test
     public void testAcceptHeader(){
         RestService mockRestService = mock(RestService.class);
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest;
+
+import org.codegist.crest.config.MethodConfig;
+import org.codegist.crest.serializer.ContentNegotiatingDeserializer;
+import org.codegist.crest.serializer.Deserializer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class DefaultResponseContextTest {
+
+    private final Deserializer json = mock(Deserializer.class);
+    private final Deserializer smile = mock(Deserializer.class);
+
+    @Test
+    public void testNegotiatingDeserializerIsResolvedFromResponse() {
+        LinkedHashMap<String, Deserializer> deserializers = new LinkedHashMap<String, Deserializer>();
+        deserializers.put("application/x-jackson-smile", smile);
+        deserializers.put("application/json", json);
+        ContentNegotiatingDeserializer negotiating = new ContentNegotiatingDeserializer(deserializers);
+        RequestContext request = mockRequestContext(negotiating);
+
+        assertSame(json, new DefaultResponseContext(request, response("application/json; charset=utf-8")).getDeserializer());
+        assertSame(smile, new DefaultResponseContext(request, response("application/x-jackson-smile")).getDeserializer());
+        // nothing to select from
+        assertSame(negotiating, new DefaultResponseContext(request, null).getDeserializer());
+    }
+
+    @Test
+    public void testDeserializerIsKeptAsIs() {
+        RequestContext request = mockRequestContext(json);
+        assertSame(json, new DefaultResponseContext(request, response("application/x-jackson-smile")).getDeserializer());
+    }
+
+    private static RequestContext mockRequestContext(Deserializer deserializer) {
+        MethodConfig config = mock(MethodConfig.class);
+        when(config.getDeserializer()).thenReturn(deserializer);
+        RequestContext request = mock(RequestContext.class);
+        when(request.getMethodConfig()).thenReturn(config);
+        return request;
+    }
+
+    private static HttpResponse response(String contentType) {
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("Content-Type", Arrays.asList(contentType));
+        return new HttpResponse(null, 200, headers);
+    }
+}
@@ -21,8 +21,12 @@
 package org.codegist.crest;
 
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpParams;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author Laurent Gilles (laurent.gilles@codegist.org)
@@ -36,4 +40,22 @@ public class HttpClientRestServiceTest extends RestServiceContractTest {
         DefaultHttpClient client = new DefaultHttpClient();
         return new HttpClientRestService(client);
     }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws Exception {
+        HttpClientRestService restService = (HttpClientRestService) HttpClientRestService.newRestService(2, 2, 200);
+        try {
+            ThreadSafeClientConnManager connectionManager = (ThreadSafeClientConnManager) restService.getHttpClient().getConnectionManager();
+            HttpResponse response = restService.exec(new HttpRequest.Builder(baseUrl + "/test/simple")
+                    .addQueryParams(SimpleMethodsServlet.EXPECTED_SIMPLE_QUERY)
+                    .addHeaderParams(SimpleMethodsServlet.EXPECTED_SIMPLE_HEADERS)
+                    .build());
+            assertEquals("get.simple.received", response.asString());
+            assertEquals(1, connectionManager.getConnectionsInPool());
+            Thread.sleep(1500);
+            assertEquals(0, connectionManager.getConnectionsInPool());
+        } finally {
+            restService.dispose();
+        }
+    }
 }
@@ -20,6 +20,7 @@
 
 package org.codegist.crest;
 
+import org.codegist.crest.serializer.JacksonBodyWriter;
 import org.junit.Test;
 
 import java.io.UnsupportedEncodingException;
@@ -43,6 +44,15 @@ public class HttpRequestBuilderTest {
     public void testQueryString() throws URISyntaxException {
         new HttpRequest.Builder("http://test?test=test");
     }
+    @Test
+    public void testUnusedParams() throws URISyntaxException {
+        HttpRequest request = new HttpRequest.Builder("http://test").addParam("a", "b", "QUERY").build();
+        assertEquals(Collections.singletonMap("a", "b"), request.getQueryParams());
+        assertTrue(request.getHeaderParams().isEmpty());
+        assertTrue(request.getFormParams().isEmpty());
+        assertEquals("http://test", request.getUri().toString());
+    }
+
     @Test
     public void testTimeouts() throws URISyntaxException {
         HttpRequest.Builder request = new HttpRequest.Builder("http://test").timeoutAfter(100l);
@@ -50,6 +60,21 @@ public class HttpRequestBuilderTest {
         assertEquals(Long.valueOf(100l), request.getConnectionTimeout());
     }
 
+    @Test
+    public void testBodyOnlyForPostAndPut() throws URISyntaxException {
+        for (String meth : new String[]{"POST", "PUT"}) {
+            HttpRequest request = new HttpRequest.Builder("http://test").using(meth).setBody("body", new JacksonBodyWriter()).build();
+            assertEquals("body", request.getBody());
+        }
+        for (String meth : new String[]{"GET", "DELETE", "HEAD", "OPTIONS"}) {
+            try {
+                new HttpRequest.Builder("http://test").using(meth).setBody("body", new JacksonBodyWriter()).build();
+                fail("should have failed");
+            } catch (IllegalStateException e) {
+            }
+        }
+    }
+
     @Test
     public void testEncoding() throws URISyntaxException {
         assertEquals("ISO-8859-1", new HttpRequest.Builder("http://test", "ISO-8859-1").getEncoding());
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mortbay.jetty.testing.ServletTester;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class KeepAliveDefaultRestServiceTest extends RestServiceContractTest {
+
+    private static final int DRAIN_LIMIT = 1024;
+
+    private ServletTester portTester;
+    private String portUrl;
+
+    public RestService getRestService() {
+        return new DefaultRestService(true, DefaultRestService.DEFAULT_DRAIN_LIMIT);
+    }
+
+    @Before
+    public void setupPortServlet() throws Exception {
+        portTester = new ServletTester();
+        portTester.setContextPath("/");
+        portTester.addServlet(ClientPortServlet.class, "/port");
+        portTester.start();
+        portUrl = portTester.createSocketConnector(true) + "/port";
+    }
+
+    @After
+    public void stopPortServlet() throws Exception {
+        portTester.stop();
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        RestService restService = new DefaultRestService(true, DRAIN_LIMIT);
+        int port = getClientPort(restService);
+        assertEquals(port, getClientPort(restService));
+        assertEquals(port, getClientPort(restService));
+    }
+
+    @Test
+    public void testUnreadBodyBelowDrainLimitIsDrained() throws Exception {
+        RestService restService = new DefaultRestService(true, DRAIN_LIMIT);
+        int port = getClientPort(restService);
+        restService.exec(get(DRAIN_LIMIT / 2, 200)).close();
+        assertEquals(port, getClientPort(restService));
+    }
+
+    @Test
+    public void testUnreadBodyAboveDrainLimitDisconnects() throws Exception {
+        RestService restService = new DefaultRestService(true, DRAIN_LIMIT);
+        int port = getClientPort(restService);
+        restService.exec(get(DRAIN_LIMIT * 64, 200)).close();
+        assertFalse(port == getClientPort(restService));
+    }
+
+    @Test
+    public void testErrorBodyIsDrained() throws Exception {
+        RestService restService = new DefaultRestService(true, DRAIN_LIMIT);
+        int port = getClientPort(restService);
+        try {
+            restService.exec(get(DRAIN_LIMIT / 2, 500));
+            fail("should have failed");
+        } catch (HttpException e) {
+            assertEquals(500, e.getResponse().getStatusCode());
+        }
+        assertEquals(port, getClientPort(restService));
+    }
+
+    private int getClientPort(RestService restService) throws Exception {
+        return Integer.parseInt(restService.exec(get(0, 200)).asString().trim());
+    }
+
+    private HttpRequest get(int size, int status) throws Exception {
+        return new HttpRequest.Builder(portUrl)
+                .addQueryParam("size", String.valueOf(size))
+                .addQueryParam("status", String.valueOf(status))
+                .build();
+    }
+
+    /**
+     * Responds the client port, padded to the requested size.
+     */
+    public static class ClientPortServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            byte[] port = String.valueOf(req.getRemotePort()).getBytes("ascii");
+            byte[] body = new byte[Math.max(Integer.parseInt(req.getParameter("size")), port.length)];
+            Arrays.fill(body, (byte) ' ');
+            System.arraycopy(port, 0, body, 0, port.length);
+            resp.setStatus(Integer.parseInt(req.getParameter("status")));
+            resp.setContentType("text/plain");
+            resp.setContentLength(body.length);
+            OutputStream out = resp.getOutputStream();
+            out.write(body);
+            out.close();
+        }
+    }
+}
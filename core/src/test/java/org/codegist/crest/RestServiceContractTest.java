@@ -24,6 +24,7 @@ import org.codegist.common.collect.Maps;
 import org.codegist.common.io.Files;
 import org.codegist.common.io.IOs;
 import org.codegist.common.net.Urls;
+import org.codegist.crest.serializer.JacksonBodyWriter;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,6 +37,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.*;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -46,7 +48,7 @@ import static org.junit.Assert.*;
 public abstract class RestServiceContractTest {
 
     private ServletTester tester;
-    private String baseUrl;
+    protected String baseUrl;
 
     public abstract RestService getRestService();
 
@@ -58,6 +60,7 @@ public abstract class RestServiceContractTest {
         tester.addServlet(UploadFileServlet.class, "/test/upload/file");
         tester.addServlet(UploadInputStreamServlet.class, "/test/upload/inputstream");
         tester.addServlet(UploadMixedServlet.class, "/test/upload/mixed");
+        tester.addServlet(BodyServlet.class, "/test/body");
         tester.addFilter(org.mortbay.servlet.MultiPartFilter.class, "/*", 0);
         tester.start();
         baseUrl = tester.createSocketConnector(true);
@@ -205,6 +208,34 @@ public abstract class RestServiceContractTest {
         }
     }
 
+    public static class BodyServlet extends HttpServlet {
+
+        static final Map<String, Object> EXPECTED_BODY = Maps.unmodifiable(new LinkedHashMap<String, Object>() {{
+            put("name", "bodys£ tring");
+            put("count", 15);
+        }});
+
+        protected void doPostOrPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            assertEquals("application/json; charset=utf-8", req.getContentType().toLowerCase());
+            assertEquals("chunked", req.getHeader("Transfer-Encoding"));
+            assertEquals("{\"name\":\"bodys£ tring\",\"count\":15}", IOs.toString(req.getInputStream(), "utf-8"));
+            for (Map.Entry<String, String> entry : SimpleMethodsServlet.EXPECTED_SIMPLE_QUERY.entrySet()) {
+                assertEquals(entry.getValue(), req.getParameter(entry.getKey()));
+            }
+            RestServiceContractTest.write(req, resp, "OK", 200);
+        }
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            doPostOrPut(req, resp);
+        }
+
+        @Override
+        protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            doPostOrPut(req, resp);
+        }
+    }
+
     public static class SimpleMethodsServlet extends HttpServlet {
 
         static final Map<String, Object> EXPECTED_SIMPLE_BODY = Maps.unmodifiable(new HashMap<String, Object>() {{
@@ -335,6 +366,20 @@ public abstract class RestServiceContractTest {
         }
     }
 
+    @Test
+    public void testBodyRequest() throws Exception {
+        String[] meths = {"PUT", "POST"};
+        for (String m : meths) {
+            HttpResponse res = getRestService().exec(new HttpRequest.Builder(baseUrl + "/test/body")
+                    .using(m)
+                    .addQueryParams(SimpleMethodsServlet.EXPECTED_SIMPLE_QUERY)
+                    .setBody(BodyServlet.EXPECTED_BODY, new JacksonBodyWriter())
+                    .build());
+            assertEquals(200, res.getStatusCode());
+            assertEquals("OK", res.asString());
+        }
+    }
+
     @Test
     public void testUploadRequest_Mix() throws Exception {
         String[] meths = {"PUT", "POST"};
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+package org.codegist.crest;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class UrlTemplateTest {
+
+    private final Map<String, String> params = new HashMap<String, String>() {{
+        put("p1", "pv1");
+        put("p2", "pv2");
+    }};
+
+    @Test
+    public void testNoPlaceholder() {
+        assertEquals("http://127.0.0.1:8080/test/", UrlTemplate.compile("http://127.0.0.1:8080//test///").expand(params));
+    }
+
+    @Test
+    public void testPlaceholders() {
+        UrlTemplate template = UrlTemplate.compile("http://127.0.0.1:8080/{p1}/{p2}/{p1}.json");
+        assertEquals("http://127.0.0.1:8080/pv1/pv2/pv1.json", template.expand(params));
+        assertEquals("http://127.0.0.1:8080/pv1/pv2/pv1.json", template.expand(params));
+    }
+
+    @Test
+    public void testValuesAreMergedAsIs() {
+        assertEquals("http://127.0.0.1/a$1\\b", UrlTemplate.compile("http://127.0.0.1/{p}").expand(new HashMap<String, String>() {{
+            put("p", "a$1\\b");
+        }}));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingPlaceholder() {
+        UrlTemplate.compile("http://127.0.0.1:8080/{p1}/{p3}").expand(params);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueryString() {
+        UrlTemplate.compile("http://127.0.0.1:8080/{p1}?q=v");
+    }
+}
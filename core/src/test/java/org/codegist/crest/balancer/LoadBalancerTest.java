@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.balancer;
+
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class LoadBalancerTest {
+
+    private static final String[] URLS = {"http://a", "http://b", "http://c"};
+    private static final Exception IO_FAILURE = new HttpException(new IOException("io"), new HttpResponse(null, -1));
+
+    @Test
+    public void testRoundRobin() {
+        LoadBalancer toTest = new LoadBalancer(URLS);
+        Set<String> chosen = new HashSet<String>();
+        for (int i = 0; i < 3; i++) {
+            chosen.add(toTest.choose(null).getUrl());
+        }
+        assertEquals(3, chosen.size());
+    }
+
+    @Test
+    public void testRetryGoesToAnotherEndPoint() {
+        LoadBalancer toTest = new LoadBalancer(URLS);
+        BalancedEndPoint first = toTest.choose(null);
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(first, toTest.choose(first));
+        }
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        LoadBalancer toTest = newLoadBalancer(LoadBalancer.STRATEGY_LEAST_OUTSTANDING);
+        toTest.getEndPoints().get(0).onStart();
+        toTest.getEndPoints().get(2).onStart();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("http://b", toTest.choose(null).getUrl());
+        }
+    }
+
+    @Test
+    public void testLatencyWeighted() {
+        LoadBalancer toTest = newLoadBalancer(LoadBalancer.STRATEGY_LATENCY_WEIGHTED);
+        complete(toTest.getEndPoints().get(0), null, 100);
+        complete(toTest.getEndPoints().get(1), null, 10);
+        complete(toTest.getEndPoints().get(2), null, 50);
+        assertEquals(10d, toTest.getEndPoints().get(1).getLatency(), 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("http://b", toTest.choose(null).getUrl());
+        }
+    }
+
+    @Test
+    public void testFailingEndPointIsEjected() {
+        LoadBalancer toTest = newLoadBalancer(LoadBalancer.STRATEGY_ROUND_ROBIN);
+        BalancedEndPoint failing = toTest.getEndPoints().get(0);
+        complete(failing, IO_FAILURE, 1);
+        assertFalse(failing.isEjected());
+        complete(failing, new HttpException("error", new HttpResponse(null, 503)), 1);
+        assertTrue(failing.isEjected());
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(failing, toTest.choose(null));
+        }
+    }
+
+    @Test
+    public void testClientErrorsDoNotEject() {
+        LoadBalancer toTest = newLoadBalancer(LoadBalancer.STRATEGY_ROUND_ROBIN);
+        BalancedEndPoint endPoint = toTest.getEndPoints().get(0);
+        for (int i = 0; i < 5; i++) {
+            complete(endPoint, new HttpException("error", new HttpResponse(null, 404)), 1);
+        }
+        assertFalse(endPoint.isEjected());
+    }
+
+    @Test
+    public void testNon200SuccessesDoNotEject() {
+        LoadBalancer toTest = newLoadBalancer(LoadBalancer.STRATEGY_ROUND_ROBIN);
+        BalancedEndPoint endPoint = toTest.getEndPoints().get(0);
+        for (int i = 0; i < 5; i++) {
+            complete(endPoint, new HttpException("No Content", new HttpResponse(null, 204)), 1);
+            complete(endPoint, new HttpException("Not Modified", new HttpResponse(null, 304)), 1);
+        }
+        assertFalse(endPoint.isEjected());
+    }
+
+    @Test
+    public void testAllEjectedStillChooses() {
+        LoadBalancer toTest = newLoadBalancer(LoadBalancer.STRATEGY_ROUND_ROBIN);
+        for (BalancedEndPoint endPoint : toTest.getEndPoints()) {
+            complete(endPoint, IO_FAILURE, 1);
+            complete(endPoint, IO_FAILURE, 1);
+        }
+        assertNotNull(toTest.choose(null));
+    }
+
+    private static void complete(BalancedEndPoint endPoint, Exception exception, long duration) {
+        endPoint.onStart();
+        endPoint.onComplete(exception, duration);
+    }
+
+    private static LoadBalancer newLoadBalancer(String strategy) {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(CRestProperty.CREST_LOAD_BALANCER_STRATEGY, strategy);
+        props.put(CRestProperty.CREST_LOAD_BALANCER_MAX_FAILURES, 2);
+        return new LoadBalancer(URLS, props);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.breaker;
+
+import org.codegist.crest.CRestProperty;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CircuitBreakerTest {
+
+    private static final Exception IO_FAILURE = new HttpException(new IOException("io"), new HttpResponse(null, -1));
+    private static final Exception SERVER_ERROR = new HttpException("error", new HttpResponse(null, 503));
+    private static final Exception CLIENT_ERROR = new HttpException("error", new HttpResponse(null, 404));
+    private static final Exception NO_CONTENT = new HttpException("No Content", new HttpResponse(null, 204));
+    private static final Exception NOT_MODIFIED = new HttpException("Not Modified", new HttpResponse(null, 304));
+
+    @Test
+    public void testOpensOnFailureRate() {
+        CircuitBreaker toTest = newCircuitBreaker(60000);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(toTest.tryAcquire());
+            toTest.record(i % 2 == 0 ? null : SERVER_ERROR, 1);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, toTest.getState());
+        assertEquals(-1f, toTest.getFailureRate(), 0);
+        assertTrue(toTest.tryAcquire());
+        toTest.record(IO_FAILURE, 1);
+        assertEquals(CircuitBreaker.State.OPEN, toTest.getState());
+        assertEquals(60f, toTest.getFailureRate(), 0);
+        assertFalse(toTest.tryAcquire());
+        assertEquals(1, toTest.getRejectedCalls());
+    }
+
+    @Test
+    public void testClientErrorsAreNotFailures() {
+        CircuitBreaker toTest = newCircuitBreaker(60000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(toTest.tryAcquire());
+            toTest.record(CLIENT_ERROR, 1);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, toTest.getState());
+        assertEquals(0f, toTest.getFailureRate(), 0);
+    }
+
+    @Test
+    public void testNon200SuccessesAreNotFailures() {
+        CircuitBreaker toTest = newCircuitBreaker(60000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(toTest.tryAcquire());
+            toTest.record(i % 2 == 0 ? NO_CONTENT : NOT_MODIFIED, 1);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, toTest.getState());
+        assertEquals(0f, toTest.getFailureRate(), 0);
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        CircuitBreaker toTest = newCircuitBreaker(60000);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(toTest.tryAcquire());
+            toTest.record(null, 2000);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, toTest.getState());
+        assertEquals(100f, toTest.getSlowCallRate(), 0);
+    }
+
+    @Test
+    public void testWindowSlides() {
+        CircuitBreaker toTest = newCircuitBreaker(60000);
+        toTest.record(SERVER_ERROR, 1);
+        toTest.record(SERVER_ERROR, 1);
+        for (int i = 0; i < 10; i++) {
+            toTest.record(null, 1);
+        }
+        assertEquals(10, toTest.getBufferedCalls());
+        assertEquals(0f, toTest.getFailureRate(), 0);
+        assertEquals(CircuitBreaker.State.CLOSED, toTest.getState());
+    }
+
+    @Test
+    public void testHalfOpenClosesOnSuccessfulTrials() {
+        CircuitBreaker toTest = openCircuitBreaker();
+        assertTrue(toTest.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, toTest.getState());
+        assertTrue(toTest.tryAcquire());
+        assertFalse(toTest.tryAcquire());
+        toTest.record(null, 1);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, toTest.getState());
+        toTest.record(null, 1);
+        assertEquals(CircuitBreaker.State.CLOSED, toTest.getState());
+        assertEquals(0, toTest.getBufferedCalls());
+    }
+
+    @Test
+    public void testHalfOpenReopensOnFailedTrials() {
+        CircuitBreaker toTest = openCircuitBreaker();
+        assertTrue(toTest.tryAcquire());
+        assertTrue(toTest.tryAcquire());
+        toTest.record(null, 1);
+        toTest.record(SERVER_ERROR, 1);
+        assertEquals(CircuitBreaker.State.OPEN, toTest.getState());
+    }
+
+    @Test
+    public void testRegistryReturnsSameInstance() {
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+        assertSame(registry.get("a"), registry.get("a"));
+        assertNotSame(registry.get("a"), registry.get("b"));
+        assertEquals(2, registry.getCircuitBreakers().size());
+    }
+
+    private static CircuitBreaker openCircuitBreaker() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(0);
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.record(SERVER_ERROR, 1);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    private static CircuitBreaker newCircuitBreaker(long openDuration) {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_WINDOW_SIZE, 10);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_MINIMUM_CALLS, 5);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_FAILURE_RATE, 50);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_SLOW_CALL_DURATION, 1000L);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_OPEN_DURATION, openDuration);
+        props.put(CRestProperty.CREST_CIRCUIT_BREAKER_HALF_OPEN_CALLS, 2);
+        return new CircuitBreaker("test", props);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.cache;
+
+import org.codegist.crest.*;
+import org.junit.Test;
+
+import java.net.URISyntaxException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CachingRestServiceTest {
+
+    private final RecordingRestService delegate = new RecordingRestService();
+    private final LruResponseCache cache = new LruResponseCache(10);
+    private final CachingRestService toTest = new CachingRestService(delegate, cache, 16);
+
+    @Test
+    public void testFreshResponseIsServedFromCache() throws Exception {
+        delegate.respond(200, "hello", "Cache-Control", "max-age=60");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(1, delegate.requests.size());
+
+        delegate.respond(200, "other", "Cache-Control", "max-age=60");
+        assertEquals("other", toTest.exec(get("http://localhost/b")).asString());
+        assertEquals(2, delegate.requests.size());
+    }
+
+    @Test
+    public void testNoStoreIsNeverCached() throws Exception {
+        delegate.respond(200, "hello", "Cache-Control", "no-store, max-age=60");
+        delegate.respond(200, "hello2", "Cache-Control", "no-store, max-age=60");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals("hello2", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(2, delegate.requests.size());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testResponseWithoutFreshnessNorValidatorIsNotCached() throws Exception {
+        delegate.respond(200, "hello");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testStaleResponseIsRevalidatedWithETag() throws Exception {
+        delegate.respond(200, "hello", "ETag", "\"v1\"", "Cache-Control", "no-cache");
+        delegate.respondNotModified("Cache-Control", "max-age=60");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(2, delegate.requests.size());
+        assertNull(delegate.requests.get(0).getHeaderParams().get("If-None-Match"));
+        assertEquals("\"v1\"", delegate.requests.get(1).getHeaderParams().get("If-None-Match"));
+
+        // refreshed by the 304 max-age
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(2, delegate.requests.size());
+    }
+
+    @Test
+    public void testStaleResponseIsReplacedWhenModified() throws Exception {
+        delegate.respond(200, "hello", "Last-Modified", "Sat, 29 Oct 1994 19:43:31 GMT");
+        delegate.respond(200, "hello2", "Last-Modified", "Sun, 30 Oct 1994 19:43:31 GMT");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals("hello2", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals("Sat, 29 Oct 1994 19:43:31 GMT", delegate.requests.get(1).getHeaderParams().get("If-Modified-Since"));
+        assertEquals("Sun, 30 Oct 1994 19:43:31 GMT", cache.get("GET http://localhost/a").getLastModified());
+    }
+
+    @Test
+    public void testExpiresIsRelativeToServerDate() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        long serverNow = System.currentTimeMillis() - 3600 * 1000;
+        delegate.respond(200, "hello", "Date", format.format(new Date(serverNow)), "Expires", format.format(new Date(serverNow + 60 * 1000)));
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(1, delegate.requests.size());
+    }
+
+    @Test
+    public void testVaryHeadersAreMatched() throws Exception {
+        delegate.respond(200, "json", "Cache-Control", "max-age=60", "Vary", "Accept");
+        delegate.respond(200, "xml", "Cache-Control", "max-age=60", "Vary", "Accept");
+        assertEquals("json", toTest.exec(get("http://localhost/a", "Accept", "application/json")).asString());
+        assertEquals("json", toTest.exec(get("http://localhost/a", "accept", "application/json")).asString());
+        assertEquals("xml", toTest.exec(get("http://localhost/a", "Accept", "application/xml")).asString());
+        assertEquals(2, delegate.requests.size());
+    }
+
+    @Test
+    public void testUnsafeMethodInvalidates() throws Exception {
+        delegate.respond(200, "hello", "Cache-Control", "max-age=60");
+        delegate.respond(200, "");
+        delegate.respond(200, "hello2", "Cache-Control", "max-age=60");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        toTest.exec(new HttpRequest.Builder("http://localhost/a").using(HttpRequest.HTTP_POST).build());
+        assertEquals("hello2", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(3, delegate.requests.size());
+    }
+
+    @Test
+    public void testResponseBiggerThanMaxEntrySizeIsStreamedThrough() throws Exception {
+        delegate.respond(200, "0123456789012345678901234567890123456789", "Cache-Control", "max-age=60");
+        assertEquals("0123456789012345678901234567890123456789", toTest.exec(get("http://localhost/a")).asString());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        delegate.respond(200, "hello", "ETag", "v1");
+        assertEquals("hello", toTest.exec(get("http://localhost/a")).asString());
+        delegate.fail(500);
+        try {
+            toTest.exec(get("http://localhost/a"));
+            fail();
+        } catch (HttpException e) {
+            assertEquals(500, e.getResponse().getStatusCode());
+        }
+    }
+
+    private static HttpRequest get(String url, String... headers) throws URISyntaxException {
+        HttpRequest.Builder builder = new HttpRequest.Builder(url);
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.addHeaderParam(headers[i], headers[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static Map<String, List<String>> headers(String... headers) {
+        Map<String, List<String>> map = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < headers.length; i += 2) {
+            map.put(headers[i], Arrays.asList(headers[i + 1]));
+        }
+        return map;
+    }
+
+    private static class RecordingRestService implements RestService {
+        private final List<HttpRequest> requests = new ArrayList<HttpRequest>();
+        private final LinkedList<Object[]> responses = new LinkedList<Object[]>();
+
+        void respond(int status, String body, String... headers) {
+            responses.add(new Object[]{status, body, headers(headers)});
+        }
+
+        void respondNotModified(String... headers) {
+            responses.add(new Object[]{304, null, headers(headers)});
+        }
+
+        void fail(int status) {
+            responses.add(new Object[]{status, null, headers()});
+        }
+
+        @SuppressWarnings("unchecked")
+        public HttpResponse exec(HttpRequest request) throws HttpException {
+            requests.add(request);
+            Object[] response = responses.removeFirst();
+            int status = (Integer) response[0];
+            String body = (String) response[1];
+            Map<String, List<String>> headers = (Map<String, List<String>>) response[2];
+            if (status != 200) {
+                throw new HttpException("error", new HttpResponse(request, status, headers));
+            }
+            return new HttpResponse(request, status, headers, new ByteArrayHttpResource(body.getBytes()));
+        }
+    }
+}
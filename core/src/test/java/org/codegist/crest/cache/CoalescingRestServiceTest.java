@@ -0,0 +1,194 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.cache;
+
+import org.codegist.crest.*;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CoalescingRestServiceTest {
+
+    private final BlockingRestService delegate = new BlockingRestService();
+    private final CoalescingRestService toTest = new CoalescingRestService(delegate);
+
+    @Test
+    public void testConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        List<Future<String>> results = execConcurrently(5, new HttpRequest.Builder("http://localhost/a").build());
+        delegate.release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("body", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testFailureIsSharedWithWaitingCallers() throws Exception {
+        delegate.failure = new HttpException("error", new HttpResponse(null, 500));
+        List<Future<String>> results = execConcurrently(3, new HttpRequest.Builder("http://localhost/a").build());
+        delegate.release.countDown();
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(delegate.failure, e.getCause());
+            }
+        }
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testSequentialRequestsAreNotCoalesced() throws Exception {
+        delegate.release.countDown();
+        HttpRequest request = new HttpRequest.Builder("http://localhost/a").build();
+        assertEquals("body", toTest.exec(request).asString());
+        assertEquals("body", toTest.exec(request).asString());
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void testPostIsPassedThrough() throws Exception {
+        delegate.release.countDown();
+        HttpRequest request = new HttpRequest.Builder("http://localhost/a").using(HttpRequest.HTTP_POST).build();
+        assertEquals("body", toTest.exec(request).asString());
+        assertEquals("body", toTest.exec(request).asString());
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void testResponseIsStreamedWhenNobodyJoined() throws Exception {
+        final HttpResponse response = new HttpResponse(null, 200, Collections.<String, List<String>>emptyMap(), new ByteArrayHttpResource("body".getBytes()));
+        CoalescingRestService toTest = new CoalescingRestService(new RestService() {
+            public HttpResponse exec(HttpRequest request) throws HttpException {
+                return response;
+            }
+        });
+        assertSame(response, toTest.exec(new HttpRequest.Builder("http://localhost/a").build()));
+    }
+
+    @Test
+    public void testResponsesBiggerThanTheBufferAreNotShared() throws Exception {
+        List<Future<String>> results = execConcurrently(new CoalescingRestService(delegate, 2), 3, new HttpRequest.Builder("http://localhost/a").build());
+        delegate.release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("body", result.get(5, TimeUnit.SECONDS));
+        }
+        // the first caller streamed its response, the others fired their own call
+        assertEquals(3, delegate.calls.get());
+    }
+
+    @Test
+    public void testWaitIsBoundedByTheCallerDeadline() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return toTest.exec(new HttpRequest.Builder("http://localhost/a").build()).asString();
+                }
+            });
+            long timeout = System.currentTimeMillis() + 5000;
+            while (delegate.calls.get() == 0) {
+                assertTrue(System.currentTimeMillis() < timeout);
+                Thread.sleep(5);
+            }
+            long start = System.currentTimeMillis();
+            try {
+                toTest.exec(new HttpRequest.Builder("http://localhost/a").expireAt(start + 100).build());
+                fail();
+            } catch (HttpException e) {
+                assertTrue(e.getCause() instanceof SocketTimeoutException);
+            }
+            assertTrue(System.currentTimeMillis() - start < 2000);
+            assertEquals(1, delegate.calls.get());
+        } finally {
+            delegate.release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private List<Future<String>> execConcurrently(int count, final HttpRequest request) throws Exception {
+        return execConcurrently(toTest, count, request);
+    }
+
+    private List<Future<String>> execConcurrently(final CoalescingRestService toTest, int count, final HttpRequest request) throws Exception {
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        ExecutorService executor = Executors.newFixedThreadPool(count, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                threads.add(thread);
+                return thread;
+            }
+        });
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (int i = 0; i < count; i++) {
+            results.add(executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return toTest.exec(request).asString();
+                }
+            }));
+        }
+        executor.shutdown();
+        // wait for the leader to be blocked in the delegate and all the other callers to be waiting for it
+        long timeout = System.currentTimeMillis() + 5000;
+        while (threads.size() < count || !allWaiting(threads)) {
+            assertTrue(System.currentTimeMillis() < timeout);
+            Thread.sleep(5);
+        }
+        return results;
+    }
+
+    private static boolean allWaiting(List<Thread> threads) {
+        for (Thread thread : threads) {
+            if (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) return false;
+        }
+        return true;
+    }
+
+    private static class BlockingRestService implements RestService {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile HttpException failure;
+
+        public HttpResponse exec(HttpRequest request) throws HttpException {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new HttpException(e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new HttpResponse(request, 200, Collections.singletonMap("Content-Length", Collections.singletonList("4")), new ByteArrayHttpResource("body".getBytes()));
+        }
+    }
+}
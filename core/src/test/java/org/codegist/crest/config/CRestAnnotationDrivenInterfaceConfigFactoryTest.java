@@ -20,10 +20,14 @@
 
 package org.codegist.crest.config;
 
+import org.codegist.crest.CRestContext;
+import org.codegist.crest.HttpRequest;
 import org.codegist.crest.Stubs;
 import org.codegist.crest.TestUtils;
 import org.codegist.crest.annotate.*;
+import org.codegist.crest.injector.BodyInjector;
 import org.codegist.crest.injector.DefaultInjector;
+import org.codegist.crest.serializer.JacksonBodyWriter;
 import org.junit.Test;
 
 import java.lang.reflect.Method;
@@ -109,6 +113,32 @@ public class CRestAnnotationDrivenInterfaceConfigFactoryTest extends AbstractInt
         assertEquals(DefaultInjector.class, cfg.getMethodConfig(TypeInjectorInterface.M).getParamConfig(1).getInjector().getClass());
     }
 
+    @Test
+    public void testBodyIsRead() throws ConfigFactoryException {
+        InterfaceConfig cfg = configFactory.newConfig(BodyInterface.class, MOCK_CONTEXT);
+        MethodParamConfig body = cfg.getMethodConfig(BodyInterface.M).getParamConfig(0);
+        assertEquals(HttpRequest.DEST_BODY, body.getDestination());
+        assertEquals(BodyInjector.class, body.getInjector().getClass());
+        assertEquals(JacksonBodyWriter.class, ((BodyInjector) body.getInjector()).getWriter().getClass());
+        assertEquals(HttpRequest.DEST_QUERY, cfg.getMethodConfig(BodyInterface.M).getParamConfig(1).getDestination());
+    }
+
+    @Test
+    public void testPrecompiledConfig() throws ConfigFactoryException {
+        int instances = PrecompiledInterface$$CRestConfig.instances;
+        assertEquals("http://precompiled.com", configFactory.newConfig(PrecompiledInterface.class, MOCK_CONTEXT).getEndPoint());
+        assertEquals("http://precompiled.com", configFactory.newConfig(PrecompiledInterface.class, MOCK_CONTEXT).getEndPoint());
+        // looked up once
+        assertEquals(instances + 1, PrecompiledInterface$$CRestConfig.instances);
+        // templates still come from the annotations
+        assertEquals("http://annotated.com", new CRestAnnotationDrivenInterfaceConfigFactory(true).newConfig(PrecompiledInterface.class, MOCK_CONTEXT).getEndPoint());
+    }
+
+    @Test(expected = ConfigFactoryException.class)
+    public void testInvalidPrecompiledConfig() throws ConfigFactoryException {
+        configFactory.newConfig(InvalidPrecompiledInterface.class, MOCK_CONTEXT);
+    }
+
     @Injector(Stubs.RequestParameterInjector1.class)
     @Serializer(Stubs.Serializer3.class)
     static class Model {
@@ -135,6 +165,14 @@ public class CRestAnnotationDrivenInterfaceConfigFactoryTest extends AbstractInt
         Method M = TestUtils.getMethod(TypeInjectorInterface.class, "get", Model.class, Model[].class);
     }
 
+    @EndPoint("http://dd")
+    static interface BodyInterface {
+        @POST
+        void create(@Body(JacksonBodyWriter.class) Model m, @QueryParam("q") String q);
+
+        Method M = TestUtils.getMethod(BodyInterface.class, "create", Model.class, String.class);
+    }
+
 
 
 
@@ -387,3 +425,36 @@ public class CRestAnnotationDrivenInterfaceConfigFactoryTest extends AbstractInt
                 .build();
     }
 }
+
+@EndPoint("http://annotated.com")
+interface PrecompiledInterface {
+    String get();
+}
+
+class PrecompiledInterface$$CRestConfig implements InterfaceConfigFactory {
+    static int instances;
+
+    PrecompiledInterface$$CRestConfig() {
+        instances++;
+    }
+
+    public InterfaceConfig newConfig(Class<?> interfaze, CRestContext context) throws ConfigFactoryException {
+        try {
+            return new ConfigBuilders.InterfaceConfigBuilder(interfaze, context.getProperties())
+                    .setEndPoint("http://precompiled.com")
+                    .startMethodConfig(interfaze.getMethod("get"))
+                        .setPath("/get")
+                    .endMethodConfig()
+                    .build();
+        } catch (Exception e) {
+            throw new ConfigFactoryException(e);
+        }
+    }
+}
+
+@EndPoint("http://annotated.com")
+interface InvalidPrecompiledInterface {
+}
+
+class InvalidPrecompiledInterface$$CRestConfig {
+}
@@ -77,6 +77,30 @@ public class ConfigBuildersTest {
         }
     }
 
+    @Test
+    public void testAcceptHeaderKeepsWildcards() {
+        Deserializer json = mock(Deserializer.class);
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put(DeserializerFactory.class.getName(), new DeserializerFactory.Builder().register(json, "application/json").build());
+        InterfaceConfig cfg = new ConfigBuilders.InterfaceConfigBuilder(Interface.class, map)
+                .setEndPoint("d")
+                .setParamsName("q")
+                .setMethodsConsumes("application/json, */*;q=0.1")
+                .build();
+
+        for (Method m : cfg.getMethods()) {
+            assertSame(json, cfg.getMethodConfig(m).getDeserializer());
+            boolean found = false;
+            for (ParamConfig p : cfg.getMethodConfig(m).getExtraParams()) {
+                if (p.getName().equals("Accept") && p.getDefaultValue().equals("application/json, */*;q=0.1")) {
+                    found = true;
+                    break;
+                }
+            }
+            assertTrue(found);
+        }
+    }
+
     @Test
     public void testConfigBuildersInvalidPath() {
         try {
@@ -240,6 +264,11 @@ public class ConfigBuildersTest {
                             (ErrorHandler) Class.forName(placeholders.get("my.place.holder.meth-error")).newInstance(),
                             (RetryHandler) Class.forName(placeholders.get("my.place.holder.meth-retry")).newInstance(),
                             (Deserializer) Class.forName(placeholders.get("my.place.holder.meth-deser")).newInstance(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             placeholders.get("my.place.holder.param-name"),
@@ -262,6 +291,11 @@ public class ConfigBuildersTest {
                             (ErrorHandler) Class.forName(placeholders.get("my.place.holder.meth-error")).newInstance(),
                             (RetryHandler) Class.forName(placeholders.get("my.place.holder.meth-retry")).newInstance(),
                             (Deserializer) Class.forName(placeholders.get("my.place.holder.meth-deser")).newInstance(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             placeholders.get("my.place.holder.param-name"),
@@ -348,6 +382,9 @@ public class ConfigBuildersTest {
         defaultOverrides.put(CONFIG_METHOD_DEFAULT_ERROR_HANDLER, new Stubs.ErrorHandler1());
         defaultOverrides.put(CONFIG_METHOD_DEFAULT_RETRY_HANDLER, new Stubs.RetryHandler1());
         defaultOverrides.put(CONFIG_METHOD_DEFAULT_DESERIALIZER, new Stubs.Deserializer1());
+        defaultOverrides.put(CONFIG_METHOD_DEFAULT_CACHEABLE, true);
+        defaultOverrides.put(CONFIG_METHOD_DEFAULT_HEDGE_DELAY, 50l);
+        defaultOverrides.put(CONFIG_METHOD_DEFAULT_DEADLINE, 500l);
         defaultOverrides.put(CONFIG_METHOD_DEFAULT_HTTP_METHOD, "HEAD");
         defaultOverrides.put(CONFIG_METHOD_DEFAULT_RESPONSE_HANDLER, new Stubs.ResponseHandler1());
         defaultOverrides.put(CONFIG_METHOD_DEFAULT_EXTRA_PARAMS, PARAMs);
@@ -374,6 +411,11 @@ public class ConfigBuildersTest {
                             (ErrorHandler) defaultOverrides.get(CONFIG_METHOD_DEFAULT_ERROR_HANDLER),
                             (RetryHandler) defaultOverrides.get(CONFIG_METHOD_DEFAULT_RETRY_HANDLER),
                             (Deserializer) defaultOverrides.get(CONFIG_METHOD_DEFAULT_DESERIALIZER),
+                            (Boolean) defaultOverrides.get(CONFIG_METHOD_DEFAULT_CACHEABLE),
+                            (Long) defaultOverrides.get(CONFIG_METHOD_DEFAULT_HEDGE_DELAY),
+                            (Long) defaultOverrides.get(CONFIG_METHOD_DEFAULT_DEADLINE),
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             (String) defaultOverrides.get(CONFIG_PARAM_DEFAULT_NAME),
@@ -396,6 +438,11 @@ public class ConfigBuildersTest {
                             (ErrorHandler) defaultOverrides.get(CONFIG_METHOD_DEFAULT_ERROR_HANDLER),
                             (RetryHandler) defaultOverrides.get(CONFIG_METHOD_DEFAULT_RETRY_HANDLER),
                             (Deserializer) defaultOverrides.get(CONFIG_METHOD_DEFAULT_DESERIALIZER),
+                            (Boolean) defaultOverrides.get(CONFIG_METHOD_DEFAULT_CACHEABLE),
+                            (Long) defaultOverrides.get(CONFIG_METHOD_DEFAULT_HEDGE_DELAY),
+                            (Long) defaultOverrides.get(CONFIG_METHOD_DEFAULT_DEADLINE),
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             (String) defaultOverrides.get(CONFIG_PARAM_DEFAULT_NAME),
@@ -447,6 +494,11 @@ public class ConfigBuildersTest {
                             TestUtils.newInstance(DEFAULT_ERROR_HANDLER),
                             TestUtils.newInstance(DEFAULT_RETRY_HANDLER),
                             TestUtils.newInstance(DEFAULT_DESERIALIZER),
+                            DEFAULT_CACHEABLE,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -469,6 +521,11 @@ public class ConfigBuildersTest {
                             TestUtils.newInstance(DEFAULT_ERROR_HANDLER),
                             TestUtils.newInstance(DEFAULT_RETRY_HANDLER),
                             TestUtils.newInstance(DEFAULT_DESERIALIZER),
+                            DEFAULT_CACHEABLE,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -520,6 +577,11 @@ public class ConfigBuildersTest {
                             new Stubs.ErrorHandler2(),
                             new Stubs.RetryHandler2(),
                             new Stubs.Deserializer2(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -542,6 +604,11 @@ public class ConfigBuildersTest {
                             new Stubs.ErrorHandler2(),
                             new Stubs.RetryHandler2(),
                             new Stubs.Deserializer2(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -608,6 +675,11 @@ public class ConfigBuildersTest {
                             new Stubs.ErrorHandler2(),
                             new Stubs.RetryHandler1(),
                             new Stubs.Deserializer1(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -630,6 +702,11 @@ public class ConfigBuildersTest {
                             new Stubs.ErrorHandler3(),
                             new Stubs.RetryHandler2(),
                             new Stubs.Deserializer2(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -707,6 +784,11 @@ public class ConfigBuildersTest {
                             new Stubs.ErrorHandler2(),
                             new Stubs.RetryHandler2(),
                             new Stubs.Deserializer2(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "name4",
@@ -729,6 +811,11 @@ public class ConfigBuildersTest {
                             new Stubs.ErrorHandler3(),
                             new Stubs.RetryHandler1(),
                             new Stubs.Deserializer1(),
+                            false,
+                            DEFAULT_HEDGE_DELAY,
+                            DEFAULT_DEADLINE,
+                            null,
+                            null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(
                                             "n",
@@ -805,19 +892,19 @@ public class ConfigBuildersTest {
     public void testNoDefaults() throws InstantiationException, IllegalAccessException {
         InterfaceConfig expected = new DefaultInterfaceConfig(
                 Interface.class,
-                null,
+                (String[]) null,
                 null, null, null,
                 new HashMap<Method, MethodConfig>() {{
                     put(Interface.A, new DefaultMethodConfig(
                             Interface.A,
-                            null, null, null, null, null, null, null, null, null,
+                            null, null, null, null, null, null, null, null, null, null, null, null, null, null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(null, null, null, null, null)
                             }, new ParamConfig[0]
                     ));
                     put(Interface.B, new DefaultMethodConfig(
                             Interface.B,
-                            null, null, null, null, null, null, null, null, null,
+                            null, null, null, null, null, null, null, null, null, null, null, null, null, null,
                             new MethodParamConfig[]{
                                     new DefaultMethodParamConfig(null, null, null, null, null),
                                     new DefaultMethodParamConfig(null, null, null, null, null),
@@ -30,6 +30,8 @@ import org.codegist.crest.handler.RetryHandler;
 import org.codegist.crest.injector.Injector;
 import org.codegist.crest.interceptor.CompositeRequestInterceptor;
 import org.codegist.crest.interceptor.RequestInterceptor;
+import org.codegist.crest.limiter.Bulkhead;
+import org.codegist.crest.page.Paginator;
 import org.codegist.crest.serializer.Deserializer;
 import org.codegist.crest.serializer.Serializer;
 import org.junit.Test;
@@ -390,6 +392,10 @@ public class ConfigsTest {
             return server;
         }
 
+        public String[] getEndPoints() {
+            return server != null ? new String[]{server} : null;
+        }
+
         public void setServer(String server) {
             this.server = server;
         }
@@ -451,6 +457,11 @@ public class ConfigsTest {
         private ErrorHandler errorHandler;
         private RetryHandler retryHandler;
         private Deserializer deserializer;
+        private Boolean cacheable;
+        private Long hedgeDelay;
+        private Long deadline;
+        private Bulkhead bulkhead;
+        private Paginator paginator;
 
         private MethodParamConfig[] methodParamConfigs;
         private ParamConfig[] extraParams;
@@ -562,6 +573,46 @@ public class ConfigsTest {
             this.deserializer = deserializer;
         }
 
+        public Boolean isCacheable() {
+            return cacheable;
+        }
+
+        public void setCacheable(Boolean cacheable) {
+            this.cacheable = cacheable;
+        }
+
+        public Long getHedgeDelay() {
+            return hedgeDelay;
+        }
+
+        public void setHedgeDelay(Long hedgeDelay) {
+            this.hedgeDelay = hedgeDelay;
+        }
+
+        public Long getDeadline() {
+            return deadline;
+        }
+
+        public void setDeadline(Long deadline) {
+            this.deadline = deadline;
+        }
+
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        public void setBulkhead(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        public Paginator getPaginator() {
+            return paginator;
+        }
+
+        public void setPaginator(Paginator paginator) {
+            this.paginator = paginator;
+        }
+
         public MethodParamConfig[] getParamConfigs() {
             return methodParamConfigs;
         }
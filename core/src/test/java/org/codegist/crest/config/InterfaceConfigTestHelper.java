@@ -40,6 +40,7 @@ public class InterfaceConfigTestHelper {
     public static void assertExpected(InterfaceConfig expected, InterfaceConfig test, Class<?> clazz) {
         assertEquals(clazz.toString(), expected.getPath(), test.getPath());
         assertEquals(clazz.toString(), expected.getEndPoint(), test.getEndPoint());
+        assertTrue(clazz.toString(), Arrays.equals(expected.getEndPoints(), test.getEndPoints()));
         assertEquals(clazz.toString(), expected.getEncoding(), test.getEncoding());
 
         if (expected.getGlobalInterceptor() instanceof CompositeRequestInterceptor) {
@@ -69,8 +70,13 @@ public class InterfaceConfigTestHelper {
             assertEquals(testMsg, expMethCfg.getSocketTimeout(), testMethCfg.getSocketTimeout());
             assertEquals(testMsg, TestUtils.getClass(expMethCfg.getErrorHandler()), TestUtils.getClass(testMethCfg.getErrorHandler()));
             assertEquals(testMsg, TestUtils.getClass(expMethCfg.getRetryHandler()), TestUtils.getClass(testMethCfg.getRetryHandler()));
+            assertEquals(testMsg, TestUtils.getClass(expMethCfg.getPaginator()), TestUtils.getClass(testMethCfg.getPaginator()));
             assertEquals(testMsg, TestUtils.getClass(expMethCfg.getResponseHandler()), TestUtils.getClass(testMethCfg.getResponseHandler()));
             assertEquals(testMsg, TestUtils.getClass(expMethCfg.getDeserializer()), TestUtils.getClass(testMethCfg.getDeserializer()));
+            assertEquals(testMsg, expMethCfg.isCacheable(), testMethCfg.isCacheable());
+            assertEquals(testMsg, expMethCfg.getHedgeDelay(), testMethCfg.getHedgeDelay());
+            assertEquals(testMsg, expMethCfg.getDeadline(), testMethCfg.getDeadline());
+            assertEquals(testMsg, expMethCfg.getBulkhead() == null ? null : expMethCfg.getBulkhead().getMaxConcurrentCalls(), testMethCfg.getBulkhead() == null ? null : testMethCfg.getBulkhead().getMaxConcurrentCalls());
 
             int expSize = expMethCfg.getExtraParams() == null ? 0 : expMethCfg.getExtraParams().length;
             int testSize = testMethCfg.getExtraParams() == null ? 0 : testMethCfg.getExtraParams().length;
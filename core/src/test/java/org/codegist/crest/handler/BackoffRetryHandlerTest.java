@@ -0,0 +1,184 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.handler;
+
+import org.codegist.crest.*;
+import org.codegist.crest.config.MethodConfig;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class BackoffRetryHandlerTest {
+
+    @Test
+    public void testRetriesOnConfiguredStatusCodes() {
+        BackoffRetryHandler handler = newHandler(new HashMap<String, Object>());
+        assertTrue(handler.retry(getResponseContext("GET"), httpError(503), 1));
+        assertTrue(handler.retry(getResponseContext("GET"), httpError(500), 2));
+        assertFalse(handler.retry(getResponseContext("GET"), httpError(404), 1));
+    }
+
+    @Test
+    public void testRetriesOnConfiguredExceptions() {
+        BackoffRetryHandler handler = newHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_EXCEPTIONS, "java.net.SocketTimeoutException");
+        }});
+        assertTrue(handler.retry(getResponseContext("GET"), new HttpException(new SocketTimeoutException(), new HttpResponse(null, -1)), 1));
+        assertFalse(handler.retry(getResponseContext("GET"), new HttpException(new IOException(), new HttpResponse(null, -1)), 1));
+        assertFalse(handler.retry(getResponseContext("GET"), new IllegalStateException(), 1));
+    }
+
+    @Test
+    public void testOnlyRetriesIdempotentMethods() {
+        BackoffRetryHandler handler = newHandler(new HashMap<String, Object>());
+        assertTrue(handler.retry(getResponseContext("PUT"), httpError(503), 1));
+        assertFalse(handler.retry(getResponseContext("POST"), httpError(503), 1));
+    }
+
+    @Test
+    public void testMaxAttempts() {
+        BackoffRetryHandler handler = newHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_MAX_ATTEMPTS, "2");
+        }});
+        assertTrue(handler.retry(getResponseContext("GET"), httpError(503), 1));
+        assertFalse(handler.retry(getResponseContext("GET"), httpError(503), 2));
+    }
+
+    @Test
+    public void testRetryBudget() {
+        final RetryBudget budget = new RetryBudget(0.5f, 1);
+        BackoffRetryHandler handler = newHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_BUDGET, budget);
+        }});
+        assertTrue(handler.retry(getResponseContext("GET"), httpError(503), 1));
+        assertFalse(handler.retry(getResponseContext("GET"), httpError(503), 1));
+        handler.onSuccess(null);
+        assertFalse(handler.retry(getResponseContext("GET"), httpError(503), 1));
+        handler.onSuccess(null);
+        assertTrue(handler.retry(getResponseContext("GET"), httpError(503), 1));
+        for (int i = 0; i < 10; i++) {
+            handler.onSuccess(null);
+        }
+        assertEquals(1f, budget.getBalance(), 0f);
+    }
+
+    @Test
+    public void testFullJitterDelay() {
+        BackoffRetryHandler handler = new BackoffRetryHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_BASE, 100);
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_MAX, 300);
+        }});
+        for (int i = 0; i < 100; i++) {
+            long delay = handler.getDelay(null, 2);
+            assertTrue(delay >= 0 && delay <= 200);
+            delay = handler.getDelay(null, 10);
+            assertTrue(delay >= 0 && delay <= 300);
+        }
+    }
+
+    @Test
+    public void testDecorrelatedJitterDelay() {
+        BackoffRetryHandler handler = new BackoffRetryHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_BASE, 100);
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_MAX, 1000);
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_JITTER, BackoffRetryHandler.JITTER_DECORRELATED);
+        }});
+        for (int i = 0; i < 100; i++) {
+            long previous = handler.getDelay(null, 1);
+            assertTrue(previous >= 100 && previous <= 300);
+            long delay = handler.getDelay(null, 2);
+            assertTrue(delay >= 100 && delay <= Math.min(1000, 3 * previous));
+        }
+    }
+
+    @Test
+    public void testRetryAfterExtendsDelay() {
+        BackoffRetryHandler handler = new BackoffRetryHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_BASE, 1);
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_MAX, 5000);
+        }});
+        Map<String, java.util.List<String>> headers = Collections.singletonMap("Retry-After", Arrays.asList("2"));
+        assertEquals(2000, handler.getDelay(new HttpException("error", new HttpResponse(null, 503, headers)), 1));
+    }
+
+    @Test
+    public void testNoRetryOutlivingTheDeadline() {
+        final RetryBudget budget = new RetryBudget(0, 100);
+        BackoffRetryHandler handler = new BackoffRetryHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_BASE, 1);
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_MAX, 5000);
+            put(CRestProperty.HANDLER_RETRY_BUDGET, budget);
+        }});
+        Map<String, java.util.List<String>> headers = Collections.singletonMap("Retry-After", Arrays.asList("2"));
+        Deadlines.set(500);
+        try {
+            long start = System.currentTimeMillis();
+            assertFalse(handler.retry(getResponseContext("GET"), new HttpException("error", new HttpResponse(null, 503, headers)), 1));
+            assertTrue(System.currentTimeMillis() - start < 500);
+            // refused before withdrawing from the budget
+            assertEquals(100f, budget.getBalance(), 0f);
+        } finally {
+            Deadlines.clear();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownJitter() {
+        new BackoffRetryHandler(new HashMap<String, Object>() {{
+            put(CRestProperty.HANDLER_RETRY_BACKOFF_JITTER, "none");
+        }});
+    }
+
+    private static BackoffRetryHandler newHandler(Map<String, Object> properties) {
+        properties.put(CRestProperty.HANDLER_RETRY_BACKOFF_BASE, "1");
+        properties.put(CRestProperty.HANDLER_RETRY_BACKOFF_MAX, "1");
+        if (!properties.containsKey(CRestProperty.HANDLER_RETRY_BUDGET)) {
+            properties.put(CRestProperty.HANDLER_RETRY_BUDGET, new RetryBudget(0, 100));
+        }
+        return new BackoffRetryHandler(properties);
+    }
+
+    private static HttpException httpError(int status) {
+        return new HttpException("error", new HttpResponse(null, status));
+    }
+
+    private static ResponseContext getResponseContext(String httpMethod) {
+        MethodConfig methodConfig = mock(MethodConfig.class);
+        when(methodConfig.getHttpMethod()).thenReturn(httpMethod);
+        RequestContext requestContext = mock(RequestContext.class);
+        when(requestContext.getMethodConfig()).thenReturn(methodConfig);
+        ResponseContext responseContext = mock(ResponseContext.class);
+        when(responseContext.getRequestContext()).thenReturn(requestContext);
+        return responseContext;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.hedge;
+
+import org.codegist.crest.*;
+import org.codegist.crest.handler.RetryBudget;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class HedgingRestServiceTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SlowFirstRestService delegate = new SlowFirstRestService();
+
+    @After
+    public void tearDown() {
+        delegate.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowGetIsHedgedAndLoserReleased() throws Exception {
+        HedgingRestService toTest = new HedgingRestService(delegate, executor, new RetryBudget(0.1f, 1), 20, 95);
+        HttpResponse response = toTest.exec(new HttpRequest.Builder("http://localhost/a").build());
+        assertEquals("2", response.asString());
+        assertEquals(2, delegate.calls.get());
+
+        delegate.release.countDown();
+        assertTrue(delegate.released.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPostIsNotHedged() throws Exception {
+        delegate.release.countDown();
+        HedgingRestService toTest = new HedgingRestService(delegate, executor, new RetryBudget(0.1f, 1), 1, 95);
+        HttpResponse response = toTest.exec(new HttpRequest.Builder("http://localhost/a").using(HttpRequest.HTTP_POST).build());
+        assertEquals("1", response.asString());
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testExhaustedBudgetPreventsHedge() throws Exception {
+        HedgingRestService toTest = new HedgingRestService(delegate, executor, new RetryBudget(0.1f, 0), 20, 95);
+        executor.submit(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // test is over
+                }
+                delegate.release.countDown();
+            }
+        });
+        HttpResponse response = toTest.exec(new HttpRequest.Builder("http://localhost/a").build());
+        assertEquals("1", response.asString());
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testDelayFollowsObservedPercentile() throws Exception {
+        delegate.release.countDown();
+        HedgingRestService toTest = new HedgingRestService(delegate, executor, new RetryBudget(), 0, 95);
+        assertEquals(HedgingRestService.DEFAULT_INITIAL_DELAY, toTest.getHedgeDelay());
+        for (int i = 0; i < 16; i++) {
+            toTest.exec(new HttpRequest.Builder("http://localhost/a").build()).close();
+        }
+        assertTrue(toTest.getHedgeDelay() < HedgingRestService.DEFAULT_INITIAL_DELAY);
+    }
+
+    private static class SlowFirstRestService implements RestService {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+
+        public HttpResponse exec(HttpRequest request) throws HttpException {
+            final int call = calls.incrementAndGet();
+            if (call == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new HttpException(e);
+                }
+            }
+            return new HttpResponse(request, 200, Collections.<String, List<String>>emptyMap(), new HttpResource() {
+                public InputStream getContent() throws HttpException {
+                    return new ByteArrayInputStream(String.valueOf(call).getBytes());
+                }
+
+                public void release() throws HttpException {
+                    if (call == 1) released.countDown();
+                }
+            });
+        }
+    }
+}
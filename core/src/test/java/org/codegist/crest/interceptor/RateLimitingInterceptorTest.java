@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.interceptor;
+
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.RequestContext;
+import org.codegist.crest.ResponseContext;
+import org.codegist.crest.ratelimit.RateLimitExceededException;
+import org.codegist.crest.ratelimit.TokenBucket;
+import org.codegist.crest.ratelimit.TokenBucketRegistry;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class RateLimitingInterceptorTest {
+
+    private final TokenBucketRegistry registry = new TokenBucketRegistry(Collections.<String, Object>singletonMap("crest.config.rate-limit", 1));
+    private final RateLimitingInterceptor toTest = new RateLimitingInterceptor(registry, 0, false);
+    private final RequestContext requestContext = mock(RequestContext.class);
+
+    @Test
+    public void testRequestsTakeFromHostBucket() throws Exception {
+        toTest.afterParamsInjectionHandle(new HttpRequest.Builder("http://user@api.test.com:8080/a"), requestContext);
+        try {
+            toTest.afterParamsInjectionHandle(new HttpRequest.Builder("http://api.test.com:8080/other"), requestContext);
+            fail();
+        } catch (RateLimitExceededException e) {
+            assertEquals("api.test.com:8080", e.getTokenBucket().getName());
+        }
+        toTest.afterParamsInjectionHandle(new HttpRequest.Builder("http://other.test.com/a"), requestContext);
+    }
+
+    @Test
+    public void testRemainingQuotaLimitsBucket() throws Exception {
+        TokenBucket bucket = registry.get("api.test.com");
+        toTest.afterResponseHandle(responseContext(200, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", "60"));
+        assertEquals(0, bucket.getAvailablePermits());
+        assertFalse(bucket.acquire(100));
+    }
+
+    @Test
+    public void testRetryAfterPausesBucket() throws Exception {
+        TokenBucket bucket = registry.get("api.test.com");
+        toTest.afterResponseHandle(responseContext(429, "retry-after", "120"));
+        assertFalse(bucket.acquire(1000));
+    }
+
+    @Test
+    public void testNoHintLeavesBucketUntouched() throws Exception {
+        TokenBucket bucket = registry.get("api.test.com");
+        toTest.afterResponseHandle(responseContext(200));
+        assertEquals(1, bucket.getAvailablePermits());
+    }
+
+    private ResponseContext responseContext(int status, String... headers) throws Exception {
+        Map<String, List<String>> map = new HashMap<String, List<String>>();
+        for (int i = 0; i < headers.length; i += 2) {
+            map.put(headers[i], Arrays.asList(headers[i + 1]));
+        }
+        HttpResponse response = new HttpResponse(new HttpRequest.Builder("http://api.test.com/a").build(), status, map);
+        ResponseContext context = mock(ResponseContext.class);
+        when(context.getResponse()).thenReturn(response);
+        when(context.getRequestContext()).thenReturn(requestContext);
+        return context;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import org.codegist.crest.*;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class BulkheadTest {
+
+    @Test
+    public void testRejectsWhenFull() throws InterruptedException {
+        Bulkhead toTest = new Bulkhead("test", 2);
+        assertTrue(toTest.acquire());
+        assertTrue(toTest.acquire());
+        assertFalse(toTest.acquire());
+        assertEquals(2, toTest.getInFlight());
+        assertEquals(1, toTest.getSaturations());
+        assertEquals(1, toTest.getRejectedCalls());
+        toTest.release();
+        assertEquals(1, toTest.getInFlight());
+        assertTrue(toTest.acquire());
+        assertEquals(1, toTest.getRejectedCalls());
+    }
+
+    @Test
+    public void testWaitingCallGetsReleasedSlot() throws Exception {
+        final Bulkhead toTest = new Bulkhead("test", 1, 5000);
+        assertTrue(toTest.acquire());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return toTest.acquire();
+                }
+            });
+            long timeout = System.currentTimeMillis() + 5000;
+            while (toTest.getSaturations() == 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            toTest.release();
+            assertTrue(waiting.get(5, TimeUnit.SECONDS));
+            assertEquals(1, toTest.getSaturations());
+            assertEquals(0, toTest.getRejectedCalls());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitIsBoundedByDeadline() throws Exception {
+        Bulkhead toTest = new Bulkhead("test", 1, 5000);
+        assertTrue(toTest.acquire());
+        long start = System.currentTimeMillis();
+        assertFalse(toTest.acquire(start + 50));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        // expired deadline, no wait at all
+        assertFalse(toTest.acquire(start - 1));
+        assertEquals(2, toTest.getRejectedCalls());
+    }
+
+    @Test
+    public void testRestServiceReleasesSlot() throws Exception {
+        RestService delegate = mock(RestService.class);
+        HttpRequest ok = new HttpRequest.Builder("http://a.test.com/ok").build();
+        HttpRequest ko = new HttpRequest.Builder("http://a.test.com/ko").build();
+        HttpResponse response = new HttpResponse(ok, 200);
+        when(delegate.exec(ok)).thenReturn(response);
+        when(delegate.exec(ko)).thenThrow(new HttpException("unavailable", new HttpResponse(ko, 503)));
+
+        Bulkhead bulkhead = new Bulkhead("test", 1);
+        BulkheadRestService toTest = new BulkheadRestService(delegate, bulkhead);
+        assertSame(response, toTest.exec(ok));
+        assertEquals(0, bulkhead.getInFlight());
+        try {
+            toTest.exec(ko);
+            fail();
+        } catch (HttpException e) {
+            assertEquals(503, e.getResponse().getStatusCode());
+        }
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    public void testRestServiceHoldsSlotUntilResponseClosed() throws Exception {
+        RestService delegate = mock(RestService.class);
+        HttpRequest request = new HttpRequest.Builder("http://a.test.com/ok").build();
+        when(delegate.exec(request)).thenReturn(new HttpResponse(request, 200, null, new ByteArrayHttpResource("body".getBytes())));
+
+        Bulkhead bulkhead = new Bulkhead("test", 1);
+        BulkheadRestService toTest = new BulkheadRestService(delegate, bulkhead);
+        HttpResponse response = toTest.exec(request);
+        assertEquals(1, bulkhead.getInFlight());
+        try {
+            toTest.exec(request);
+            fail();
+        } catch (BulkheadFullException e) {
+            // the unread response still holds the slot
+        }
+        assertEquals("body", response.asString());
+        assertEquals(0, bulkhead.getInFlight());
+        response.close();
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    public void testRestServiceRejectsWhenFull() throws Exception {
+        RestService delegate = mock(RestService.class);
+        Bulkhead bulkhead = new Bulkhead("test", 1);
+        assertTrue(bulkhead.acquire());
+        try {
+            new BulkheadRestService(delegate, bulkhead).exec(new HttpRequest.Builder("http://a.test.com/ok").build());
+            fail();
+        } catch (BulkheadFullException e) {
+            assertSame(bulkhead, e.getBulkhead());
+        }
+        verifyZeroInteractions(delegate);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.limiter;
+
+import org.codegist.crest.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testRejectsOverLimitWithoutQueue() throws InterruptedException {
+        ConcurrencyLimiter toTest = new ConcurrencyLimiter("test", new AimdLimitAlgorithm(2, 1, 10, 0.5), 0, 1000);
+        assertTrue(toTest.acquire());
+        assertTrue(toTest.acquire());
+        assertFalse(toTest.acquire());
+        assertEquals(2, toTest.getInFlight());
+        assertEquals(1, toTest.getRejectedCalls());
+    }
+
+    @Test
+    public void testQueuedRequestGetsReleasedSlot() throws Exception {
+        final ConcurrencyLimiter toTest = new ConcurrencyLimiter("test", new AimdLimitAlgorithm(1, 1, 1, 0.5), 1, 5000);
+        assertTrue(toTest.acquire());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> queued = executor.submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return toTest.acquire();
+                }
+            });
+            long timeout = System.currentTimeMillis() + 5000;
+            while (toTest.getQueueDepth() == 0) {
+                assertTrue(System.currentTimeMillis() < timeout);
+                Thread.sleep(5);
+            }
+            // queue full
+            assertFalse(toTest.acquire());
+            toTest.release(1000, false);
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+            assertEquals(0, toTest.getQueueDepth());
+            assertEquals(1, toTest.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueuedRequestTimesOut() throws InterruptedException {
+        ConcurrencyLimiter toTest = new ConcurrencyLimiter("test", new AimdLimitAlgorithm(1, 1, 1, 0.5), 1, 50);
+        assertTrue(toTest.acquire());
+        long start = System.currentTimeMillis();
+        assertFalse(toTest.acquire());
+        assertTrue(System.currentTimeMillis() - start >= 45);
+        assertEquals(0, toTest.getQueueDepth());
+    }
+
+    @Test
+    public void testQueuedRequestWaitIsBoundedByDeadline() throws InterruptedException {
+        ConcurrencyLimiter toTest = new ConcurrencyLimiter("test", new AimdLimitAlgorithm(1, 1, 1, 0.5), 1, 5000);
+        assertTrue(toTest.acquire());
+        long start = System.currentTimeMillis();
+        assertFalse(toTest.acquire(start + 50));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(0, toTest.getQueueDepth());
+        assertEquals(1, toTest.getRejectedCalls());
+    }
+
+    @Test
+    public void testAimd() {
+        AimdLimitAlgorithm toTest = new AimdLimitAlgorithm(10, 2, 11, 0.5);
+        assertEquals(10, toTest.update(1000, 2, false));
+        assertEquals(11, toTest.update(1000, 8, false));
+        assertEquals(11, toTest.update(1000, 8, false));
+        assertEquals(5, toTest.update(1000, 8, true));
+        assertEquals(2, toTest.update(1000, 8, true));
+        assertEquals(2, toTest.update(1000, 8, true));
+    }
+
+    @Test
+    public void testGradientShrinksOnLatencyIncrease() {
+        GradientLimitAlgorithm toTest = new GradientLimitAlgorithm(100, 1, 1000, 1.5);
+        for (int i = 0; i < 10; i++) {
+            toTest.update(1000, 100, false);
+        }
+        int limit = toTest.getLimit();
+        assertTrue(limit > 100);
+        for (int i = 0; i < 30; i++) {
+            toTest.update(10000, limit, false);
+        }
+        assertTrue(toTest.getLimit() < limit);
+    }
+
+    @Test
+    public void testRestServiceLimitsPerHostAndBacksOffOnDrops() throws Exception {
+        RestService delegate = mock(RestService.class);
+        HttpRequest ok = new HttpRequest.Builder("http://a.test.com/ok").build();
+        HttpRequest ko = new HttpRequest.Builder("http://b.test.com:8080/ko").build();
+        HttpResponse response = new HttpResponse(ok, 200);
+        when(delegate.exec(ok)).thenReturn(response);
+        when(delegate.exec(ko)).thenThrow(new HttpException("unavailable", new HttpResponse(ko, 503)));
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(CRestProperty.CREST_CONCURRENCY_LIMIT_ALGORITHM, ConcurrencyLimitingRestService.ALGORITHM_AIMD);
+        properties.put(CRestProperty.CREST_CONCURRENCY_LIMIT_INITIAL, 10);
+        ConcurrencyLimitingRestService toTest = new ConcurrencyLimitingRestService(delegate, properties);
+
+        assertSame(response, toTest.exec(ok));
+        try {
+            toTest.exec(ko);
+            fail();
+        } catch (HttpException e) {
+            assertEquals(503, e.getResponse().getStatusCode());
+        }
+        assertEquals(10, toTest.getConcurrencyLimiters().get("a.test.com").getLimit());
+        assertEquals(9, toTest.getConcurrencyLimiters().get("b.test.com:8080").getLimit());
+        assertEquals(0, toTest.getConcurrencyLimiters().get("b.test.com:8080").getInFlight());
+    }
+
+    @Test
+    public void testSlotIsHeldUntilResponseClosed() throws Exception {
+        RestService delegate = mock(RestService.class);
+        HttpRequest request = new HttpRequest.Builder("http://a.test.com/ok").build();
+        when(delegate.exec(request)).thenReturn(new HttpResponse(request, 200, null, new ByteArrayHttpResource("body".getBytes())));
+        ConcurrencyLimitingRestService toTest = new ConcurrencyLimitingRestService(delegate);
+
+        HttpResponse response = toTest.exec(request);
+        ConcurrencyLimiter limiter = toTest.getConcurrencyLimiters().get("a.test.com");
+        assertEquals(1, limiter.getInFlight());
+        assertEquals("body", response.asString());
+        assertEquals(0, limiter.getInFlight());
+        // released once only
+        response.close();
+        assertEquals(0, limiter.getInFlight());
+    }
+}
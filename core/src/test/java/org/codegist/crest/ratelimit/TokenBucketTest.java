@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.ratelimit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void testBurstIsLetThroughThenFailsFast() {
+        TokenBucket toTest = new TokenBucket("test", 1, 3);
+        assertEquals(3, toTest.getAvailablePermits());
+        assertTrue(toTest.tryAcquire());
+        assertTrue(toTest.tryAcquire());
+        assertTrue(toTest.tryAcquire());
+        assertFalse(toTest.tryAcquire());
+        assertEquals(0, toTest.getAvailablePermits());
+        assertEquals(1, toTest.getRejectedCalls());
+    }
+
+    @Test
+    public void testAcquireWaitsForNextPermit() throws InterruptedException {
+        TokenBucket toTest = new TokenBucket("test", 20, 1);
+        assertTrue(toTest.acquire(0));
+        long start = System.currentTimeMillis();
+        assertTrue(toTest.acquire(1000));
+        assertTrue(System.currentTimeMillis() - start >= 40);
+        assertEquals(1, toTest.getThrottledCalls());
+    }
+
+    @Test
+    public void testAcquireGivesUpIfPermitTooFar() throws InterruptedException {
+        TokenBucket toTest = new TokenBucket("test", 0.1, 1);
+        assertTrue(toTest.acquire(0));
+        long start = System.currentTimeMillis();
+        assertFalse(toTest.acquire(100));
+        assertTrue(System.currentTimeMillis() - start < 100);
+    }
+
+    @Test
+    public void testLimitRemaining() {
+        TokenBucket toTest = new TokenBucket("test", 1, 10);
+        toTest.limitRemaining(2);
+        assertEquals(2, toTest.getAvailablePermits());
+        toTest.limitRemaining(5);
+        assertEquals(2, toTest.getAvailablePermits());
+        toTest.limitRemaining(0);
+        assertFalse(toTest.tryAcquire());
+    }
+
+    @Test
+    public void testPauseFor() throws InterruptedException {
+        TokenBucket toTest = new TokenBucket("test", 1000, 10);
+        toTest.pauseFor(60000);
+        assertFalse(toTest.tryAcquire());
+        assertFalse(toTest.acquire(100));
+    }
+}
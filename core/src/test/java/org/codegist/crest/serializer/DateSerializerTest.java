@@ -22,7 +22,13 @@ package org.codegist.crest.serializer;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 
@@ -41,6 +47,28 @@ public class DateSerializerTest {
         assertEquals("23/11/2010", serializer.serialize(new Date(1290524180273l)));
     }
     @Test
+    public void testDateFormatFromShortLivedThreads() throws Exception {
+        final DateSerializer serializer = new DateSerializer("dd/MM/yyyy HH:mm:ss");
+        // a new thread per call, as with virtual threads
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 200; i++) {
+                final long time = 1290524180273l + i * 1000l;
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() {
+                        return serializer.serialize(new Date(time));
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(String.format("23/11/2010 14:%02d:%02d", 56 + (20 + i) / 60, (20 + i) % 60), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    @Test
     public void testDateFormatMillis(){
         DateSerializer serializer = new DateSerializer("Millis");
         assertEquals("1290524180273", serializer.serialize(new Date(1290524180273l)));
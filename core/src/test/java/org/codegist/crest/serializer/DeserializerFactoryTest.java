@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *  ==================================================================
+ *
+ *  More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.serializer;
+
+import org.codegist.crest.CRestException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author laurent.gilles@codegist.org
+ */
+public class DeserializerFactoryTest {
+
+    private final Deserializer json = mock(Deserializer.class);
+    private final Deserializer smile = mock(Deserializer.class);
+    private final Deserializer xml = mock(Deserializer.class);
+    private final DeserializerFactory factory = new DeserializerFactory.Builder()
+            .register(json, "application/json")
+            .register(smile, "application/x-jackson-smile")
+            .register(xml, "application/xml")
+            .build();
+
+    @Test
+    public void testSingleMimeType() {
+        assertSame(json, factory.buildForAcceptHeader("application/json"));
+        assertSame(json, factory.buildForAcceptHeader(" application/json ; q=0.5"));
+    }
+
+    @Test
+    public void testContentNegotiation() {
+        Deserializer deserializer = factory.buildForAcceptHeader("application/json;q=0.5, application/x-jackson-smile, application/xml;q=0");
+        assertTrue(deserializer instanceof ContentNegotiatingDeserializer);
+        ContentNegotiatingDeserializer negotiating = (ContentNegotiatingDeserializer) deserializer;
+        assertSame(smile, negotiating.select("application/x-jackson-smile"));
+        assertSame(json, negotiating.select("APPLICATION/JSON"));
+        // not accepted, falls back to the preferred one
+        assertSame(smile, negotiating.select("application/xml"));
+        assertSame(smile, negotiating.select(null));
+    }
+
+    @Test
+    public void testEqualQualityKeepsOrder() {
+        ContentNegotiatingDeserializer negotiating = (ContentNegotiatingDeserializer) factory.buildForAcceptHeader("application/xml;q=0.8, application/json;q=0.8");
+        assertSame(xml, negotiating.select("text/html"));
+    }
+
+    @Test
+    public void testWildcardsAreSkipped() {
+        assertSame(json, factory.buildForAcceptHeader("application/json, */*;q=0.1"));
+        assertSame(json, factory.buildForAcceptHeader("*/*, text/*;q=0.8, application/json;q=0.5"));
+        ContentNegotiatingDeserializer negotiating = (ContentNegotiatingDeserializer) factory.buildForAcceptHeader("application/*, application/xml, application/json;q=0.5, */*;q=0.1");
+        assertSame(xml, negotiating.select("text/plain"));
+        assertSame(json, negotiating.select("application/json"));
+
+        Deserializer any = mock(Deserializer.class);
+        DeserializerFactory withWildcard = new DeserializerFactory.Builder()
+                .register(json, "application/json")
+                .register(any, "*/*")
+                .build();
+        negotiating = (ContentNegotiatingDeserializer) withWildcard.buildForAcceptHeader("application/json, */*;q=0.1");
+        assertSame(json, negotiating.select("application/json"));
+        assertSame(any, negotiating.select("*/*"));
+    }
+
+    @Test(expected = CRestException.class)
+    public void testOnlyWildcardsAccepted() {
+        factory.buildForAcceptHeader("*/*");
+    }
+
+    @Test(expected = CRestException.class)
+    public void testNothingAccepted() {
+        factory.buildForAcceptHeader("application/json;q=0");
+    }
+
+    @Test
+    public void testProtobufDeserializer() {
+        ProtobufDeserializer deserializer = new ProtobufDeserializer();
+        Message message = deserializer.deserialize(new ByteArrayInputStream(new byte[]{1, 2, 3}), Charset.forName("UTF-8"), Message.class);
+        assertEquals(3, message.size);
+    }
+
+    @Test(expected = DeserializerException.class)
+    public void testProtobufDeserializerNotAMessage() {
+        new ProtobufDeserializer().deserialize(new ByteArrayInputStream(new byte[0]), Charset.forName("UTF-8"), String.class);
+    }
+
+    public static class Message {
+        private final int size;
+
+        private Message(int size) {
+            this.size = size;
+        }
+
+        public static Message parseFrom(InputStream stream) throws IOException {
+            int size = 0;
+            while (stream.read() != -1) {
+                size++;
+            }
+            return new Message(size);
+        }
+    }
+}
@@ -25,13 +25,19 @@ import org.codehaus.jackson.map.DeserializationConfig;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.type.JavaType;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.Charset;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -84,6 +90,71 @@ public class JacksonDeserializerTest {
         new JacksonDeserializer((Map)null);
     }
 
+    @org.junit.Test
+    public void testGenericReturnType() throws Exception {
+        JacksonDeserializer deserializer = new JacksonDeserializer();
+        java.lang.reflect.Type type = JacksonDeserializerTest.class.getDeclaredMethod("tests").getGenericReturnType();
+        for (int i = 1; i <= 2; i++) {
+            List<Test> tests = deserializer.deserialize(new StringReader("[{\"test\":" + i + "}]"), type);
+            assertEquals(i, tests.get(0).getTest());
+        }
+    }
+
+    static List<Test> tests() {
+        return null;
+    }
+
+    @org.junit.Test
+    public void testDeserializeStream() throws IOException {
+        JacksonDeserializer deserializer = new JacksonDeserializer();
+        Test t = deserializer.deserialize(new ByteArrayInputStream("{\"test\":1,\"aa\":\"\u00e9\"}".getBytes("UTF-8")), Charset.forName("UTF-8"), Test.class);
+        assertEquals(1, t.test);
+        Map<String, String> m = deserializer.deserialize(new ByteArrayInputStream("{\"a\":\"\u00e9\"}".getBytes("ISO-8859-1")), Charset.forName("ISO-8859-1"), Map.class);
+        assertEquals("\u00e9", m.get("a"));
+    }
+
+    @org.junit.Test
+    public void testDeserializeElements() throws IOException {
+        JacksonDeserializer deserializer = new JacksonDeserializer();
+        ClosingReader reader = new ClosingReader("[{\"test\":1},{\"test\":2,\"aa\":2}]");
+        Iterator<Test> elements = deserializer.deserializeElements(reader, Test.class);
+        assertTrue(elements.hasNext());
+        assertEquals(1, elements.next().test);
+        assertFalse(reader.closed);
+        assertEquals(2, elements.next().test);
+        assertFalse(elements.hasNext());
+        assertTrue(reader.closed);
+    }
+
+    @org.junit.Test
+    public void testDeserializeElementsEarlyClose() throws IOException {
+        JacksonDeserializer deserializer = new JacksonDeserializer();
+        ClosingReader reader = new ClosingReader("[{\"test\":1},{\"test\":2}]");
+        Iterator<Test> elements = deserializer.deserializeElements(reader, Test.class);
+        assertEquals(1, elements.next().test);
+        ((java.io.Closeable) elements).close();
+        assertTrue(reader.closed);
+        assertFalse(elements.hasNext());
+    }
+
+    @org.junit.Test(expected = DeserializerException.class)
+    public void testDeserializeElementsNotAnArray() throws IOException {
+        new JacksonDeserializer().deserializeElements(new StringReader("{\"test\":1}"), Test.class);
+    }
+
+    private static class ClosingReader extends StringReader {
+        boolean closed = false;
+
+        ClosingReader(String s) {
+            super(s);
+        }
+
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+
     private static ObjectMapper getMapper() throws IOException {
         ObjectMapper mapper = mock(ObjectMapper.class);
         when(mapper.readValue(any(Reader.class), any(JavaType.class))).thenReturn(new Test(111));
@@ -27,7 +27,13 @@ import org.mockito.stubbing.Answer;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -46,6 +52,10 @@ import static org.mockito.Mockito.when;
 public class JaxbDeserializerTest {
 
     private static Deserializer getDeserializer(final long unmarshalTime, int poolSize, long maxWait) throws JAXBException {
+        return new JaxbDeserializer(getContext(unmarshalTime), poolSize, maxWait);
+    }
+
+    private static JAXBContext getContext(final long unmarshalTime) throws JAXBException {
         Unmarshaller unmarshaller = mock(Unmarshaller.class);
         when(unmarshaller.unmarshal(any(Reader.class))).thenAnswer(new Answer<String>() {
             public String answer(InvocationOnMock invocationOnMock) throws Throwable {
@@ -56,9 +66,48 @@ public class JaxbDeserializerTest {
 
         JAXBContext ctx = mock(JAXBContext.class);
         when(ctx.createUnmarshaller()).thenReturn(unmarshaller);
+        return ctx;
+    }
 
+    @Test
+    public void testPoolGrowsOnDemand() throws JAXBException, InterruptedException {
+        final JaxbDeserializer deserializer = (JaxbDeserializer) getDeserializer(200, 4, 10000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("hello", deserializer.deserialize(null, null));
+        }
+        // the same thread keeps on reusing the same unmarshaller
+        assertEquals(1, deserializer.getPoolSize());
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        for (int i = 0; i < 3; i++) {
+            executorService.submit(new Runnable() {
+                public void run() {
+                    deserializer.deserialize(null, null);
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(20l, TimeUnit.SECONDS);
+        assertEquals(3, deserializer.getPoolSize());
+        assertEquals(0, deserializer.getPoolMissCount());
+    }
 
-        return new JaxbDeserializer(ctx, poolSize, maxWait);
+    @Test
+    public void testPoolTrimsIdleUnmarshallers() throws JAXBException, InterruptedException {
+        final JaxbUnmarshallerPool pool = new JaxbUnmarshallerPool(getContext(100), 4, 10000, 500);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 2; i++) {
+            executorService.submit(new Runnable() {
+                public void run() {
+                    pool.unmarshal((Reader) null);
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(20l, TimeUnit.SECONDS);
+        assertEquals(2, pool.getSize());
+        Thread.sleep(600);
+        pool.unmarshal((Reader) null);
+        assertEquals(1, pool.getSize());
     }
 
     @Test
@@ -117,5 +166,77 @@ public class JaxbDeserializerTest {
         executorService.shutdown();
         executorService.awaitTermination(20l, TimeUnit.SECONDS);
         assertTrue("Should have timed out !", timedOut.get());
+        assertEquals(1, ((JaxbDeserializer) deserializer).getPoolMissCount());
+    }
+
+    @Test
+    public void testDeserializeElements() throws JAXBException {
+        JaxbDeserializer deserializer = new JaxbDeserializer(Item.class);
+        ClosingReader reader = new ClosingReader("<items><item value=\"1\"/><item value=\"2\"/></items>");
+        Iterator<Item> elements = deserializer.deserializeElements(reader, Item.class);
+        assertTrue(elements.hasNext());
+        assertEquals(1, elements.next().value);
+        assertFalse(reader.closed);
+        assertTrue(elements.hasNext());
+        assertEquals(2, elements.next().value);
+        assertFalse(elements.hasNext());
+        assertTrue(reader.closed);
+    }
+
+    @Test
+    public void testDeserializeElementsWithWhitespaces() throws JAXBException {
+        JaxbDeserializer deserializer = new JaxbDeserializer(Item.class);
+        ClosingReader reader = new ClosingReader("<?xml version=\"1.0\"?>\n<items>\n  <item value=\"1\"/>\n  <!-- second -->\n  <item value=\"2\"></item>\n</items>\n");
+        Iterator<Item> elements = deserializer.deserializeElements(reader, Item.class);
+        assertTrue(elements.hasNext());
+        assertEquals(1, elements.next().value);
+        assertTrue(elements.hasNext());
+        assertEquals(2, elements.next().value);
+        assertFalse(elements.hasNext());
+        assertTrue(reader.closed);
+    }
+
+    @Test
+    public void testDeserializeElementsEmptyRoot() throws JAXBException {
+        JaxbDeserializer deserializer = new JaxbDeserializer(Item.class);
+        ClosingReader reader = new ClosingReader("<items/>");
+        Iterator<Item> elements = deserializer.deserializeElements(reader, Item.class);
+        assertFalse(elements.hasNext());
+        assertTrue(reader.closed);
+
+        reader = new ClosingReader("<items>\n</items>");
+        elements = deserializer.deserializeElements(reader, Item.class);
+        assertFalse(elements.hasNext());
+        assertTrue(reader.closed);
+    }
+
+    @Test
+    public void testDeserializeElementsEarlyClose() throws JAXBException, IOException {
+        JaxbDeserializer deserializer = new JaxbDeserializer(Item.class);
+        ClosingReader reader = new ClosingReader("<items><item value=\"1\"/><item value=\"2\"/></items>");
+        Iterator<Item> elements = deserializer.deserializeElements(reader, Item.class);
+        assertEquals(1, elements.next().value);
+        ((Closeable) elements).close();
+        assertTrue(reader.closed);
+        assertFalse(elements.hasNext());
+    }
+
+    @XmlRootElement(name = "item")
+    public static class Item {
+        @XmlAttribute
+        int value;
+    }
+
+    private static class ClosingReader extends StringReader {
+        boolean closed = false;
+
+        ClosingReader(String s) {
+            super(s);
+        }
+
+        public void close() {
+            closed = true;
+            super.close();
+        }
     }
 }
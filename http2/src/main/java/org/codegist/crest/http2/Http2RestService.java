@@ -0,0 +1,405 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.http2;
+
+import org.codegist.common.lang.Disposable;
+import org.codegist.common.lang.Randoms;
+import org.codegist.common.log.Logger;
+import org.codegist.crest.Deadlines;
+import org.codegist.crest.HttpException;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResource;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.Params;
+import org.codegist.crest.RestService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * RestService implementation based on the JDK 11 {@link java.net.http.HttpClient}.
+ * <p>Requests to the same end-point are multiplexed as concurrent streams over a shared HTTP/2 connection: negotiated with ALPN over TLS, and with a h2c upgrade over plain http, falling back to HTTP/1.1 when the server doesn't support it.
+ * <p>Calls are sent asynchronously, {@link #execAsync(org.codegist.crest.HttpRequest)} returns as soon as the request is handed over to the client, {@link #exec(org.codegist.crest.HttpRequest)} waits for the response headers.
+ * <p>The client only supports a connection timeout for the whole client, request connection and socket timeouts are summed and bound the time until the response headers are received instead, capped to the request deadline. Response body reads are not bounded.
+ *
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see java.net.http.HttpClient
+ */
+public class Http2RestService implements RestService, Disposable {
+
+    private static final String MULTIPART = "multipart/form-data; boundary=";
+    private static final String USER_AGENT = "CodeGist-CRest Agent";
+    private static final Logger logger = Logger.getLogger(Http2RestService.class);
+
+    /**
+     * Headers the JDK client computes itself and refuses to be given.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    /**
+     * Size of the pipe a streamed body is written to.
+     */
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private static final AtomicInteger WRITER_COUNT = new AtomicInteger();
+
+    private final HttpClient http;
+    private final boolean ownsClient;
+    private final ExecutorService bodyWriters = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "crest-http2-body-" + WRITER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Construct a Http2RestService based on a client preferring HTTP/2 and following redirects.
+     */
+    public Http2RestService() {
+        this(newHttpClient(), true);
+    }
+
+    /**
+     * @param customProperties custom properties, a {@link java.net.http.HttpClient} to use can be given under its class name
+     */
+    public Http2RestService(Map<String, Object> customProperties) {
+        this(customProperties.get(HttpClient.class.getName()));
+    }
+
+    /**
+     * @param http client to use, left open on dispose
+     */
+    public Http2RestService(HttpClient http) {
+        this(http, false);
+    }
+
+    private Http2RestService(Object http) {
+        this(http != null ? (HttpClient) http : newHttpClient(), http == null);
+    }
+
+    private Http2RestService(HttpClient http, boolean ownsClient) {
+        this.http = http;
+        this.ownsClient = ownsClient;
+    }
+
+    private static HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public HttpResponse exec(HttpRequest request) throws HttpException {
+        CompletableFuture<HttpResponse> response = execAsync(request);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HttpException(e, new HttpResponse(request, -1));
+        } catch (ExecutionException e) {
+            throw toHttpException(request, e.getCause());
+        }
+    }
+
+    /**
+     * Sends the given request without waiting for the response.
+     * <p>The returned future completes with the response once its headers are received, or exceptionally with a {@link org.codegist.crest.HttpException} if the call failed or the response status is not 200. Cancelling it aborts the call.
+     *
+     * @param request request to send
+     * @return the response future
+     */
+    public CompletableFuture<HttpResponse> execAsync(final HttpRequest request) {
+        final List<BodyStream> bodies = new ArrayList<>(1);
+        java.net.http.HttpRequest jdkRequest;
+        try {
+            jdkRequest = toJdkRequest(request, bodies);
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(toHttpException(request, e));
+        }
+        logger.debug("%4s %s", request.getMeth(), jdkRequest.uri());
+        logger.trace(request);
+
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> sent = http.sendAsync(jdkRequest, BodyHandlers.ofInputStream());
+        sent.whenComplete((r, e) -> {
+            // whatever the body writer still has to say is not going to be read anymore
+            for (BodyStream body : bodies) {
+                body.close();
+            }
+        });
+        final CompletableFuture<HttpResponse> response = sent.handle((r, e) -> {
+            if (e != null) {
+                throw toHttpException(request, e);
+            }
+            Map<String, List<String>> headers = toHeaders(r.headers().map());
+            if (r.statusCode() != 200) {
+                close(r.body());
+                throw new HttpException("HTTP " + r.statusCode(), new HttpResponse(request, r.statusCode(), headers));
+            }
+            HttpResponse res = new HttpResponse(request, r.statusCode(), headers, new HttpResourceImpl(r.body()));
+            logger.trace("HTTP Response %s", res);
+            return res;
+        });
+        response.whenComplete((r, e) -> {
+            if (e instanceof CancellationException) {
+                sent.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    public HttpClient getHttpClient() {
+        return http;
+    }
+
+    public void dispose() {
+        bodyWriters.shutdownNow();
+        if (ownsClient && http instanceof AutoCloseable) {
+            // clients can only be closed from Java 21 on, before that they go away once unreachable
+            try {
+                ((AutoCloseable) http).close();
+            } catch (Exception e) {
+                logger.debug(e, "Failed to close the http client");
+            }
+        }
+    }
+
+    private java.net.http.HttpRequest toJdkRequest(final HttpRequest request, List<BodyStream> bodies) throws Exception {
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(request.getUrl(true).toURI());
+        builder.setHeader("User-Agent", USER_AGENT);
+
+        Long timeout = sum(request.getConnectionTimeout(), request.getSocketTimeout());
+        if (request.getDeadline() != null) {
+            long left = Deadlines.capWait(timeout != null ? timeout : Long.MAX_VALUE, request.getDeadline());
+            if (left <= 0) {
+                throw new HttpException("Deadline exceeded", new HttpResponse(request, -1));
+            }
+            timeout = left;
+        }
+        if (timeout != null) {
+            builder.timeout(Duration.ofMillis(timeout));
+        }
+
+        if (request.getHeaderParams() != null) {
+            for (Map.Entry<String, String> header : request.getHeaderParams().entrySet()) {
+                if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ENGLISH))) {
+                    logger.debug("Ignoring header %s, set by the http client", header.getKey());
+                    continue;
+                }
+                builder.setHeader(header.getKey(), header.getValue());
+            }
+        }
+
+        BodyPublisher publisher = BodyPublishers.noBody();
+        if (HttpRequest.HTTP_PUT.equals(request.getMeth()) || HttpRequest.HTTP_POST.equals(request.getMeth())) {
+            if (request.getBody() != null) {
+                builder.setHeader("Content-Type", request.getBodyContentType());
+                publisher = stream(bodies, request::writeBody);
+            } else if (Params.isForUpload(request.getFormParams())) {
+                final String boundary = Randoms.randomAlphaNumeric(16) + System.currentTimeMillis();
+                builder.setHeader("Content-Type", MULTIPART + boundary);
+                if (request.getFormParams() != null) {
+                    publisher = stream(bodies, os -> Params.writeMultipart(request.getFormParams(), boundary, request.getEncoding(), os));
+                }
+            } else {
+                builder.setHeader("Content-Type", "application/x-www-form-urlencoded; charset=" + request.getEncoding());
+                if (request.getFormParams() != null) {
+                    publisher = BodyPublishers.ofByteArray(Params.encodeParams(request.getFormParams(), request.getEncoding()).getBytes(request.getEncoding()));
+                }
+            }
+        }
+        return builder.method(request.getMeth(), publisher).build();
+    }
+
+    private BodyPublisher stream(List<BodyStream> bodies, BodyWriter writer) {
+        BodyStream body = new BodyStream(writer);
+        bodies.add(body);
+        return BodyPublishers.ofInputStream(body);
+    }
+
+    private static Long sum(Long connectionTimeout, Long socketTimeout) {
+        long timeout = 0;
+        if (connectionTimeout != null && connectionTimeout > 0) timeout += connectionTimeout;
+        if (socketTimeout != null && socketTimeout > 0) timeout += socketTimeout;
+        return timeout > 0 ? Long.valueOf(timeout) : null;
+    }
+
+    /**
+     * HTTP/2 header names are lower case, gives them back their usual case so that they are found the same way whatever the protocol version.
+     */
+    private static Map<String, List<String>> toHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> canonical = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (header.getKey().startsWith(":")) {
+                continue;
+            }
+            canonical.put(canonicalize(header.getKey()), header.getValue());
+        }
+        return canonical;
+    }
+
+    private static String canonicalize(String name) {
+        char[] chars = name.toLowerCase(Locale.ENGLISH).toCharArray();
+        boolean upper = true;
+        for (int i = 0; i < chars.length; i++) {
+            if (upper) {
+                chars[i] = Character.toUpperCase(chars[i]);
+            }
+            upper = chars[i] == '-';
+        }
+        return new String(chars);
+    }
+
+    private static HttpException toHttpException(HttpRequest request, Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof HttpException) {
+            return (HttpException) e;
+        }
+        return new HttpException(e, new HttpResponse(request, -1));
+    }
+
+    private static void close(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            logger.debug(e, "Failed to close response stream");
+        }
+    }
+
+    private interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Supplies the client with the reading end of a pipe the body is written to by a separate thread, so that the body is streamed rather than buffered.
+     * <p>The client asks for a new stream each time the request is sent again (eg redirects), the body is written anew each time.
+     */
+    private final class BodyStream implements Supplier<InputStream> {
+
+        private final BodyWriter writer;
+        private volatile FailingPipedInputStream current;
+
+        private BodyStream(BodyWriter writer) {
+            this.writer = writer;
+        }
+
+        public InputStream get() {
+            final FailingPipedInputStream in = new FailingPipedInputStream();
+            final PipedOutputStream out;
+            try {
+                out = new PipedOutputStream(in);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            current = in;
+            bodyWriters.execute(() -> {
+                try {
+                    writer.writeTo(out);
+                } catch (Throwable e) {
+                    in.failure = e;
+                } finally {
+                    try {
+                        out.close();
+                    } catch (IOException e) {
+                        logger.debug(e, "Failed to close body pipe");
+                    }
+                }
+            });
+            return in;
+        }
+
+        void close() {
+            FailingPipedInputStream in = current;
+            if (in != null) {
+                Http2RestService.close(in);
+            }
+        }
+    }
+
+    /**
+     * Pipe end failing instead of signaling the end of the stream when the body writer failed, so that a partially written body is never sent as a complete one.
+     */
+    private static final class FailingPipedInputStream extends PipedInputStream {
+
+        private volatile Throwable failure;
+
+        private FailingPipedInputStream() {
+            super(PIPE_SIZE);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            return check(super.read());
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            return check(super.read(b, off, len));
+        }
+
+        private int check(int read) throws IOException {
+            if (read == -1 && failure != null) {
+                throw new IOException("Failed to write request body", failure);
+            }
+            return read;
+        }
+    }
+
+    private static final class HttpResourceImpl implements HttpResource {
+
+        private final InputStream content;
+
+        private HttpResourceImpl(InputStream content) {
+            this.content = content;
+        }
+
+        public InputStream getContent() throws HttpException {
+            return content;
+        }
+
+        public void release() throws HttpException {
+            Http2RestService.close(content);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest;
+
+import org.codegist.crest.http2.Http2RestService;
+import org.junit.Test;
+
+import java.net.http.HttpClient;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class Http2CRestBuilderTest {
+
+    @Test
+    public void testHttp2RestService() {
+        HttpClient client = HttpClient.newHttpClient();
+        CRestContext context = new CRestBuilder()
+                .useHttp2RestService()
+                .setProperty(HttpClient.class.getName(), client)
+                .buildContext();
+        assertTrue(context.getRestService() instanceof Http2RestService);
+        assertSame(client, ((Http2RestService) context.getRestService()).getHttpClient());
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.http2;
+
+import org.codegist.crest.RestService;
+import org.codegist.crest.RestServiceContractTest;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class Http2RestServiceTest extends RestServiceContractTest {
+    public RestService getRestService() {
+        return new Http2RestService();
+    }
+}
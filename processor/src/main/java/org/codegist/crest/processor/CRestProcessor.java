@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.processor;
+
+import org.codegist.crest.DefaultCRest;
+import org.codegist.crest.annotate.EndPoint;
+import org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+
+/**
+ * <p>Annotation processor generating, for every interface annotated with {@link org.codegist.crest.annotate.EndPoint}, the classes CRest picks instead of doing the work at runtime:
+ * <p>- A configuration factory named after the interface binary name suffixed with {@link org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory#PRECOMPILED_SUFFIX}, building the interface config out of the literal annotation values rather than scanning the annotations by reflection.
+ * <p>- An implementation of the interface named after the interface binary name suffixed with {@link org.codegist.crest.DefaultCRest#PRECOMPILED_SUFFIX}, used instead of a dynamic proxy. It is not generated for generic interfaces nor for interfaces declaring generic methods.
+ * <p>The processor is registered as a service, having the codegist-crest-processor jar in the compilation classpath is enough to enable it.
+ *
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ * @see org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory
+ * @see org.codegist.crest.DefaultCRest
+ */
+@SupportedAnnotationTypes("org.codegist.crest.annotate.EndPoint")
+public class CRestProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(EndPoint.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "@EndPoint is only supported on interfaces, nothing generated", element);
+                continue;
+            }
+            TypeElement interfaze = (TypeElement) element;
+            if (!isAccessible(interfaze)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Interface not accessible from its package, nothing generated", element);
+                continue;
+            }
+            generate(interfaze);
+        }
+        return false;
+    }
+
+    private void generate(TypeElement interfaze) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(interfaze).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(interfaze).toString();
+        String simpleName = packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1);
+
+        ConfigFactoryGenerator config = new ConfigFactoryGenerator(processingEnv);
+        write(interfaze, packageName, simpleName + CRestAnnotationDrivenInterfaceConfigFactory.PRECOMPILED_SUFFIX, config);
+
+        ProxyGenerator proxy = new ProxyGenerator(processingEnv);
+        String unsupported = proxy.getUnsupportedReason(interfaze);
+        if (unsupported == null) {
+            write(interfaze, packageName, simpleName + DefaultCRest.PRECOMPILED_SUFFIX, proxy);
+        } else {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "No implementation generated, " + unsupported + ", a dynamic proxy will be used", interfaze);
+        }
+    }
+
+    private void write(TypeElement interfaze, String packageName, String className, Generator generator) {
+        String name = packageName.length() == 0 ? className : packageName + "." + className;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(name, interfaze);
+            PrintWriter out = new PrintWriter(file.openWriter());
+            try {
+                if (packageName.length() > 0) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+                generator.generate(interfaze, className, out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + name + ": " + e.getMessage(), interfaze);
+        }
+    }
+
+    private static boolean isAccessible(TypeElement interfaze) {
+        for (Element e = interfaze; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement type = (TypeElement) e;
+            if (type.getModifiers().contains(Modifier.PRIVATE) || type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
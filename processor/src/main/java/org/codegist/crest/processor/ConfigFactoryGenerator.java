@@ -0,0 +1,294 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.processor;
+
+import org.codegist.crest.annotate.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the {@link org.codegist.crest.config.InterfaceConfigFactory} of an interface, building the same config as {@link org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory} does, the builder calls being made in the same order, out of the annotation values read at compile time.
+ *
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+class ConfigFactoryGenerator implements Generator {
+
+    private static final String BUILDER = "org.codegist.crest.config.ConfigBuilders.InterfaceConfigBuilder";
+    private static final String INDENT = "                    ";
+    private static final Class<?>[] PARAM_CONTAINERS = {FormParams.class, PathParams.class, QueryParams.class, HeaderParams.class};
+
+    private final Elements elements;
+    private final Types types;
+
+    ConfigFactoryGenerator(ProcessingEnvironment processingEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    public void generate(TypeElement interfaze, String className, PrintWriter out) {
+        out.println("/**");
+        out.println(" * Configuration factory of {@link " + interfaze.getQualifiedName() + "}, generated by " + CRestProcessor.class.getName() + ".");
+        out.println(" */");
+        out.println("public final class " + className + " implements org.codegist.crest.config.InterfaceConfigFactory {");
+        out.println();
+        out.println("    public org.codegist.crest.config.InterfaceConfig newConfig(java.lang.Class<?> interfaze, org.codegist.crest.CRestContext context) throws org.codegist.crest.config.ConfigFactoryException {");
+        out.println("        try {");
+        out.println("            return new " + BUILDER + "(interfaze, context.getProperties())");
+
+        /* Interface specifics */
+        call(out, "", "setEndPoints", interfaze, EndPoint.class, "value");
+        call(out, "", "setPath", interfaze, Path.class, "value");
+        call(out, "", "setEncoding", interfaze, Encoding.class, "value");
+        call(out, "", "setGlobalInterceptor", interfaze, GlobalInterceptor.class, "value");
+        for (String[] param : getExtraParams(interfaze)) {
+            out.println(INDENT + ".addMethodsExtraParam(" + literal(param[0]) + ", " + literal(param[1]) + ", " + literal(param[2]) + ")");
+        }
+
+        /* Methods defaults */
+        call(out, "", "setMethodsSocketTimeout", interfaze, SocketTimeout.class, "value");
+        call(out, "", "setMethodsConnectionTimeout", interfaze, ConnectionTimeout.class, "value");
+        call(out, "", "setMethodsRequestInterceptor", interfaze, RequestInterceptor.class, "value");
+        call(out, "", "setMethodsResponseHandler", interfaze, ResponseHandler.class, "value");
+        call(out, "", "setMethodsErrorHandler", interfaze, ErrorHandler.class, "value");
+        call(out, "", "setMethodsRetryHandler", interfaze, RetryHandler.class, "value");
+        call(out, "", "setMethodsPaginator", interfaze, Paginated.class, "value");
+        call(out, "", "setMethodsCacheable", interfaze, Cacheable.class, "value");
+        call(out, "", "setMethodsHedgeDelay", interfaze, Hedged.class, "value");
+        call(out, "", "setMethodsDeadline", interfaze, Deadline.class, "value");
+        call(out, "", "setMethodsBulkhead", interfaze, Bulkhead.class, "value", "maxWait");
+        call(out, "", "setMethodsConsumes", interfaze, Consumes.class, "value");
+        String httpMethod = getHttpMethod(interfaze);
+        if (httpMethod != null) out.println(INDENT + ".setMethodsHttpMethod(" + httpMethod + ")");
+
+        /* Params defaults */
+        call(out, "", "setParamsSerializer", interfaze, Serializer.class, "value");
+        call(out, "", "setParamsInjector", interfaze, Injector.class, "value");
+
+        for (ExecutableElement meth : ElementFilter.methodsIn(interfaze.getEnclosedElements())) {
+            generateMethod(meth, out);
+        }
+
+        out.println(INDENT + ".build(false, true);");
+        out.println("        } catch (java.lang.RuntimeException e) {");
+        out.println("            throw e;");
+        out.println("        } catch (java.lang.Exception e) {");
+        out.println("            throw new org.codegist.crest.config.ConfigFactoryException(e);");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("}");
+    }
+
+    private void generateMethod(ExecutableElement meth, PrintWriter out) {
+        StringBuilder paramTypes = new StringBuilder();
+        for (VariableElement param : meth.getParameters()) {
+            if (paramTypes.length() > 0) paramTypes.append(", ");
+            paramTypes.append(classLiteral(param.asType()));
+        }
+        out.println(INDENT + ".startMethodConfig(interfaze.getDeclaredMethod(" + literal(meth.getSimpleName().toString()) + ", new java.lang.Class<?>[]{" + paramTypes + "}))");
+
+        String indent = "    ";
+        for (String[] param : getExtraParams(meth)) {
+            out.println(INDENT + indent + ".startExtraParamConfig(" + literal(param[0]) + ").setDefaultValue(" + literal(param[1]) + ").setDestination(" + literal(param[2]) + ").endParamConfig()");
+        }
+        call(out, indent, "setPath", meth, Path.class, "value");
+        call(out, indent, "setSocketTimeout", meth, SocketTimeout.class, "value");
+        call(out, indent, "setConnectionTimeout", meth, ConnectionTimeout.class, "value");
+        call(out, indent, "setRequestInterceptor", meth, RequestInterceptor.class, "value");
+        call(out, indent, "setResponseHandler", meth, ResponseHandler.class, "value");
+        call(out, indent, "setErrorHandler", meth, ErrorHandler.class, "value");
+        call(out, indent, "setRetryHandler", meth, RetryHandler.class, "value");
+        call(out, indent, "setPaginator", meth, Paginated.class, "value");
+        call(out, indent, "setCacheable", meth, Cacheable.class, "value");
+        call(out, indent, "setHedgeDelay", meth, Hedged.class, "value");
+        call(out, indent, "setDeadline", meth, Deadline.class, "value");
+        call(out, indent, "setBulkhead", meth, Bulkhead.class, "value", "maxWait");
+        call(out, indent, "setConsumes", meth, Consumes.class, "value");
+        String httpMethod = getHttpMethod(meth);
+        if (httpMethod != null) out.println(INDENT + indent + ".setHttpMethod(" + httpMethod + ")");
+
+        call(out, indent, "setParamsSerializer", meth, Serializer.class, "value");
+        call(out, indent, "setParamsInjector", meth, Injector.class, "value");
+
+        List<? extends VariableElement> params = meth.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            VariableElement param = params.get(i);
+            out.println(INDENT + indent + ".startParamConfig(" + i + ")");
+            String paramIndent = indent + "    ";
+
+            // Injects user type annotated config.
+            TypeMirror paramType = types.erasure(param.asType());
+            if (paramType.getKind() == TypeKind.DECLARED) {
+                Element paramTypeElement = types.asElement(paramType);
+                call(out, paramIndent, "setSerializer", paramTypeElement, Serializer.class, "value");
+                call(out, paramIndent, "setInjector", paramTypeElement, Injector.class, "value");
+            }
+
+            /* Params specifics - Override user annotated config */
+            call(out, paramIndent, "setSerializer", param, Serializer.class, "value");
+            call(out, paramIndent, "setInjector", param, Injector.class, "value");
+
+            Set<String[]> paramConfigs = getParams(param.getAnnotationMirrors());
+            String[] paramConfig = paramConfigs.isEmpty() ? new String[3] : paramConfigs.iterator().next();
+            out.println(INDENT + paramIndent + ".setName(" + literal(paramConfig[0]) + ")");
+            out.println(INDENT + paramIndent + ".setDestination(" + literal(paramConfig[2]) + ")");
+            out.println(INDENT + paramIndent + ".setDefaultValue(" + literal(paramConfig[1]) + ")");
+
+            call(out, paramIndent, "forBody", param, Body.class, "value");
+
+            out.println(INDENT + indent + ".endParamConfig()");
+        }
+
+        out.println(INDENT + ".endMethodConfig()");
+    }
+
+    /**
+     * Writes a builder call passing the given annotation values, if the element is annotated with it.
+     */
+    private void call(PrintWriter out, String indent, String setter, Element element, Class<? extends Annotation> annotation, String... names) {
+        AnnotationMirror mirror = getAnnotation(element.getAnnotationMirrors(), annotation);
+        if (mirror == null) return;
+        StringBuilder args = new StringBuilder();
+        for (String name : names) {
+            if (args.length() > 0) args.append(", ");
+            args.append(literal(getValue(mirror, name)));
+        }
+        out.println(INDENT + indent + "." + setter + "(" + args + ")");
+    }
+
+    /**
+     * Mirrors {@link org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory}: the first annotation meta-annotated with {@link org.codegist.crest.annotate.HttpMethod}, otherwise {@link org.codegist.crest.annotate.HttpMethod} itself.
+     * @return the http method literal, null if none
+     */
+    private String getHttpMethod(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            AnnotationMirror meth = getAnnotation(mirror.getAnnotationType().asElement().getAnnotationMirrors(), HttpMethod.class);
+            if (meth != null) return literal(getValue(meth, "value"));
+        }
+        AnnotationMirror meth = getAnnotation(element.getAnnotationMirrors(), HttpMethod.class);
+        return meth != null ? literal(getValue(meth, "value")) : null;
+    }
+
+    /**
+     * Mirrors {@link org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory}: the param annotations first, then the ones held by the param containers, without duplicates.
+     * @return name, default value and destination of each extra param
+     */
+    private Set<String[]> getExtraParams(Element element) {
+        Set<String[]> params = getParams(element.getAnnotationMirrors());
+        for (Class<?> container : PARAM_CONTAINERS) {
+            AnnotationMirror mirror = getAnnotation(element.getAnnotationMirrors(), container);
+            if (mirror == null) continue;
+            List<AnnotationMirror> contained = new ArrayList<AnnotationMirror>();
+            for (Object value : (List<?>) getValue(mirror, "value")) {
+                contained.add((AnnotationMirror) ((AnnotationValue) value).getValue());
+            }
+            for (String[] param : getParams(contained)) {
+                add(params, param);
+            }
+        }
+        return params;
+    }
+
+    private Set<String[]> getParams(List<? extends AnnotationMirror> mirrors) {
+        Set<String[]> params = new LinkedHashSet<String[]>();
+        for (AnnotationMirror mirror : mirrors) {
+            AnnotationMirror param = getAnnotation(mirror.getAnnotationType().asElement().getAnnotationMirrors(), Param.class);
+            if (param != null) {
+                add(params, new String[]{
+                        (String) getValue(mirror, "value"),
+                        (String) getValue(mirror, "defaultValue"),
+                        (String) getValue(param, "value")
+                });
+            }
+        }
+        return params;
+    }
+
+    // arrays don't compare by value, duplicates are checked by hand
+    private static void add(Set<String[]> params, String[] param) {
+        for (String[] p : params) {
+            if (Arrays.equals(p, param)) return;
+        }
+        params.add(param);
+    }
+
+    private static AnnotationMirror getAnnotation(List<? extends AnnotationMirror> mirrors, Class<?> annotation) {
+        for (AnnotationMirror mirror : mirrors) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation.getName())) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object getValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException("No value " + name + " in " + mirror);
+    }
+
+    /**
+     * @return the java literal of the given annotation value
+     */
+    private String literal(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof TypeMirror) {
+            return classLiteral((TypeMirror) value);
+        } else if (value instanceof List) {
+            StringBuilder array = new StringBuilder();
+            for (Object item : (List<?>) value) {
+                if (array.length() > 0) array.append(", ");
+                array.append(literal(((AnnotationValue) item).getValue()));
+            }
+            return "new java.lang.String[]{" + array + "}";
+        } else {
+            return elements.getConstantExpression(value);
+        }
+    }
+
+    private String classLiteral(TypeMirror type) {
+        return types.erasure(type).toString() + ".class";
+    }
+
+}
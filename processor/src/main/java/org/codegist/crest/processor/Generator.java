@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.processor;
+
+import javax.lang.model.element.TypeElement;
+import java.io.PrintWriter;
+
+/**
+ * Writes the source of a class generated for an interface, the package declaration excluded.
+ *
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+interface Generator {
+
+    /**
+     * @param interfaze interface to generate the class for
+     * @param className simple name of the class to generate, in the interface package
+     * @param out writer to write the class source to
+     */
+    void generate(TypeElement interfaze, String className, PrintWriter out);
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Generates the implementation of an interface, behaving as the dynamic proxy would: each interface method hands the call to the {@link org.codegist.common.reflect.InvocationHandler} given at construction with the same {@link java.lang.reflect.Method} the proxy would pass, as well as {@link Object#equals(Object)}, {@link Object#hashCode()} and {@link Object#toString()}.
+ *
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+class ProxyGenerator implements Generator {
+
+    private final Elements elements;
+    private final Types types;
+
+    ProxyGenerator(ProcessingEnvironment processingEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    /**
+     * @param interfaze interface to check
+     * @return why no implementation can be generated for the given interface, null if it can
+     */
+    String getUnsupportedReason(TypeElement interfaze) {
+        if (!interfaze.getTypeParameters().isEmpty()) {
+            return "the interface is generic";
+        }
+        for (ExecutableElement meth : getMethods(interfaze)) {
+            if (!meth.getTypeParameters().isEmpty()) {
+                return "method " + meth.getSimpleName() + " is generic";
+            }
+        }
+        return null;
+    }
+
+    public void generate(TypeElement interfaze, String className, PrintWriter out) {
+        String interfaceName = interfaze.getQualifiedName().toString();
+        List<ExecutableElement> methods = getMethods(interfaze);
+
+        out.println("/**");
+        out.println(" * Implementation of {@link " + interfaceName + "} handing every call to the given handler, generated by " + CRestProcessor.class.getName() + ".");
+        out.println(" */");
+        out.println("@java.lang.SuppressWarnings(\"unchecked\")");
+        out.println("public final class " + className + " implements " + interfaceName + " {");
+        out.println();
+        out.println("    private static final java.lang.reflect.Method EQUALS;");
+        out.println("    private static final java.lang.reflect.Method HASH_CODE;");
+        out.println("    private static final java.lang.reflect.Method TO_STRING;");
+        out.println("    private static final java.lang.reflect.Method[] METHODS;");
+        out.println();
+        out.println("    static {");
+        out.println("        try {");
+        out.println("            EQUALS = java.lang.Object.class.getMethod(\"equals\", new java.lang.Class<?>[]{java.lang.Object.class});");
+        out.println("            HASH_CODE = java.lang.Object.class.getMethod(\"hashCode\", new java.lang.Class<?>[0]);");
+        out.println("            TO_STRING = java.lang.Object.class.getMethod(\"toString\", new java.lang.Class<?>[0]);");
+        out.println("            METHODS = new java.lang.reflect.Method[]{");
+        for (ExecutableElement meth : methods) {
+            StringBuilder paramTypes = new StringBuilder();
+            for (VariableElement param : meth.getParameters()) {
+                if (paramTypes.length() > 0) paramTypes.append(", ");
+                paramTypes.append(types.erasure(param.asType())).append(".class");
+            }
+            out.println("                    " + interfaceName + ".class.getMethod(" + elements.getConstantExpression(meth.getSimpleName().toString()) + ", new java.lang.Class<?>[]{" + paramTypes + "}),");
+        }
+        out.println("            };");
+        out.println("        } catch (java.lang.NoSuchMethodException e) {");
+        out.println("            throw new java.lang.NoSuchMethodError(e.getMessage());");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    private final org.codegist.common.reflect.InvocationHandler handler;");
+        out.println();
+        out.println("    public " + className + "(org.codegist.common.reflect.InvocationHandler handler) {");
+        out.println("        this.handler = handler;");
+        out.println("    }");
+
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement meth = methods.get(i);
+            ExecutableType type = (ExecutableType) types.asMemberOf((DeclaredType) interfaze.asType(), meth);
+            List<? extends TypeMirror> paramTypes = type.getParameterTypes();
+            StringBuilder params = new StringBuilder();
+            StringBuilder args = new StringBuilder();
+            for (int j = 0; j < paramTypes.size(); j++) {
+                if (j > 0) {
+                    params.append(", ");
+                    args.append(", ");
+                }
+                TypeMirror paramType = paramTypes.get(j);
+                if (meth.isVarArgs() && j == paramTypes.size() - 1) {
+                    params.append(((ArrayType) paramType).getComponentType()).append("...");
+                } else {
+                    params.append(paramType);
+                }
+                params.append(" arg").append(j);
+                args.append("arg").append(j);
+            }
+            String argsArray = paramTypes.isEmpty() ? "null" : "new java.lang.Object[]{" + args + "}";
+            generateMethod(out, type.getReturnType(), meth.getSimpleName().toString(), params.toString(), type.getThrownTypes(), "METHODS[" + i + "]", argsArray);
+        }
+
+        generateMethod(out, types.getPrimitiveType(TypeKind.BOOLEAN), "equals", "java.lang.Object arg0", Collections.<TypeMirror>emptyList(), "EQUALS", "new java.lang.Object[]{arg0}");
+        generateMethod(out, types.getPrimitiveType(TypeKind.INT), "hashCode", "", Collections.<TypeMirror>emptyList(), "HASH_CODE", "null");
+        generateMethod(out, elements.getTypeElement(String.class.getName()).asType(), "toString", "", Collections.<TypeMirror>emptyList(), "TO_STRING", "null");
+
+        out.println();
+        out.println("}");
+    }
+
+    private void generateMethod(PrintWriter out, TypeMirror returnType, String name, String params, List<? extends TypeMirror> thrownTypes, String method, String args) {
+        List<TypeMirror> rethrown = getRethrownTypes(thrownTypes);
+        StringBuilder throwsClause = new StringBuilder();
+        for (TypeMirror thrown : thrownTypes) {
+            throwsClause.append(throwsClause.length() == 0 ? " throws " : ", ").append(thrown);
+        }
+
+        String invoke = "handler.invoke(this, " + method + ", " + args + ")";
+        String statement;
+        if (returnType.getKind() == TypeKind.VOID) {
+            statement = invoke + ";";
+        } else if (returnType.getKind().isPrimitive()) {
+            TypeElement boxed = types.boxedClass((PrimitiveType) returnType);
+            statement = "return ((" + boxed.getQualifiedName() + ") " + invoke + ")." + returnType + "Value();";
+        } else {
+            statement = "return (" + returnType + ") " + invoke + ";";
+        }
+
+        out.println();
+        out.println("    public " + returnType + " " + name + "(" + params + ")" + throwsClause + " {");
+        out.println("        try {");
+        out.println("            " + statement);
+        out.println("        } catch (java.lang.RuntimeException e) {");
+        out.println("            throw e;");
+        out.println("        } catch (java.lang.Error e) {");
+        out.println("            throw e;");
+        boolean throwable = false;
+        for (TypeMirror thrown : rethrown) {
+            out.println("        } catch (" + thrown + " e) {");
+            out.println("            throw e;");
+            throwable |= isThrowable(thrown);
+        }
+        if (!throwable) {
+            out.println("        } catch (java.lang.Throwable e) {");
+            out.println("            throw new java.lang.reflect.UndeclaredThrowableException(e);");
+        }
+        out.println("        }");
+        out.println("    }");
+    }
+
+    /**
+     * @return the declared checked exceptions, the most specific first so that every catch clause is reachable
+     */
+    private List<TypeMirror> getRethrownTypes(List<? extends TypeMirror> thrownTypes) {
+        TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+        TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+        List<TypeMirror> rethrown = new ArrayList<TypeMirror>();
+        for (TypeMirror thrown : thrownTypes) {
+            if (types.isSubtype(thrown, runtimeException) || types.isSubtype(thrown, error)) continue;
+            boolean duplicate = false;
+            for (TypeMirror t : rethrown) {
+                duplicate |= types.isSameType(t, thrown);
+            }
+            if (!duplicate) rethrown.add(thrown);
+        }
+        Collections.sort(rethrown, new Comparator<TypeMirror>() {
+            public int compare(TypeMirror o1, TypeMirror o2) {
+                return depth(o2) - depth(o1);
+            }
+        });
+        return rethrown;
+    }
+
+    private int depth(TypeMirror type) {
+        int depth = 0;
+        for (List<? extends TypeMirror> supertypes = types.directSupertypes(type); !supertypes.isEmpty(); supertypes = types.directSupertypes(supertypes.get(0))) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private boolean isThrowable(TypeMirror type) {
+        return types.isSameType(type, elements.getTypeElement(Throwable.class.getName()).asType());
+    }
+
+    /**
+     * @return the abstract methods of the interface and its super-interfaces, the ones redeclaring an {@link Object} method excluded as they are handled apart
+     */
+    private List<ExecutableElement> getMethods(TypeElement interfaze) {
+        List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        for (ExecutableElement meth : ElementFilter.methodsIn(elements.getAllMembers(interfaze))) {
+            if (meth.getEnclosingElement().getKind() != ElementKind.INTERFACE
+                    || !meth.getModifiers().contains(Modifier.ABSTRACT)
+                    || isObjectMethod(meth)
+                    || isOverridden(meth, methods)) continue;
+            methods.add(meth);
+        }
+        return methods;
+    }
+
+    private boolean isOverridden(ExecutableElement meth, List<ExecutableElement> methods) {
+        for (ExecutableElement m : methods) {
+            if (m.getSimpleName().equals(meth.getSimpleName()) && getErasedParameters(m).equals(getErasedParameters(meth))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> getErasedParameters(ExecutableElement meth) {
+        List<String> params = new ArrayList<String>();
+        for (VariableElement param : meth.getParameters()) {
+            params.add(types.erasure(param.asType()).toString());
+        }
+        return params;
+    }
+
+    private boolean isObjectMethod(ExecutableElement meth) {
+        String name = meth.getSimpleName().toString();
+        List<? extends VariableElement> params = meth.getParameters();
+        return ("equals".equals(name) && params.size() == 1 && types.erasure(params.get(0).asType()).toString().equals(Object.class.getName()))
+                || ("hashCode".equals(name) && params.isEmpty())
+                || ("toString".equals(name) && params.isEmpty());
+    }
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2010 CodeGist.org
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * ===================================================================
+ *
+ * More information at http://www.codegist.org.
+ */
+
+package org.codegist.crest.processor;
+
+import org.codegist.common.reflect.InvocationHandler;
+import org.codegist.crest.CRestBuilder;
+import org.codegist.crest.CRestContext;
+import org.codegist.crest.DefaultCRest;
+import org.codegist.crest.HttpRequest;
+import org.codegist.crest.HttpResponse;
+import org.codegist.crest.ByteArrayHttpResource;
+import org.codegist.crest.RestService;
+import org.codegist.crest.Stubs;
+import org.codegist.crest.annotate.*;
+import org.codegist.crest.config.CRestAnnotationDrivenInterfaceConfigFactory;
+import org.codegist.crest.config.ConfigFactoryException;
+import org.codegist.crest.config.InterfaceConfig;
+import org.codegist.crest.config.InterfaceConfigFactory;
+import org.codegist.crest.config.InterfaceConfigTestHelper;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Laurent Gilles (laurent.gilles@codegist.org)
+ */
+public class CRestProcessorTest {
+
+    private final CRestContext mockContext = mock(CRestContext.class);{
+        when(mockContext.getProperties()).thenReturn(Collections.<String, Object>emptyMap());
+    }
+
+    @Test
+    public void testGeneratedConfigMatchesAnnotations() throws Exception {
+        for (Class<?> interfaze : new Class<?>[]{ConfiguredInterface.class, RemoteInterface.class, Nested.class}) {
+            InterfaceConfigFactory generated = (InterfaceConfigFactory) Class.forName(interfaze.getName() + CRestAnnotationDrivenInterfaceConfigFactory.PRECOMPILED_SUFFIX).newInstance();
+            InterfaceConfig expected = new CRestAnnotationDrivenInterfaceConfigFactory().newConfig(new ReflectionOnlyClassLoader(interfaze).loadClass(interfaze.getName()), mockContext);
+
+            InterfaceConfigTestHelper.assertExpected(expected, generated.newConfig(interfaze, mockContext), interfaze);
+        }
+    }
+
+    @Test
+    public void testGeneratedConfigIsPickedUp() throws ConfigFactoryException {
+        InterfaceConfig config = new CRestAnnotationDrivenInterfaceConfigFactory().newConfig(ConfiguredInterface.class, mockContext);
+        assertEquals("http://localhost:8080", config.getEndPoint());
+        assertEquals(ConfiguredInterface.class, config.getInterface());
+    }
+
+    @Test
+    public void testGeneratedImplementationIsPickedUp() throws Exception {
+        final List<String> urls = new ArrayList<String>();
+        RestService restService = mock(RestService.class);
+        when(restService.exec(any(HttpRequest.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                HttpRequest request = (HttpRequest) invocationOnMock.getArguments()[0];
+                urls.add(request.getMeth() + " " + request.getUrlString(true));
+                return new HttpResponse(request, 200, Collections.<String, List<String>>emptyMap(), new ByteArrayHttpResource("hello".getBytes()));
+            }
+        });
+
+        RemoteInterface remote = new CRestBuilder().setRestService(restService).build().build(RemoteInterface.class);
+
+        assertEquals(RemoteInterface.class.getName() + DefaultCRest.PRECOMPILED_SUFFIX, remote.getClass().getName());
+        assertEquals("hello", remote.get("12", 3));
+        assertEquals("hello", remote.search("crest").get());
+        assertEquals("hello", remote.tagged("a", "b"));
+        assertEquals("GET http://localhost:8080/api/users/12?format=json&limit=3", urls.get(0));
+        assertEquals("GET http://localhost:8080/api/users/?format=json&q=crest", urls.get(1));
+        assertEquals("HEAD http://localhost:8080/api/users/?format=json&tag=a%2Cb", urls.get(2));
+        assertEquals(remote, remote);
+        assertFalse(remote.equals(new CRestBuilder().setRestService(restService).build().build(RemoteInterface.class)));
+    }
+
+    @Test
+    public void testGeneratedImplementationHandsCallsToTheHandler() throws Throwable {
+        final List<Method> methods = new ArrayList<Method>();
+        RemoteInterface remote = new RemoteInterface$$CRestProxy(new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                methods.add(method);
+                if ("delete".equals(method.getName())) {
+                    throw (Throwable) args[0];
+                }
+                return "hashCode".equals(method.getName()) ? 7 : "proxy";
+            }
+        });
+
+        assertEquals("proxy", remote.find("a"));
+        assertEquals(7, remote.hashCode());
+        assertEquals("proxy", remote.toString());
+        assertEquals(BaseInterface.class.getMethod("find", Object.class), methods.get(0));
+        assertEquals(Object.class.getMethod("hashCode"), methods.get(1));
+        assertEquals(Object.class.getMethod("toString"), methods.get(2));
+
+        IOException declared = new IOException();
+        try {
+            remote.delete(declared);
+            fail();
+        } catch (IOException e) {
+            assertSame(declared, e);
+        }
+        IllegalStateException unchecked = new IllegalStateException();
+        try {
+            remote.delete(unchecked);
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(unchecked, e);
+        }
+        Exception undeclared = new Exception();
+        try {
+            remote.delete(undeclared);
+            fail();
+        } catch (UndeclaredThrowableException e) {
+            assertSame(undeclared, e.getUndeclaredThrowable());
+        }
+    }
+
+    @Test
+    public void testNoImplementationForGenericInterfaces() throws ConfigFactoryException {
+        assertEquals("http://localhost:8080", new CRestAnnotationDrivenInterfaceConfigFactory().newConfig(GenericInterface.class, mockContext).getEndPoint());
+        try {
+            Class.forName(GenericInterface.class.getName() + DefaultCRest.PRECOMPILED_SUFFIX);
+            fail();
+        } catch (ClassNotFoundException e) {
+            // a dynamic proxy is used
+        }
+    }
+
+    @EndPoint("http://localhost:8080")
+    @Path("/nested")
+    static interface Nested {
+        @GET
+        String get(@QueryParam("id") String id);
+    }
+
+    /**
+     * Hides the generated configuration factories and loads its own copy of the given interface package, so that the interface config is built by reflection.
+     */
+    private static class ReflectionOnlyClassLoader extends ClassLoader {
+        private final String packageName;
+
+        ReflectionOnlyClassLoader(Class<?> interfaze) {
+            super(interfaze.getClassLoader());
+            this.packageName = interfaze.getPackage().getName() + ".";
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.endsWith(CRestAnnotationDrivenInterfaceConfigFactory.PRECOMPILED_SUFFIX)) {
+                throw new ClassNotFoundException(name);
+            } else if (!name.startsWith(packageName)) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                byte[] bytes = read(getParent().getResourceAsStream(name.replace('.', '/') + ".class"));
+                clazz = defineClass(name, bytes, 0, bytes.length);
+            }
+            return clazz;
+        }
+
+        private static byte[] read(InputStream in) throws ClassNotFoundException {
+            try {
+                try {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    for (int read; (read = in.read(buffer)) != -1; ) {
+                        out.write(buffer, 0, read);
+                    }
+                    return out.toByteArray();
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new ClassNotFoundException(e.getMessage(), e);
+            }
+        }
+    }
+}
+
+@EndPoint({"http://localhost:8080", "http://localhost:8081"})
+@Path("/api")
+@Encoding("iso-8859-1")
+@SocketTimeout(5000)
+@Cacheable(false)
+@POST
+@QueryParam(value = "format", defaultValue = "json")
+@Serializer(Stubs.Serializer1.class)
+@GlobalInterceptor(Stubs.RequestInterceptor1.class)
+interface ConfiguredInterface {
+
+    @GET
+    @Path("/users/{id}")
+    @ConnectionTimeout(2000)
+    @Bulkhead(value = 2, maxWait = 100)
+    @Hedged(50)
+    @Deadline(3000)
+    @RetryHandler(Stubs.RetryHandler1.class)
+    @ErrorHandler(Stubs.ErrorHandler1.class)
+    @ResponseHandler(Stubs.ResponseHandler1.class)
+    @RequestInterceptor(Stubs.RequestInterceptor2.class)
+    @HeaderParams({@HeaderParam(value = "X-Client", defaultValue = "crest"), @HeaderParam(value = "X-Version", defaultValue = "1")})
+    @QueryParam(value = "format", defaultValue = "json")
+    String get(@PathParam("id") String id, @Serializer(Stubs.Serializer2.class) @QueryParam(value = "verbose", defaultValue = "false") boolean verbose);
+
+    @Cacheable
+    @Injector(Stubs.RequestParameterInjector1.class)
+    Object create(@FormParam("model") Model model, @FormParam("models") Model[] models, @Injector(Stubs.RequestParameterInjector2.class) @FormParam("other") Model other);
+
+    Future<Map<String, List<String>>> list(@QueryParam("page") int page);
+
+}
+
+@Serializer(Stubs.Serializer3.class)
+@Injector(Stubs.RequestParameterInjector3.class)
+class Model {
+}
+
+@EndPoint("http://localhost:8080")
+@Path("/api/users")
+@QueryParam(value = "format", defaultValue = "json")
+interface RemoteInterface extends BaseInterface<String> {
+
+    @Path("/{id}")
+    String get(@PathParam("id") String id, @QueryParam("limit") int limit);
+
+    Future<String> search(@QueryParam("q") String query);
+
+    @HEAD
+    String tagged(@QueryParam("tag") String... tags);
+
+    void delete(@QueryParam("cause") Throwable cause) throws IOException;
+
+}
+
+interface BaseInterface<T> {
+    T find(T query);
+}
+
+@EndPoint("http://localhost:8080")
+interface GenericInterface<T> {
+    T get();
+}
@@ -21,6 +21,7 @@
 package org.codegist.crest.twitter.model;
 
 import org.codegist.common.lang.ToStringBuilder;
+import org.codegist.crest.page.CursorPaginator;
 import org.codehaus.jackson.annotate.JsonProperty;
 
 /**
@@ -47,6 +48,20 @@ public abstract class Cursor<T> {
         }
     }
 
+    /**
+     * Walks through the cursor pages, passing each page next cursor in the "cursor" parameter until Twitter returns 0.
+     */
+    public static class NextCursorPaginator extends CursorPaginator<Cursor<?>> {
+
+        public NextCursorPaginator() {
+            super("cursor");
+        }
+
+        protected Object getNextCursor(Cursor<?> page) {
+            return page.getNextCursor() != 0 ? page.getNextCursor() : null;
+        }
+    }
+
     public long getNextCursor() {
         return nextCursor;
     }
@@ -112,6 +112,12 @@ public interface StatusService {
             @QueryParam("screen_name") String screenName,
             @QueryParam("cursor") long cursor);
 
+    @Path("/friends.json")
+    @Paginated(Cursor.NextCursorPaginator.class)
+    Iterable<Cursor.User> getAllFriends(
+            @QueryParam("screen_name") String screenName,
+            @QueryParam("cursor") long cursor);
+
     @Path("/followers.json")
     User[] getFollowers(
             @QueryParam("user_id") long userId,